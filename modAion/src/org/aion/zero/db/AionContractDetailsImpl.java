@@ -30,8 +30,11 @@ import static org.aion.crypto.HashUtil.h256;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import org.aion.base.db.IByteArrayKeyValueStore;
 import org.aion.base.db.IContractDetails;
 import org.aion.base.type.Address;
@@ -39,6 +42,7 @@ import org.aion.base.util.ByteArrayWrapper;
 import org.aion.base.vm.IDataWord;
 import org.aion.mcf.db.AbstractContractDetails;
 import org.aion.mcf.ds.XorDataSource;
+import org.aion.mcf.trie.CleanNodeCache;
 import org.aion.mcf.trie.SecureTrie;
 import org.aion.mcf.vm.types.DataWord;
 import org.aion.mcf.vm.types.DoubleDataWord;
@@ -47,8 +51,22 @@ import org.aion.rlp.RLPElement;
 import org.aion.rlp.RLPItem;
 import org.aion.rlp.RLPList;
 
+/**
+ * Contract details with the storage kept in a trie.
+ *
+ * <p>Once the details have a data source, the storage trie nodes and the code are kept in the
+ * external storage and the encoding holds only the address, the storage root and the code hashes:
+ * {@code [address, storageRoot, [codeHash...]]}. Each sync then writes only the trie nodes changed
+ * since the previous one. Details without a data source keep the whole storage trie in their
+ * encoding: {@code [address, isExternalStorage, storageRoot, storage, [code...]]}. Records in this
+ * older format that are decoded with a data source move to the external storage on their next
+ * update.
+ */
 public class AionContractDetailsImpl extends AbstractContractDetails<IDataWord> {
 
+    /** The number of elements in the encoding of details with external storage. */
+    private static final int EXTERNAL_ENCODING_SIZE = 3;
+
     private IByteArrayKeyValueStore dataSource;
 
     private byte[] rlpEncoded;
@@ -60,6 +78,9 @@ public class AionContractDetailsImpl extends AbstractContractDetails<IDataWord>
     public boolean externalStorage;
     private IByteArrayKeyValueStore externalStorageDataSource;
 
+    /** The hashes of the codes already written to the external storage. */
+    private final Set<ByteArrayWrapper> storedCodes = new HashSet<>();
+
     public AionContractDetailsImpl() {}
 
     public AionContractDetailsImpl(int prune, int memStorageLimit) {
@@ -81,6 +102,18 @@ public class AionContractDetailsImpl extends AbstractContractDetails<IDataWord>
         decode(code);
     }
 
+    @Override
+    public void setCode(byte[] code) {
+        super.setCode(code);
+        this.rlpEncoded = null;
+    }
+
+    @Override
+    public void appendCodes(Map<ByteArrayWrapper, byte[]> codes) {
+        super.appendCodes(codes);
+        this.rlpEncoded = null;
+    }
+
     /**
      * Adds the key-value pair to the database unless value is an IDataWord whose underlying byte
      * array consists only of zeros. In this case, if key already exists in the database it will be
@@ -163,26 +196,24 @@ public class AionContractDetailsImpl extends AbstractContractDetails<IDataWord>
         RLPList data = RLP.decode2(rlpCode);
         RLPList rlpList = (RLPList) data.get(0);
 
+        if (rlpList.size() == EXTERNAL_ENCODING_SIZE) {
+            decodeExternal(rlpList, rlpCode, fastCheck);
+            return;
+        }
+
         RLPItem isExternalStorage = (RLPItem) rlpList.get(1);
         RLPItem storage = (RLPItem) rlpList.get(3);
         this.externalStorage = isExternalStorage.getRLPData().length > 0;
-        boolean keepStorageInMem = storage.getRLPData().length <= detailsInMemoryStorageLimit;
 
         // No externalStorage require.
-        if (fastCheck && !externalStorage && keepStorageInMem) {
+        if (fastCheck && !externalStorage) {
             return;
         }
 
-        RLPItem address = (RLPItem) rlpList.get(0);
+        decodeAddress((RLPItem) rlpList.get(0));
         RLPItem storageRoot = (RLPItem) rlpList.get(2);
         RLPElement code = rlpList.get(4);
 
-        if (address.getRLPData() == null) {
-            this.address = Address.EMPTY_ADDRESS();
-        } else {
-            this.address = Address.wrap(address.getRLPData());
-        }
-
         if (code instanceof RLPList) {
             for (RLPElement e : ((RLPList) code)) {
                 setCode(e.getRLPData());
@@ -194,20 +225,72 @@ public class AionContractDetailsImpl extends AbstractContractDetails<IDataWord>
         // load/deserialize storage trie
         if (externalStorage) {
             storageTrie = new SecureTrie(getExternalStorageDataSource(), storageRoot.getRLPData());
+            storageTrie.withCleanNodeCache(storageNodeCache);
         } else {
+            // kept in memory until the nodes are written on the switch to the external storage
+            storageTrie = new SecureTrie(null);
             storageTrie.deserialize(storage.getRLPData());
         }
         storageTrie.withPruningEnabled(prune > 0);
 
-        // switch from in-memory to external storage
-        if (!externalStorage && !keepStorageInMem) {
-            externalStorage = true;
-            storageTrie.getCache().setDB(getExternalStorageDataSource());
+        // with a data source, the older format is replaced on the next update (see syncStorage)
+        this.rlpEncoded = hasExternalStorageDataSource() ? null : rlpCode;
+    }
+
+    /** Decodes the encoding of details whose storage and code are in the external storage. */
+    private void decodeExternal(RLPList rlpList, byte[] rlpCode, boolean fastCheck) {
+        this.externalStorage = true;
+
+        // the storage is synced each time the details are updated
+        if (fastCheck) {
+            return;
+        }
+
+        decodeAddress((RLPItem) rlpList.get(0));
+        byte[] storageRoot = rlpList.get(1).getRLPData();
+
+        IByteArrayKeyValueStore externalDataSource = getExternalStorageDataSource();
+        for (RLPElement codeHash : (RLPList) rlpList.get(2)) {
+            Optional<byte[]> code = externalDataSource.get(codeHash.getRLPData());
+            if (code.isPresent()) {
+                getCodes().put(wrap(codeHash.getRLPData()), code.get());
+                storedCodes.add(wrap(codeHash.getRLPData()));
+            }
         }
 
+        storageTrie =
+                wrap(storageRoot).equals(wrap(EMPTY_TRIE_HASH))
+                        ? new SecureTrie(externalDataSource)
+                        : new SecureTrie(externalDataSource, storageRoot);
+        storageTrie.withCleanNodeCache(storageNodeCache);
+        storageTrie.withPruningEnabled(prune > 0);
+
         this.rlpEncoded = rlpCode;
     }
 
+    private void decodeAddress(RLPItem address) {
+        if (address.getRLPData() == null) {
+            this.address = Address.EMPTY_ADDRESS();
+        } else {
+            this.address = Address.wrap(address.getRLPData());
+        }
+    }
+
+    private boolean hasExternalStorageDataSource() {
+        return dataSource != null || externalStorageDataSource != null;
+    }
+
+    /**
+     * Moves the storage trie kept in memory to the external storage. The nodes already in the trie
+     * are written at once, the others by the sync that follows.
+     */
+    private void switchToExternalStorage() {
+        externalStorage = true;
+        storageTrie.getCache().setDB(getExternalStorageDataSource());
+        storageTrie.withCleanNodeCache(storageNodeCache);
+        this.rlpEncoded = null;
+    }
+
     /**
      * Returns an rlp encoding of this AionContractDetailsImpl object.
      *
@@ -216,24 +299,39 @@ public class AionContractDetailsImpl extends AbstractContractDetails<IDataWord>
     @Override
     public byte[] getEncoded() {
         if (rlpEncoded == null) {
-
             byte[] rlpAddress = RLP.encodeElement(address.toBytes());
-            byte[] rlpIsExternalStorage = RLP.encodeByte((byte) (externalStorage ? 1 : 0));
-            byte[] rlpStorageRoot =
-                    RLP.encodeElement(
-                            externalStorage ? storageTrie.getRootHash() : EMPTY_BYTE_ARRAY);
-            byte[] rlpStorage =
-                    RLP.encodeElement(externalStorage ? EMPTY_BYTE_ARRAY : storageTrie.serialize());
-            byte[][] codes = new byte[getCodes().size()][];
-            int i = 0;
-            for (byte[] bytes : this.getCodes().values()) {
-                codes[i++] = RLP.encodeElement(bytes);
-            }
-            byte[] rlpCode = RLP.encodeList(codes);
 
-            this.rlpEncoded =
-                    RLP.encodeList(
-                            rlpAddress, rlpIsExternalStorage, rlpStorageRoot, rlpStorage, rlpCode);
+            if (externalStorage) {
+                byte[][] codeHashes = new byte[getCodes().size()][];
+                int i = 0;
+                for (ByteArrayWrapper hash : this.getCodes().keySet()) {
+                    codeHashes[i++] = RLP.encodeElement(hash.getData());
+                }
+
+                this.rlpEncoded =
+                        RLP.encodeList(
+                                rlpAddress,
+                                RLP.encodeElement(storageTrie.getRootHash()),
+                                RLP.encodeList(codeHashes));
+            } else {
+                byte[] rlpIsExternalStorage = RLP.encodeByte((byte) 0);
+                byte[] rlpStorageRoot = RLP.encodeElement(EMPTY_BYTE_ARRAY);
+                byte[] rlpStorage = RLP.encodeElement(storageTrie.serialize());
+                byte[][] codes = new byte[getCodes().size()][];
+                int i = 0;
+                for (byte[] bytes : this.getCodes().values()) {
+                    codes[i++] = RLP.encodeElement(bytes);
+                }
+                byte[] rlpCode = RLP.encodeList(codes);
+
+                this.rlpEncoded =
+                        RLP.encodeList(
+                                rlpAddress,
+                                rlpIsExternalStorage,
+                                rlpStorageRoot,
+                                rlpStorage,
+                                rlpCode);
+            }
         }
 
         return rlpEncoded;
@@ -313,14 +411,35 @@ public class AionContractDetailsImpl extends AbstractContractDetails<IDataWord>
         this.rlpEncoded = null;
     }
 
-    /** Syncs the storage trie. */
+    /**
+     * Syncs the storage trie and writes the new code to the external storage. Details kept in
+     * memory move to the external storage once they have a data source, after which {@link
+     * #getEncoded()} returns the compact encoding.
+     */
     @Override
     public void syncStorage() {
+        if (!externalStorage && hasExternalStorageDataSource()) {
+            switchToExternalStorage();
+        }
+
         if (externalStorage) {
+            for (Map.Entry<ByteArrayWrapper, byte[]> code : getCodes().entrySet()) {
+                if (storedCodes.add(code.getKey())) {
+                    getExternalStorageDataSource().put(code.getKey().getData(), code.getValue());
+                }
+            }
             storageTrie.sync();
         }
     }
 
+    @Override
+    public void setStorageNodeCache(CleanNodeCache storageNodeCache) {
+        super.setStorageNodeCache(storageNodeCache);
+        if (externalStorage) {
+            storageTrie.withCleanNodeCache(storageNodeCache);
+        }
+    }
+
     /**
      * Sets the data source to dataSource.
      *
@@ -353,6 +472,7 @@ public class AionContractDetailsImpl extends AbstractContractDetails<IDataWord>
         this.externalStorageDataSource = dataSource;
         this.externalStorage = true;
         this.storageTrie = new SecureTrie(getExternalStorageDataSource());
+        this.storageTrie.withCleanNodeCache(storageNodeCache);
     }
 
     /**
@@ -380,6 +500,8 @@ public class AionContractDetailsImpl extends AbstractContractDetails<IDataWord>
         details.externalStorage = this.externalStorage;
         details.externalStorageDataSource = this.externalStorageDataSource;
         details.dataSource = dataSource;
+        details.storedCodes.addAll(storedCodes);
+        details.storageNodeCache = storageNodeCache;
 
         return details;
     }
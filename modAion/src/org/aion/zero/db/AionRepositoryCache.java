@@ -50,6 +50,17 @@ public class AionRepositoryCache extends AbstractRepositoryCache<IBlockStoreBase
         return new AionRepositoryCache(this);
     }
 
+    /** Drops any cached changes to the given account, so they will not be flushed. */
+    public void discard(Address address) {
+        fullyWriteLock();
+        try {
+            cachedAccounts.remove(address);
+            cachedDetails.remove(address);
+        } finally {
+            fullyWriteUnlock();
+        }
+    }
+
     /**
      * @implNote To maintain intended functionality this method does not call the parent's {@code
      *     flush()} method. The changes are propagated to the parent through calling the parent's
@@ -36,8 +36,8 @@ import org.aion.base.util.ByteUtil;
 import org.aion.base.util.Utils;
 import org.aion.crypto.HashUtil;
 import org.aion.mcf.types.AbstractBlockHeader;
-import org.aion.rlp.RLP;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPEncoder;
+import org.aion.rlp.RLPView;
 import org.aion.zero.exceptions.HeaderStructureException;
 import org.json.JSONObject;
 
@@ -87,77 +87,66 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
     }
 
     public A0BlockHeader(byte[] encoded) {
-        this((RLPList) RLP.decode2(encoded).get(0));
+        this(RLPView.wrap(encoded));
     }
 
-    public A0BlockHeader(RLPList rlpHeader) {
+    public A0BlockHeader(RLPView rlpView) {
+        RLPView[] rlpHeader = rlpView.getElements();
 
         // Version
-        byte[] versionBytes = rlpHeader.get(RPL_BH_VERSION).getRLPData();
+        byte[] versionBytes = rlpHeader[RPL_BH_VERSION].getBytes();
         this.version = versionBytes.length == 1 ? versionBytes[0] : 1;
 
         // Number
-        byte[] nrBytes = rlpHeader.get(RPL_BH_NUMBER).getRLPData();
-        this.number = nrBytes == null ? 0 : (new BigInteger(1, nrBytes)).longValue();
+        this.number = rlpHeader[RPL_BH_NUMBER].getLong();
 
         // ParentHash
-        this.parentHash = rlpHeader.get(RPL_BH_PARENTHASH).getRLPData();
+        this.parentHash = rlpHeader[RPL_BH_PARENTHASH].getBytes();
 
         // CoinBase
-        byte[] data = rlpHeader.get(RPL_BH_COINBASE).getRLPData();
-        this.coinbase =
-                (data == null)
-                        ? Address.EMPTY_ADDRESS()
-                        : Address.wrap(rlpHeader.get(RPL_BH_COINBASE).getRLPData());
+        byte[] data = rlpHeader[RPL_BH_COINBASE].getBytes();
+        this.coinbase = (data == null) ? Address.EMPTY_ADDRESS() : Address.wrap(data);
 
         // StateRoot
-        this.stateRoot = rlpHeader.get(RPL_BH_STATEROOT).getRLPData();
+        this.stateRoot = rlpHeader[RPL_BH_STATEROOT].getBytes();
 
         // TxTrieRoot
-        this.txTrieRoot = rlpHeader.get(RPL_BH_TXTRIE).getRLPData();
+        this.txTrieRoot = rlpHeader[RPL_BH_TXTRIE].getBytes();
         if (this.txTrieRoot == null) {
             this.txTrieRoot = EMPTY_TRIE_HASH;
         }
 
         // ReceiptTrieRoot
-        this.receiptTrieRoot = rlpHeader.get(RPL_BH_RECEIPTTRIE).getRLPData();
+        this.receiptTrieRoot = rlpHeader[RPL_BH_RECEIPTTRIE].getBytes();
         if (this.receiptTrieRoot == null) {
             this.receiptTrieRoot = EMPTY_TRIE_HASH;
         }
 
         // LogsBloom
-        this.logsBloom = rlpHeader.get(RPL_BH_LOGSBLOOM).getRLPData();
+        this.logsBloom = rlpHeader[RPL_BH_LOGSBLOOM].getBytes();
 
         // Difficulty
-        this.difficulty = rlpHeader.get(RPL_BH_DIFFICULTY).getRLPData();
+        this.difficulty = rlpHeader[RPL_BH_DIFFICULTY].getBytes();
 
         // ExtraData
-        this.extraData = rlpHeader.get(RPL_BH_EXTRADATA).getRLPData();
+        this.extraData = rlpHeader[RPL_BH_EXTRADATA].getBytes();
 
         // Energy Consumed
-        byte[] energyConsumedBytes = rlpHeader.get(RPL_BH_NRG_CONSUMED).getRLPData();
-        this.energyConsumed =
-                energyConsumedBytes == null
-                        ? 0
-                        : (new BigInteger(1, energyConsumedBytes).longValue());
+        this.energyConsumed = rlpHeader[RPL_BH_NRG_CONSUMED].getLong();
 
         // Energy Limit
-        byte[] energyLimitBytes = rlpHeader.get(RPL_BH_NRG_LIMIT).getRLPData();
-        this.energyLimit =
-                energyLimitBytes == null ? 0 : (new BigInteger(1, energyLimitBytes).longValue());
+        this.energyLimit = rlpHeader[RPL_BH_NRG_LIMIT].getLong();
 
         // Timestamp
-        byte[] tsBytes = rlpHeader.get(RPL_BH_TIMESTAMP).getRLPData();
-
         // TODO: not a huge concern, but how should we handle possible
         // overflows?
-        this.timestamp = tsBytes == null ? 0 : (new BigInteger(1, tsBytes)).longValue();
+        this.timestamp = rlpHeader[RPL_BH_TIMESTAMP].getLong();
 
         // Nonce
-        this.nonce = rlpHeader.get(RPL_BH_NONCE).getRLPData();
+        this.nonce = rlpHeader[RPL_BH_NONCE].getBytes();
 
         // Solution
-        this.solution = rlpHeader.get(RPL_BH_SOLUTION).getRLPData();
+        this.solution = rlpHeader[RPL_BH_SOLUTION].getBytes();
     }
 
     /**
@@ -268,67 +257,50 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
 
     public byte[] getEncoded(boolean withNonce) {
 
-        byte[] versionBytes = {this.version};
-
-        byte[] RLPversion = RLP.encodeElement(versionBytes);
-        byte[] number = RLP.encodeBigInteger(BigInteger.valueOf(this.number));
-        byte[] parentHash = RLP.encodeElement(this.parentHash);
-        byte[] coinbase = RLP.encodeElement(this.coinbase.toBytes());
-        byte[] stateRoot = RLP.encodeElement(this.stateRoot);
-
         if (txTrieRoot == null) {
             this.txTrieRoot = EMPTY_TRIE_HASH;
         }
-        byte[] txTrieRoot = RLP.encodeElement(this.txTrieRoot);
-
         if (receiptTrieRoot == null) {
             this.receiptTrieRoot = EMPTY_TRIE_HASH;
         }
-        byte[] receiptTrieRoot = RLP.encodeElement(this.receiptTrieRoot);
-        byte[] logsBloom = RLP.encodeElement(this.logsBloom);
-        byte[] difficulty = RLP.encodeElement(this.difficulty);
-        byte[] extraData = RLP.encodeElement(this.extraData);
-        byte[] energyConsumed = RLP.encodeBigInteger(BigInteger.valueOf(this.energyConsumed));
-        byte[] energyLimit = RLP.encodeBigInteger(BigInteger.valueOf(this.energyLimit));
-
-        byte[] timestamp = RLP.encodeBigInteger(BigInteger.valueOf(this.timestamp));
-
-        byte[] solution = RLP.encodeElement(this.solution);
-
-        if (withNonce) {
-            byte[] nonce = RLP.encodeElement(this.nonce);
-            return RLP.encodeList(
-                    RLPversion,
-                    number,
-                    parentHash,
-                    coinbase,
-                    stateRoot,
-                    txTrieRoot,
-                    receiptTrieRoot,
-                    logsBloom,
-                    difficulty,
-                    extraData,
-                    energyConsumed,
-                    energyLimit,
-                    timestamp,
-                    nonce,
-                    solution);
-        } else {
-            return RLP.encodeList(
-                    RLPversion,
-                    parentHash,
-                    coinbase,
-                    stateRoot,
-                    txTrieRoot,
-                    receiptTrieRoot,
-                    logsBloom,
-                    difficulty,
-                    number,
-                    timestamp,
-                    extraData,
-                    solution,
-                    energyConsumed,
-                    energyLimit);
+
+        byte[] versionBytes = {this.version};
+
+        try (RLPEncoder encoder = RLPEncoder.acquire()) {
+            encoder.startList();
+            if (withNonce) {
+                encoder.writeElement(versionBytes)
+                        .writeBigInteger(BigInteger.valueOf(this.number))
+                        .writeElement(this.parentHash)
+                        .writeElement(this.coinbase.toBytes())
+                        .writeElement(this.stateRoot)
+                        .writeElement(this.txTrieRoot)
+                        .writeElement(this.receiptTrieRoot)
+                        .writeElement(this.logsBloom)
+                        .writeElement(this.difficulty)
+                        .writeElement(this.extraData)
+                        .writeBigInteger(BigInteger.valueOf(this.energyConsumed))
+                        .writeBigInteger(BigInteger.valueOf(this.energyLimit))
+                        .writeBigInteger(BigInteger.valueOf(this.timestamp))
+                        .writeElement(this.nonce)
+                        .writeElement(this.solution);
+            } else {
+                encoder.writeElement(versionBytes)
+                        .writeElement(this.parentHash)
+                        .writeElement(this.coinbase.toBytes())
+                        .writeElement(this.stateRoot)
+                        .writeElement(this.txTrieRoot)
+                        .writeElement(this.receiptTrieRoot)
+                        .writeElement(this.logsBloom)
+                        .writeElement(this.difficulty)
+                        .writeBigInteger(BigInteger.valueOf(this.number))
+                        .writeBigInteger(BigInteger.valueOf(this.timestamp))
+                        .writeElement(this.extraData)
+                        .writeElement(this.solution)
+                        .writeBigInteger(BigInteger.valueOf(this.energyConsumed))
+                        .writeBigInteger(BigInteger.valueOf(this.energyLimit));
+            }
+            return encoder.endList().toByteArray();
         }
     }
 
@@ -490,85 +462,86 @@ public class A0BlockHeader extends AbstractBlockHeader implements IPowBlockHeade
     }
 
     public static A0BlockHeader fromRLP(byte[] rawData, boolean isUnsafe) throws Exception {
-        return fromRLP((RLPList) RLP.decode2(rawData).get(0), isUnsafe);
+        return fromRLP(RLPView.wrap(rawData), isUnsafe);
     }
 
     /**
      * Construct a block header from RLP
      *
-     * @param rlpHeader
+     * @param rlpView
      * @param isUnsafe
      * @return
      */
-    public static A0BlockHeader fromRLP(RLPList rlpHeader, boolean isUnsafe) throws Exception {
+    public static A0BlockHeader fromRLP(RLPView rlpView, boolean isUnsafe) throws Exception {
+        RLPView[] rlpHeader = rlpView.getElements();
         Builder builder = new Builder();
         if (isUnsafe) {
             builder.fromUnsafeSource();
         }
 
         // Version
-        byte[] version = rlpHeader.get(RPL_BH_VERSION).getRLPData();
+        byte[] version = rlpHeader[RPL_BH_VERSION].getBytes();
         if (version != null && version.length == 1) builder.withVersion(version[0]);
 
         // Number
-        byte[] nrBytes = rlpHeader.get(RPL_BH_NUMBER).getRLPData();
+        byte[] nrBytes = rlpHeader[RPL_BH_NUMBER].getBytes();
         if (nrBytes != null) {
             builder.withNumber(nrBytes);
         }
 
         // Parent Hash
-        builder.withParentHash(rlpHeader.get(RPL_BH_PARENTHASH).getRLPData());
+        builder.withParentHash(rlpHeader[RPL_BH_PARENTHASH].getBytes());
 
         // Coinbase (miner)
-        builder.withCoinbase(new Address(rlpHeader.get(RPL_BH_COINBASE).getRLPData()));
+        builder.withCoinbase(new Address(rlpHeader[RPL_BH_COINBASE].getBytes()));
 
         // State root
-        builder.withStateRoot(rlpHeader.get(RPL_BH_STATEROOT).getRLPData());
+        builder.withStateRoot(rlpHeader[RPL_BH_STATEROOT].getBytes());
 
         // TxTrie root
-        byte[] txTrieRoot = rlpHeader.get(RPL_BH_TXTRIE).getRLPData();
+        byte[] txTrieRoot = rlpHeader[RPL_BH_TXTRIE].getBytes();
         if (txTrieRoot != null) {
             builder.withTxTrieRoot(txTrieRoot);
         }
 
         // Receipt Trie root
-        byte[] receiptTrieRoot = rlpHeader.get(RPL_BH_RECEIPTTRIE).getRLPData();
+        byte[] receiptTrieRoot = rlpHeader[RPL_BH_RECEIPTTRIE].getBytes();
         if (receiptTrieRoot != null) {
             builder.withReceiptTrieRoot(receiptTrieRoot);
         }
 
         // LogsBloom
-        builder.withLogsBloom(rlpHeader.get(RPL_BH_LOGSBLOOM).getRLPData());
+        builder.withLogsBloom(rlpHeader[RPL_BH_LOGSBLOOM].getBytes());
 
         // Difficulty
-        builder.withDifficulty(rlpHeader.get(RPL_BH_DIFFICULTY).getRLPData());
+        builder.withDifficulty(rlpHeader[RPL_BH_DIFFICULTY].getBytes());
 
         // ExtraData
-        builder.withExtraData(rlpHeader.get(RPL_BH_EXTRADATA).getRLPData());
+        builder.withExtraData(rlpHeader[RPL_BH_EXTRADATA].getBytes());
 
         // Energy Consumed
-        byte[] energyConsumedBytes = rlpHeader.get(RPL_BH_NRG_CONSUMED).getRLPData();
+        byte[] energyConsumedBytes = rlpHeader[RPL_BH_NRG_CONSUMED].getBytes();
         if (energyConsumedBytes != null) {
             builder.withEnergyConsumed(energyConsumedBytes);
         }
 
         // Energy limit
-        byte[] energyLimitBytes = rlpHeader.get(RPL_BH_NRG_LIMIT).getRLPData();
+        byte[] energyLimitBytes = rlpHeader[RPL_BH_NRG_LIMIT].getBytes();
         if (energyLimitBytes != null) {
             builder.withEnergyLimit(energyLimitBytes);
         }
 
         // Timestamp
-        byte[] tsBytes = rlpHeader.get(RPL_BH_TIMESTAMP).getRLPData();
+        byte[] tsBytes = rlpHeader[RPL_BH_TIMESTAMP].getBytes();
         if (tsBytes != null) {
             builder.withTimestamp(tsBytes);
         }
 
         // Nonce
-        builder.withNonce(rlpHeader.get(RPL_BH_NONCE).getRLPData());
+        builder.withNonce(rlpHeader[RPL_BH_NONCE].getBytes());
 
         // Solution
-        builder.withSolution(rlpHeader.get(RPL_BH_SOLUTION).getRLPData());
+        builder.withSolution(rlpHeader[RPL_BH_SOLUTION].getBytes());
 
         return builder.build();
     }
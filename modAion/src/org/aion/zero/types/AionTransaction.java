@@ -38,8 +38,8 @@ import org.aion.crypto.SignatureFac;
 import org.aion.mcf.types.AbstractTransaction;
 import org.aion.mcf.vm.Constants;
 import org.aion.mcf.vm.types.DataWord;
-import org.aion.rlp.RLP;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPEncoder;
+import org.aion.rlp.RLPView;
 
 /** Aion transaction class. */
 public class AionTransaction extends AbstractTransaction {
@@ -69,9 +69,10 @@ public class AionTransaction extends AbstractTransaction {
     private long nrgConsume = 0;
 
     /*
-     * Indicates if this transaction has been parsed from the RLP-encoded data
+     * Indicates if this transaction has been parsed from the RLP-encoded data.
+     * Volatile because blocks read from the block store cache are shared between threads.
      */
-    protected boolean parsed = false;
+    protected volatile boolean parsed = false;
 
     public AionTransaction(byte[] encodedData) {
         this.rlpEncoded = encodedData;
@@ -133,25 +134,19 @@ public class AionTransaction extends AbstractTransaction {
 
     public void rlpParse() {
 
-        RLPList decodedTxList = RLP.decode2(rlpEncoded);
-        RLPList tx = (RLPList) decodedTxList.get(0);
+        RLPView[] tx = RLPView.wrap(rlpEncoded).getElements();
 
-        this.nonce = tx.get(RLP_TX_NONCE).getRLPData();
-        this.value = tx.get(RLP_TX_VALUE).getRLPData();
-        this.data = tx.get(RLP_TX_DATA).getRLPData();
+        this.nonce = tx[RLP_TX_NONCE].getBytes();
+        this.value = tx[RLP_TX_VALUE].getBytes();
+        this.data = tx[RLP_TX_DATA].getBytes();
+        this.to = Address.wrap(tx[RLP_TX_TO].getBytes());
 
-        if (tx.get(RLP_TX_TO).getRLPData() == null) {
-            this.to = null;
-        } else {
-            this.to = Address.wrap(tx.get(RLP_TX_TO).getRLPData());
-        }
+        this.timeStamp = tx[RLP_TX_TIMESTAMP].getBytes();
+        this.nrg = tx[RLP_TX_NRG].getLong();
+        this.nrgPrice = tx[RLP_TX_NRGPRICE].getLong();
+        this.type = (byte) tx[RLP_TX_TYPE].getLong();
 
-        this.timeStamp = tx.get(RLP_TX_TIMESTAMP).getRLPData();
-        this.nrg = new BigInteger(1, tx.get(RLP_TX_NRG).getRLPData()).longValue();
-        this.nrgPrice = new BigInteger(1, tx.get(RLP_TX_NRGPRICE).getRLPData()).longValue();
-        this.type = new BigInteger(1, tx.get(RLP_TX_TYPE).getRLPData()).byteValue();
-
-        byte[] sigs = tx.get(RLP_TX_SIG).getRLPData();
+        byte[] sigs = tx[RLP_TX_SIG].getBytes();
         if (sigs != null) {
             // Singature Factory will decode the signature based on the algo
             // presetted in main() entry.
@@ -387,23 +382,11 @@ public class AionTransaction extends AbstractTransaction {
             return rlpRaw;
         }
 
-        byte[] nonce = RLP.encodeElement(this.nonce);
-
-        byte[] to;
-        if (this.to == null) {
-            to = RLP.encodeElement(null);
-        } else {
-            to = RLP.encodeElement(this.to.toBytes());
+        try (RLPEncoder encoder = RLPEncoder.acquire()) {
+            encoder.startList();
+            encodeFields(encoder);
+            rlpRaw = encoder.endList().toByteArray();
         }
-
-        byte[] value = RLP.encodeElement(this.value);
-        byte[] data = RLP.encodeElement(this.data);
-        byte[] timeStamp = RLP.encodeElement(this.timeStamp);
-        byte[] nrg = RLP.encodeLong(this.nrg);
-        byte[] nrgPrice = RLP.encodeLong(this.nrgPrice);
-        byte[] type = RLP.encodeByte(this.type);
-
-        rlpRaw = RLP.encodeList(nonce, to, value, data, timeStamp, nrg, nrgPrice, type);
         return rlpRaw;
     }
 
@@ -413,37 +396,34 @@ public class AionTransaction extends AbstractTransaction {
             return rlpEncoded;
         }
 
-        byte[] nonce = RLP.encodeElement(this.nonce);
-
-        byte[] to;
-        if (this.to == null) {
-            to = RLP.encodeElement(null);
-        } else {
-            to = RLP.encodeElement(this.to.toBytes());
-        }
-
-        byte[] value = RLP.encodeElement(this.value);
-        byte[] data = RLP.encodeElement(this.data);
-        byte[] timeStamp = RLP.encodeElement(this.timeStamp);
-        byte[] nrg = RLP.encodeLong(this.nrg);
-        byte[] nrgPrice = RLP.encodeLong(this.nrgPrice);
-        byte[] type = RLP.encodeByte(this.type);
-
-        byte[] sigs;
-
         if (signature == null) {
             LOG.error("Encoded transaction has no signature!");
             return null;
         }
 
-        sigs = RLP.encodeElement(signature.toBytes());
-        this.rlpEncoded =
-                RLP.encodeList(nonce, to, value, data, timeStamp, nrg, nrgPrice, type, sigs);
+        try (RLPEncoder encoder = RLPEncoder.acquire()) {
+            encoder.startList();
+            encodeFields(encoder);
+            encoder.writeElement(signature.toBytes());
+            this.rlpEncoded = encoder.endList().toByteArray();
+        }
         this.hash = this.getHash();
 
         return rlpEncoded;
     }
 
+    /** Writes the fields of the transaction other than the signature. */
+    private void encodeFields(RLPEncoder encoder) {
+        encoder.writeElement(this.nonce)
+                .writeElement(this.to == null ? null : this.to.toBytes())
+                .writeElement(this.value)
+                .writeElement(this.data)
+                .writeElement(this.timeStamp)
+                .writeLong(this.nrg)
+                .writeLong(this.nrgPrice)
+                .writeByte(this.type);
+    }
+
     @Override
     public int hashCode() {
 
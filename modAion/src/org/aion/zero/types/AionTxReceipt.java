@@ -37,6 +37,7 @@ import org.aion.mcf.vm.types.Bloom;
 import org.aion.mcf.vm.types.Log;
 import org.aion.rlp.RLP;
 import org.aion.rlp.RLPElement;
+import org.aion.rlp.RLPEncoder;
 import org.aion.rlp.RLPItem;
 import org.aion.rlp.RLPList;
 
@@ -126,33 +127,26 @@ public class AionTxReceipt extends AbstractTxReceipt<AionTransaction> {
      * @return {@code rlpEncoded} byte array representing the receipt
      */
     private byte[] getEncoded(boolean receiptTrie) {
+        try (RLPEncoder encoder = RLPEncoder.acquire()) {
+            encoder.startList()
+                    .writeElement(this.postTxState)
+                    .writeElement(this.bloomFilter.data);
+
+            encoder.startList();
+            if (logInfoList != null) {
+                for (Log logInfo : logInfoList) {
+                    logInfo.encode(encoder);
+                }
+            }
+            encoder.endList();
 
-        byte[] postTxStateRLP = RLP.encodeElement(this.postTxState);
-        byte[] bloomRLP = RLP.encodeElement(this.bloomFilter.data);
-
-        final byte[] logInfoListRLP;
-        if (logInfoList != null) {
-            byte[][] logInfoListE = new byte[logInfoList.size()][];
-
-            int i = 0;
-            for (Log logInfo : logInfoList) {
-                logInfoListE[i] = logInfo.getEncoded();
-                ++i;
+            if (!receiptTrie) {
+                encoder.writeElement(executionResult)
+                        .writeLong(energyUsed)
+                        .writeElement(error.getBytes(StandardCharsets.UTF_8));
             }
-            logInfoListRLP = RLP.encodeList(logInfoListE);
-        } else {
-            logInfoListRLP = RLP.encodeList();
+            return encoder.endList().toByteArray();
         }
-
-        return receiptTrie
-                ? RLP.encodeList(postTxStateRLP, bloomRLP, logInfoListRLP)
-                : RLP.encodeList(
-                        postTxStateRLP,
-                        bloomRLP,
-                        logInfoListRLP,
-                        RLP.encodeElement(executionResult),
-                        RLP.encodeLong(energyUsed),
-                        RLP.encodeElement(error.getBytes(StandardCharsets.UTF_8)));
     }
 
     /** TODO: check that this is valid, should null == valid? */
@@ -35,4 +35,20 @@
 
 package org.aion.base.db;
 
-public interface IByteArrayKeyValueDatabase extends IByteArrayKeyValueStore, IDatabase {}
+public interface IByteArrayKeyValueDatabase extends IByteArrayKeyValueStore, IDatabase {
+
+    /**
+     * Adds the changes made since the previous commit to the given batch, which makes them
+     * permanent together with the changes to the other databases in the batch.
+     *
+     * @param batch the batch collecting the changes of several databases
+     * @throws RuntimeException if the data store is closed
+     * @implNote Commits the changes directly unless overwritten by the implementation. Has no
+     *     effect when auto-commit is enabled.
+     */
+    default void commitTo(IWriteBatch batch) {
+        if (!isAutoCommitEnabled()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.base.db;
+
+import java.util.Map;
+import org.aion.base.util.ByteArrayWrapper;
+
+/**
+ * Collects the changes to several databases so that they are made permanent together.
+ *
+ * @see IByteArrayKeyValueDatabase#commitTo(IWriteBatch)
+ */
+public interface IWriteBatch {
+
+    /**
+     * Adds changes to the given database. The entries are copied, so the given map may be modified
+     * after the call.
+     *
+     * @param database the database the changes are made to
+     * @param entries the changed key-value pairs, where a {@code null} value deletes the key
+     */
+    void putAll(IByteArrayKeyValueDatabase database, Map<ByteArrayWrapper, byte[]> entries);
+
+    /** @return {@code true} if the batch does not contain any changes */
+    boolean isEmpty();
+
+    /**
+     * Makes all the changes in the batch permanent and clears the batch.
+     *
+     * @return {@code true} if all the changes were successfully committed to storage, {@code
+     *     false} otherwise
+     */
+    boolean commit();
+}
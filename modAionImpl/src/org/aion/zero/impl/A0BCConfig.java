@@ -57,4 +57,16 @@ public interface A0BCConfig {
 
     /** Retrieves the selected energy strategy algorithm */
     AbstractEnergyStrategyLimit getEnergyLimitStrategy();
+
+    /**
+     * Retrieves whether the transactions of imported blocks should be executed optimistically in
+     * parallel.
+     */
+    boolean isParallelExecutionEnabled();
+
+    /**
+     * Retrieves whether imported blocks should be validated ahead of time and flushed to disk in
+     * the background.
+     */
+    boolean isPipelinedImportEnabled();
 }
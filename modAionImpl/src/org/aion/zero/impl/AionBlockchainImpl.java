@@ -57,6 +57,7 @@ import org.aion.base.util.ByteUtil;
 import org.aion.base.util.FastByteComparisons;
 import org.aion.base.util.Hex;
 import org.aion.crypto.HashUtil;
+import org.aion.db.impl.AtomicWriteBatch;
 import org.aion.equihash.EquihashMiner;
 import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.IEventMgr;
@@ -84,6 +85,7 @@ import org.aion.zero.impl.core.energy.AbstractEnergyStrategyLimit;
 import org.aion.zero.impl.core.energy.EnergyStrategies;
 import org.aion.zero.impl.db.AionBlockStore;
 import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.LogBloomIndex;
 import org.aion.zero.impl.sync.SyncMgr;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.impl.types.AionBlockSummary;
@@ -91,6 +93,7 @@ import org.aion.zero.impl.types.AionTxInfo;
 import org.aion.zero.impl.types.RetValidPreBlock;
 import org.aion.zero.impl.valid.TXValidator;
 import org.aion.zero.impl.vm.AionExecutorProvider;
+import org.aion.zero.impl.vm.ParallelBlockExecutor;
 import org.aion.zero.types.A0BlockHeader;
 import org.aion.zero.types.AionTransaction;
 import org.aion.zero.types.AionTxExecSummary;
@@ -161,6 +164,23 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
     private AbstractEnergyStrategyLimit energyLimitStrategy;
 
+    /** Optimistic parallel transaction execution for block import, {@code null} if disabled. */
+    private ParallelBlockExecutor parallelExecutor = null;
+
+    /** Validation ahead of import and background flushing, {@code null} if disabled. */
+    private BlockPrevalidator prevalidator = null;
+
+    private BlockFlusher flusher = null;
+
+    /** The block template that is extended with new pending transactions, if mining. */
+    private volatile BlockTemplate blockTemplate = null;
+
+    /** The maximum number of blocks validated ahead of import. */
+    private static final int PREVALIDATION_CAPACITY = 256;
+
+    /** The maximum number of imported blocks that may be pending a flush to disk. */
+    private static final int MAX_UNFLUSHED_BLOCKS = 8;
+
     /**
      * Chain configuration class, because chain configuration may change dependant on the block
      * being executed. This is simple for now but in the future we may have to create a "chain
@@ -212,6 +232,16 @@ public class AionBlockchainImpl implements IAionBlockchain {
                         cfgAion.getConsensus().getEnergyStrategy(),
                         config);
             }
+
+            @Override
+            public boolean isParallelExecutionEnabled() {
+                return cfgAion.getSync().getParallelExecution();
+            }
+
+            @Override
+            public boolean isPipelinedImportEnabled() {
+                return cfgAion.getSync().getPipelinedImport();
+            }
         };
     }
 
@@ -226,6 +256,11 @@ public class AionBlockchainImpl implements IAionBlockchain {
         this.config = config;
         this.repository = repository;
         this.chainStats = new ChainStatistics();
+        this.chainStats.addCache("blocks", () -> getBlockStore().getBlockCacheStats());
+        this.chainStats.addCache("headers", () -> getBlockStore().getHeaderCacheStats());
+        this.chainStats.addCache("state nodes", () -> getRepository().getStateNodeCacheStats());
+        this.chainStats.addCache("storage nodes", () -> getRepository().getStorageNodeCacheStats());
+        this.chainStats.addCache("tx validation", TXValidator::getCacheStats);
 
         /**
          * Because we dont have any hardforks, later on chain configuration must be determined by
@@ -261,6 +296,20 @@ public class AionBlockchainImpl implements IAionBlockchain {
                     this.chainConfiguration.getConstants().getMaximumExtraDataSize());
         }
         this.energyLimitStrategy = config.getEnergyLimitStrategy();
+
+        if (config.isParallelExecutionEnabled()) {
+            this.parallelExecutor =
+                    new ParallelBlockExecutor(Runtime.getRuntime().availableProcessors());
+        }
+
+        if (config.isPipelinedImportEnabled()) {
+            this.prevalidator =
+                    new BlockPrevalidator(
+                            AionBlockchainImpl::isValidContent,
+                            Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+                            PREVALIDATION_CAPACITY);
+            this.flusher = new BlockFlusher(this::prepareFlush, MAX_UNFLUSHED_BLOCKS);
+        }
     }
 
     /**
@@ -290,6 +339,15 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return repository.getBlockStore();
     }
 
+    public ChainStatistics getChainStatistics() {
+        return chainStats;
+    }
+
+    @Override
+    public LogBloomIndex getLogBloomIndex() {
+        return repository.getLogBloomIndex();
+    }
+
     /**
      * Referenced only by external
      *
@@ -544,6 +602,16 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return tryToConnectInternal(block, System.currentTimeMillis() / THOUSAND_MS);
     }
 
+    /**
+     * Starts validating the given blocks ahead of their import, if pipelined import is enabled.
+     * The blocks should be given in the order in which they will be imported.
+     */
+    public void prevalidate(List<AionBlock> blocks) {
+        if (prevalidator != null) {
+            prevalidator.submit(blocks);
+        }
+    }
+
     public synchronized void compactState() {
         repository.compactState();
     }
@@ -646,7 +714,9 @@ public class AionBlockchainImpl implements IAionBlockchain {
                         LOG.trace("IMPORTED_BEST");
                     }
                     IEvent evtOnBest = new EventBlock(EventBlock.CALLBACK.ONBEST0);
-                    evtOnBest.setFuncArgs(Arrays.asList(block, summary.getReceipts()));
+                    evtOnBest.setFuncArgs(
+                            Arrays.asList(
+                                    block, summary.getReceipts(), summary.getSummaries()));
                     this.evtMgr.newEvent(evtOnBest);
                 }
             }
@@ -706,37 +776,8 @@ public class AionBlockchainImpl implements IAionBlockchain {
                 }
             }
         }
-        long energyLimit = this.energyLimitStrategy.getEnergyLimit(parent.getHeader());
-
-        AionBlock block;
-        try {
-            A0BlockHeader.Builder headerBuilder =
-                    new A0BlockHeader.Builder()
-                            .withVersion((byte) 1)
-                            .withParentHash(parent.getHash())
-                            .withCoinbase(minerCoinbase)
-                            .withNumber(parent.getNumber() + 1)
-                            .withTimestamp(time)
-                            .withExtraData(minerExtraData)
-                            .withTxTrieRoot(calcTxTrie(txs))
-                            .withEnergyLimit(energyLimit);
-            block = new AionBlock(headerBuilder.build(), txs);
-        } catch (HeaderStructureException e) {
-            throw new RuntimeException(e);
-        }
+        AionBlock block = createUnsealedBlock(parent, txs, time);
 
-        IAionBlock grandParent = this.getParent(parent.getHeader());
-        block.getHeader()
-                .setDifficulty(
-                        ByteUtil.bigIntegerToBytes(
-                                this.chainConfiguration
-                                        .getDifficultyCalculator()
-                                        .calculateDifficulty(
-                                                parent.getHeader(),
-                                                grandParent == null
-                                                        ? null
-                                                        : grandParent.getHeader()),
-                                DIFFICULTY_BYTES));
         /*
          * Begin execution phase
          */
@@ -781,6 +822,98 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return new BlockContext(block, baseBlockReward, totalTransactionFee);
     }
 
+    /**
+     * Creates a block template on top of the given parent which is kept to be extended with new
+     * transactions by {@link #extendBlockTemplate(List)}. The existing template is extended with
+     * the given transactions if it was built on the same parent in the current second and does not
+     * include any transaction missing from them. Otherwise it is rebuilt with the current time.
+     *
+     * @param parent block
+     * @param txs to be added into the block
+     * @return the sealed block template
+     */
+    @Override
+    public synchronized BlockContext createBlockTemplate(
+            AionBlock parent, List<AionTransaction> txs) {
+        long time = max(System.currentTimeMillis() / THOUSAND_MS, parent.getTimestamp() + 1);
+
+        BlockTemplate template = blockTemplate;
+        if (template != null
+                && template.isChildOf(parent)
+                && template.getTimestamp() == time
+                && template.isExtendedBy(txs)) {
+            return template.append(txs);
+        }
+
+        AionBlock block = createUnsealedBlock(parent, emptyList(), time);
+
+        template =
+                new BlockTemplate(
+                        block,
+                        (AionRepositoryImpl) repository.getSnapshotTo(parent.getStateRoot()),
+                        this.chainConfiguration.isDeferredStateRoot(),
+                        this.chainConfiguration
+                                .getRewardsCalculator()
+                                .calculateReward(block.getHeader()));
+        BlockContext context = template.append(txs);
+
+        blockTemplate = template;
+        return context;
+    }
+
+    /**
+     * Executes the given transactions on top of the current block template, without executing the
+     * transactions that were already included again.
+     *
+     * @param txs to be appended to the block
+     * @return the sealed block template, or {@code null} if there is no template on top of the
+     *     best block
+     */
+    @Override
+    public synchronized BlockContext extendBlockTemplate(List<AionTransaction> txs) {
+        BlockTemplate template = blockTemplate;
+        if (template == null || !template.isChildOf(bestBlock)) {
+            return null;
+        }
+        return template.append(txs);
+    }
+
+    /** Creates a block on top of the given parent with the header fields known before execution. */
+    private AionBlock createUnsealedBlock(AionBlock parent, List<AionTransaction> txs, long time) {
+        long energyLimit = this.energyLimitStrategy.getEnergyLimit(parent.getHeader());
+
+        AionBlock block;
+        try {
+            A0BlockHeader.Builder headerBuilder =
+                    new A0BlockHeader.Builder()
+                            .withVersion((byte) 1)
+                            .withParentHash(parent.getHash())
+                            .withCoinbase(minerCoinbase)
+                            .withNumber(parent.getNumber() + 1)
+                            .withTimestamp(time)
+                            .withExtraData(minerExtraData)
+                            .withTxTrieRoot(calcTxTrie(txs))
+                            .withEnergyLimit(energyLimit);
+            block = new AionBlock(headerBuilder.build(), txs);
+        } catch (HeaderStructureException e) {
+            throw new RuntimeException(e);
+        }
+
+        IAionBlock grandParent = this.getParent(parent.getHeader());
+        block.getHeader()
+                .setDifficulty(
+                        ByteUtil.bigIntegerToBytes(
+                                this.chainConfiguration
+                                        .getDifficultyCalculator()
+                                        .calculateDifficulty(
+                                                parent.getHeader(),
+                                                grandParent == null
+                                                        ? null
+                                                        : grandParent.getHeader()),
+                                DIFFICULTY_BYTES));
+        return block;
+    }
+
     @Override
     public synchronized AionBlockSummary add(AionBlock block) {
         // typical use without rebuild
@@ -794,7 +927,11 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
             storeBlock(block, receipts);
 
-            flush();
+            if (flusher != null && !fork) {
+                flusher.blockStored();
+            } else {
+                flush();
+            }
         }
 
         return summary;
@@ -890,7 +1027,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
     }
 
     @Override
-    public void flush() {
+    public synchronized void flush() {
         repository.flush();
         try {
             getBlockStore().flush();
@@ -899,6 +1036,28 @@ public class AionBlockchainImpl implements IAionBlockchain {
             e.printStackTrace();
         }
         transactionStore.flush();
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Cache statistics: {}", chainStats.getCacheStats());
+        }
+    }
+
+    /**
+     * Collects the changes of the blocks stored so far, which must be called with the blockchain
+     * locked so that the changes end at a block boundary.
+     *
+     * @return the task writing the changes, which does not need the blockchain lock and throws
+     *     an {@link IllegalStateException} if the changes were not all written
+     */
+    private Runnable prepareFlush() {
+        // the block and transaction stores write to databases of the repository
+        AtomicWriteBatch batch = repository.prepareFlush();
+        return () -> {
+            if (!repository.commitFlush(batch)) {
+                throw new IllegalStateException(
+                        "Unable to commit all the changes to the databases.");
+            }
+        };
     }
 
     @SuppressWarnings("unused")
@@ -985,12 +1144,9 @@ public class AionBlockchainImpl implements IAionBlockchain {
                 return false;
             }
 
-            // Sanity checks
-            String trieHash = toHexString(block.getTxTrieRoot());
-            String trieListHash = toHexString(calcTxTrie(block.getTransactionsList()));
-
-            if (!trieHash.equals(trieListHash)) {
-                LOG.warn("Block's given Trie Hash doesn't match: {} != {}", trieHash, trieListHash);
+            boolean validContent =
+                    prevalidator != null ? prevalidator.isValid(block) : isValidContent(block);
+            if (!validContent) {
                 return false;
             }
 
@@ -1006,11 +1162,6 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
                 Map<Address, BigInteger> nonceCache = new HashMap<>();
 
-                if (txs.parallelStream().anyMatch(tx -> !TXValidator.isValid(tx))) {
-                    LOG.error("Some transactions in the block are invalid");
-                    return false;
-                }
-
                 for (AionTransaction tx : txs) {
                     Address txSender = tx.getFrom();
 
@@ -1041,6 +1192,33 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return true;
     }
 
+    /**
+     * Performs the validation checks that do not depend on the state of the chain: the transaction
+     * trie root and the validity of the individual transactions, including their signatures.
+     */
+    private static boolean isValidContent(AionBlock block) {
+        // Sanity checks
+        String trieHash = toHexString(block.getTxTrieRoot());
+        String trieListHash = toHexString(calcTxTrie(block.getTransactionsList()));
+
+        if (!trieHash.equals(trieListHash)) {
+            LOG.warn("Block's given Trie Hash doesn't match: {} != {}", trieHash, trieListHash);
+            return false;
+        }
+
+        List<AionTransaction> txs = block.getTransactionsList();
+        if (txs != null && !txs.isEmpty()) {
+            for (boolean valid : TXValidator.isValid(txs)) {
+                if (!valid) {
+                    LOG.error("Some transactions in the block are invalid");
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
     public static Set<ByteArrayWrapper> getAncestors(
             IBlockStorePow<IAionBlock, A0BlockHeader> blockStore,
             IAionBlock testedBlock,
@@ -1086,6 +1264,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
         List<AionTxExecSummary> summaries = new ArrayList<>();
         List<AionTransaction> transactions = new ArrayList<>();
 
+        boolean deferredStateRoot = this.chainConfiguration.isDeferredStateRoot();
         long energyRemaining = block.getNrgLimit();
         for (AionTransaction tx : block.getTransactionsList()) {
             TransactionExecutor executor =
@@ -1094,10 +1273,11 @@ public class AionBlockchainImpl implements IAionBlockchain {
             AionTxExecSummary summary = executor.execute();
 
             if (!summary.isRejected()) {
-                track.flush();
-
                 AionTxReceipt receipt = summary.getReceipt();
-                receipt.setPostTxState(repository.getRoot());
+                if (!deferredStateRoot) {
+                    track.flush();
+                    receipt.setPostTxState(repository.getRoot());
+                }
                 receipt.setTransaction(tx);
 
                 // otherwise, assuming we don't have timeouts, add the
@@ -1125,17 +1305,36 @@ public class AionBlockchainImpl implements IAionBlockchain {
         List<AionTxReceipt> receipts = new ArrayList<>();
         List<AionTxExecSummary> summaries = new ArrayList<>();
 
-        for (AionTransaction tx : block.getTransactionsList()) {
-            TransactionExecutor executor = new TransactionExecutor(tx, block, track, LOGGER_VM);
-            executor.setExecutorProvider(AionExecutorProvider.getInstance());
-            AionTxExecSummary summary = executor.execute();
+        boolean deferredStateRoot = this.chainConfiguration.isDeferredStateRoot();
+        if (parallelExecutor != null) {
+            summaries.addAll(
+                    parallelExecutor.execute(
+                            block,
+                            track,
+                            summary -> {
+                                AionTxReceipt receipt = summary.getReceipt();
+                                if (!deferredStateRoot) {
+                                    track.flush();
+                                    receipt.setPostTxState(repository.getRoot());
+                                }
+                                receipts.add(receipt);
+                            }));
+        } else {
+            for (AionTransaction tx : block.getTransactionsList()) {
+                TransactionExecutor executor =
+                        new TransactionExecutor(tx, block, track, LOGGER_VM);
+                executor.setExecutorProvider(AionExecutorProvider.getInstance());
+                AionTxExecSummary summary = executor.execute();
 
-            track.flush();
-            AionTxReceipt receipt = summary.getReceipt();
-            receipt.setPostTxState(repository.getRoot());
-            receipts.add(receipt);
+                AionTxReceipt receipt = summary.getReceipt();
+                if (!deferredStateRoot) {
+                    track.flush();
+                    receipt.setPostTxState(repository.getRoot());
+                }
+                receipts.add(receipt);
 
-            summaries.add(summary);
+                summaries.add(summary);
+            }
         }
         Map<Address, BigInteger> rewards = addReward(block, summaries);
 
@@ -1195,6 +1394,10 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
         repository.commitBlock(block.getHeader());
 
+        if (!fork) {
+            getLogBloomIndex().onBestBlock(block.getHeader());
+        }
+
         if (LOG.isDebugEnabled())
             LOG.debug(
                     "Block saved: number: {}, hash: {}, TD: {}",
@@ -1288,6 +1491,15 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
     @Override
     public synchronized void close() {
+        if (parallelExecutor != null) {
+            parallelExecutor.shutdown();
+        }
+        if (prevalidator != null) {
+            prevalidator.shutdown();
+        }
+        if (flusher != null) {
+            flusher.shutdown();
+        }
         getBlockStore().close();
     }
 
@@ -38,10 +38,12 @@ import org.aion.evtmgr.EventMgrModule;
 import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.IEventMgr;
 import org.aion.evtmgr.impl.evt.EventBlock;
+import org.aion.evtmgr.impl.mgr.EventMgrRing;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.log.LogUtil;
 import org.aion.mcf.blockchain.IPendingStateInternal;
+import org.aion.mcf.config.CfgEvent;
 import org.aion.mcf.config.CfgNetP2p;
 import org.aion.mcf.db.IBlockStorePow;
 import org.aion.p2p.Handler;
@@ -149,6 +151,11 @@ public class AionHub {
 
         loadBlockchain();
 
+        // builds the log bloom index sections missing from existing databases
+        if (!forTest) {
+            this.blockchain.getLogBloomIndex().startBackfill();
+        }
+
         this.startingBlock = this.blockchain.getBestBlock();
         if (!cfg.getConsensus().isSeed()) {
             this.mempool.updateBest();
@@ -188,7 +195,8 @@ public class AionHub {
                 eventMgr,
                 cfg.getSync().getBlocksQueueMax(),
                 cfg.getSync().getShowStatus(),
-                cfg.getSync().getShowStatistics());
+                cfg.getSync().getShowStatistics(),
+                cfg.getSync().getHeaderValidationThreads());
 
         ChainConfiguration chainConfig = new ChainConfiguration();
         this.propHandler =
@@ -249,7 +257,13 @@ public class AionHub {
 
         Properties prop = new Properties();
         // TODO : move module name to config file
-        prop.put(EventMgrModule.MODULENAME, "org.aion.evtmgr.impl.mgr.EventMgrA0");
+        prop.put(EventMgrModule.MODULENAME, "org.aion.evtmgr.impl.mgr.EventMgrRing");
+        CfgEvent cfgEvent = cfg.getEvent();
+        prop.put(EventMgrRing.RING_SIZE, String.valueOf(cfgEvent.getRingSize()));
+        prop.put(EventMgrRing.BATCH_SIZE, String.valueOf(cfgEvent.getBatchSize()));
+        prop.put(EventMgrRing.WAIT_STRATEGY, cfgEvent.getWaitStrategy());
+        prop.put(EventMgrRing.OVERFLOW_POLICY, cfgEvent.getOverflowPolicy());
+        prop.put(EventMgrRing.BLOCK_TIMEOUT, String.valueOf(cfgEvent.getBlockTimeout()));
         try {
             this.eventMgr = EventMgrModule.getSingleton(prop).getEventMgr();
         } catch (Exception e) {
@@ -35,15 +35,20 @@ public class BlockContext {
     public final BigInteger baseBlockReward;
     public final BigInteger transactionFee;
 
+    /** The time when this version of the block was created, in milliseconds. */
+    public final long createdAt;
+
     public BlockContext(AionBlock block, BigInteger baseBlockReward, BigInteger transactionFee) {
         this.block = block;
         this.baseBlockReward = baseBlockReward;
         this.transactionFee = transactionFee;
+        this.createdAt = System.currentTimeMillis();
     }
 
     public BlockContext(BlockContext context) {
         this.block = new AionBlock(context.block);
         this.baseBlockReward = context.baseBlockReward;
         this.transactionFee = context.transactionFee;
+        this.createdAt = context.createdAt;
     }
 }
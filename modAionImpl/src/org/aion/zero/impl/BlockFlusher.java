@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.slf4j.Logger;
+
+/**
+ * Writes the stored blocks and the world state to disk on a background thread, so that the next
+ * block can be executed while the databases are being written.
+ *
+ * <p>{@link #blockStored()} is called with the blockchain locked right after a block is stored. It
+ * collects the changes into a batch on the calling thread, so that each batch ends at a block
+ * boundary, and only the write of the batch runs in the background. While a batch is being written
+ * the changes of the following blocks stay in memory and are collected together once the write
+ * completes. At most {@code maxPending} blocks are left unwritten, after which {@link
+ * #blockStored()} waits for the running write.
+ *
+ * <p>A write that fails leaves the databases behind the blocks imported in memory, so the failure
+ * is rethrown by every following call to {@link #blockStored()} or {@link #awaitFlush()} to stop
+ * the import on top of the lost changes.
+ */
+class BlockFlusher {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    private final Supplier<Runnable> snapshot;
+    private final int maxPending;
+    private final ExecutorService writer =
+            Executors.newSingleThreadExecutor(
+                    r -> {
+                        Thread t = new Thread(r, "chain-flush");
+                        t.setDaemon(true);
+                        return t;
+                    });
+
+    // only accessed with the blockchain locked
+    private int pending = 0;
+    private Future<?> write = null;
+    private volatile Exception failure = null;
+
+    /**
+     * @param snapshot collects the changes made so far and returns the task writing them
+     * @param maxPending the number of stored blocks that may be left unwritten
+     */
+    BlockFlusher(Supplier<Runnable> snapshot, int maxPending) {
+        this.snapshot = snapshot;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Schedules a flush for a block that was just stored.
+     *
+     * @throws IllegalStateException if a previous write failed
+     */
+    void blockStored() {
+        checkFailure();
+        pending++;
+
+        if (write != null && !write.isDone()) {
+            if (pending < maxPending) {
+                // collected with the next block
+                return;
+            }
+            awaitFlush();
+        }
+
+        Runnable batch = snapshot.get();
+        pending = 0;
+        write = writer.submit(() -> run(batch));
+    }
+
+    private void run(Runnable batch) {
+        try {
+            batch.run();
+        } catch (Exception e) {
+            LOG.error("Unable to flush the blockchain databases.", e);
+            failure = e;
+        }
+    }
+
+    /**
+     * Waits until the collected changes have been written.
+     *
+     * @throws IllegalStateException if the changes or the ones of a previous write were not written
+     */
+    void awaitFlush() {
+        awaitWrite();
+        checkFailure();
+    }
+
+    private void awaitWrite() {
+        if (write == null) {
+            return;
+        }
+
+        try {
+            write.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOG.error("Unable to wait for the blockchain databases to be flushed.", e);
+        }
+    }
+
+    private void checkFailure() {
+        Exception e = failure;
+        if (e != null) {
+            throw new IllegalStateException(
+                    "Unable to flush the blockchain databases: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the changes of the blocks that were not collected yet and stops the writer. Nothing
+     * more is written after a failed write.
+     */
+    void shutdown() {
+        awaitWrite();
+        if (pending > 0 && failure == null) {
+            run(snapshot.get());
+            pending = 0;
+        }
+        writer.shutdown();
+    }
+}
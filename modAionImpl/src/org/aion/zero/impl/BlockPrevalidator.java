@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.zero.impl.types.AionBlock;
+import org.slf4j.Logger;
+
+/**
+ * Runs the validation checks of a block that do not depend on the chain state (ex. the
+ * transaction trie root and the transaction signatures) on worker threads, ahead of the block
+ * being imported.
+ *
+ * @implNote Results are matched to the exact block instance that was submitted, since a peer may
+ *     send a block body that does not correspond to the header.
+ */
+class BlockPrevalidator {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.CONS.name());
+
+    private final Predicate<AionBlock> check;
+    private final int capacity;
+    private final ExecutorService workers;
+
+    private final Map<ByteArrayWrapper, Result> results = new ConcurrentHashMap<>();
+
+    private static class Result {
+        private final AionBlock block;
+        private final Future<Boolean> valid;
+
+        private Result(AionBlock block, Future<Boolean> valid) {
+            this.block = block;
+            this.valid = valid;
+        }
+    }
+
+    /**
+     * @param check the validation to be performed ahead of import
+     * @param threads the number of worker threads
+     * @param capacity the maximum number of blocks validated ahead of import
+     */
+    BlockPrevalidator(Predicate<AionBlock> check, int threads, int capacity) {
+        this.check = check;
+        this.capacity = capacity;
+        this.workers =
+                Executors.newFixedThreadPool(
+                        threads,
+                        new ThreadFactory() {
+
+                            private AtomicInteger cnt = new AtomicInteger(0);
+
+                            @Override
+                            public Thread newThread(Runnable r) {
+                                Thread t = new Thread(r, "chain-valid-" + cnt.incrementAndGet());
+                                t.setDaemon(true);
+                                return t;
+                            }
+                        });
+    }
+
+    /** Schedules the validation of the given blocks, in order, as long as there is capacity. */
+    void submit(List<AionBlock> blocks) {
+        if (results.size() + blocks.size() > capacity) {
+            // drop results for blocks that were not imported (ex. NO_PARENT batches)
+            results.values().removeIf(r -> r.valid.isDone());
+        }
+
+        for (AionBlock block : blocks) {
+            if (results.size() >= capacity) {
+                return;
+            }
+            results.computeIfAbsent(
+                    ByteArrayWrapper.wrap(block.getHash()),
+                    h -> new Result(block, workers.submit(() -> check.test(block))));
+        }
+    }
+
+    /**
+     * Retrieves the result of the validation of the given block, waiting for it if necessary. The
+     * validation is performed by the calling thread if the block was not submitted.
+     */
+    boolean isValid(AionBlock block) {
+        Result result = results.remove(ByteArrayWrapper.wrap(block.getHash()));
+
+        if (result != null && result.block == block) {
+            try {
+                return result.valid.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                LOG.error("Block pre-validation failed, validating again.", e.getCause());
+            }
+        }
+
+        return check.test(block);
+    }
+
+    void shutdown() {
+        workers.shutdownNow();
+        results.clear();
+    }
+}
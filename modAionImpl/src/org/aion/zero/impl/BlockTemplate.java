@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.aion.base.db.IRepositoryCache;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.trie.Trie;
+import org.aion.mcf.trie.TrieImpl;
+import org.aion.mcf.vm.types.Bloom;
+import org.aion.rlp.RLP;
+import org.aion.vm.TransactionExecutor;
+import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.vm.AionExecutorProvider;
+import org.aion.zero.types.A0BlockHeader;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxExecSummary;
+import org.aion.zero.types.AionTxReceipt;
+import org.slf4j.Logger;
+
+/**
+ * A block template that is extended with new pending transactions as they arrive instead of being
+ * rebuilt from the whole pending state.
+ *
+ * <p>The transactions are executed on a snapshot of the parent state that is kept between updates,
+ * so that each update only executes the transactions that were appended. The transaction and
+ * receipt tries and the log bloom are maintained incrementally in the same way.
+ *
+ * @implNote The miner reward is applied to the snapshot only while computing the state root of the
+ *     sealed block and is reverted right after, since the appended transactions must be executed
+ *     on the state without the reward (as in {@link AionBlockchainImpl#createNewBlockContext}).
+ */
+class BlockTemplate {
+
+    private static final Logger LOGGER_VM = AionLoggerFactory.getLogger(LogEnum.VM.toString());
+
+    private final AionBlock block;
+    private final AionRepositoryImpl repository;
+    private final boolean deferredStateRoot;
+    private final BigInteger baseBlockReward;
+
+    private final List<AionTransaction> transactions = new ArrayList<>();
+    private final Set<ByteArrayWrapper> included = new HashSet<>();
+    private final Trie txTrie = new TrieImpl(null);
+    private final Trie receiptTrie = new TrieImpl(null);
+    private final Bloom logBloom = new Bloom();
+
+    private long energyRemaining;
+    private long totalEnergyUsed = 0;
+    private BigInteger totalTransactionFee = BigInteger.ZERO;
+
+    private volatile BlockContext context;
+
+    /**
+     * @param block the header of the block to be mined, used as the execution context
+     * @param repository a snapshot of the state of the parent block
+     * @param deferredStateRoot if the receipts should omit the intermediate state roots
+     * @param baseBlockReward the reward of the miner of the block
+     */
+    BlockTemplate(
+            AionBlock block,
+            AionRepositoryImpl repository,
+            boolean deferredStateRoot,
+            BigInteger baseBlockReward) {
+        this.block = block;
+        this.repository = repository;
+        this.deferredStateRoot = deferredStateRoot;
+        this.baseBlockReward = baseBlockReward;
+        this.energyRemaining = block.getNrgLimit();
+    }
+
+    /** @return {@code true} if the template is built on top of the given block */
+    boolean isChildOf(AionBlock parent) {
+        return Arrays.equals(block.getParentHash(), parent.getHash());
+    }
+
+    /** @return the timestamp of the block to be mined */
+    long getTimestamp() {
+        return block.getTimestamp();
+    }
+
+    /**
+     * @return {@code true} if all the transactions already in the template are among the given
+     *     ones, so that appending them yields a block with the given transactions
+     */
+    boolean isExtendedBy(List<AionTransaction> txs) {
+        Set<ByteArrayWrapper> hashes = new HashSet<>();
+        for (AionTransaction tx : txs) {
+            hashes.add(ByteArrayWrapper.wrap(tx.getHash()));
+        }
+        return hashes.containsAll(included);
+    }
+
+    /** @return the most recently sealed version of the template */
+    BlockContext getContext() {
+        return context;
+    }
+
+    /**
+     * Executes the given transactions on top of the ones already in the template and seals a new
+     * version of the block. Transactions that are already included or rejected on execution are
+     * skipped.
+     *
+     * @return the sealed template
+     */
+    BlockContext append(List<AionTransaction> txs) {
+        IRepositoryCache track = repository.startTracking();
+
+        for (AionTransaction tx : txs) {
+            ByteArrayWrapper hash = ByteArrayWrapper.wrap(tx.getHash());
+            if (included.contains(hash)) {
+                continue;
+            }
+
+            TransactionExecutor executor =
+                    new TransactionExecutor(tx, block, track, false, energyRemaining, LOGGER_VM);
+            executor.setExecutorProvider(AionExecutorProvider.getInstance());
+            AionTxExecSummary summary = executor.execute();
+
+            if (!summary.isRejected()) {
+                AionTxReceipt receipt = summary.getReceipt();
+                if (!deferredStateRoot) {
+                    track.flush();
+                    receipt.setPostTxState(repository.getRoot());
+                }
+                receipt.setTransaction(tx);
+
+                byte[] index = RLP.encodeInt(transactions.size());
+                txTrie.update(index, tx.getEncoded());
+                receiptTrie.update(index, receipt.getReceiptTrieEncoded());
+                logBloom.or(receipt.getBloomFilter());
+
+                transactions.add(tx);
+                included.add(hash);
+
+                energyRemaining -= receipt.getEnergyUsed();
+                totalEnergyUsed += summary.getNrgUsed().longValueExact();
+                totalTransactionFee = totalTransactionFee.add(summary.getFee());
+            }
+        }
+        track.flush();
+
+        context = seal();
+        return context;
+    }
+
+    private BlockContext seal() {
+        // apply the reward to compute the final state root, then revert to the executed state
+        byte[] executedRoot = repository.getRoot();
+        IRepositoryCache track = repository.startTracking();
+        track.addBalance(block.getCoinbase(), baseBlockReward);
+        track.flush();
+        byte[] stateRoot = repository.getRoot();
+        repository.setRoot(executedRoot);
+
+        AionBlock sealed =
+                new AionBlock(new A0BlockHeader(block.getHeader()), new ArrayList<>());
+        sealed.seal(
+                new ArrayList<>(transactions),
+                txTrie.getRootHash(),
+                stateRoot,
+                logBloom.getData().clone(),
+                receiptTrie.getRootHash(),
+                totalEnergyUsed);
+
+        return new BlockContext(sealed, baseBlockReward, totalTransactionFee);
+    }
+}
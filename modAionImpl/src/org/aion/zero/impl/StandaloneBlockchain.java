@@ -141,6 +141,10 @@ public class StandaloneBlockchain extends AionBlockchainImpl {
 
         private IRepositoryConfig repoConfig;
 
+        private boolean deferredStateRoot = false;
+        private boolean parallelExecution = false;
+        private boolean pipelinedImport = false;
+
         public static final int INITIAL_ACC_LEN = 10;
         public static final BigInteger DEFAULT_BALANCE =
                 new BigInteger("1000000000000000000000000");
@@ -199,6 +203,22 @@ public class StandaloneBlockchain extends AionBlockchainImpl {
             return this;
         }
 
+        /** @see ChainConfiguration#isDeferredStateRoot() */
+        public Builder withDeferredStateRoot(boolean deferredStateRoot) {
+            this.deferredStateRoot = deferredStateRoot;
+            return this;
+        }
+
+        public Builder withParallelExecution(boolean parallelExecution) {
+            this.parallelExecution = parallelExecution;
+            return this;
+        }
+
+        public Builder withPipelinedImport(boolean pipelinedImport) {
+            this.pipelinedImport = pipelinedImport;
+            return this;
+        }
+
         public Builder withAccount(ByteArrayWrapper publicKey, AccountState accState) {
             initialState.put(publicKey, accState);
             return this;
@@ -269,6 +289,16 @@ public class StandaloneBlockchain extends AionBlockchainImpl {
                                                     .getEnergyDivisorLimitLong(),
                                             10_000_000L);
                                 }
+
+                                @Override
+                                public boolean isParallelExecutionEnabled() {
+                                    return parallelExecution;
+                                }
+
+                                @Override
+                                public boolean isPipelinedImportEnabled() {
+                                    return pipelinedImport;
+                                }
                             }
                             : this.a0Config;
 
@@ -306,6 +336,10 @@ public class StandaloneBlockchain extends AionBlockchainImpl {
                 }
             }
 
+            if (this.deferredStateRoot) {
+                this.configuration.setDeferredStateRoot(true);
+            }
+
             if (this.repoConfig == null) {
                 this.repoConfig = generateRepositoryConfig();
             }
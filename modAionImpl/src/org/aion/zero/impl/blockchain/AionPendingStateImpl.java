@@ -24,11 +24,15 @@
 package org.aion.zero.impl.blockchain;
 
 import java.math.BigInteger;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -37,16 +41,19 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.aion.base.Constant;
 import org.aion.base.db.IRepository;
 import org.aion.base.db.IRepositoryCache;
 import org.aion.base.type.Address;
+import org.aion.base.util.ByteArrayWrapper;
 import org.aion.base.util.ByteUtil;
 import org.aion.base.util.FastByteComparisons;
 import org.aion.base.util.Hex;
@@ -63,11 +70,14 @@ import org.aion.mcf.blockchain.IPendingStateInternal;
 import org.aion.mcf.blockchain.TxResponse;
 import org.aion.mcf.db.TransactionStore;
 import org.aion.mcf.evt.IListenerBase.PendingTransactionState;
+import org.aion.mcf.vm.types.Log;
 import org.aion.p2p.INode;
 import org.aion.p2p.IP2pMgr;
+import org.aion.precompiled.ContractFactory;
 import org.aion.txpool.ITxPool;
 import org.aion.txpool.TxPoolModule;
 import org.aion.vm.TransactionExecutor;
+import org.aion.zero.db.AionRepositoryCache;
 import org.aion.zero.impl.AionBlockchainImpl;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.core.IAionBlockchain;
@@ -76,6 +86,7 @@ import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.impl.types.AionTxInfo;
 import org.aion.zero.impl.valid.TXValidator;
 import org.aion.zero.impl.vm.AionExecutorProvider;
+import org.aion.zero.types.AionInternalTx;
 import org.aion.zero.types.AionTransaction;
 import org.aion.zero.types.AionTxExecSummary;
 import org.aion.zero.types.AionTxReceipt;
@@ -111,6 +122,12 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
 
     private static final int MAX_VALIDATED_PENDING_TXS = 8192;
 
+    /**
+     * The number of best blocks the pending state is rebased on incrementally before it is rebuilt
+     * from the pool, which drops the accounts it read and no longer needs.
+     */
+    private static final int MAX_INCREMENTAL_UPDATES = 64;
+
     private final int MAX_TXCACHE_FLUSH_SIZE = MAX_VALIDATED_PENDING_TXS >> 2;
 
     private IAionBlockchain blockchain;
@@ -121,9 +138,21 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
 
     private ITxPool<AionTransaction> txPool;
 
+    /** Sends the new pending transactions to the network. */
+    private final Consumer<List<AionTransaction>> broadcaster;
+
     private IEventMgr evtMgr = null;
 
-    private IRepositoryCache pendingState;
+    private AionRepositoryCache pendingState;
+
+    /**
+     * The accounts touched by each transaction whose changes are held in the pending state, keyed
+     * by transaction hash. Used to re-execute only the transactions affected by a new best block.
+     */
+    private final Map<ByteArrayWrapper, Set<Address>> appliedTxs = new HashMap<>();
+
+    /** The number of incremental updates since the pending state was last rebuilt. */
+    private int incrementalUpdates = 0;
 
     private AtomicReference<AionBlock> best;
 
@@ -149,7 +178,12 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
 
     private ScheduledExecutorService ex;
 
-    private boolean closeToNetworkBest = true;
+    private volatile boolean closeToNetworkBest = true;
+
+    private static final int ADMISSION_WORKERS =
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    private final TxAdmissionPipeline<AionTransaction> admission;
 
     private static long NRGPRICE_MIN = 10_000_000_000L; // 10 PLAT  (10 * 10 ^ -9 AION)
     private static long NRGPRICE_MAX = 9_000_000_000_000_000_000L; //  9 AION
@@ -197,7 +231,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                     if (LOGGER_TX.isDebugEnabled()) {
                         LOGGER_TX.debug("processTxBuffer tx#{}", txs.size());
                     }
-                    AionImpl.inst().broadcastTransactions(txs);
+                    broadcaster.accept(txs);
                 }
             } catch (Exception e) {
                 LOGGER_TX.error("processTxBuffer throw ", e);
@@ -229,7 +263,12 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                 if (e.getEventType() == IHandler.TYPE.BLOCK0.getValue()
                         && e.getCallbackType() == EventBlock.CALLBACK.ONBEST0.getValue()) {
                     long t1 = System.currentTimeMillis();
-                    processBest((AionBlock) e.getFuncArgs().get(0), (List) e.getFuncArgs().get(1));
+                    List<Object> args = e.getFuncArgs();
+                    //noinspection unchecked
+                    processBest(
+                            (AionBlock) args.get(0),
+                            (List) args.get(1),
+                            args.size() > 2 ? (List<AionTxExecSummary>) args.get(2) : null);
 
                     if (LOGGER_TX.isDebugEnabled()) {
                         long t2 = System.currentTimeMillis();
@@ -275,8 +314,12 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
     }
 
     private static AionPendingStateImpl initializeAionPendingState(
-            CfgAion _cfgAion, AionRepositoryImpl _repository, AionBlockchainImpl _blockchain, boolean test) {
-        AionPendingStateImpl ps = new AionPendingStateImpl(_cfgAion, _repository);
+            CfgAion _cfgAion,
+            AionRepositoryImpl _repository,
+            AionBlockchainImpl _blockchain,
+            Consumer<List<AionTransaction>> _broadcaster,
+            boolean test) {
+        AionPendingStateImpl ps = new AionPendingStateImpl(_cfgAion, _repository, _broadcaster);
         ps.init(_blockchain, test);
         return ps;
     }
@@ -285,20 +328,38 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
 
         static final AionPendingStateImpl INSTANCE =
                 initializeAionPendingState(
-                        CfgAion.inst(), AionRepositoryImpl.inst(), AionBlockchainImpl.inst(), false);
+                        CfgAion.inst(),
+                        AionRepositoryImpl.inst(),
+                        AionBlockchainImpl.inst(),
+                        txs -> AionImpl.inst().broadcastTransactions(txs),
+                        false);
     }
 
     public static AionPendingStateImpl inst() {
         return Holder.INSTANCE;
     }
 
+    /** Creates a pending state that is not connected to the network. */
     public static AionPendingStateImpl createForTesting(
             CfgAion _cfgAion, AionBlockchainImpl _blockchain, AionRepositoryImpl _repository) {
-        return initializeAionPendingState(_cfgAion, _repository, _blockchain, true);
+        return createForTesting(_cfgAion, _blockchain, _repository, txs -> {});
+    }
+
+    /** @param _broadcaster receives the transactions that would be sent to the network */
+    public static AionPendingStateImpl createForTesting(
+            CfgAion _cfgAion,
+            AionBlockchainImpl _blockchain,
+            AionRepositoryImpl _repository,
+            Consumer<List<AionTransaction>> _broadcaster) {
+        return initializeAionPendingState(_cfgAion, _repository, _blockchain, _broadcaster, true);
     }
 
-    private AionPendingStateImpl(CfgAion _cfgAion, AionRepositoryImpl _repository) {
+    private AionPendingStateImpl(
+            CfgAion _cfgAion,
+            AionRepositoryImpl _repository,
+            Consumer<List<AionTransaction>> _broadcaster) {
         this.repository = _repository;
+        this.broadcaster = _broadcaster;
 
         this.isSeed = _cfgAion.getConsensus().isSeed();
 
@@ -333,6 +394,14 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         } else {
             LOGGER_TX.info("Seed mode is enable");
         }
+
+        this.admission =
+                new TxAdmissionPipeline<>(
+                        ADMISSION_WORKERS,
+                        this::checkStateless,
+                        addr -> isSeed ? BigInteger.ZERO : bestRepoNonce(addr),
+                        this::addPendingTransactions,
+                        LOGGER_TX);
     }
 
     public void init(final AionBlockchainImpl blockchain, boolean test) {
@@ -345,7 +414,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             this.poolBackUp = CfgAion.inst().getTx().getPoolBackup();
             this.pendingTxCache =
                     new PendingTxCache(CfgAion.inst().getTx().getCacheMax(), poolBackUp);
-            this.pendingState = repository.startTracking();
+            this.pendingState = new AionRepositoryCache(repository);
 
             this.dumpPool = CfgAion.inst().getTx().getPoolDump();
 
@@ -444,6 +513,24 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         return addPendingTransactions(Collections.singletonList(tx)).get(0);
     }
 
+    @Override
+    public CompletableFuture<TxResponse> submitPendingTransaction(AionTransaction tx) {
+        return admission.submit(Collections.singletonList(tx)).get(0);
+    }
+
+    /**
+     * Queues the given transactions for admission to the PendingState. The signatures are verified
+     * concurrently and the transactions are added in batches, without holding up the caller.
+     *
+     * @param transactions, the list of AionTransactions to be added
+     * @return the TxResponse of each transaction, in the order of the input txs
+     */
+    @Override
+    public List<CompletableFuture<TxResponse>> submitPendingTransactions(
+            List<AionTransaction> transactions) {
+        return admission.submit(transactions);
+    }
+
     /**
      * Tries to add the given transactions to the PendingState
      *
@@ -463,7 +550,18 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         List<AionTransaction> newLargeNonceTx = new ArrayList<>();
         List<TxResponse> txResponses = new ArrayList<>();
 
-        for (AionTransaction tx : transactions) {
+        // verify the signatures as a batch
+        boolean[] valid = TXValidator.isValid(transactions);
+
+        for (int i = 0; i < transactions.size(); i++) {
+            AionTransaction tx = transactions.get(i);
+            if (!valid[i]) {
+                LOGGER_TX.error("invalid Tx [{}]", tx.toString());
+                fireDroppedTx(tx, "INVALID_TX");
+                txResponses.add(TxResponse.INVALID_TX);
+                continue;
+            }
+
             BigInteger txNonce = tx.getNonceBI();
             BigInteger bestPSNonce = bestPendingStateNonce(tx.getFrom());
             Address txFrom = tx.getFrom();
@@ -542,7 +640,8 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                     boolean added = false;
 
                     do {
-                        TxResponse implResponse = addPendingTransactionImpl(tx, txNonce);
+                        // only the given transaction was verified, not the ones from the cache
+                        TxResponse implResponse = addPendingTransactionImpl(tx, txNonce, !added);
                         if (!added) {
                             txResponses.add(implResponse);
                             added = true;
@@ -573,7 +672,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             // typically because of low energy
             else if (bestRepoNonce(txFrom).compareTo(txNonce) < 1) {
                 // repay Tx
-                TxResponse implResponse = addPendingTransactionImpl(tx, txNonce);
+                TxResponse implResponse = addPendingTransactionImpl(tx, txNonce, true);
                 if (implResponse.equals(TxResponse.SUCCESS)) {
                     newPending.add(tx);
                     txResponses.add(TxResponse.REPAID);
@@ -612,13 +711,12 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         if (!loadPendingTx) {
             if (bufferEnable) {
                 if (!newLargeNonceTx.isEmpty()) {
-                    AionImpl.inst().broadcastTransactions(newLargeNonceTx);
+                    broadcaster.accept(newLargeNonceTx);
                 }
             } else if (!newPending.isEmpty() || !newLargeNonceTx.isEmpty()) {
-                AionImpl.inst()
-                        .broadcastTransactions(
-                                Stream.concat(newPending.stream(), newLargeNonceTx.stream())
-                                        .collect(Collectors.toList()));
+                broadcaster.accept(
+                        Stream.concat(newPending.stream(), newLargeNonceTx.stream())
+                                .collect(Collectors.toList()));
             }
         }
 
@@ -628,8 +726,10 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
     private List<TxResponse> seedProcess(List<AionTransaction> transactions) {
         List<AionTransaction> newTx = new ArrayList<>();
         List<TxResponse> txResponses = new ArrayList<>();
-        for (AionTransaction tx : transactions) {
-            if (TXValidator.isValid(tx)) {
+        boolean[] valid = TXValidator.isValid(transactions);
+        for (int i = 0; i < transactions.size(); i++) {
+            AionTransaction tx = transactions.get(i);
+            if (valid[i]) {
                 newTx.add(tx);
                 txResponses.add(TxResponse.SUCCESS);
             } else {
@@ -640,7 +740,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         }
 
         if (!newTx.isEmpty()) {
-            AionImpl.inst().broadcastTransactions(newTx);
+            broadcaster.accept(newTx);
         }
 
         return txResponses;
@@ -678,21 +778,16 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
      *
      * @param tx transaction come from API or P2P
      * @param txNonce nonce of the transaction.
+     * @param verified whether the signature of the transaction was already verified
      * @return SUCCESS if transaction gets NEW_PENDING state, else appropriate message such as
      *     DROPPED, INVALID_TX, etc.
      */
-    private TxResponse addPendingTransactionImpl(final AionTransaction tx, BigInteger txNonce) {
+    private TxResponse addPendingTransactionImpl(
+            final AionTransaction tx, BigInteger txNonce, boolean verified) {
 
-        if (!TXValidator.isValid(tx)) {
-            LOGGER_TX.error("invalid Tx [{}]", tx.toString());
-            fireDroppedTx(tx, "INVALID_TX");
-            return TxResponse.INVALID_TX;
-        }
-
-        if (inValidTxNrgPrice(tx)) {
-            LOGGER_TX.error("invalid Tx Nrg price [{}]", tx.toString());
-            fireDroppedTx(tx, "INVALID_TX_NRG_PRICE");
-            return TxResponse.INVALID_TX_NRG_PRICE;
+        TxResponse invalid = checkStateless(tx, verified);
+        if (invalid != null) {
+            return invalid;
         }
 
         AionTxExecSummary txSum;
@@ -728,6 +823,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             return TxResponse.DROPPED;
         } else {
             tx.setNrgConsume(txSum.getReceipt().getEnergyUsed());
+            appliedTxs.put(ByteArrayWrapper.wrap(tx.getHash()), getTouchedAccounts(tx, txSum));
 
             if (LOGGER_TX.isTraceEnabled()) {
                 LOGGER_TX.trace("addPendingTransactionImpl validTx {}", tx.toString());
@@ -754,6 +850,37 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         }
     }
 
+    /**
+     * Checks the signature and the energy price of the transaction, which do not depend on the
+     * pending state. Without a pending state to update, only the signature is checked.
+     *
+     * @return the response for an invalid transaction, or {@code null} if it is valid
+     */
+    private TxResponse checkStateless(AionTransaction tx) {
+        return checkStateless(tx, false);
+    }
+
+    /** @param verified whether the signature of the transaction was already verified */
+    private TxResponse checkStateless(AionTransaction tx, boolean verified) {
+        if ((isSeed || !closeToNetworkBest) && !loadPendingTx) {
+            return verified || TXValidator.isValid(tx) ? null : TxResponse.INVALID_TX;
+        }
+
+        if (!verified && !TXValidator.isValid(tx)) {
+            LOGGER_TX.error("invalid Tx [{}]", tx.toString());
+            fireDroppedTx(tx, "INVALID_TX");
+            return TxResponse.INVALID_TX;
+        }
+
+        if (inValidTxNrgPrice(tx)) {
+            LOGGER_TX.error("invalid Tx Nrg price [{}]", tx.toString());
+            fireDroppedTx(tx, "INVALID_TX_NRG_PRICE");
+            return TxResponse.INVALID_TX_NRG_PRICE;
+        }
+
+        return null;
+    }
+
     private boolean inValidTxNrgPrice(AionTransaction tx) {
         return tx.getNrgPrice() < NRGPRICE_MIN || tx.getNrgPrice() > NRGPRICE_MAX;
     }
@@ -796,13 +923,29 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
     }
 
     @Override
-    public synchronized void processBest(AionBlock newBlock, List receipts) {
+    public void processBest(AionBlock newBlock, List receipts) {
+        processBest(newBlock, receipts, null);
+    }
+
+    /**
+     * Updates the pending state for a new best block.
+     *
+     * @param newBlock the new best block
+     * @param receipts the receipts of the block transactions
+     * @param summaries the execution summaries of the block transactions, which give the accounts
+     *     changed by the block; the pending state is rebuilt from the whole pool when {@code null}
+     */
+    public synchronized void processBest(
+            AionBlock newBlock, List receipts, List<AionTxExecSummary> summaries) {
 
         if (isSeed) {
             // seed mode doesn't need to update the pendingState
             return;
         }
 
+        // the accounts changed since the last update, null when the whole pool must be re-executed
+        Set<Address> touched = null;
+
         if (best.get() != null && !best.get().isParentOf(newBlock)) {
 
             // need to switch the state to another fork
@@ -833,7 +976,9 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             }
 
             // rollback the state snapshot to the ancestor
-            pendingState = repository.getSnapshotTo(commonAncestor.getStateRoot()).startTracking();
+            pendingState =
+                    new AionRepositoryCache(
+                            repository.getSnapshotTo(commonAncestor.getStateRoot()));
 
             // next process blocks from new fork
             IAionBlock main = newBlock;
@@ -857,6 +1002,17 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             }
             //noinspection unchecked
             processBestInternal(newBlock, receipts);
+
+            if (best.get() != null
+                    && summaries != null
+                    && summaries.size() == newBlock.getTransactionsList().size()
+                    && incrementalUpdates < MAX_INCREMENTAL_UPDATES) {
+                touched = getTouchedAccounts(newBlock, summaries);
+                if (touched != null) {
+                    // the pending transactions paid their fees to the previous coinbase
+                    touched.add(best.get().getCoinbase());
+                }
+            }
         }
 
         best.set(newBlock);
@@ -868,7 +1024,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                     "PendingStateImpl.processBest: closeToNetworkBest[{}]", closeToNetworkBest);
         }
 
-        updateState(best.get());
+        updateState(best.get(), touched);
 
         txPool.updateBlkNrgLimit(best.get().getNrgLimit());
 
@@ -1013,10 +1169,17 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         return info;
     }
 
+    /**
+     * Rebases the pending state onto the new best block. Only the pool transactions sharing an
+     * account with the block, or with another transaction that has to run again, are re-executed;
+     * the changes of the others are carried forward and no event is fired for them.
+     *
+     * @param block the new best block
+     * @param touched the accounts changed by the block, or {@code null} to rebuild the pending
+     *     state from the whole pool
+     */
     @SuppressWarnings("UnusedReturnValue")
-    private List<AionTransaction> updateState(IAionBlock block) {
-
-        pendingState = repository.startTracking();
+    private List<AionTransaction> updateState(IAionBlock block, Set<Address> touched) {
 
         processTxBuffer();
         List<AionTransaction> pendingTxl = this.txPool.snapshotAll();
@@ -1024,7 +1187,27 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
         if (LOGGER_TX.isInfoEnabled()) {
             LOGGER_TX.info("updateState - snapshotAll tx[{}]", pendingTxl.size());
         }
-        for (AionTransaction tx : pendingTxl) {
+
+        boolean[] rerun = new boolean[pendingTxl.size()];
+        if (touched == null) {
+            pendingState = new AionRepositoryCache(repository);
+            appliedTxs.clear();
+            incrementalUpdates = 0;
+            Arrays.fill(rerun, true);
+        } else {
+            selectAffected(pendingTxl, touched, rerun);
+            incrementalUpdates++;
+        }
+
+        int count = 0;
+        for (int i = 0; i < pendingTxl.size(); i++) {
+            AionTransaction tx = pendingTxl.get(i);
+            if (!rerun[i]) {
+                rtn.add(tx);
+                continue;
+            }
+            count++;
+
             if (LOGGER_TX.isTraceEnabled()) {
                 LOGGER_TX.trace("updateState - loop: " + tx.toString());
             }
@@ -1033,25 +1216,152 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             AionTxReceipt receipt = txSum.getReceipt();
             receipt.setTransaction(tx);
 
+            ByteArrayWrapper hash = ByteArrayWrapper.wrap(tx.getHash());
             if (txSum.isRejected()) {
                 if (LOGGER_TX.isDebugEnabled()) {
                     LOGGER_TX.debug("Invalid transaction in txpool: {}", tx);
                 }
                 txPool.remove(Collections.singletonList(tx));
+                appliedTxs.remove(hash);
 
                 if (poolBackUp) {
                     backupPendingPoolRemove.add(tx.getHash().clone());
                 }
                 fireTxUpdate(receipt, PendingTransactionState.DROPPED, block);
             } else {
-                fireTxUpdate(receipt, PendingTransactionState.PENDING, block);
+                if (appliedTxs.put(hash, getTouchedAccounts(tx, txSum)) == null) {
+                    fireTxUpdate(receipt, PendingTransactionState.PENDING, block);
+                }
                 rtn.add(tx);
             }
         }
 
+        if (LOGGER_TX.isDebugEnabled()) {
+            LOGGER_TX.debug(
+                    "updateState - re-executed tx[{}] carried tx[{}]",
+                    count,
+                    pendingTxl.size() - count);
+        }
+
         return rtn;
     }
 
+    /**
+     * Marks the pool transactions that must be re-executed after the given accounts changed and
+     * drops those accounts from the pending state. A transaction is affected when it shares an
+     * account with the changed ones, which then also include all its accounts, or when its changes
+     * are not in the pending state yet.
+     *
+     * @param pendingTxl the pool transactions in execution order
+     * @param dirty the accounts changed by the new best block, extended in place
+     * @param rerun set to {@code true} at the index of each affected transaction
+     */
+    private void selectAffected(
+            List<AionTransaction> pendingTxl, Set<Address> dirty, boolean[] rerun) {
+
+        Set<ByteArrayWrapper> inPool = new HashSet<>();
+        for (AionTransaction tx : pendingTxl) {
+            inPool.add(ByteArrayWrapper.wrap(tx.getHash()));
+        }
+
+        // the changes of transactions that left the pool are still in the pending state
+        Iterator<Map.Entry<ByteArrayWrapper, Set<Address>>> it = appliedTxs.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<ByteArrayWrapper, Set<Address>> entry = it.next();
+            if (!inPool.contains(entry.getKey())) {
+                dirty.addAll(entry.getValue());
+                it.remove();
+            }
+        }
+
+        List<Set<Address>> accounts = new ArrayList<>(pendingTxl.size());
+        Map<Address, List<Integer>> txsByAccount = new HashMap<>();
+        for (int i = 0; i < pendingTxl.size(); i++) {
+            AionTransaction tx = pendingTxl.get(i);
+            Set<Address> txAccounts = appliedTxs.get(ByteArrayWrapper.wrap(tx.getHash()));
+            if (txAccounts == null) {
+                txAccounts = getTouchedAccounts(tx, null);
+                rerun[i] = true;
+                dirty.addAll(txAccounts);
+            }
+            accounts.add(txAccounts);
+            for (Address address : txAccounts) {
+                txsByAccount.computeIfAbsent(address, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Deque<Address> queue = new ArrayDeque<>(dirty);
+        while (!queue.isEmpty()) {
+            List<Integer> txs = txsByAccount.remove(queue.poll());
+            if (txs == null) {
+                continue;
+            }
+            for (int i : txs) {
+                if (!rerun[i]) {
+                    rerun[i] = true;
+                    for (Address address : accounts.get(i)) {
+                        if (dirty.add(address)) {
+                            queue.add(address);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (Address address : dirty) {
+            pendingState.discard(address);
+        }
+    }
+
+    /**
+     * @return the accounts changed by the transactions of the block, including the ones reached by
+     *     internal transactions and self-destructs, and the block coinbase; {@code null} when the
+     *     block calls a precompiled contract, which may change accounts without recording them
+     */
+    private static Set<Address> getTouchedAccounts(
+            IAionBlock block, List<AionTxExecSummary> summaries) {
+        Set<Address> accounts = new HashSet<>();
+        accounts.add(block.getCoinbase());
+        List<AionTransaction> txs = block.getTransactionsList();
+        for (int i = 0; i < txs.size(); i++) {
+            AionTransaction tx = txs.get(i);
+            if (tx.getTo() != null && ContractFactory.isPrecompiledContract(tx.getTo())) {
+                return null;
+            }
+            accounts.addAll(getTouchedAccounts(tx, summaries.get(i)));
+        }
+        return accounts;
+    }
+
+    /**
+     * @return the sender and recipient of the transaction together with, when its execution summary
+     *     is given, the accounts reached by internal transactions, logs and self-destructs; the fee
+     *     payment to the coinbase is not included
+     */
+    private static Set<Address> getTouchedAccounts(AionTransaction tx, AionTxExecSummary txSum) {
+        Set<Address> accounts = new HashSet<>();
+        accounts.add(tx.getFrom());
+        accounts.add(tx.isContractCreation() ? tx.getContractAddress() : tx.getTo());
+        if (txSum != null) {
+            if (txSum.getInternalTransactions() != null) {
+                for (AionInternalTx itx : txSum.getInternalTransactions()) {
+                    accounts.add(itx.getFrom());
+                    accounts.add(itx.isContractCreation() ? itx.getContractAddress() : itx.getTo());
+                }
+            }
+            if (txSum.getLogs() != null) {
+                for (Log log : txSum.getLogs()) {
+                    accounts.add(log.getAddress());
+                }
+            }
+            if (txSum.getDeletedAccounts() != null) {
+                accounts.addAll(txSum.getDeletedAccounts());
+            }
+        }
+        accounts.remove(null);
+        return accounts;
+    }
+
     private Set<Address> getTxsAccounts(List<AionTransaction> txn) {
         Set<Address> rtn = new HashSet<>();
         for (AionTransaction tx : txn) {
@@ -1067,7 +1377,8 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             LOGGER_TX.trace("executeTx: {}", Hex.toHexString(tx.getHash()));
         }
 
-        TransactionExecutor txExe = new TransactionExecutor(tx, bestBlk, pendingState, LOGGER_VM);
+        TransactionExecutor txExe =
+                new TransactionExecutor(tx, bestBlk, (IRepositoryCache) pendingState, LOGGER_VM);
         txExe.setExecutorProvider(AionExecutorProvider.getInstance());
 
         if (inPool) {
@@ -1096,6 +1407,8 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
 
     @Override
     public void shutDown() {
+        admission.shutdown();
+
         if (this.bufferEnable) {
             ex.shutdown();
         }
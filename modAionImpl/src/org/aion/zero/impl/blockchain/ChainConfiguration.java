@@ -69,6 +69,12 @@ public class ChainConfiguration implements IChainCfg<IAionBlock, AionTransaction
 
     protected Address tokenBridgingOwnerAddress;
 
+    /**
+     * When set, the world state root is computed once per block instead of after every
+     * transaction, and receipts are produced without a post transaction state.
+     */
+    protected boolean deferredStateRoot = false;
+
     public ChainConfiguration() {
         this(new BlockConstants());
     }
@@ -105,6 +111,24 @@ public class ChainConfiguration implements IChainCfg<IAionBlock, AionTransaction
         return true;
     }
 
+    /**
+     * Whether blocks on this chain are executed with a single world state root computation per
+     * block.
+     *
+     * @implNote the post transaction state is part of the receipt trie encoding, so enabling this
+     *     changes the receipts root of every block. It must only be enabled on chains where every
+     *     node executes blocks in this mode (ex. private or test networks), never on the main
+     *     network.
+     * @return {@code true} if per-transaction state roots are skipped, {@code false} otherwise
+     */
+    public boolean isDeferredStateRoot() {
+        return deferredStateRoot;
+    }
+
+    public void setDeferredStateRoot(boolean deferredStateRoot) {
+        this.deferredStateRoot = deferredStateRoot;
+    }
+
     @Override
     public IDifficultyCalculator getDifficultyCalculator() {
         return difficultyCalculatorAdapter;
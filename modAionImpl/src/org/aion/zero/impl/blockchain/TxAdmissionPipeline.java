@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.blockchain;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.aion.base.type.Address;
+import org.aion.base.type.ITransaction;
+import org.aion.mcf.blockchain.TxResponse;
+import org.slf4j.Logger;
+
+/**
+ * Admits transactions into the pending state in three stages, so that the threads submitting them
+ * never wait for the pending state:
+ *
+ * <ol>
+ *   <li>stateless checks, including the signature verification, run in parallel on a pool of
+ *       workers;
+ *   <li>the senders are sharded across lanes, each a single thread that orders the transactions
+ *       of its senders by nonce and answers those with a nonce already sealed in the repository;
+ *   <li>a single thread commits the ordered transactions into the pending state in batches.
+ * </ol>
+ *
+ * <p>The time spent in each stage is recorded in latency histograms, logged periodically.
+ */
+final class TxAdmissionPipeline<TX extends ITransaction> {
+
+    /** The maximum number of transactions taken by a lane or committed at once. */
+    static final int MAX_BATCH = 1_000;
+
+    /** The maximum number of transactions waiting for the stateless checks. */
+    private static final int MAX_QUEUED = 50_000;
+
+    private static final long REPORT_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+    private final Function<TX, TxResponse> check;
+    private final Function<Address, BigInteger> sealedNonce;
+    private final Function<List<TX>, List<TxResponse>> commit;
+    private final Logger log;
+
+    private final ThreadPoolExecutor checkers;
+    private final List<BlockingQueue<Admission<TX>>> lanes = new ArrayList<>();
+    private final BlockingQueue<Admission<TX>> commitQueue = new LinkedBlockingQueue<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private final LatencyHistogram checkLatency = new LatencyHistogram("check");
+    private final LatencyHistogram orderLatency = new LatencyHistogram("order");
+    private final LatencyHistogram commitLatency = new LatencyHistogram("commit");
+    private final LatencyHistogram totalLatency = new LatencyHistogram("total");
+    private long lastReport = System.nanoTime();
+
+    /** A transaction going through the pipeline. */
+    private static final class Admission<TX> {
+        private final TX tx;
+        private final CompletableFuture<TxResponse> result = new CompletableFuture<>();
+        private final long submitted = System.nanoTime();
+        private long stageStart = submitted;
+
+        private Admission(TX tx) {
+            this.tx = tx;
+        }
+    }
+
+    /** Runs the stateless checks of a transaction. */
+    private final class CheckTask implements Runnable {
+        private final Admission<TX> admission;
+
+        private CheckTask(Admission<TX> admission) {
+            this.admission = admission;
+        }
+
+        @Override
+        public void run() {
+            check(admission);
+        }
+    }
+
+    /**
+     * @param workers the number of threads for the stateless checks and the number of lanes
+     * @param check the stateless checks, returning {@code null} for a transaction that may proceed
+     * @param sealedNonce the nonce of the given account in the repository
+     * @param commit adds transactions to the pending state, returning their responses in order
+     */
+    TxAdmissionPipeline(
+            int workers,
+            Function<TX, TxResponse> check,
+            Function<Address, BigInteger> sealedNonce,
+            Function<List<TX>, List<TxResponse>> commit,
+            Logger log) {
+        this.check = check;
+        this.sealedNonce = sealedNonce;
+        this.commit = commit;
+        this.log = log;
+
+        this.checkers =
+                new ThreadPoolExecutor(
+                        workers,
+                        workers,
+                        0L,
+                        TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<>(MAX_QUEUED),
+                        r -> daemon(r, "tx-check"),
+                        // the submitting thread runs the checks when the workers are saturated
+                        new ThreadPoolExecutor.CallerRunsPolicy());
+
+        for (int i = 0; i < workers; i++) {
+            BlockingQueue<Admission<TX>> lane = new LinkedBlockingQueue<>();
+            lanes.add(lane);
+            threads.add(daemon(() -> runLane(lane), "tx-lane-" + i));
+        }
+        threads.add(daemon(this::runCommit, "tx-commit"));
+        threads.forEach(Thread::start);
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    /**
+     * Queues the transactions for admission.
+     *
+     * @return the admission results, in the order of the given transactions
+     */
+    List<CompletableFuture<TxResponse>> submit(List<TX> txs) {
+        List<CompletableFuture<TxResponse>> results = new ArrayList<>(txs.size());
+        for (TX tx : txs) {
+            Admission<TX> admission = new Admission<>(tx);
+            results.add(admission.result);
+            if (running) {
+                checkers.execute(new CheckTask(admission));
+            } else {
+                complete(admission, TxResponse.EXCEPTION);
+            }
+        }
+        return results;
+    }
+
+    private void check(Admission<TX> admission) {
+        TxResponse response;
+        try {
+            response = check.apply(admission.tx);
+        } catch (Exception e) {
+            log.error("TxAdmissionPipeline check throw ", e);
+            response = TxResponse.EXCEPTION;
+        }
+
+        if (response != null) {
+            complete(admission, response);
+        } else {
+            checkLatency.record(nextStage(admission));
+            Address from = admission.tx.getFrom();
+            lanes.get(Math.floorMod(from.hashCode(), lanes.size())).add(admission);
+        }
+    }
+
+    private void runLane(BlockingQueue<Admission<TX>> lane) {
+        List<Admission<TX>> batch = new ArrayList<>();
+        while (running) {
+            try {
+                batch.add(lane.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            lane.drainTo(batch, MAX_BATCH - 1);
+
+            try {
+                order(batch);
+            } catch (Exception e) {
+                log.error("TxAdmissionPipeline lane throw ", e);
+                batch.forEach(a -> complete(a, TxResponse.EXCEPTION));
+            }
+            batch.clear();
+        }
+    }
+
+    /** Forwards the transactions of each sender to the commit stage in nonce order. */
+    private void order(List<Admission<TX>> batch) {
+        Map<Address, List<Admission<TX>>> bySender = new LinkedHashMap<>();
+        for (Admission<TX> admission : batch) {
+            bySender.computeIfAbsent(admission.tx.getFrom(), k -> new ArrayList<>())
+                    .add(admission);
+        }
+
+        for (Map.Entry<Address, List<Admission<TX>>> entry : bySender.entrySet()) {
+            List<Admission<TX>> admissions = entry.getValue();
+            admissions.sort(Comparator.comparing(a -> a.tx.getNonceBI()));
+
+            BigInteger sealed = sealedNonce.apply(entry.getKey());
+            List<Admission<TX>> ordered = new ArrayList<>(admissions.size());
+            for (Admission<TX> admission : admissions) {
+                if (admission.tx.getNonceBI().compareTo(sealed) < 0) {
+                    complete(admission, TxResponse.ALREADY_SEALED);
+                } else {
+                    orderLatency.record(nextStage(admission));
+                    ordered.add(admission);
+                }
+            }
+            commitQueue.addAll(ordered);
+        }
+    }
+
+    private void runCommit() {
+        List<Admission<TX>> batch = new ArrayList<>();
+        while (running) {
+            try {
+                batch.add(commitQueue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            commitQueue.drainTo(batch, MAX_BATCH - 1);
+
+            List<TX> txs = new ArrayList<>(batch.size());
+            for (Admission<TX> admission : batch) {
+                txs.add(admission.tx);
+            }
+
+            try {
+                List<TxResponse> responses = commit.apply(txs);
+                for (int i = 0; i < batch.size(); i++) {
+                    commitLatency.record(nextStage(batch.get(i)));
+                    complete(batch.get(i), responses.get(i));
+                }
+            } catch (Exception e) {
+                log.error("TxAdmissionPipeline commit throw ", e);
+                batch.forEach(a -> complete(a, TxResponse.EXCEPTION));
+            }
+            batch.clear();
+
+            report();
+        }
+    }
+
+    private static long nextStage(Admission<?> admission) {
+        long now = System.nanoTime();
+        long elapsed = now - admission.stageStart;
+        admission.stageStart = now;
+        return elapsed;
+    }
+
+    private void complete(Admission<TX> admission, TxResponse response) {
+        totalLatency.record(System.nanoTime() - admission.submitted);
+        admission.result.complete(response);
+    }
+
+    /** Logs and clears the latency histograms once per reporting interval. */
+    private void report() {
+        long now = System.nanoTime();
+        if (now - lastReport < REPORT_INTERVAL) {
+            return;
+        }
+        lastReport = now;
+
+        if (log.isInfoEnabled()) {
+            log.info(
+                    "tx admission latency over the last {}s:\n  {}\n  {}\n  {}\n  {}",
+                    TimeUnit.NANOSECONDS.toSeconds(REPORT_INTERVAL),
+                    checkLatency,
+                    orderLatency,
+                    commitLatency,
+                    totalLatency);
+        }
+        checkLatency.reset();
+        orderLatency.reset();
+        commitLatency.reset();
+        totalLatency.reset();
+    }
+
+    LatencyHistogram getCheckLatency() {
+        return checkLatency;
+    }
+
+    LatencyHistogram getOrderLatency() {
+        return orderLatency;
+    }
+
+    LatencyHistogram getCommitLatency() {
+        return commitLatency;
+    }
+
+    LatencyHistogram getTotalLatency() {
+        return totalLatency;
+    }
+
+    /** Stops the pipeline; the transactions not committed yet are answered with an exception. */
+    void shutdown() {
+        running = false;
+        List<Admission<TX>> pending = new ArrayList<>();
+        for (Runnable task : checkers.shutdownNow()) {
+            //noinspection unchecked
+            pending.add(((CheckTask) task).admission);
+        }
+        threads.forEach(Thread::interrupt);
+
+        lanes.forEach(lane -> lane.drainTo(pending));
+        commitQueue.drainTo(pending);
+        pending.forEach(a -> complete(a, TxResponse.EXCEPTION));
+    }
+}
@@ -160,6 +160,11 @@ public class Arguments {
             description = "if using leveldb, it triggers its database compaction processes")
     private boolean dbCompact;
 
+    @Option(
+            names = {"--db-migrate-details"},
+            description = "moves contract storage and code out of the details database")
+    private boolean dbMigrateDetails;
+
     /** Compacts the account options into specific commands. */
     public static String[] preProcess(String[] arguments) {
         List<String> list = new ArrayList<>();
@@ -259,4 +264,8 @@ public class Arguments {
     public boolean isDbCompact() {
         return dbCompact;
     }
+
+    public boolean isDbMigrateDetails() {
+        return dbMigrateDetails;
+    }
 }
@@ -101,7 +101,8 @@ public class Cli {
         DUMP_STATE_SIZE,
         DUMP_STATE,
         DUMP_BLOCKS,
-        DB_COMPACT
+        DB_COMPACT,
+        DB_MIGRATE_DETAILS
     }
 
     @SuppressWarnings("ResultOfMethodCallIgnored")
@@ -446,6 +447,11 @@ public class Cli {
                 return EXIT;
             }
 
+            if (options.isDbMigrateDetails()) {
+                RecoveryUtils.migrateContractDetails();
+                return EXIT;
+            }
+
             // if no return happened earlier, run the kernel
             return RUN;
         } catch (Exception e) {
@@ -841,6 +847,9 @@ public class Cli {
         if (options.isDbCompact()) {
             return TaskPriority.DB_COMPACT;
         }
+        if (options.isDbMigrateDetails()) {
+            return TaskPriority.DB_MIGRATE_DETAILS;
+        }
         return TaskPriority.NONE;
     }
 
@@ -914,6 +923,10 @@ public class Cli {
         if (breakingTaskPriority.compareTo(TaskPriority.DB_COMPACT) < 0 && options.isDbCompact()) {
             skippedTasks.add("--db-compact");
         }
+        if (breakingTaskPriority.compareTo(TaskPriority.DB_MIGRATE_DETAILS) < 0
+                && options.isDbMigrateDetails()) {
+            skippedTasks.add("--db-migrate-details");
+        }
         return skippedTasks;
     }
 
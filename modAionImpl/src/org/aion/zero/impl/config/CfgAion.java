@@ -40,6 +40,7 @@ import javax.xml.stream.XMLStreamWriter;
 import org.aion.mcf.config.Cfg;
 import org.aion.mcf.config.CfgApi;
 import org.aion.mcf.config.CfgDb;
+import org.aion.mcf.config.CfgEvent;
 import org.aion.mcf.config.CfgFork;
 import org.aion.mcf.config.CfgGui;
 import org.aion.mcf.config.CfgLog;
@@ -73,6 +74,7 @@ public final class CfgAion extends Cfg {
         this.db = new CfgDb();
         this.log = new CfgLog();
         this.tx = new CfgTx();
+        this.event = new CfgEvent();
         this.reports = new CfgReports();
         this.gui = new CfgGui();
         this.fork = new CfgFork();
@@ -254,6 +256,9 @@ public final class CfgAion extends Cfg {
                         case "tx":
                             this.tx.fromXML(sr);
                             break;
+                        case "event":
+                            this.event.fromXML(sr);
+                            break;
                         case "reports":
                             this.reports.fromXML(sr);
                             break;
@@ -409,6 +414,7 @@ public final class CfgAion extends Cfg {
             sw.writeCharacters(this.getDb().toXML());
             sw.writeCharacters(this.getLog().toXML());
             sw.writeCharacters(this.getTx().toXML());
+            sw.writeCharacters(this.getEvent().toXML());
             sw.writeCharacters(this.getReports().toXML());
             sw.writeCharacters(this.getGui().toXML());
 
@@ -27,6 +27,7 @@ import java.util.List;
 import org.aion.base.db.IRepository;
 import org.aion.mcf.core.IBlockchain;
 import org.aion.zero.impl.BlockContext;
+import org.aion.zero.impl.db.LogBloomIndex;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.impl.types.AionTxInfo;
 import org.aion.zero.types.A0BlockHeader;
@@ -43,10 +44,27 @@ public interface IAionBlockchain
     BlockContext createNewBlockContext(
             AionBlock parent, List<AionTransaction> transactions, boolean waitUntilBlockTime);
 
+    /**
+     * Creates a block template on top of the given parent that is extended incrementally by {@link
+     * #extendBlockTemplate(List)} until the parent changes.
+     */
+    BlockContext createBlockTemplate(AionBlock parent, List<AionTransaction> transactions);
+
+    /**
+     * Appends the given transactions to the block template on top of the best block.
+     *
+     * @return the updated template, or {@code null} if there is no template on top of the best
+     *     block
+     */
+    BlockContext extendBlockTemplate(List<AionTransaction> transactions);
+
     AionBlock getBestBlock();
 
     AionBlock getBlockByNumber(long num);
 
+    /** @return the index of the log blooms of the main chain blocks */
+    LogBloomIndex getLogBloomIndex();
+
     /**
      * Recovery functionality for rebuilding the world state.
      *
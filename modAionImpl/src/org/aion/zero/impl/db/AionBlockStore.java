@@ -25,6 +25,9 @@ package org.aion.zero.impl.db;
 import static java.math.BigInteger.ZERO;
 import static org.aion.crypto.HashUtil.shortHash;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -41,11 +44,14 @@ import java.util.Arrays;
 import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.util.ByteArrayWrapper;
 import org.aion.base.util.ByteUtil;
 import org.aion.base.util.Hex;
+import org.aion.db.impl.AtomicWriteBatch;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.mcf.db.AbstractPowBlockstore;
@@ -55,6 +61,7 @@ import org.aion.mcf.ds.Serializer;
 import org.aion.rlp.RLP;
 import org.aion.rlp.RLPElement;
 import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPView;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.types.A0BlockHeader;
 import org.aion.zero.types.IAionBlock;
@@ -65,10 +72,18 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
     private static final Logger LOG_CONS = AionLoggerFactory.getLogger(LogEnum.CONS.name());
 
+    /** number of decoded blocks, including their transactions, kept in memory */
+    private static final int BLOCK_CACHE_SIZE = 128;
+    /** number of decoded headers kept in memory, for header and hash requests from peers */
+    private static final int HEADER_CACHE_SIZE = 1024;
+
     protected ReadWriteLock lock = new ReentrantReadWriteLock();
 
     private DataSourceArray<List<BlockInfo>> index;
+    private IByteArrayKeyValueDatabase indexDatabase;
     private ObjectDataSource<AionBlock> blocks;
+    private IByteArrayKeyValueDatabase blocksDatabase;
+    private Cache<ByteArrayWrapper, A0BlockHeader> headers;
 
     private boolean checkIntegrity = true;
 
@@ -91,7 +106,11 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     private void init(IByteArrayKeyValueDatabase index, IByteArrayKeyValueDatabase blocks) {
 
         this.index = new DataSourceArray<>(new ObjectDataSource<>(index, BLOCK_INFO_SERIALIZER));
+        this.indexDatabase = index;
 
+        this.blocksDatabase = blocks;
+        this.headers =
+                CacheBuilder.newBuilder().maximumSize(HEADER_CACHE_SIZE).recordStats().build();
         this.blocks =
                 new ObjectDataSource<>(
                         blocks,
@@ -105,7 +124,8 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
                             public AionBlock deserialize(byte[] bytes) {
                                 return new AionBlock(bytes);
                             }
-                        });
+                        },
+                        BLOCK_CACHE_SIZE);
     }
 
     public AionBlock getBestBlock() {
@@ -159,8 +179,13 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     public void flush() {
         lock.writeLock().lock();
         try {
-            blocks.flush();
-            index.flush();
+            // a block and its index entry are made permanent together
+            AtomicWriteBatch batch = new AtomicWriteBatch();
+            blocksDatabase.commitTo(batch);
+            indexDatabase.commitTo(batch);
+            if (!batch.commit()) {
+                LOG.error("Unable to commit the changes to the block store.");
+            }
         } finally {
             lock.writeLock().unlock();
         }
@@ -201,6 +226,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         blockInfos.add(blockInfo);
 
         blocks.put(block.getHash(), block);
+        headers.invalidate(ByteArrayWrapper.wrap(block.getHash()));
         index.set(block.getNumber(), blockInfos);
     }
 
@@ -371,16 +397,54 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         }
     }
 
+    /**
+     * Retrieves the header of the block with the given hash without decoding the block
+     * transactions, unless the block is already cached.
+     *
+     * @param hash the hash of the block
+     * @return the block header, or {@code null} if the block is not stored
+     */
+    public A0BlockHeader getBlockHeaderByHash(byte[] hash) {
+        lock.readLock().lock();
+        try {
+            return getBlockHeaderByHashInner(hash);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** @implNote The method calling this method must handle the locking. */
+    private A0BlockHeader getBlockHeaderByHashInner(byte[] hash) {
+        ByteArrayWrapper key = ByteArrayWrapper.wrap(hash);
+        A0BlockHeader header = headers.getIfPresent(key);
+        if (header != null) {
+            return header;
+        }
+
+        AionBlock block = blocks.getIfCached(hash);
+        if (block != null) {
+            header = block.getHeader();
+        } else {
+            Optional<byte[]> encoded = blocksDatabase.get(hash);
+            if (!encoded.isPresent()) {
+                return null;
+            }
+            header = new A0BlockHeader(RLPView.wrap(encoded.get()).get(0));
+        }
+        headers.put(key, header);
+        return header;
+    }
+
     @Override
     public List<byte[]> getListHashesEndWith(byte[] hash, long number) {
         lock.readLock().lock();
 
         try {
-            List<AionBlock> blocks = getListBlocksEndWith(hash, number);
-            List<byte[]> hashes = new ArrayList<>(blocks.size());
+            List<A0BlockHeader> headers = getListHeadersEndWithInner(hash, number);
+            List<byte[]> hashes = new ArrayList<>(headers.size());
 
-            for (IAionBlock b : blocks) {
-                hashes.add(b.getHash());
+            for (A0BlockHeader h : headers) {
+                hashes.add(h.getHash());
             }
 
             return hashes;
@@ -393,19 +457,54 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     public List<A0BlockHeader> getListHeadersEndWith(byte[] hash, long qty) {
         lock.readLock().lock();
         try {
-            List<AionBlock> blocks = getListBlocksEndWith(hash, qty);
-            List<A0BlockHeader> headers = new ArrayList<>(blocks.size());
-
-            for (IAionBlock b : blocks) {
-                headers.add(b.getHeader());
-            }
-
-            return headers;
+            return getListHeadersEndWithInner(hash, qty);
         } finally {
             lock.readLock().unlock();
         }
     }
 
+    /** @implNote The method calling this method must handle the locking. */
+    private List<A0BlockHeader> getListHeadersEndWithInner(byte[] hash, long qty) {
+        // locks acquired by calling method
+        A0BlockHeader header = getBlockHeaderByHashInner(hash);
+
+        if (header == null) {
+            return new ArrayList<>();
+        }
+
+        List<A0BlockHeader> headers = new ArrayList<>((int) qty);
+
+        for (int i = 0; i < qty; ++i) {
+            headers.add(header);
+            header = getBlockHeaderByHashInner(header.getParentHash());
+            if (header == null) {
+                break;
+            }
+        }
+
+        return headers;
+    }
+
+    /**
+     * Deletes the block with the given hash and drops its decoded header and body from the caches.
+     *
+     * @implNote The method calling this method must handle the locking.
+     */
+    private void deleteBlock(byte[] hash) {
+        blocks.delete(hash);
+        headers.invalidate(ByteArrayWrapper.wrap(hash));
+    }
+
+    /** @return the hit and miss counts of the decoded block cache */
+    public CacheStats getBlockCacheStats() {
+        return blocks.getCacheStats();
+    }
+
+    /** @return the hit and miss counts of the decoded header cache */
+    public CacheStats getHeaderCacheStats() {
+        return headers.stats();
+    }
+
     @Override
     public List<AionBlock> getListBlocksEndWith(byte[] hash, long qty) {
         lock.readLock().lock();
@@ -607,14 +706,14 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
                 // remove all the blocks at that level
                 List<BlockInfo> currentLevelBlocks = getBlockInfoForLevel(currentLevel);
                 if (currentLevelBlocks == null || currentLevelBlocks.size() == 0) {
-                    blocks.delete(bestLine.getHash());
+                    deleteBlock(bestLine.getHash());
                     LOG.error(
                             "Null block information found at "
                                     + currentLevel
                                     + " when information should exist.");
                 } else {
                     for (BlockInfo bk_info : currentLevelBlocks) {
-                        blocks.delete(bk_info.getHash());
+                        deleteBlock(bk_info.getHash());
                     }
                 }
 
@@ -746,7 +845,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
 
         // deleting incorrect parallel blocks
         for (BlockInfo wrongBlock : levelBlocks) {
-            blocks.delete(wrongBlock.getHash());
+            deleteBlock(wrongBlock.getHash());
         }
 
         // set new block info with total difficulty = block difficulty
@@ -1312,6 +1411,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
             LOG.error("Not able to close the index database:", e);
         } finally {
             try {
+                headers.invalidateAll();
                 blocks.close();
             } catch (Exception e) {
                 LOG.error("Not able to close the blocks database:", e);
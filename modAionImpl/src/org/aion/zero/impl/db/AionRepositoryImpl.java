@@ -27,6 +27,7 @@ import static org.aion.base.util.ByteUtil.EMPTY_BYTE_ARRAY;
 import static org.aion.crypto.HashUtil.EMPTY_TRIE_HASH;
 import static org.aion.zero.impl.AionHub.INIT_ERROR_EXIT_CODE;
 
+import com.google.common.cache.CacheStats;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -36,6 +37,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Semaphore;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
 import org.aion.base.db.IContractDetails;
 import org.aion.base.db.IRepository;
@@ -44,10 +46,12 @@ import org.aion.base.db.IRepositoryConfig;
 import org.aion.base.type.Address;
 import org.aion.base.util.Hex;
 import org.aion.base.vm.IDataWord;
+import org.aion.db.impl.AtomicWriteBatch;
 import org.aion.mcf.core.AccountState;
 import org.aion.mcf.db.AbstractRepository;
 import org.aion.mcf.db.ContractDetailsCacheImpl;
 import org.aion.mcf.db.TransactionStore;
+import org.aion.mcf.trie.CleanNodeCache;
 import org.aion.mcf.trie.SecureTrie;
 import org.aion.mcf.trie.Trie;
 import org.aion.zero.db.AionRepositoryCache;
@@ -67,6 +71,17 @@ public class AionRepositoryImpl
     // pending block store
     private PendingBlockStore pendingStore;
 
+    private LogBloomIndex logBloomIndex;
+
+    // world state nodes kept in memory across flushes, shared with snapshots
+    private CleanNodeCache stateNodeCache;
+
+    // contract storage nodes kept in memory across flushes, shared by all the contracts
+    private CleanNodeCache storageNodeCache;
+
+    // one batch of changes is written at a time, so that the batches reach the databases in order
+    private final Semaphore batchWrite = new Semaphore(1);
+
     /**
      * used by getSnapShotTo
      *
@@ -112,10 +127,19 @@ public class AionRepositoryImpl
             // Setup block store.
             this.blockStore = new AionBlockStore(indexDatabase, blockDatabase, checkIntegrity);
 
+            // Setup log bloom index.
+            this.logBloomIndex = new LogBloomIndex(logBloomDatabase, blockStore);
+
             this.pendingStore = new PendingBlockStore(pendingStoreProperties);
 
             // Setup world trie.
+            stateNodeCache = new CleanNodeCache();
+            stateDSPrune.setCleanNodeCache(stateNodeCache);
             worldState = createStateTrie();
+
+            // Setup contract storage tries.
+            storageNodeCache = new CleanNodeCache();
+            detailsDS.setStorageNodeCache(storageNodeCache);
         } catch (Exception e) {
             LOGGEN.error("Shutdown due to failure to initialize repository.");
             // the above message does not get logged without the printStackTrace below
@@ -128,13 +152,29 @@ public class AionRepositoryImpl
         return this.pendingStore;
     }
 
+    public LogBloomIndex getLogBloomIndex() {
+        return this.logBloomIndex;
+    }
+
     /** @implNote The transaction store is not locked within the repository implementation. */
     public TransactionStore<AionTransaction, AionTxReceipt, AionTxInfo> getTransactionStore() {
         return this.transactionStore;
     }
 
+    /** @return the hit and miss counts of the world state node cache */
+    public CacheStats getStateNodeCacheStats() {
+        return stateNodeCache.getStats();
+    }
+
+    /** @return the hit and miss counts of the contract storage node cache */
+    public CacheStats getStorageNodeCacheStats() {
+        return storageNodeCache.getStats();
+    }
+
     private Trie createStateTrie() {
-        return new SecureTrie(stateDSPrune).withPruningEnabled(pruneEnabled);
+        return new SecureTrie(stateDSPrune)
+                .withPruningEnabled(pruneEnabled)
+                .withCleanNodeCache(stateNodeCache);
     }
 
     @Override
@@ -234,31 +274,76 @@ public class AionRepositoryImpl
     @Override
     public void flush() {
         LOG.debug("------ FLUSH ON " + this.toString());
+        commitFlush(prepareFlush());
+    }
+
+    /**
+     * Syncs the world state and moves the changes made to the databases since the previous flush
+     * to a batch, without writing them. The changes remain readable until the batch is written
+     * with {@link #commitFlush(AtomicWriteBatch)}, which must be called exactly once. Waits for the
+     * previously prepared batch to be written.
+     *
+     * @return the changes to be written
+     */
+    public AtomicWriteBatch prepareFlush() {
+        batchWrite.acquireUninterruptibly();
         rwLock.writeLock().lock();
         try {
             LOG.debug("flushing to disk");
-            long s = System.currentTimeMillis();
 
             // First sync worldState.
             LOG.info("worldState.sync()");
             worldState.sync();
 
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(
+                        "world state node cache: size={} {}",
+                        stateNodeCache.size(),
+                        stateNodeCache.getStats());
+                LOG.debug(
+                        "storage node cache: size={} {}",
+                        storageNodeCache.size(),
+                        storageNodeCache.getStats());
+            }
+
             // Flush all necessary caches.
             LOG.info("flush all databases");
 
+            // the changes to all the databases are committed together, in a single write for the
+            // databases that share a storage engine
+            AtomicWriteBatch batch = new AtomicWriteBatch();
             if (databaseGroup != null) {
                 for (IByteArrayKeyValueDatabase db : databaseGroup) {
-                    if (!db.isAutoCommitEnabled()) {
-                        db.commit();
-                    }
+                    db.commitTo(batch);
                 }
             } else {
                 LOG.warn("databaseGroup is null");
             }
+            return batch;
+        } catch (RuntimeException e) {
+            batchWrite.release();
+            throw e;
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
 
+    /**
+     * Writes the changes collected by {@link #prepareFlush()}.
+     *
+     * @return {@code true} if all the changes were written, {@code false} otherwise
+     */
+    public boolean commitFlush(AtomicWriteBatch batch) {
+        try {
+            long s = System.currentTimeMillis();
+            boolean success = batch.commit();
+            if (!success) {
+                LOG.error("Unable to commit all the changes to the databases.");
+            }
             LOG.info("RepositoryImpl.flush took " + (System.currentTimeMillis() - s) + " ms");
+            return success;
         } finally {
-            rwLock.writeLock().unlock();
+            batchWrite.release();
         }
     }
 
@@ -523,7 +608,6 @@ public class AionRepositoryImpl
 
         try {
             worldState.sync();
-            detailsDS.syncLargeStorage();
 
             if (pruneEnabled) {
                 if (stateDSPrune.isArchiveEnabled() && blockHeader.getNumber() % archiveRate == 0) {
@@ -590,11 +674,14 @@ public class AionRepositoryImpl
             repo.detailsDS = this.detailsDS;
             repo.isSnapshot = true;
 
+            repo.stateNodeCache = this.stateNodeCache;
+            repo.storageNodeCache = this.storageNodeCache;
             repo.worldState = repo.createStateTrie();
             repo.worldState.setRoot(root);
 
             // gives snapshots access to the pending store
             repo.pendingStore = this.pendingStore;
+            repo.logBloomIndex = this.logBloomIndex;
 
             return repo;
         } finally {
@@ -685,6 +772,20 @@ public class AionRepositoryImpl
                 LOGGEN.error("Exception occurred while closing the transaction database.", e);
             }
 
+            try {
+                if (logBloomIndex != null) {
+                    logBloomIndex.close();
+                    logBloomIndex = null;
+                }
+                if (logBloomDatabase != null) {
+                    logBloomDatabase.close();
+                    LOGGEN.info("Log bloom database closed.");
+                    logBloomDatabase = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while closing the log bloom database.", e);
+            }
+
             try {
                 if (blockStore != null) {
                     blockStore.close();
@@ -760,6 +861,11 @@ public class AionRepositoryImpl
         return this.detailsDatabase;
     }
 
+    /** For testing. */
+    public IByteArrayKeyValueDatabase getStorageDatabase() {
+        return this.storageDatabase;
+    }
+
     /** For testing. */
     public IByteArrayKeyValueDatabase getBlockDatabase() {
         return this.blockDatabase;
@@ -797,6 +903,31 @@ public class AionRepositoryImpl
         }
     }
 
+    /**
+     * Rewrites the contract details stored with their storage and code inline, moving both to the
+     * storage database.
+     *
+     * @return the number of contract details rewritten
+     */
+    public long migrateContractDetails() {
+        rwLock.writeLock().lock();
+        try {
+            return detailsDS.migrate();
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    /** Discards the pruning journal of the state, for when the state database is rebuilt. */
+    public void clearStateJournal() {
+        rwLock.writeLock().lock();
+        try {
+            stateDSPrune.clearJournal();
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
     public void compactState() {
         rwLock.writeLock().lock();
         try {
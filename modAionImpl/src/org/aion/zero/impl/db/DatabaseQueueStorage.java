@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.db;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.mcf.ds.ObjectDataSource;
+import org.aion.mcf.ds.Serializer;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPElement;
+import org.aion.rlp.RLPList;
+import org.aion.zero.impl.types.AionBlock;
+
+/**
+ * Stores each queue of pending blocks as a single RLP encoded list in a key-value database, so that
+ * adding a block to a queue requires reading and writing the whole queue.
+ */
+class DatabaseQueueStorage implements PendingQueueStorage {
+
+    private static final Serializer<List<AionBlock>, byte[]> BLOCK_LIST_RLP_SERIALIZER =
+            new Serializer<>() {
+                @Override
+                public byte[] serialize(List<AionBlock> object) {
+                    byte[][] infoList = new byte[object.size()][];
+                    int i = 0;
+                    for (AionBlock b : object) {
+                        infoList[i] = b.getEncoded();
+                        i++;
+                    }
+                    return RLP.encodeList(infoList);
+                }
+
+                @Override
+                public List<AionBlock> deserialize(byte[] stream) {
+                    RLPList list = (RLPList) RLP.decode2(stream).get(0);
+                    List<AionBlock> res = new ArrayList<>(list.size());
+
+                    for (RLPElement aList : list) {
+                        res.add(new AionBlock(aList.getRLPData()));
+                    }
+                    return res;
+                }
+            };
+
+    private final IByteArrayKeyValueDatabase database;
+    private final ObjectDataSource<List<AionBlock>> source;
+
+    DatabaseQueueStorage(IByteArrayKeyValueDatabase database) {
+        this.database = database;
+        this.source = new ObjectDataSource<>(database, BLOCK_LIST_RLP_SERIALIZER);
+    }
+
+    @Override
+    public List<AionBlock> get(byte[] queue) {
+        return source.get(queue);
+    }
+
+    @Override
+    public int count(byte[] queue) {
+        List<AionBlock> blocks = source.get(queue);
+        return blocks == null ? 0 : blocks.size();
+    }
+
+    @Override
+    public void put(byte[] queue, List<AionBlock> blocks) {
+        source.putToBatch(queue, blocks);
+    }
+
+    @Override
+    public void append(byte[] queue, AionBlock block) {
+        List<AionBlock> blocks = source.get(queue);
+        if (blocks == null) {
+            blocks = new ArrayList<>();
+        }
+        blocks.add(block);
+        source.putToBatch(queue, blocks);
+    }
+
+    @Override
+    public void delete(byte[] queue) {
+        source.putToBatch(queue, null);
+    }
+
+    @Override
+    public void commit() {
+        source.flushBatch();
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        Iterator<byte[]> iterator = database.keys();
+        while (iterator.hasNext()) {
+            iterator.next();
+            size++;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return source.isOpen();
+    }
+
+    @Override
+    public void flush() {
+        source.flush();
+    }
+
+    @Override
+    public void close() {
+        source.close();
+    }
+}
@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.zero.impl.db;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.util.ByteUtil;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.vm.types.Bloom;
+import org.aion.zero.types.A0BlockHeader;
+import org.slf4j.Logger;
+
+/**
+ * Index of the log blooms of the main chain blocks, used to find the blocks that may contain logs
+ * matching a filter without reading every block in the requested range.
+ *
+ * <p>The chain is split into sections of {@link #SECTION_SIZE} blocks. For each section the index
+ * stores the bloom bits transposed: one bit vector per bloom bit, where bit {@code j} of the vector
+ * is set when the bloom of the {@code j}-th block of the section has that bloom bit set. A filter
+ * is matched against a section by combining the vectors of the few bits it sets, so a query reads
+ * about three vectors per topic for every {@link #SECTION_SIZE} blocks. Vectors without any set
+ * bits are not stored.
+ *
+ * <p>Only complete sections are stored. The section containing the best block is built in memory
+ * as blocks are added to the main chain with {@link #onBestBlock(A0BlockHeader)} and is written
+ * when its last block is added. Sections missing from an existing database are built by {@link
+ * #backfill()}, which can be run in the background with {@link #startBackfill()}.
+ *
+ * <p>The hash of the last block of each section is stored with the section, so that sections
+ * replaced by a chain reorganization are detected and dropped before being used again.
+ */
+public class LogBloomIndex {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    /** number of blocks per section */
+    public static final int SECTION_SIZE = 4096;
+
+    /** number of bits in a log bloom */
+    private static final int BLOOM_BITS = 2048;
+
+    /** length of the bit vector of one bloom bit for one section */
+    private static final int VECTOR_LENGTH = SECTION_SIZE / 8;
+
+    /** the key suffix storing the hash of the last block of a section */
+    private static final short HEAD_HASH = -1;
+
+    private static final byte[] SECTIONS_KEY = "sections".getBytes();
+
+    private final IByteArrayKeyValueDatabase database;
+    private final AionBlockStore blockStore;
+
+    /** number of complete sections stored in the database */
+    private volatile long sections;
+
+    // section of the best block, built in memory
+    private long headSection = -1;
+    private byte[][] headVectors;
+    private long headNext = -1;
+    private byte[] headHash;
+    /** {@code false} when blocks of the in-memory section could not be read */
+    private boolean headComplete;
+
+    private final AtomicBoolean backfillRunning = new AtomicBoolean(false);
+    private volatile boolean closed = false;
+
+    public LogBloomIndex(IByteArrayKeyValueDatabase database, AionBlockStore blockStore) {
+        this.database = database;
+        this.blockStore = blockStore;
+
+        Optional<byte[]> stored = database.get(SECTIONS_KEY);
+        this.sections = stored.map(ByteUtil::byteArrayToLong).orElse(0L);
+    }
+
+    /** @return the number of blocks, starting from the genesis, covered by the stored sections */
+    public long getIndexedBlockCount() {
+        return sections * SECTION_SIZE;
+    }
+
+    /**
+     * Updates the index with a new best block of the main chain. Consecutive blocks are added to
+     * the in-memory section, while a block that does not extend the previous one causes the stored
+     * sections to be checked against the main chain and the in-memory section to be rebuilt.
+     *
+     * @implNote The block must already be saved to the block store as part of the main chain.
+     */
+    public synchronized void onBestBlock(A0BlockHeader header) {
+        if (closed) {
+            return;
+        }
+
+        if (header.getNumber() == headNext && Arrays.equals(header.getParentHash(), headHash)) {
+            addToHead(header);
+        } else {
+            rebuildHead(header);
+        }
+
+        if (headNext % SECTION_SIZE == 0) {
+            // the last block of the in-memory section was added
+            if (headComplete && sections == headSection) {
+                writeSection(headSection, headVectors, headHash);
+            }
+            headSection++;
+            headVectors = new byte[BLOOM_BITS][];
+            headComplete = true;
+        }
+    }
+
+    private void addToHead(A0BlockHeader header) {
+        setBits(headVectors, (int) (header.getNumber() - headSection * SECTION_SIZE), header);
+        headNext = header.getNumber() + 1;
+        headHash = header.getHash();
+    }
+
+    private void rebuildHead(A0BlockHeader header) {
+        dropReplacedSections();
+
+        headSection = header.getNumber() / SECTION_SIZE;
+        headVectors = new byte[BLOOM_BITS][];
+        headNext = header.getNumber() + 1;
+        headHash = header.getHash();
+
+        long start = headSection * SECTION_SIZE;
+        A0BlockHeader current = header;
+        while (current.getNumber() > start) {
+            setBits(headVectors, (int) (current.getNumber() - start), current);
+            current = blockStore.getBlockHeaderByHash(current.getParentHash());
+            if (current == null) {
+                break;
+            }
+        }
+        if (current != null) {
+            setBits(headVectors, 0, current);
+        }
+        // the section is left to the backfill if some of its blocks are missing
+        headComplete = current != null;
+
+        if (sections < headSection) {
+            startBackfill();
+        }
+    }
+
+    /** Removes the last stored sections while they are no longer part of the main chain. */
+    private void dropReplacedSections() {
+        while (sections > 0) {
+            long section = sections - 1;
+            byte[] lastHash = blockStore.getBlockHashByNumber((section + 1) * SECTION_SIZE - 1);
+            Optional<byte[]> storedHash = database.get(key(section, HEAD_HASH));
+            if (lastHash != null
+                    && storedHash.isPresent()
+                    && Arrays.equals(lastHash, storedHash.get())) {
+                return;
+            }
+
+            List<byte[]> keys = new ArrayList<>(BLOOM_BITS + 1);
+            for (int bit = 0; bit < BLOOM_BITS; bit++) {
+                keys.add(key(section, (short) bit));
+            }
+            keys.add(key(section, HEAD_HASH));
+            database.deleteBatch(keys);
+
+            sections = section;
+            database.put(SECTIONS_KEY, ByteUtil.longToBytes(sections));
+            LOG.info("Log bloom index section {} dropped after a chain reorganization.", section);
+        }
+    }
+
+    /** Builds the missing sections from the main chain blocks in the block store. */
+    public void backfill() {
+        long start = System.currentTimeMillis();
+        long built = 0;
+
+        while (!closed) {
+            long section;
+            synchronized (this) {
+                section = sections;
+            }
+
+            byte[] lastHash = blockStore.getBlockHashByNumber((section + 1) * SECTION_SIZE - 1);
+            if (lastHash == null) {
+                // the section is not complete yet
+                break;
+            }
+
+            // the section is read by following the parent hashes from its last block
+            byte[][] vectors = new byte[BLOOM_BITS][];
+            A0BlockHeader header = blockStore.getBlockHeaderByHash(lastHash);
+            for (int i = SECTION_SIZE - 1; i >= 0; i--) {
+                if (header == null) {
+                    LOG.error("Log bloom index backfill stopped at section {}.", section);
+                    return;
+                }
+                setBits(vectors, i, header);
+                header = i == 0 ? null : blockStore.getBlockHeaderByHash(header.getParentHash());
+            }
+
+            synchronized (this) {
+                if (closed || sections != section) {
+                    continue;
+                }
+                if (!Arrays.equals(
+                        lastHash,
+                        blockStore.getBlockHashByNumber((section + 1) * SECTION_SIZE - 1))) {
+                    // the section was replaced while being read
+                    continue;
+                }
+                writeSection(section, vectors, lastHash);
+            }
+
+            built++;
+            if (built % 100 == 0) {
+                LOG.info("Log bloom index backfill reached block {}.", getIndexedBlockCount());
+            }
+        }
+
+        if (built > 0) {
+            LOG.info(
+                    "Log bloom index backfill built {} sections in {} ms.",
+                    built,
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    /** Runs {@link #backfill()} in a background thread, unless it is already running. */
+    public void startBackfill() {
+        if (closed || !backfillRunning.compareAndSet(false, true)) {
+            return;
+        }
+
+        Thread thread =
+                new Thread(
+                        () -> {
+                            try {
+                                backfill();
+                            } catch (Exception e) {
+                                LOG.error("Log bloom index backfill failed.", e);
+                            } finally {
+                                backfillRunning.set(false);
+                            }
+                        },
+                        "log-bloom-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Stops the index updates. The database is closed by the repository. */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Finds the blocks in the given range whose log blooms match the filter, among the blocks
+     * covered by the stored sections. The blocks after the returned number are not covered by the
+     * index and must be checked by the caller.
+     *
+     * @param filter the filter blooms, where a block matches when for each row of the array its
+     *     bloom contains at least one of the blooms of the row
+     * @param from the first block number of the range
+     * @param to the last block number of the range
+     * @param candidates the list to which the numbers of the matching blocks are added, in order
+     * @return the first block number of the range that is not covered by the index
+     */
+    public long findCandidates(Bloom[][] filter, long from, long to, List<Long> candidates) {
+        long indexed = getIndexedBlockCount();
+        long end = Math.min(to + 1, indexed);
+
+        for (long section = from / SECTION_SIZE; section * SECTION_SIZE < end; section++) {
+            byte[] match = matchSection(section, filter);
+
+            long sectionStart = section * SECTION_SIZE;
+            int first = (int) (Math.max(from, sectionStart) - sectionStart);
+            int last = (int) (Math.min(end, sectionStart + SECTION_SIZE) - sectionStart);
+            for (int i = first; i < last; i++) {
+                if ((match[i >>> 3] & (1 << (i & 7))) != 0) {
+                    candidates.add(sectionStart + i);
+                }
+            }
+        }
+
+        return Math.max(from, end);
+    }
+
+    /** @return the bit vector of the blocks of the section that match the filter */
+    private byte[] matchSection(long section, Bloom[][] filter) {
+        Map<Integer, byte[]> vectors = new HashMap<>();
+        byte[] result = ones();
+
+        for (Bloom[] row : filter) {
+            byte[] rowMatch = new byte[VECTOR_LENGTH];
+            for (Bloom bloom : row) {
+                byte[] bloomMatch = ones();
+                for (int bit : bits(bloom.getData())) {
+                    byte[] vector =
+                            vectors.computeIfAbsent(
+                                    bit,
+                                    b -> database.get(key(section, b.shortValue())).orElse(null));
+                    if (vector == null) {
+                        bloomMatch = null;
+                        break;
+                    }
+                    and(bloomMatch, vector);
+                }
+                if (bloomMatch != null) {
+                    or(rowMatch, bloomMatch);
+                }
+            }
+            and(result, rowMatch);
+        }
+
+        return result;
+    }
+
+    private void writeSection(long section, byte[][] vectors, byte[] lastHash) {
+        Map<byte[], byte[]> batch = new HashMap<>();
+        for (int bit = 0; bit < BLOOM_BITS; bit++) {
+            if (vectors[bit] != null) {
+                batch.put(key(section, (short) bit), vectors[bit]);
+            }
+        }
+        batch.put(key(section, HEAD_HASH), lastHash);
+        database.putBatch(batch);
+
+        sections = section + 1;
+        database.put(SECTIONS_KEY, ByteUtil.longToBytes(sections));
+    }
+
+    /** Sets the bits of the block at the given position in the section for its bloom bits. */
+    private static void setBits(byte[][] vectors, int position, A0BlockHeader header) {
+        for (int bit : bits(header.getLogsBloom())) {
+            if (vectors[bit] == null) {
+                vectors[bit] = new byte[VECTOR_LENGTH];
+            }
+            vectors[bit][position >>> 3] |= (byte) (1 << (position & 7));
+        }
+    }
+
+    /** @return the positions of the set bits of the bloom, as used by {@link Bloom#create} */
+    private static int[] bits(byte[] bloom) {
+        int count = 0;
+        for (byte b : bloom) {
+            count += Integer.bitCount(b & 0xFF);
+        }
+
+        int[] bits = new int[count];
+        int n = 0;
+        for (int i = 0; i < bloom.length; i++) {
+            int b = bloom[i] & 0xFF;
+            while (b != 0) {
+                int low = Integer.numberOfTrailingZeros(b);
+                bits[n++] = (bloom.length - 1 - i) * 8 + low;
+                b &= b - 1;
+            }
+        }
+        return bits;
+    }
+
+    private static byte[] key(long section, short suffix) {
+        return ByteBuffer.allocate(Long.BYTES + Short.BYTES)
+                .putLong(section)
+                .putShort(suffix)
+                .array();
+    }
+
+    private static byte[] ones() {
+        byte[] bytes = new byte[VECTOR_LENGTH];
+        Arrays.fill(bytes, (byte) 0xFF);
+        return bytes;
+    }
+
+    private static void and(byte[] target, byte[] other) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] &= other[i];
+        }
+    }
+
+    private static void or(byte[] target, byte[] other) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] |= other[i];
+        }
+    }
+}
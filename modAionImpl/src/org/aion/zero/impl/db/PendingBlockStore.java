@@ -31,6 +31,7 @@ import static org.aion.p2p.P2pConstant.STEP_COUNT;
 import com.google.common.annotations.VisibleForTesting;
 import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -73,7 +74,8 @@ import org.slf4j.Logger;
  *   <li><b>levels</b>: maps a blockchain height to the queue identifiers that start with blocks at
  *       that height;
  *   <li><b>queues</b>: maps queues identifiers to the list of blocks (in ascending order) that
- *       belong to the queue;
+ *       belong to the queue, stored either in a database or in append-only segment files (see
+ *       {@link SegmentQueueStorage});
  *   <li><b>indexes</b>: maps block hashes to the identifier of the queue where the block is stored.
  * </ul>
  *
@@ -94,6 +96,7 @@ public class PendingBlockStore implements Flushable, Closeable {
     private static final String LEVEL_DB_NAME = "level";
     private static final String QUEUE_DB_NAME = "queue";
     private static final String INDEX_DB_NAME = "index";
+    private static final String SEGMENT_DIR_NAME = "segments";
 
     // data sources: with access managed by the `databaseLock`
     /**
@@ -104,9 +107,8 @@ public class PendingBlockStore implements Flushable, Closeable {
 
     private IByteArrayKeyValueDatabase levelDatabase;
     /** Used to map a queue identifier to a list of consecutive blocks. */
-    private ObjectDataSource<List<AionBlock>> queueSource;
+    private PendingQueueStorage queueSource;
 
-    private IByteArrayKeyValueDatabase queueDatabase;
     /** Used to maps a block hash to its current queue identifier. */
     private IByteArrayKeyValueDatabase indexSource;
 
@@ -128,6 +130,10 @@ public class PendingBlockStore implements Flushable, Closeable {
     public PendingBlockStore(final Properties _props) throws InvalidFilePathException {
         Properties local = new Properties(_props);
 
+        boolean useSegments =
+                Boolean.parseBoolean(local.getProperty(Props.ENABLE_PENDING_BLOCK_SEGMENTS));
+        File segmentFolder = null;
+
         // check for database persistence requirements
         DBVendor vendor = DBVendor.fromString(local.getProperty(Props.DB_TYPE));
         if (vendor.getPersistence()) {
@@ -136,19 +142,28 @@ public class PendingBlockStore implements Flushable, Closeable {
 
             verifyAndBuildPath(pbFolder);
             local.setProperty(Props.DB_PATH, pbFolder.getAbsolutePath());
+
+            if (useSegments) {
+                segmentFolder = new File(pbFolder, SEGMENT_DIR_NAME);
+            }
+        } else if (useSegments) {
+            LOG.warn(
+                    "Pending block segments require a persistent database vendor. Storing the queues in the database.");
         }
 
-        init(local);
+        init(local, segmentFolder);
     }
 
     /**
      * Initializes and opens the databases where the pending blocks will be stored.
      *
      * @param props the database properties to be used in initializing the underlying databases
+     * @param segmentFolder the folder storing the queues as segment files, or {@code null} to store
+     *     the queues in a database
      * @throws InvalidFilePathException when any of the required databases cannot be instantiated or
      *     opened.
      */
-    private void init(Properties props) throws InvalidFilePathException {
+    private void init(Properties props, File segmentFolder) throws InvalidFilePathException {
         // initialize status
         this.status = new HashMap<>();
 
@@ -161,12 +176,21 @@ public class PendingBlockStore implements Flushable, Closeable {
         this.levelSource = new ObjectDataSource<>(levelDatabase, HASH_LIST_RLP_SERIALIZER);
 
         // create the queue source
-        props.setProperty(Props.DB_NAME, QUEUE_DB_NAME);
-        this.queueDatabase = connectAndOpen(props, LOG);
-        if (queueDatabase == null || queueDatabase.isClosed()) {
-            throw newException(QUEUE_DB_NAME, props);
+        if (segmentFolder != null) {
+            try {
+                this.queueSource = new SegmentQueueStorage(segmentFolder);
+            } catch (IOException e) {
+                throw new InvalidFilePathException(
+                        "The pending block segments could not be opened in " + segmentFolder, e);
+            }
+        } else {
+            props.setProperty(Props.DB_NAME, QUEUE_DB_NAME);
+            IByteArrayKeyValueDatabase queueDatabase = connectAndOpen(props, LOG);
+            if (queueDatabase == null || queueDatabase.isClosed()) {
+                throw newException(QUEUE_DB_NAME, props);
+            }
+            this.queueSource = new DatabaseQueueStorage(queueDatabase);
         }
-        this.queueSource = new ObjectDataSource<>(queueDatabase, BLOCK_LIST_RLP_SERIALIZER);
 
         // create the index source
         props.setProperty(Props.DB_NAME, INDEX_DB_NAME);
@@ -229,31 +253,6 @@ public class PendingBlockStore implements Flushable, Closeable {
                 }
             };
 
-    private static final Serializer<List<AionBlock>, byte[]> BLOCK_LIST_RLP_SERIALIZER =
-            new Serializer<>() {
-                @Override
-                public byte[] serialize(List<AionBlock> object) {
-                    byte[][] infoList = new byte[object.size()][];
-                    int i = 0;
-                    for (AionBlock b : object) {
-                        infoList[i] = b.getEncoded();
-                        i++;
-                    }
-                    return RLP.encodeList(infoList);
-                }
-
-                @Override
-                public List<AionBlock> deserialize(byte[] stream) {
-                    RLPList list = (RLPList) RLP.decode2(stream).get(0);
-                    List<AionBlock> res = new ArrayList<>(list.size());
-
-                    for (RLPElement aList : list) {
-                        res.add(new AionBlock(aList.getRLPData()));
-                    }
-                    return res;
-                }
-            };
-
     /**
      * Stores a single block in the pending block store for importing later when the chain reaches
      * the needed height and the parent block gets imported. Is used by the functionality receiving
@@ -282,24 +281,20 @@ public class PendingBlockStore implements Flushable, Closeable {
                 // find parent queue hash
                 Optional<byte[]> existingQueueHash = indexSource.get(block.getParentHash());
                 byte[] currentQueueHash = null;
-                List<AionBlock> currentQueue = null;
 
                 // get existing queue if present
-                if (existingQueueHash.isPresent()) {
+                if (existingQueueHash.isPresent()
+                        && queueSource.count(existingQueueHash.get()) > 0) {
                     // using parent queue hash
                     currentQueueHash = existingQueueHash.get();
-
-                    // append block to queue
-                    currentQueue = queueSource.get(currentQueueHash);
                 } // do not add else here!
 
                 // when no queue exists OR problem with existing queue
-                if (currentQueue == null || currentQueue.isEmpty()) {
+                if (currentQueueHash == null) {
                     // start new queue
 
                     // queue hash = the node hash
                     currentQueueHash = block.getHash();
-                    currentQueue = new ArrayList<>();
 
                     // add (to) level
                     byte[] levelKey = ByteUtil.longToBytes(block.getNumber());
@@ -320,8 +315,8 @@ public class PendingBlockStore implements Flushable, Closeable {
                 indexSource.put(block.getHash(), currentQueueHash);
 
                 // add element to queue
-                currentQueue.add(block);
-                queueSource.put(currentQueueHash, currentQueue);
+                queueSource.append(currentQueueHash, block);
+                queueSource.commit();
 
                 // update status tracking
                 ByteArrayWrapper hash = ByteArrayWrapper.wrap(currentQueueHash);
@@ -418,7 +413,7 @@ public class PendingBlockStore implements Flushable, Closeable {
             // save data to disk
             indexSource.commitBatch();
             levelSource.flushBatch();
-            queueSource.flushBatch();
+            queueSource.commit();
 
             // the number of blocks added
             return stored;
@@ -506,7 +501,7 @@ public class PendingBlockStore implements Flushable, Closeable {
         }
 
         // done with queue
-        queueSource.putToBatch(currentQueueHash, currentQueue);
+        queueSource.put(currentQueueHash, currentQueue);
 
         // the number of blocks added
         return stored;
@@ -541,14 +536,14 @@ public class PendingBlockStore implements Flushable, Closeable {
     }
 
     /**
-     * @return the number of elements stored in the queue database.
+     * @return the number of queues stored.
      * @implNote This method is package private because it is meant to be used for testing.
      */
     @VisibleForTesting
     int getQueueSize() {
         databaseLock.readLock().lock();
         try {
-            return countDatabaseKeys(queueDatabase);
+            return queueSource.size();
         } finally {
             databaseLock.readLock().unlock();
         }
@@ -619,18 +614,23 @@ public class PendingBlockStore implements Flushable, Closeable {
         try {
             // delete imported queues & blocks
             for (ByteArrayWrapper q : queues) {
-                // load the queue from disk
-                List<AionBlock> currentQ = queueSource.get(q.getData());
+                List<AionBlock> imported = blocks.get(q);
+
+                // load the queue from disk only if it has been updated since the import read
+                List<AionBlock> currentQ =
+                        queueSource.count(q.getData()) > imported.size()
+                                ? queueSource.get(q.getData())
+                                : new ArrayList<>();
 
                 // delete imported blocks
-                for (AionBlock b : blocks.get(q)) {
+                for (AionBlock b : imported) {
                     // delete index
                     indexSource.putToBatch(b.getHash(), null);
                     currentQ.remove(b);
                 }
 
                 // delete queue
-                queueSource.putToBatch(q.getData(), null);
+                queueSource.delete(q.getData());
 
                 // the queue has been updated since the import read
                 if (!currentQ.isEmpty()) {
@@ -641,7 +641,7 @@ public class PendingBlockStore implements Flushable, Closeable {
                     byte[] currentQueueHash = first.getHash();
 
                     // put in queue database
-                    queueSource.putToBatch(currentQueueHash, currentQ);
+                    queueSource.put(currentQueueHash, currentQ);
 
                     // update block index
                     for (AionBlock b : currentQ) {
@@ -690,7 +690,7 @@ public class PendingBlockStore implements Flushable, Closeable {
 
             // push changed to disk
             indexSource.commitBatch();
-            queueSource.flushBatch();
+            queueSource.commit();
             levelSource.flushBatch();
         } catch (Exception e) {
             LOG.error("Unable to delete used blocks due to: ", e);
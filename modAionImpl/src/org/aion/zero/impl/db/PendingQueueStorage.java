@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.db;
+
+import java.io.Closeable;
+import java.util.List;
+import org.aion.base.db.Flushable;
+import org.aion.zero.impl.types.AionBlock;
+
+/**
+ * Storage for the queues of consecutive blocks kept by the {@link PendingBlockStore}, where each
+ * queue is identified by the hash of its first block.
+ *
+ * @implNote The implementations are not thread safe. Access is managed by the locks of the {@link
+ *     PendingBlockStore}.
+ */
+interface PendingQueueStorage extends Flushable, Closeable {
+
+    /** @return the blocks in the queue, in ascending order, or {@code null} if it does not exist */
+    List<AionBlock> get(byte[] queue);
+
+    /** @return the number of blocks in the queue, or {@code 0} if it does not exist */
+    int count(byte[] queue);
+
+    /** Stores a queue with the given blocks, replacing any existing queue with the same hash. */
+    void put(byte[] queue, List<AionBlock> blocks);
+
+    /** Adds a block at the end of an existing queue. */
+    void append(byte[] queue, AionBlock block);
+
+    void delete(byte[] queue);
+
+    /** Makes the changes since the last commit visible to readers of the underlying storage. */
+    void commit();
+
+    /** @return the number of stored queues */
+    int size();
+
+    boolean isOpen();
+
+    @Override
+    void close();
+}
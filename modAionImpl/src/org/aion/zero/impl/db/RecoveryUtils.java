@@ -125,6 +125,30 @@ public class RecoveryUtils {
         repository.close();
     }
 
+    /** Used by the CLI call. */
+    public static void migrateContractDetails() {
+        // ensure mining is disabled
+        CfgAion cfg = CfgAion.inst();
+        cfg.dbFromXML();
+        cfg.getConsensus().setMining(false);
+
+        cfg.getDb().setHeapCacheEnabled(false);
+
+        Map<String, String> cfgLog = new HashMap<>();
+        cfgLog.put("DB", "INFO");
+        cfgLog.put("GEN", "INFO");
+
+        AionLoggerFactory.init(cfgLog);
+
+        // get the current blockchain
+        AionRepositoryImpl repository = AionRepositoryImpl.inst();
+
+        long migrated = repository.migrateContractDetails();
+        System.out.println("Migrated the storage of " + migrated + " contracts.");
+
+        repository.close();
+    }
+
     /** Used by the CLI call. */
     public static void dumpBlocks(long count) {
         // ensure mining is disabled
@@ -357,6 +381,7 @@ public class RecoveryUtils {
         if (pruning_type.equals("spread")) {
             repo.getStateArchiveDatabase().drop();
         }
+        repo.clearStateJournal();
 
         // recover genesis
         System.out.println("Rebuilding genesis block ...");
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.db;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.base.util.Hex;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.zero.impl.types.AionBlock;
+import org.slf4j.Logger;
+
+/**
+ * Stores each queue of pending blocks in its own append-only segment file, accessed through a
+ * memory mapping. The offsets of the blocks in each segment are kept in memory, so that adding a
+ * block to a queue only writes the new block and dropping a queue deletes its file.
+ *
+ * <p>A segment is a sequence of records made of the length of the block encoding followed by the
+ * encoding, terminated by a zero length. The length of a record is written after its encoding, so
+ * that a record only partially written before a crash is ignored when the segment is loaded.
+ */
+class SegmentQueueStorage implements PendingQueueStorage {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int LENGTH_SIZE = Integer.BYTES;
+
+    private final File directory;
+    private final Map<ByteArrayWrapper, Segment> segments = new HashMap<>();
+    private boolean open;
+
+    /**
+     * Opens the storage, loading the segments found in the given directory.
+     *
+     * @throws IOException when the directory or the segments cannot be accessed
+     */
+    SegmentQueueStorage(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the directory " + directory);
+        }
+        this.directory = directory;
+
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            throw new IOException("Unable to list the directory " + directory);
+        }
+
+        for (File file : files) {
+            String name = file.getName();
+            byte[] queue;
+            try {
+                queue = Hex.decode(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            } catch (RuntimeException e) {
+                LOG.warn("Ignoring the unexpected file {} among the pending block segments.", file);
+                continue;
+            }
+
+            Segment segment = Segment.load(file);
+            if (segment.count == 0) {
+                segment.delete();
+            } else {
+                segments.put(ByteArrayWrapper.wrap(queue), segment);
+            }
+        }
+
+        this.open = true;
+    }
+
+    @Override
+    public List<AionBlock> get(byte[] queue) {
+        Segment segment = segments.get(ByteArrayWrapper.wrap(queue));
+        if (segment == null) {
+            return null;
+        }
+
+        List<AionBlock> blocks = new ArrayList<>(segment.count);
+        for (int i = 0; i < segment.count; i++) {
+            blocks.add(new AionBlock(segment.read(i)));
+        }
+        return blocks;
+    }
+
+    @Override
+    public int count(byte[] queue) {
+        Segment segment = segments.get(ByteArrayWrapper.wrap(queue));
+        return segment == null ? 0 : segment.count;
+    }
+
+    @Override
+    public void put(byte[] queue, List<AionBlock> blocks) {
+        delete(queue);
+
+        try {
+            File file = new File(directory, Hex.toHexString(queue) + SEGMENT_SUFFIX);
+            Segment segment = Segment.create(file);
+            segments.put(ByteArrayWrapper.wrap(queue), segment);
+            for (AionBlock block : blocks) {
+                segment.append(block.getEncoded());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void append(byte[] queue, AionBlock block) {
+        Segment segment = segments.get(ByteArrayWrapper.wrap(queue));
+        if (segment == null) {
+            put(queue, Collections.singletonList(block));
+        } else {
+            try {
+                segment.append(block.getEncoded());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void delete(byte[] queue) {
+        Segment segment = segments.remove(ByteArrayWrapper.wrap(queue));
+        if (segment != null) {
+            segment.delete();
+        }
+    }
+
+    @Override
+    public void commit() {
+        // the appended blocks are visible as soon as they are written
+    }
+
+    @Override
+    public int size() {
+        return segments.size();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void flush() {
+        for (Segment segment : segments.values()) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+        open = false;
+    }
+
+    private static final class Segment {
+
+        private final File file;
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+
+        private int[] offsets = new int[16];
+        private int count = 0;
+        /** the position where the next record is written */
+        private int end = 0;
+
+        private boolean dirty = false;
+
+        private Segment(File file, FileChannel channel, long capacity) throws IOException {
+            this.file = file;
+            this.channel = channel;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+
+        static Segment create(File file) throws IOException {
+            FileChannel channel =
+                    FileChannel.open(
+                            file.toPath(),
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING,
+                            StandardOpenOption.READ,
+                            StandardOpenOption.WRITE);
+            return new Segment(file, channel, INITIAL_CAPACITY);
+        }
+
+        /** Opens an existing segment, indexing the records it contains. */
+        static Segment load(File file) throws IOException {
+            FileChannel channel =
+                    FileChannel.open(
+                            file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Segment segment =
+                    new Segment(file, channel, Math.max(channel.size(), INITIAL_CAPACITY));
+
+            int capacity = segment.buffer.capacity();
+            int position = 0;
+            while (position + LENGTH_SIZE <= capacity) {
+                int length = segment.buffer.getInt(position);
+                if (length <= 0 || length > capacity - position - LENGTH_SIZE) {
+                    break;
+                }
+                segment.addOffset(position);
+                position += LENGTH_SIZE + length;
+            }
+            segment.end = position;
+
+            return segment;
+        }
+
+        void append(byte[] encoding) throws IOException {
+            // leaves room for the terminating zero length
+            long required = (long) end + LENGTH_SIZE + encoding.length + LENGTH_SIZE;
+            if (required > buffer.capacity()) {
+                long capacity = Math.max(2L * buffer.capacity(), required);
+                if (capacity > Integer.MAX_VALUE) {
+                    throw new IOException("The segment " + file + " exceeds the maximum size.");
+                }
+                force();
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            }
+
+            ByteBuffer view = buffer.duplicate();
+            view.position(end + LENGTH_SIZE);
+            view.put(encoding);
+            buffer.putInt(end + LENGTH_SIZE + encoding.length, 0);
+            buffer.putInt(end, encoding.length);
+
+            addOffset(end);
+            end += LENGTH_SIZE + encoding.length;
+            dirty = true;
+        }
+
+        byte[] read(int index) {
+            int position = offsets[index];
+            byte[] encoding = new byte[buffer.getInt(position)];
+
+            ByteBuffer view = buffer.duplicate();
+            view.position(position + LENGTH_SIZE);
+            view.get(encoding);
+            return encoding;
+        }
+
+        private void addOffset(int offset) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = offset;
+        }
+
+        void force() {
+            if (dirty) {
+                buffer.force();
+                dirty = false;
+            }
+        }
+
+        void close() {
+            force();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.error("Unable to close the pending block segment " + file, e);
+            }
+        }
+
+        void delete() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.error("Unable to close the pending block segment " + file, e);
+            }
+            buffer = null;
+
+            // the file may remain mapped until the buffer is collected on some platforms
+            if (!file.delete()) {
+                LOG.warn("Unable to delete the pending block segment {}.", file);
+                file.deleteOnExit();
+            }
+        }
+    }
+}
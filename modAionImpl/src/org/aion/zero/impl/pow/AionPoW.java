@@ -30,7 +30,9 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import org.aion.base.util.Hex;
@@ -47,6 +49,7 @@ import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.mcf.blockchain.IPendingState;
 import org.aion.mcf.core.ImportResult;
+import org.aion.zero.impl.BlockContext;
 import org.aion.zero.impl.blockchain.AionImpl;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.core.IAionBlockchain;
@@ -70,6 +73,7 @@ public class AionPoW {
 
     protected AtomicBoolean initialized = new AtomicBoolean(false);
     protected AtomicBoolean newPendingTxReceived = new AtomicBoolean(false);
+    protected Queue<AionTransaction> newPendingTxs = new ConcurrentLinkedQueue<>();
     protected AtomicLong lastUpdate = new AtomicLong(0);
 
     private AtomicBoolean shutDown = new AtomicBoolean();
@@ -87,6 +91,7 @@ public class AionPoW {
 
                 if (e.getEventType() == IHandler.TYPE.TX0.getValue()
                         && e.getCallbackType() == EventTx.CALLBACK.PENDINGTXRECEIVED0.getValue()) {
+                    newPendingTxs.addAll((List<AionTransaction>) e.getFuncArgs().get(0));
                     newPendingTxReceived.set(true);
                 } else if (e.getEventType() == IHandler.TYPE.BLOCK0.getValue()
                         && e.getCallbackType() == EventBlock.CALLBACK.ONBEST0.getValue()) {
@@ -147,10 +152,11 @@ public class AionPoW {
 
                                         long now = System.currentTimeMillis();
                                         if (now - lastUpdate.get() > 3000
-                                                        && newPendingTxReceived.compareAndSet(
-                                                                true, false)
-                                                || now - lastUpdate.get()
-                                                        > 10000) { // fallback, when
+                                                && newPendingTxReceived.compareAndSet(
+                                                        true, false)) {
+                                            updateBlockTemplate();
+                                        } else if (now - lastUpdate.get()
+                                                > 10000) { // fallback, when
                                             // we never
                                             // received any
                                             // events
@@ -290,17 +296,54 @@ public class AionPoW {
 
             List<AionTransaction> txs = pendingState.getPendingTransactions();
 
-            AionBlock newBlock = blockchain.createNewBlock(bestBlock, txs, false);
+            BlockContext context = blockchain.createBlockTemplate(bestBlock, txs);
 
-            EventConsensus ev = new EventConsensus(EventConsensus.CALLBACK.ON_BLOCK_TEMPLATE);
-            ev.setFuncArgs(Collections.singletonList(newBlock));
-            eventMgr.newEvent(ev);
+            publishBlockTemplate(context);
+        }
+    }
+
+    /**
+     * Appends the newly received pending transactions to the current block template, instead of
+     * executing all the pending transactions again. The template is rebuilt if the best block
+     * changed in the meantime.
+     */
+    protected synchronized void updateBlockTemplate() {
+        if (!shutDown.get()) {
+            if (this.syncMgr.getNetworkBestBlockNumber() - blockchain.getBestBlock().getNumber()
+                    > syncLimit) {
+                return;
+            }
 
-            // update last timestamp
-            lastUpdate.set(System.currentTimeMillis());
+            List<AionTransaction> txs = new ArrayList<>();
+            AionTransaction tx;
+            while ((tx = newPendingTxs.poll()) != null) {
+                txs.add(tx);
+            }
+
+            BlockContext context = blockchain.extendBlockTemplate(txs);
+            if (context == null) {
+                createNewBlockTemplate();
+            } else {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Appended {} transactions to the block template", txs.size());
+                }
+                publishBlockTemplate(context);
+            }
         }
     }
 
+    private void publishBlockTemplate(BlockContext context) {
+        // the miners set the solution on the block, which must not modify the shared template
+        AionBlock newBlock = new AionBlock(context.block);
+
+        EventConsensus ev = new EventConsensus(EventConsensus.CALLBACK.ON_BLOCK_TEMPLATE);
+        ev.setFuncArgs(Collections.singletonList(newBlock));
+        eventMgr.newEvent(ev);
+
+        // update last timestamp
+        lastUpdate.set(System.currentTimeMillis());
+    }
+
     public synchronized void shutdown() {
         if (ees != null) {
             ees.shutdown();
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.sync;
+
+/**
+ * Snapshot of the rates measured by the {@link RequestScheduler} for one peer and of the request
+ * sizes chosen from them.
+ */
+final class PeerRate {
+
+    private final double latency;
+    private final double headersPerSec;
+    private final double bodiesPerSec;
+    private final int headersRequestSize;
+    private final int bodiesRequestSize;
+    private final int maxInFlight;
+    private final long timeouts;
+
+    PeerRate(
+            double _latency,
+            double _headersPerSec,
+            double _bodiesPerSec,
+            int _headersRequestSize,
+            int _bodiesRequestSize,
+            int _maxInFlight,
+            long _timeouts) {
+        this.latency = _latency;
+        this.headersPerSec = _headersPerSec;
+        this.bodiesPerSec = _bodiesPerSec;
+        this.headersRequestSize = _headersRequestSize;
+        this.bodiesRequestSize = _bodiesRequestSize;
+        this.maxInFlight = _maxInFlight;
+        this.timeouts = _timeouts;
+    }
+
+    /** @return the estimated round trip latency in milliseconds */
+    double getLatency() {
+        return latency;
+    }
+
+    /** @return the smoothed number of headers received per second */
+    double getHeadersPerSec() {
+        return headersPerSec;
+    }
+
+    /** @return the smoothed number of block bodies received per second */
+    double getBodiesPerSec() {
+        return bodiesPerSec;
+    }
+
+    /** @return the number of headers asked for in the next request */
+    int getHeadersRequestSize() {
+        return headersRequestSize;
+    }
+
+    /** @return the number of block bodies asked for in the next request */
+    int getBodiesRequestSize() {
+        return bodiesRequestSize;
+    }
+
+    /** @return the number of requests of each type allowed in flight */
+    int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /** @return the number of requests the peer failed to answer in time */
+    long getTimeouts() {
+        return timeouts;
+    }
+}
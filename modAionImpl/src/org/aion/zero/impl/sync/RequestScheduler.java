@@ -0,0 +1,596 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.sync;
+
+import static org.aion.p2p.P2pConstant.REQUEST_SIZE;
+import static org.aion.zero.impl.sync.RequestType.BODIES;
+import static org.aion.zero.impl.sync.RequestType.HEADERS;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.aion.p2p.INode;
+
+/**
+ * Schedules the headers and bodies requests sent to peers while syncing.
+ *
+ * <p>The round trip of a request is modelled as the latency of the peer plus the time needed to
+ * transfer the blocks requested and the blocks queued ahead of them at the bandwidth of the peer.
+ * Both are estimated for each peer and type of request by a least squares fit over the recent
+ * requests. A request asks for the peer's bandwidth-delay product, i.e. the blocks it delivers
+ * within one latency, and twice that many blocks are kept in flight, so that one request is
+ * transferred while the next one travels. Peers whose product exceeds {@link #MAX_REQUEST_SIZE}
+ * thereby get several requests in flight. Requests not answered in time are taken away from the
+ * peer, halving its estimated bandwidth, and handed back to be re-issued to other peers.
+ *
+ * @implNote All the methods synchronize on the scheduler, which is also notified whenever a
+ *     request completes or expires.
+ */
+final class RequestScheduler {
+
+    /** the largest request served by the handlers of other peers */
+    static final int MAX_REQUEST_SIZE = 96;
+
+    /** the smallest bodies request, avoids splitting batches into many tiny requests */
+    static final int MIN_BODIES_REQUEST_SIZE = 8;
+
+    /** the most requests of the same type in flight to one peer */
+    static final int MAX_IN_FLIGHT = 4;
+
+    /** how far beyond the local best block the headers requested from a peer may reach */
+    static final int MAX_LOOKAHEAD = MAX_IN_FLIGHT * MAX_REQUEST_SIZE;
+
+    /** timeout for requests to peers that have not delivered anything yet, in milliseconds */
+    static final long DEFAULT_TIMEOUT = 5000;
+
+    static final long MIN_TIMEOUT = 1000;
+
+    static final long MAX_TIMEOUT = 10000;
+
+    /** a request expires after this many times its expected duration */
+    private static final int TIMEOUT_SCALE = 3;
+
+    /** weight of a new sample in the moving averages of the fit */
+    private static final double SAMPLE_WEIGHT = 0.25;
+
+    /** the variance of the request sizes, in blocks squared, needed to fit the bandwidth */
+    private static final double MIN_VARIANCE = 4;
+
+    /** the most expired header requests waiting to be re-issued */
+    private static final int MAX_REISSUED = 64;
+
+    /** peers without any activity for this long are forgotten, in milliseconds */
+    private static final long PEER_EXPIRY = 600_000;
+
+    private static final class Request {
+
+        private final RequestType type;
+
+        /** the first header number, only set for header requests */
+        private final long from;
+
+        private final int size;
+
+        /** the blocks of the same type requested earlier and still in flight */
+        private final int ahead;
+
+        /** the headers whose bodies were requested, {@code null} for header requests */
+        private final HeadersWrapper headers;
+
+        private final long sent;
+
+        private final long deadline;
+
+        private Request(
+                RequestType _type,
+                long _from,
+                int _size,
+                int _ahead,
+                HeadersWrapper _headers,
+                long _sent,
+                long _deadline) {
+            this.type = _type;
+            this.from = _from;
+            this.size = _size;
+            this.ahead = _ahead;
+            this.headers = _headers;
+            this.sent = _sent;
+            this.deadline = _deadline;
+        }
+    }
+
+    /**
+     * Fits the round trip time {@code y} of the requests to {@code latency + x / bandwidth}, where
+     * {@code x} is the number of blocks delivered up to and including the request.
+     */
+    private static final class Estimate {
+
+        // exponentially weighted moments of the samples
+        private double x, y, xx, xy;
+
+        private int samples;
+
+        /** {@code true} once the sizes varied enough to separate latency from transfer time */
+        private boolean fitted;
+
+        /** blocks per millisecond, {@code 0} until measured */
+        private double bandwidth;
+
+        /** milliseconds */
+        private double latency;
+
+        private void add(double blocks, double elapsed) {
+            if (samples == 0) {
+                x = blocks;
+                y = elapsed;
+                xx = blocks * blocks;
+                xy = blocks * elapsed;
+            } else {
+                x += SAMPLE_WEIGHT * (blocks - x);
+                y += SAMPLE_WEIGHT * (elapsed - y);
+                xx += SAMPLE_WEIGHT * (blocks * blocks - xx);
+                xy += SAMPLE_WEIGHT * (blocks * elapsed - xy);
+            }
+            samples++;
+
+            double variance = xx - x * x;
+            double covariance = xy - x * y;
+            if (variance >= MIN_VARIANCE && covariance > 0) {
+                bandwidth = variance / covariance;
+                fitted = true;
+            } else if (!fitted) {
+                // until then the whole round trip is taken as transfer time
+                bandwidth = x / y;
+            }
+            // with sizes that vary too little the bandwidth is kept and the latency follows
+            latency = Math.max(0, y - x / bandwidth);
+        }
+
+        /** Halves the bandwidth after a timeout. */
+        private void backOff() {
+            bandwidth /= 2;
+        }
+
+        /** @return the bandwidth-delay product in blocks, {@code 0} until fitted */
+        private int product() {
+            if (!fitted) {
+                return 0;
+            }
+            return (int) Math.min(Integer.MAX_VALUE, Math.ceil(bandwidth * latency));
+        }
+    }
+
+    private static final class Peer {
+
+        private final String displayId;
+
+        /** indexed by request type */
+        private final Estimate[] estimates = new Estimate[RequestType.values().length];
+
+        /** time of the last delivery of headers */
+        private long headersDelivered;
+
+        private final Deque<Request> inFlight = new ArrayDeque<>();
+
+        /** the last header number of the latest header request */
+        private long requestedTo;
+
+        private long lastActive;
+
+        private long timeouts;
+
+        private Peer(String _displayId) {
+            this.displayId = _displayId;
+            for (int i = 0; i < estimates.length; i++) {
+                estimates[i] = new Estimate();
+            }
+        }
+
+        private Estimate get(RequestType type) {
+            return estimates[type.ordinal()];
+        }
+    }
+
+    private final Map<Integer, Peer> peers = new HashMap<>();
+
+    private final Deque<HeaderQuery> reissuedHeaders = new ArrayDeque<>();
+
+    private final SyncStats stats;
+
+    RequestScheduler(final SyncStats _stats) {
+        this.stats = _stats;
+    }
+
+    /**
+     * @return the number of blocks to request from the peer: the initial size until measured, then
+     *     a size far from the average while probing for the bandwidth and finally the product
+     */
+    private static int requestSize(Peer peer, RequestType type, int min, int initial) {
+        if (peer == null || peer.get(type).samples == 0) {
+            return initial;
+        }
+        Estimate estimate = peer.get(type);
+        int size;
+        if (estimate.fitted) {
+            size = estimate.product();
+        } else if (2 * estimate.x > MAX_REQUEST_SIZE) {
+            size = (int) (estimate.x / 2);
+        } else {
+            size = (int) Math.ceil(2 * estimate.x);
+        }
+        return Math.max(min, Math.min(size, MAX_REQUEST_SIZE));
+    }
+
+    private static int maxInFlight(Peer peer, RequestType type, int size) {
+        int product = peer == null ? 0 : peer.get(type).product();
+        // twice the product keeps one request transferring while the next one travels
+        int slots = (int) Math.ceil(2.0 * product / size);
+        return Math.max(1, Math.min(MAX_IN_FLIGHT, slots));
+    }
+
+    private static int headersRequestSize(Peer peer) {
+        return requestSize(peer, HEADERS, REQUEST_SIZE, REQUEST_SIZE);
+    }
+
+    private static int bodiesRequestSize(Peer peer) {
+        return requestSize(peer, BODIES, MIN_BODIES_REQUEST_SIZE, MAX_REQUEST_SIZE);
+    }
+
+    private static int countInFlight(Peer peer, RequestType type) {
+        int count = 0;
+        for (Request request : peer.inFlight) {
+            if (request.type == type) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int countBlocksInFlight(Peer peer, RequestType type) {
+        int blocks = 0;
+        for (Request request : peer.inFlight) {
+            if (request.type == type) {
+                blocks += request.size;
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * @return the expected time in milliseconds for the peer to deliver the given number of blocks
+     *     after the requests already in flight
+     */
+    private static double expectedTime(Peer peer, RequestType type, int size) {
+        if (peer == null) {
+            return (double) DEFAULT_TIMEOUT / TIMEOUT_SCALE;
+        }
+        Estimate estimate = peer.get(type);
+        if (estimate.samples == 0) {
+            // peers that keep failing to answer are tried last
+            return (double) DEFAULT_TIMEOUT / TIMEOUT_SCALE * (1 + peer.timeouts);
+        }
+        return estimate.latency + (countBlocksInFlight(peer, type) + size) / estimate.bandwidth;
+    }
+
+    private static long timeout(Peer peer, RequestType type, int size) {
+        if (peer.get(type).samples == 0) {
+            return DEFAULT_TIMEOUT;
+        }
+        long timeout = (long) (TIMEOUT_SCALE * expectedTime(peer, type, size));
+        return Math.max(MIN_TIMEOUT, Math.min(MAX_TIMEOUT, timeout));
+    }
+
+    private Peer getPeer(int _peer, String _displayId, long _now) {
+        Peer peer = peers.computeIfAbsent(_peer, k -> new Peer(_displayId));
+        peer.lastActive = _now;
+        return peer;
+    }
+
+    private static void send(
+            Peer peer, RequestType type, long from, int size, HeadersWrapper headers, long now) {
+        peer.inFlight.add(
+                new Request(
+                        type,
+                        from,
+                        size,
+                        countBlocksInFlight(peer, type),
+                        headers,
+                        now,
+                        now + timeout(peer, type, size)));
+    }
+
+    private void publish(Peer peer) {
+        Estimate headers = peer.get(HEADERS);
+        Estimate bodies = peer.get(BODIES);
+        int headersSize = headersRequestSize(peer);
+        int bodiesSize = bodiesRequestSize(peer);
+
+        stats.updatePeerRate(
+                peer.displayId,
+                new PeerRate(
+                        bodies.samples > 0 ? bodies.latency : headers.latency,
+                        headers.bandwidth * 1000,
+                        bodies.bandwidth * 1000,
+                        headersSize,
+                        bodiesSize,
+                        Math.max(
+                                maxInFlight(peer, HEADERS, headersSize),
+                                maxInFlight(peer, BODIES, bodiesSize)),
+                        peer.timeouts));
+    }
+
+    /** Adds a delivered request to the estimates of the peer. */
+    private void measure(Peer peer, Request request, int received, long now) {
+        peer.get(request.type).add(request.ahead + received, Math.max(1, now - request.sent));
+        if (request.type == HEADERS) {
+            peer.headersDelivered = now;
+        }
+        peer.lastActive = now;
+
+        publish(peer);
+        notifyAll();
+    }
+
+    /** @return {@code true} if the peer has a free slot for a header request */
+    synchronized boolean canRequestHeaders(int _peer) {
+        Peer peer = peers.get(_peer);
+        return peer == null
+                || countInFlight(peer, HEADERS)
+                        < maxInFlight(peer, HEADERS, headersRequestSize(peer));
+    }
+
+    /** @return the number of headers to request from the peer when far behind the network */
+    synchronized int getHeadersRequestSize(int _peer) {
+        return headersRequestSize(peers.get(_peer));
+    }
+
+    /** @return the number of bodies to request from the peer in one request */
+    synchronized int getBodiesRequestSize(int _peer) {
+        return bodiesRequestSize(peers.get(_peer));
+    }
+
+    /**
+     * Moves the start of a header request past the headers already requested from the peer, so
+     * that the requests in flight to the same peer cover consecutive ranges. The latest range stays
+     * reserved while in flight and for one timeout after its delivery.
+     *
+     * @param _peer the node id hash of the peer
+     * @param _from the block number the request would start from
+     * @param _now the current time in milliseconds
+     * @return the block number the request should start from
+     */
+    synchronized long getHeadersStart(int _peer, long _from, long _now) {
+        Peer peer = peers.get(_peer);
+        if (peer == null || peer.requestedTo < _from) {
+            return _from;
+        }
+
+        boolean reserved =
+                countInFlight(peer, HEADERS) > 0
+                        || _now - peer.headersDelivered
+                                < timeout(peer, HEADERS, headersRequestSize(peer));
+        return reserved ? peer.requestedTo + 1 : _from;
+    }
+
+    /**
+     * Takes an expired header request that another peer can serve.
+     *
+     * @param _displayId the display id of the peer the request will be sent to
+     * @param _selfNumber the local best block number, older requests are discarded
+     * @param _bestBlock the best block number of the peer
+     * @return a header request to re-issue or {@code null} if there is none
+     */
+    synchronized HeaderQuery pollReissuedHeaders(
+            String _displayId, long _selfNumber, long _bestBlock) {
+        Iterator<HeaderQuery> it = reissuedHeaders.iterator();
+        while (it.hasNext()) {
+            HeaderQuery query = it.next();
+            long to = query.from + query.take - 1;
+            if (to <= _selfNumber) {
+                it.remove();
+            } else if (to <= _bestBlock && !query.fromNode.equals(_displayId)) {
+                it.remove();
+                stats.updateReissuedRequests(HEADERS);
+                return query;
+            }
+        }
+        return null;
+    }
+
+    /** Records a header request sent to the peer. */
+    synchronized void headersRequested(
+            int _peer, String _displayId, long _from, int _size, long _now) {
+        Peer peer = getPeer(_peer, _displayId, _now);
+        send(peer, HEADERS, _from, _size, null, _now);
+        peer.requestedTo = _from + _size - 1;
+    }
+
+    /**
+     * Completes the header request answered by a response from the peer. Responses that match no
+     * request in flight, e.g. late answers to expired requests, are not measured.
+     *
+     * @param _peer the node id hash of the peer
+     * @param _from the number of the first header received
+     * @param _size the number of headers received
+     * @param _now the current time in milliseconds
+     */
+    synchronized void headersReceived(int _peer, long _from, int _size, long _now) {
+        Peer peer = peers.get(_peer);
+        if (peer == null) {
+            return;
+        }
+
+        Iterator<Request> it = peer.inFlight.iterator();
+        while (it.hasNext()) {
+            Request request = it.next();
+            if (request.type == HEADERS && request.from == _from) {
+                it.remove();
+                measure(peer, request, _size, _now);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Chooses the peer expected to deliver the bodies first among the candidates with a free slot,
+     * preferring the peer that sent the headers when equally fast.
+     *
+     * @param _candidates the peers known to have the blocks
+     * @param _origin the node id hash of the peer that sent the headers
+     * @param _size the number of bodies to request
+     * @return the chosen peer or {@code null} if all the candidates are busy
+     */
+    synchronized INode selectBodiesPeer(Collection<INode> _candidates, int _origin, int _size) {
+        INode best = null;
+        double bestTime = Double.MAX_VALUE;
+        for (INode node : _candidates) {
+            Peer peer = peers.get(node.getIdHash());
+            if (peer != null
+                    && countInFlight(peer, BODIES)
+                            >= maxInFlight(peer, BODIES, bodiesRequestSize(peer))) {
+                continue;
+            }
+
+            double time = expectedTime(peer, BODIES, _size);
+            if (time < bestTime || (time == bestTime && node.getIdHash() == _origin)) {
+                best = node;
+                bestTime = time;
+            }
+        }
+        return best;
+    }
+
+    /** Records a bodies request sent to the peer. */
+    synchronized void bodiesRequested(
+            int _peer, String _displayId, HeadersWrapper _headers, long _now) {
+        Peer peer = getPeer(_peer, _displayId, _now);
+        send(peer, BODIES, 0, _headers.getHeaders().size(), _headers, _now);
+    }
+
+    /** @return the headers whose bodies are requested from the peer, oldest first */
+    synchronized List<HeadersWrapper> getBodiesInFlight(int _peer) {
+        List<HeadersWrapper> headers = new ArrayList<>();
+        Peer peer = peers.get(_peer);
+        if (peer != null) {
+            for (Request request : peer.inFlight) {
+                if (request.type == BODIES) {
+                    headers.add(request.headers);
+                }
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Completes the bodies request for the given headers.
+     *
+     * @param _peer the node id hash of the peer
+     * @param _headers the headers whose bodies were requested
+     * @param _size the number of bodies received
+     * @param _now the current time in milliseconds
+     */
+    synchronized void bodiesReceived(int _peer, HeadersWrapper _headers, int _size, long _now) {
+        Peer peer = peers.get(_peer);
+        if (peer == null) {
+            return;
+        }
+
+        Iterator<Request> it = peer.inFlight.iterator();
+        while (it.hasNext()) {
+            Request request = it.next();
+            if (request.headers == _headers) {
+                it.remove();
+                measure(peer, request, _size, _now);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Takes the requests past their deadline away from the peers they were sent to. The header
+     * requests are kept for {@link #pollReissuedHeaders(String, long, long)} while the bodies
+     * requests are returned to the caller.
+     *
+     * @param _now the current time in milliseconds
+     * @return the headers whose bodies must be requested again
+     */
+    synchronized List<HeadersWrapper> expire(long _now) {
+        List<HeadersWrapper> bodies = new ArrayList<>();
+        boolean expired = false;
+
+        Iterator<Peer> peerIt = peers.values().iterator();
+        while (peerIt.hasNext()) {
+            Peer peer = peerIt.next();
+
+            Iterator<Request> it = peer.inFlight.iterator();
+            while (it.hasNext()) {
+                Request request = it.next();
+                if (request.deadline > _now) {
+                    continue;
+                }
+                it.remove();
+                expired = true;
+
+                // back off from the peer until it proves faster again
+                peer.get(request.type).backOff();
+                peer.timeouts++;
+                publish(peer);
+
+                if (request.type == BODIES) {
+                    bodies.add(request.headers);
+                    stats.updateReissuedRequests(BODIES);
+                } else {
+                    if (reissuedHeaders.size() >= MAX_REISSUED) {
+                        reissuedHeaders.poll();
+                    }
+                    reissuedHeaders.add(
+                            new HeaderQuery(peer.displayId, request.from, request.size));
+                }
+            }
+
+            if (peer.inFlight.isEmpty() && _now - peer.lastActive > PEER_EXPIRY) {
+                peerIt.remove();
+            }
+        }
+
+        if (expired) {
+            notifyAll();
+        }
+        return bodies;
+    }
+
+    /**
+     * Waits until a request completes or expires, or the timeout elapses.
+     *
+     * @param _timeout the maximum time to wait in milliseconds
+     */
+    synchronized void await(long _timeout) throws InterruptedException {
+        wait(_timeout);
+    }
+}
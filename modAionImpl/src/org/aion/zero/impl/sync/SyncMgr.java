@@ -31,12 +31,16 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.aion.base.util.ByteArrayWrapper;
@@ -49,7 +53,7 @@ import org.aion.evtmgr.impl.evt.EventConsensus;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.mcf.config.StatsType;
-import org.aion.mcf.valid.BlockHeaderValidator;
+import org.aion.mcf.valid.BatchHeaderValidator;
 import org.aion.p2p.IP2pMgr;
 import org.aion.zero.impl.AionBlockchainImpl;
 import org.aion.zero.impl.blockchain.ChainConfiguration;
@@ -69,10 +73,7 @@ public final class SyncMgr {
     // peer syncing states
     private final Map<Integer, PeerState> peerStates = new ConcurrentHashMap<>();
     // store the downloaded headers from network
-    private final BlockingQueue<HeadersWrapper> downloadedHeaders = new LinkedBlockingQueue<>();
-    // store the headers whose bodies have been requested from corresponding peer
-    private final ConcurrentHashMap<Integer, HeadersWrapper> headersWithBodiesRequested =
-            new ConcurrentHashMap<>();
+    private final BlockingDeque<HeadersWrapper> downloadedHeaders = new LinkedBlockingDeque<>();
     // store the downloaded blocks that are ready to import
     private final BlockingQueue<BlocksWrapper> downloadedBlocks = new LinkedBlockingQueue<>();
     // store the hashes of blocks which have been successfully imported
@@ -83,10 +84,17 @@ public final class SyncMgr {
     private IP2pMgr p2pMgr;
     private IEventMgr evtMgr;
     private SyncStats stats;
+    // sizes the requests to each peer and tracks the ones in flight
+    private RequestScheduler scheduler;
     private AtomicBoolean start = new AtomicBoolean(true);
-    // private ExecutorService workers = Executors.newFixedThreadPool(5);
+    // a single thread sends the header requests, a newer task replaces the one waiting
     private ExecutorService workers =
-            Executors.newCachedThreadPool(
+            new ThreadPoolExecutor(
+                    1,
+                    1,
+                    0L,
+                    TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(1),
                     new ThreadFactory() {
 
                         private AtomicInteger cnt = new AtomicInteger(0);
@@ -95,14 +103,15 @@ public final class SyncMgr {
                         public Thread newThread(Runnable r) {
                             return new Thread(r, "sync-gh-" + cnt.incrementAndGet());
                         }
-                    });
+                    },
+                    new ThreadPoolExecutor.DiscardOldestPolicy());
 
     private Thread syncGb = null;
     private Thread syncIb = null;
     private Thread syncGs = null;
     private Thread syncSs = null;
 
-    private BlockHeaderValidator<A0BlockHeader> blockHeaderValidator;
+    private BatchHeaderValidator<A0BlockHeader> blockHeaderValidator;
     private volatile long timeUpdated = 0;
     private AtomicBoolean queueFull = new AtomicBoolean(false);
 
@@ -172,17 +181,22 @@ public final class SyncMgr {
             final IEventMgr _evtMgr,
             final int _blocksQueueMax,
             final boolean _showStatus,
-            final Set<StatsType> showStatistics) {
+            final Set<StatsType> showStatistics,
+            final int _headerValidationThreads) {
         p2pMgr = _p2pMgr;
         chain = _chain;
         evtMgr = _evtMgr;
 
         blocksQueueMax = _blocksQueueMax;
 
-        blockHeaderValidator = new ChainConfiguration().createBlockHeaderValidator();
+        blockHeaderValidator =
+                new BatchHeaderValidator<>(
+                        new ChainConfiguration().createBlockHeaderValidator(),
+                        _headerValidationThreads);
 
         long selfBest = chain.getBestBlock().getNumber();
         stats = new SyncStats(selfBest);
+        scheduler = new RequestScheduler(stats);
 
         syncGb =
                 new Thread(
@@ -190,7 +204,7 @@ public final class SyncMgr {
                                 p2pMgr,
                                 start,
                                 downloadedHeaders,
-                                headersWithBodiesRequested,
+                                scheduler,
                                 peerStates,
                                 stats,
                                 log),
@@ -223,6 +237,7 @@ public final class SyncMgr {
                                     p2pMgr,
                                     peerStates,
                                     showStatistics,
+                                    evtMgr,
                                     AionLoggerFactory.getLogger(LogEnum.P2P.name())),
                             "sync-ss");
             syncSs.start();
@@ -251,6 +266,7 @@ public final class SyncMgr {
                                 _selfTd,
                                 peerStates,
                                 stats,
+                                scheduler,
                                 log));
                 queueFull.set(false);
             }
@@ -268,6 +284,12 @@ public final class SyncMgr {
             return;
         }
 
+        scheduler.headersReceived(
+                _nodeIdHashcode,
+                _headers.get(0).getNumber(),
+                _headers.size(),
+                System.currentTimeMillis());
+
         if (log.isDebugEnabled()) {
             log.debug(
                     "<incoming-headers from={} size={} node={}>",
@@ -276,22 +298,23 @@ public final class SyncMgr {
                     _displayId);
         }
 
+        // ignore this batch if any invalidated header
+        int invalid = this.blockHeaderValidator.validate(_headers, log);
+        if (invalid >= 0) {
+            A0BlockHeader current = _headers.get(invalid);
+            log.debug("<invalid-header num={} hash={}>", current.getNumber(), current.getHash());
+
+            // Print header to allow debugging
+            log.debug("Invalid header: {}", current.toString());
+
+            return;
+        }
+
         // filter imported block headers
         List<A0BlockHeader> filtered = new ArrayList<>();
         A0BlockHeader prev = null;
         for (A0BlockHeader current : _headers) {
 
-            // ignore this batch if any invalidated header
-            if (!this.blockHeaderValidator.validate(current, log)) {
-                log.debug(
-                        "<invalid-header num={} hash={}>", current.getNumber(), current.getHash());
-
-                // Print header to allow debugging
-                log.debug("Invalid header: {}", current.toString());
-
-                return;
-            }
-
             // break if not consisting
             if (prev != null
                     && (current.getNumber() != (prev.getNumber() + 1)
@@ -330,30 +353,31 @@ public final class SyncMgr {
     public void validateAndAddBlocks(
             int _nodeIdHashcode, String _displayId, final List<byte[]> _bodies) {
 
-        HeadersWrapper hw = this.headersWithBodiesRequested.remove(_nodeIdHashcode);
-        if (hw == null || _bodies == null) {
+        if (_bodies == null) {
             return;
         }
 
-        // assemble batch
-        List<A0BlockHeader> headers = hw.getHeaders();
-        List<AionBlock> blocks = new ArrayList<>(_bodies.size());
-        Iterator<A0BlockHeader> headerIt = headers.iterator();
-        Iterator<byte[]> bodyIt = _bodies.iterator();
-        while (headerIt.hasNext() && bodyIt.hasNext()) {
-            AionBlock block = AionBlock.createBlockFromNetwork(headerIt.next(), bodyIt.next());
-            if (block == null) {
-                log.error("<assemble-and-validate-blocks node={}>", _displayId);
+        // responses do not identify their request, so match them against the requests in flight
+        // to the peer, in the order sent, until one assembles completely
+        HeadersWrapper hw = null;
+        List<AionBlock> blocks = Collections.emptyList();
+        for (HeadersWrapper requested : scheduler.getBodiesInFlight(_nodeIdHashcode)) {
+            List<AionBlock> assembled = assembleBlocks(requested.getHeaders(), _bodies);
+            if (assembled.size() > blocks.size()) {
+                hw = requested;
+                blocks = assembled;
+            }
+            if (assembled.size() == Math.min(requested.getHeaders().size(), _bodies.size())) {
                 break;
-            } else {
-                blocks.add(block);
             }
         }
 
         int m = blocks.size();
         if (m == 0) {
+            log.error("<assemble-and-validate-blocks node={}>", _displayId);
             return;
         }
+        scheduler.bodiesReceived(_nodeIdHashcode, hw, m, System.currentTimeMillis());
 
         if (log.isDebugEnabled()) {
             log.debug(
@@ -363,8 +387,25 @@ public final class SyncMgr {
                     _displayId);
         }
 
-        // add batch
-        downloadedBlocks.add(new BlocksWrapper(_nodeIdHashcode, _displayId, blocks));
+        // add batch under the peer that sent the headers, whose state the import updates
+        downloadedBlocks.add(new BlocksWrapper(hw.getNodeIdHash(), hw.getDisplayId(), blocks));
+    }
+
+    /** @return the blocks assembled from the headers and bodies up to the first mismatch */
+    private static List<AionBlock> assembleBlocks(
+            final List<A0BlockHeader> _headers, final List<byte[]> _bodies) {
+        List<AionBlock> blocks = new ArrayList<>(_bodies.size());
+        Iterator<A0BlockHeader> headerIt = _headers.iterator();
+        Iterator<byte[]> bodyIt = _bodies.iterator();
+        while (headerIt.hasNext() && bodyIt.hasNext()) {
+            AionBlock block = AionBlock.createBlockFromNetwork(headerIt.next(), bodyIt.next());
+            if (block == null) {
+                break;
+            } else {
+                blocks.add(block);
+            }
+        }
+        return blocks;
     }
 
     public long getNetworkBestBlockNumber() {
@@ -376,6 +417,9 @@ public final class SyncMgr {
     public synchronized void shutdown() {
         start.set(false);
         workers.shutdown();
+        if (blockHeaderValidator != null) {
+            blockHeaderValidator.shutdown();
+        }
 
         interruptAndWait(syncGb, 10000);
         interruptAndWait(syncIb, 10000);
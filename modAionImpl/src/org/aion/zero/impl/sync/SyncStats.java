@@ -24,6 +24,8 @@
 package org.aion.zero.impl.sync;
 
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -75,6 +77,17 @@ public final class SyncStats {
 
     private final Lock responsesLock = new ReentrantLock();
 
+    /**
+     * Records the rates measured by the {@link RequestScheduler} for each peer.
+     *
+     * @implNote Access to this resource is managed by the {@link #ratesLock}.
+     */
+    private final Map<String, PeerRate> ratesByPeer = new HashMap<>();
+    /** @implNote Access to this resource is managed by the {@link #ratesLock}. */
+    private final Map<RequestType, Long> reissuedRequests = new EnumMap<>(RequestType.class);
+
+    private final Lock ratesLock = new ReentrantLock();
+
     SyncStats(long _startBlock) {
         this.start = System.currentTimeMillis();
         this.startBlock = _startBlock;
@@ -399,4 +412,74 @@ public final class SyncStats {
             responsesLock.unlock();
         }
     }
+
+    /**
+     * Updates the rates measured for a peer and the request sizes chosen from them.
+     *
+     * @param _nodeId peer node display Id
+     * @param _rate the latest rates of the peer
+     */
+    void updatePeerRate(String _nodeId, PeerRate _rate) {
+        ratesLock.lock();
+        try {
+            ratesByPeer.put(_nodeId, _rate);
+        } finally {
+            ratesLock.unlock();
+        }
+    }
+
+    /**
+     * Obtains the rates measured for each peer
+     *
+     * @return map of peer rates sorted by the bodies delivery rate in descending order
+     */
+    Map<String, PeerRate> getPeerRates() {
+        ratesLock.lock();
+        try {
+            return ratesByPeer
+                    .entrySet()
+                    .stream()
+                    .sorted(
+                            Collections.reverseOrder(
+                                    Map.Entry.comparingByValue(
+                                            Comparator.comparingDouble(PeerRate::getBodiesPerSec))))
+                    .collect(
+                            Collectors.toMap(
+                                    Map.Entry::getKey,
+                                    Map.Entry::getValue,
+                                    (e1, e2) -> e2,
+                                    LinkedHashMap::new));
+        } finally {
+            ratesLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the number of requests re-issued to a different peer after timing out.
+     *
+     * @param _type the type of the re-issued request
+     */
+    void updateReissuedRequests(RequestType _type) {
+        ratesLock.lock();
+        try {
+            reissuedRequests.merge(_type, 1L, Long::sum);
+        } finally {
+            ratesLock.unlock();
+        }
+    }
+
+    /**
+     * Obtains the number of requests of the given type re-issued after timing out
+     *
+     * @param _type the type of request
+     * @return the total number of re-issued requests
+     */
+    long getReissuedRequests(RequestType _type) {
+        ratesLock.lock();
+        try {
+            return reissuedRequests.getOrDefault(_type, 0L);
+        } finally {
+            ratesLock.unlock();
+        }
+    }
 }
@@ -23,12 +23,14 @@
 
 package org.aion.zero.impl.sync;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
+import org.aion.p2p.INode;
 import org.aion.p2p.IP2pMgr;
 import org.aion.zero.impl.sync.PeerState.State;
 import org.aion.zero.impl.sync.msg.ReqBlocksBodies;
@@ -42,13 +44,16 @@ import org.slf4j.Logger;
  */
 final class TaskGetBodies implements Runnable {
 
+    /** how often requests are checked for timeouts, in milliseconds */
+    private static final long EXPIRY_INTERVAL = 500;
+
     private final IP2pMgr p2p;
 
     private final AtomicBoolean run;
 
-    private final BlockingQueue<HeadersWrapper> downloadedHeaders;
+    private final BlockingDeque<HeadersWrapper> downloadedHeaders;
 
-    private final ConcurrentHashMap<Integer, HeadersWrapper> headersWithBodiesRequested;
+    private final RequestScheduler scheduler;
 
     private final Map<Integer, PeerState> peerStates;
 
@@ -59,21 +64,21 @@ final class TaskGetBodies implements Runnable {
     /**
      * @param _p2p IP2pMgr
      * @param _run AtomicBoolean
-     * @param _downloadedHeaders BlockingQueue
-     * @param _headersWithBodiesRequested ConcurrentHashMap
+     * @param _downloadedHeaders BlockingDeque
+     * @param _scheduler RequestScheduler
      */
     TaskGetBodies(
             final IP2pMgr _p2p,
             final AtomicBoolean _run,
-            final BlockingQueue<HeadersWrapper> _downloadedHeaders,
-            final ConcurrentHashMap<Integer, HeadersWrapper> _headersWithBodiesRequested,
+            final BlockingDeque<HeadersWrapper> _downloadedHeaders,
+            final RequestScheduler _scheduler,
             final Map<Integer, PeerState> peerStates,
             final SyncStats _stats,
             final Logger log) {
         this.p2p = _p2p;
         this.run = _run;
         this.downloadedHeaders = _downloadedHeaders;
-        this.headersWithBodiesRequested = _headersWithBodiesRequested;
+        this.scheduler = _scheduler;
         this.peerStates = peerStates;
         this.stats = _stats;
         this.log = log;
@@ -82,26 +87,90 @@ final class TaskGetBodies implements Runnable {
     @Override
     public void run() {
         while (run.get()) {
+            // requests that timed out go back to the front of the queue
+            for (HeadersWrapper expired : scheduler.expire(System.currentTimeMillis())) {
+                if (log.isDebugEnabled()) {
+                    log.debug(
+                            "<get-bodies expired from-num={} size={}>",
+                            expired.getHeaders().get(0).getNumber(),
+                            expired.getHeaders().size());
+                }
+                downloadedHeaders.offerFirst(expired);
+            }
+
             HeadersWrapper hw;
             try {
-                hw = downloadedHeaders.take();
+                hw = downloadedHeaders.poll(EXPIRY_INTERVAL, TimeUnit.MILLISECONDS);
             } catch (InterruptedException e) {
                 continue;
             }
+            if (hw == null) {
+                continue;
+            }
 
-            int idHash = hw.getNodeIdHash();
-            String displayId = hw.getDisplayId();
             List<A0BlockHeader> headers = hw.getHeaders();
             if (headers.isEmpty()) {
                 continue;
             }
 
+            // any peer that has the last block can serve the bodies
+            long last = headers.get(headers.size() - 1).getNumber();
+            List<INode> candidates =
+                    p2p.getActiveNodes()
+                            .values()
+                            .stream()
+                            .filter(
+                                    n ->
+                                            n.getIdHash() == hw.getNodeIdHash()
+                                                    || n.getBestBlockNumber() >= last)
+                            .collect(Collectors.toList());
+            if (candidates.isEmpty()) {
+                // the headers will be requested again from other peers
+                log.debug(
+                        "<get-bodies no-peer from-num={} node={}>",
+                        headers.get(0).getNumber(),
+                        hw.getDisplayId());
+                continue;
+            }
+
+            INode node = scheduler.selectBodiesPeer(candidates, hw.getNodeIdHash(), headers.size());
+            if (node == null) {
+                // all the peers are busy, wait for a request to complete or expire
+                downloadedHeaders.offerFirst(hw);
+                try {
+                    scheduler.await(EXPIRY_INTERVAL);
+                } catch (InterruptedException e) {
+                    // continue with the loop check
+                }
+                continue;
+            }
+
+            // split the batch to the size this peer can deliver in time
+            HeadersWrapper requested = hw;
+            int size = scheduler.getBodiesRequestSize(node.getIdHash());
+            if (headers.size() > size) {
+                requested =
+                        new HeadersWrapper(
+                                hw.getNodeIdHash(),
+                                hw.getDisplayId(),
+                                new ArrayList<>(headers.subList(0, size)));
+                downloadedHeaders.offerFirst(
+                        new HeadersWrapper(
+                                hw.getNodeIdHash(),
+                                hw.getDisplayId(),
+                                new ArrayList<>(headers.subList(size, headers.size()))));
+                headers = requested.getHeaders();
+            }
+
+            int idHash = node.getIdHash();
+            String displayId = node.getIdShort();
+
             if (log.isDebugEnabled()) {
                 log.debug(
                         "<get-bodies from-num={} to-num={} node={}>",
                         headers.get(0).getNumber(),
                         headers.get(headers.size() - 1).getNumber(),
-                        hw.getDisplayId());
+                        displayId);
             }
 
             p2p.send(
@@ -111,13 +180,13 @@ final class TaskGetBodies implements Runnable {
                             headers.stream().map(k -> k.getHash()).collect(Collectors.toList())));
             stats.updateTotalRequestsToPeer(displayId, RequestType.BODIES);
 
-            headersWithBodiesRequested.put(idHash, hw);
+            scheduler.bodiesRequested(idHash, displayId, requested, System.currentTimeMillis());
 
-            PeerState peerState = peerStates.get(hw.getNodeIdHash());
+            PeerState peerState = peerStates.get(idHash);
             if (peerState != null) {
                 peerState.setState(State.BODIES_REQUESTED);
             } else {
-                log.warn("Peer {} sent blocks that were not requested.", hw.getDisplayId());
+                log.warn("Peer {} sent blocks that were not requested.", displayId);
             }
         }
     }
@@ -55,6 +55,8 @@ final class TaskGetHeaders implements Runnable {
 
     private final SyncStats stats;
 
+    private final RequestScheduler scheduler;
+
     private final Logger log;
 
     private final Random random = new Random(System.currentTimeMillis());
@@ -65,12 +67,14 @@ final class TaskGetHeaders implements Runnable {
             BigInteger selfTd,
             Map<Integer, PeerState> peerStates,
             final SyncStats _stats,
+            final RequestScheduler _scheduler,
             Logger log) {
         this.p2p = p2p;
         this.selfNumber = selfNumber;
         this.selfTd = selfTd;
         this.peerStates = peerStates;
         this.stats = _stats;
+        this.scheduler = _scheduler;
         this.log = log;
     }
 
@@ -79,12 +83,19 @@ final class TaskGetHeaders implements Runnable {
         return n.getTotalDifficulty() != null && n.getTotalDifficulty().compareTo(this.selfTd) >= 0;
     }
 
-    /** Checks that the required time has passed since the last request. */
+    /**
+     * Checks that the peer can take another request. In normal mode the scheduler decides based on
+     * the requests in flight, otherwise the required time must have passed since the last request.
+     */
     private boolean isTimelyRequest(long now, INode n) {
-        return (now - 5000)
-                > peerStates
-                        .computeIfAbsent(n.getIdHash(), k -> new PeerState(NORMAL, selfNumber))
-                        .getLastHeaderRequest();
+        PeerState state =
+                peerStates.computeIfAbsent(n.getIdHash(), k -> new PeerState(NORMAL, selfNumber));
+        if (state.getMode() == NORMAL) {
+            return scheduler.canRequestHeaders(n.getIdHash());
+        } else {
+            return (now - 5000) > state.getLastHeaderRequest()
+                    && scheduler.canRequestHeaders(n.getIdHash());
+        }
     }
 
     @Override
@@ -150,14 +161,32 @@ final class TaskGetHeaders implements Runnable {
 
                     // normal mode
                     long nodeNumber = node.getBestBlockNumber();
+
+                    // take over the requests that timed out on other peers
+                    HeaderQuery reissued =
+                            scheduler.pollReissuedHeaders(
+                                    node.getIdShort(), selfNumber, nodeNumber);
+                    if (reissued != null) {
+                        from = reissued.from;
+                        size = reissued.take;
+                        break;
+                    }
+
                     if (nodeNumber >= selfNumber + BACKWARD_SYNC_STEP) {
                         from = Math.max(1, selfNumber - FAR_OVERLAPPING_BLOCKS);
+                        size = scheduler.getHeadersRequestSize(node.getIdHash());
                     } else if (nodeNumber >= selfNumber - BACKWARD_SYNC_STEP) {
                         from = Math.max(1, selfNumber - CLOSE_OVERLAPPING_BLOCKS);
                     } else {
                         // no need to request from this node. His TD is probably corrupted.
                         return;
                     }
+
+                    // continue after the headers already requested from this node
+                    from = scheduler.getHeadersStart(node.getIdHash(), from, now);
+                    if (from > nodeNumber || from > selfNumber + RequestScheduler.MAX_LOOKAHEAD) {
+                        return;
+                    }
                     break;
                 }
             case BACKWARD:
@@ -195,6 +224,7 @@ final class TaskGetHeaders implements Runnable {
         ReqBlocksHeaders rbh = new ReqBlocksHeaders(from, size);
         this.p2p.send(node.getIdHash(), node.getIdShort(), rbh);
         stats.updateTotalRequestsToPeer(node.getIdShort(), RequestType.STATUS);
+        scheduler.headersRequested(node.getIdHash(), node.getIdShort(), from, size, now);
 
         // update timestamp
         state.setLastHeaderRequest(now);
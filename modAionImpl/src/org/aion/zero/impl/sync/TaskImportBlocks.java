@@ -265,6 +265,9 @@ final class TaskImportBlocks implements Runnable {
             }
         }
 
+        // validate the following blocks while the first ones are being imported
+        chain.prevalidate(batch);
+
         // remembering imported range
         long first = -1L, last = -1L;
         ImportResult importResult;
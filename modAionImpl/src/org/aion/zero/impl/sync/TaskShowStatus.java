@@ -23,6 +23,7 @@
 
 package org.aion.zero.impl.sync;
 
+import com.google.common.cache.CacheStats;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -32,6 +33,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.base.util.Hex;
+import org.aion.evtmgr.IEventMgr;
+import org.aion.evtmgr.impl.bus.SubscriberStats;
+import org.aion.evtmgr.impl.mgr.EventMgrRing;
 import org.aion.mcf.config.StatsType;
 import org.aion.p2p.INode;
 import org.aion.p2p.IP2pMgr;
@@ -63,6 +67,8 @@ final class TaskShowStatus implements Runnable {
     private final Map<Integer, PeerState> peerStates;
     private final Set<StatsType> showStatistics;
 
+    private final IEventMgr evtMgr;
+
     TaskShowStatus(
             final AtomicBoolean _start,
             int _interval,
@@ -72,6 +78,7 @@ final class TaskShowStatus implements Runnable {
             final IP2pMgr _p2p,
             final Map<Integer, PeerState> _peerStates,
             final Set<StatsType> showStatistics,
+            final IEventMgr _evtMgr,
             final Logger _log) {
         this.start = _start;
         this.interval = _interval;
@@ -82,6 +89,7 @@ final class TaskShowStatus implements Runnable {
         this.peerStates = _peerStates;
         this.p2pLOG = _log;
         this.showStatistics = Collections.unmodifiableSet(new HashSet<>(showStatistics));
+        this.evtMgr = _evtMgr;
     }
 
     @Override
@@ -127,6 +135,24 @@ final class TaskShowStatus implements Runnable {
                 if (!requestedInfo.isEmpty()) {
                     p2pLOG.info(requestedInfo);
                 }
+                requestedInfo = dumpRatesInfo();
+                if (!requestedInfo.isEmpty()) {
+                    p2pLOG.info(requestedInfo);
+                }
+            }
+
+            if (showStatistics.contains(StatsType.EVENTS)) {
+                requestedInfo = dumpEventsInfo();
+                if (!requestedInfo.isEmpty()) {
+                    p2pLOG.info(requestedInfo);
+                }
+            }
+
+            if (showStatistics.contains(StatsType.CACHES)) {
+                requestedInfo = dumpCachesInfo();
+                if (!requestedInfo.isEmpty()) {
+                    p2pLOG.info(requestedInfo);
+                }
             }
 
             try {
@@ -164,6 +190,18 @@ final class TaskShowStatus implements Runnable {
             if (!requestedInfo.isEmpty()) {
                 p2pLOG.debug(requestedInfo);
             }
+            requestedInfo = dumpRatesInfo();
+            if (!requestedInfo.isEmpty()) {
+                p2pLOG.debug(requestedInfo);
+            }
+            requestedInfo = dumpEventsInfo();
+            if (!requestedInfo.isEmpty()) {
+                p2pLOG.debug(requestedInfo);
+            }
+            requestedInfo = dumpCachesInfo();
+            if (!requestedInfo.isEmpty()) {
+                p2pLOG.debug(requestedInfo);
+            }
 
             p2pLOG.debug("sync-ss shutdown");
         }
@@ -307,6 +345,132 @@ final class TaskShowStatus implements Runnable {
         return sb.toString();
     }
 
+    /**
+     * Obtain log stream containing the rates measured for each peer by the request scheduler
+     * together with the request sizes and number of requests in flight chosen from them.
+     *
+     * @return log stream with peer rates statistical data
+     */
+    private String dumpRatesInfo() {
+        Map<String, PeerRate> ratesByPeer = this.stats.getPeerRates();
+
+        StringBuilder sb = new StringBuilder();
+
+        if (!ratesByPeer.isEmpty()) {
+
+            sb.append(
+                    "\n============================ sync-rates-by-peer =============================\n");
+            sb.append(
+                    String.format(
+                            "   %9s %10s %10s %10s %8s %8s %4s %8s\n",
+                            "peer",
+                            "latency",
+                            "headers/s",
+                            "bodies/s",
+                            "h-size",
+                            "b-size",
+                            "inf",
+                            "timeouts"));
+            sb.append(
+                    "-----------------------------------------------------------------------------\n");
+
+            ratesByPeer.forEach(
+                    (nodeId, rate) ->
+                            sb.append(
+                                    String.format(
+                                            "   id:%6s %7.0f ms %10.1f %10.1f %8d %8d %4d %8d\n",
+                                            nodeId,
+                                            rate.getLatency(),
+                                            rate.getHeadersPerSec(),
+                                            rate.getBodiesPerSec(),
+                                            rate.getHeadersRequestSize(),
+                                            rate.getBodiesRequestSize(),
+                                            rate.getMaxInFlight(),
+                                            rate.getTimeouts())));
+
+            sb.append(
+                    String.format(
+                            "   re-issued requests: headers %d, bodies %d\n",
+                            this.stats.getReissuedRequests(RequestType.HEADERS),
+                            this.stats.getReissuedRequests(RequestType.BODIES)));
+        }
+
+        return sb.toString();
+    }
+
+    private String dumpCachesInfo() {
+        Map<String, CacheStats> caches = chain.getChainStatistics().getCacheStats();
+
+        StringBuilder sb = new StringBuilder();
+
+        if (!caches.isEmpty()) {
+
+            sb.append(
+                    "\n================================= caches =================================\n");
+            sb.append(
+                    String.format(
+                            "   %16s %12s %12s %12s %9s\n",
+                            "cache", "hits", "misses", "evictions", "hit-rate"));
+            sb.append(
+                    "--------------------------------------------------------------------------\n");
+
+            caches.forEach(
+                    (name, stats) ->
+                            sb.append(
+                                    String.format(
+                                            "   %16s %12d %12d %12d %8.2f%%\n",
+                                            name,
+                                            stats.hitCount(),
+                                            stats.missCount(),
+                                            stats.evictionCount(),
+                                            stats.hitRate() * 100)));
+        }
+
+        return sb.toString();
+    }
+
+    private String dumpEventsInfo() {
+        if (!(evtMgr instanceof EventMgrRing)) {
+            return "";
+        }
+        List<SubscriberStats> subscribers = ((EventMgrRing) evtMgr).getSubscriberStats();
+
+        StringBuilder sb = new StringBuilder();
+
+        if (!subscribers.isEmpty()) {
+
+            sb.append(
+                    "\n========================== event-subscribers ===========================\n");
+            sb.append(
+                    String.format(
+                            "   %9s %8s %8s %10s %10s %10s  %s\n",
+                            "policy",
+                            "depth",
+                            "lag",
+                            "delivered",
+                            "coalesced",
+                            "blocked",
+                            "subscriber"));
+            sb.append(
+                    "------------------------------------------------------------------------\n");
+
+            for (SubscriberStats s : subscribers) {
+                sb.append(
+                        String.format(
+                                "   %9s %8d %5d ms %10d %10d %7d ms  %s\n",
+                                s.getPolicy(),
+                                s.getDepth(),
+                                s.getLagMillis(),
+                                s.getDelivered(),
+                                s.getCoalesced(),
+                                s.getBlockedMillis(),
+                                s.getName()));
+            }
+        }
+
+        return sb.toString();
+    }
+
     private String dumpPeerStateInfo(Collection<INode> filtered) {
         List<NodeState> sorted = new ArrayList<>();
         for (INode n : filtered) {
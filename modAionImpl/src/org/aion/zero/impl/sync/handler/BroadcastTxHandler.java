@@ -41,7 +41,6 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import org.aion.base.util.ByteArrayWrapper;
 import org.aion.base.util.ByteUtil;
 import org.aion.mcf.blockchain.IPendingStateInternal;
 import org.aion.p2p.Ctrl;
@@ -103,7 +102,7 @@ public final class BroadcastTxHandler extends Handler {
                         log.trace("BufferTask add txs into pendingState:{}", txs.size());
                     }
 
-                    pendingState.addPendingTransactions(txs);
+                    pendingState.submitPendingTransactions(txs);
                 }
             }
         }
@@ -151,16 +150,14 @@ public final class BroadcastTxHandler extends Handler {
     }
 
     private List<AionTransaction> castRawTx(List<byte[]> broadCastTx) {
-        List<AionTransaction> rtn = new ArrayList<>();
+        List<AionTransaction> decoded = new ArrayList<>();
 
         for (byte[] raw : broadCastTx) {
             try {
                 AionTransaction tx = new AionTransaction(raw);
                 if (tx.getHash() != null) {
-                    if (!TXValidator.isInCache(ByteArrayWrapper.wrap(tx.getHash()))) {
-                        if (TXValidator.isValid(tx)) {
-                            rtn.add(tx);
-                        }
+                    if (!TXValidator.isInCache(tx)) {
+                        decoded.add(tx);
                     }
                 }
             } catch (Exception e) {
@@ -171,6 +168,15 @@ public final class BroadcastTxHandler extends Handler {
             }
         }
 
+        // the transactions were parsed above, the signatures are verified as a batch
+        List<AionTransaction> rtn = new ArrayList<>();
+        boolean[] valid = TXValidator.isValid(decoded);
+        for (int i = 0; i < valid.length; i++) {
+            if (valid[i]) {
+                rtn.add(decoded.get(i));
+            }
+        }
+
         if (log.isTraceEnabled()) {
             log.trace(
                     "BroadcastTxHandler.castRawTx Tx#{} validTx#{}",
@@ -41,8 +41,7 @@ import org.aion.p2p.Ctrl;
 import org.aion.p2p.Msg;
 import org.aion.p2p.Ver;
 import org.aion.rlp.RLP;
-import org.aion.rlp.RLPElement;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPView;
 import org.aion.zero.impl.sync.Act;
 import org.aion.zero.types.A0BlockHeader;
 
@@ -60,10 +59,9 @@ public final class ResBlocksHeaders extends Msg {
         if (_msgBytes == null || _msgBytes.length == 0) return null;
         else {
             try {
-                RLPList list = (RLPList) RLP.decode2(_msgBytes).get(0);
+                RLPView list = RLPView.wrap(_msgBytes);
                 List<A0BlockHeader> blockHeaders = new ArrayList<>();
-                for (RLPElement aList : list) {
-                    RLPList rlpData = ((RLPList) aList);
+                for (RLPView rlpData : list) {
                     blockHeaders.add(A0BlockHeader.fromRLP(rlpData, true));
                 }
                 return new ResBlocksHeaders(blockHeaders);
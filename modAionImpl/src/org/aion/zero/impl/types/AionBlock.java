@@ -35,8 +35,8 @@ import org.aion.mcf.trie.Trie;
 import org.aion.mcf.trie.TrieImpl;
 import org.aion.mcf.types.AbstractBlock;
 import org.aion.rlp.RLP;
-import org.aion.rlp.RLPElement;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPEncoder;
+import org.aion.rlp.RLPView;
 import org.aion.zero.exceptions.HeaderStructureException;
 import org.aion.zero.types.A0BlockHeader;
 import org.aion.zero.types.AionTransaction;
@@ -178,15 +178,14 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
         synchronized (this) {
             if (this.parsed) return;
 
-            RLPList params = RLP.decode2(rlpEncoded);
-            RLPList block = (RLPList) params.get(0);
+            RLPView block = RLPView.wrap(rlpEncoded);
 
             // Parse Header
-            RLPList header = (RLPList) block.get(0);
+            RLPView header = block.get(0);
             this.header = new A0BlockHeader(header);
 
             // Parse Transactions
-            RLPList txTransactions = (RLPList) block.get(1);
+            RLPView txTransactions = block.get(1);
             this.parseTxs(this.header.getTxTrieRoot(), txTransactions);
 
             this.parsed = true;
@@ -381,17 +380,18 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
         return toStringBuff.toString();
     }
 
-    private void parseTxs(RLPList txTransactions) {
+    private void parseTxs(RLPView txTransactions) {
 
         this.txsState = new TrieImpl(null);
-        for (int i = 0; i < txTransactions.size(); i++) {
-            RLPElement transactionRaw = txTransactions.get(i);
-            this.transactionsList.add(new AionTransaction(transactionRaw.getRLPData()));
-            this.txsState.update(RLP.encodeInt(i), transactionRaw.getRLPData());
+        int i = 0;
+        for (RLPView transactionRaw : txTransactions) {
+            byte[] encoded = transactionRaw.getEncoded();
+            this.transactionsList.add(new AionTransaction(encoded));
+            this.txsState.update(RLP.encodeInt(i++), encoded);
         }
     }
 
-    private boolean parseTxs(byte[] expectedRoot, RLPList txTransactions) {
+    private boolean parseTxs(byte[] expectedRoot, RLPView txTransactions) {
 
         parseTxs(txTransactions);
         String calculatedRoot = Hex.toHexString(txsState.getRootHash());
@@ -434,11 +434,11 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
         if (rlpEncoded == null) {
             byte[] header = this.header.getEncoded();
 
-            List<byte[]> block = getBodyElements();
-            block.add(0, header);
-            byte[][] elements = block.toArray(new byte[block.size()][]);
-
-            this.rlpEncoded = RLP.encodeList(elements);
+            try (RLPEncoder encoder = RLPEncoder.acquire()) {
+                encoder.startList().writeEncoded(header);
+                encodeTransactions(encoder);
+                this.rlpEncoded = encoder.endList().toByteArray();
+            }
         }
         return rlpEncoded;
     }
@@ -485,8 +485,7 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
         block.header = header;
         block.parsed = true;
 
-        RLPList items = (RLPList) RLP.decode2(body).get(0);
-        RLPList transactions = (RLPList) items.get(0);
+        RLPView transactions = RLPView.wrap(body).get(0);
 
         if (!block.parseTxs(header.getTxTrieRoot(), transactions)) {
             return null;
@@ -26,16 +26,19 @@ package org.aion.zero.impl.valid;
 import static org.aion.mcf.valid.TxNrgRule.isValidNrgContractCreate;
 import static org.aion.mcf.valid.TxNrgRule.isValidNrgTx;
 
-import java.util.Collections;
-import java.util.Map;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.ArrayList;
+import java.util.List;
 import org.aion.base.type.Hash256;
 import org.aion.base.util.ByteArrayWrapper;
+import org.aion.base.util.ByteUtil;
 import org.aion.crypto.ISignature;
 import org.aion.crypto.SignatureFac;
 import org.aion.log.LogEnum;
 import org.aion.mcf.vm.types.DataWord;
 import org.aion.zero.types.AionTransaction;
-import org.apache.commons.collections4.map.LRUMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,25 +46,104 @@ public class TXValidator {
 
     private static final Logger LOG = LoggerFactory.getLogger(LogEnum.TX.name());
 
-    private static final Map<ByteArrayWrapper, Boolean> cache =
-            Collections.synchronizedMap(new LRUMap<>(128 * 1024));
+    /**
+     * Validation results of recently seen transactions, so that a transaction checked when
+     * received from the network, admitted to the pool and imported in a block is only verified
+     * once.
+     *
+     * @implNote Entries are keyed by the transaction hash together with the signature. The result
+     *     only depends on the transaction itself, so it does not need to be invalidated on chain
+     *     reorganizations.
+     */
+    private static final Cache<ByteArrayWrapper, Boolean> cache =
+            CacheBuilder.newBuilder().maximumSize(128 * 1024).recordStats().build();
+
+    private static ByteArrayWrapper cacheKey(AionTransaction tx) {
+        ISignature sig = tx.getSignature();
+        byte[] hash = tx.getHash();
+        return ByteArrayWrapper.wrap(sig == null ? hash : ByteUtil.merge(hash, sig.toBytes()));
+    }
 
     public static boolean isValid(AionTransaction tx) {
-        Boolean valid = cache.get(ByteArrayWrapper.wrap(tx.getHash()));
+        ByteArrayWrapper key = cacheKey(tx);
+        Boolean valid = cache.getIfPresent(key);
         if (valid != null) {
             return valid;
         } else {
             valid = isValid0(tx);
-            cache.put(ByteArrayWrapper.wrap(tx.getHash()), valid);
+            cache.put(key, valid);
             return valid;
         }
     }
 
-    public static boolean isInCache(ByteArrayWrapper hash) {
-        return cache.get(hash) != null;
+    /**
+     * Validates the given transactions, verifying the signatures that are not already cached as a
+     * batch.
+     *
+     * @return the validity of each transaction, in the given order
+     */
+    public static boolean[] isValid(List<AionTransaction> txs) {
+        boolean[] valid = new boolean[txs.size()];
+
+        List<Integer> unverified = new ArrayList<>();
+        List<byte[]> msgs = new ArrayList<>();
+        List<ISignature> sigs = new ArrayList<>();
+
+        List<ByteArrayWrapper> keys = new ArrayList<>();
+
+        for (int i = 0; i < txs.size(); i++) {
+            AionTransaction tx = txs.get(i);
+            ByteArrayWrapper key = cacheKey(tx);
+            Boolean cached = cache.getIfPresent(key);
+
+            if (cached != null) {
+                valid[i] = cached;
+            } else if (!isValidFields(tx)) {
+                cache.put(key, false);
+            } else {
+                keys.add(key);
+                unverified.add(i);
+                msgs.add(tx.getRawHash());
+                sigs.add(tx.getSignature());
+            }
+        }
+
+        if (!unverified.isEmpty()) {
+            boolean[] verified = SignatureFac.verify(msgs, sigs);
+            for (int j = 0; j < verified.length; j++) {
+                int i = unverified.get(j);
+                valid[i] = verified[j];
+                cache.put(keys.get(j), verified[j]);
+            }
+        }
+
+        return valid;
+    }
+
+    public static boolean isInCache(AionTransaction tx) {
+        return cache.getIfPresent(cacheKey(tx)) != null;
+    }
+
+    /** @return the hit and miss counts of the validation cache */
+    public static CacheStats getCacheStats() {
+        return cache.stats();
     }
 
     public static boolean isValid0(AionTransaction tx) {
+        if (!isValidFields(tx)) {
+            return false;
+        }
+
+        try {
+            return SignatureFac.verify(tx.getRawHash(), tx.getSignature());
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return false;
+        }
+    }
+
+    /** Checks all the transaction fields, except for the validity of the signature. */
+    private static boolean isValidFields(AionTransaction tx) {
         byte[] check = tx.getNonce();
         if (check == null || check.length > DataWord.BYTES) {
             LOG.error("invalid tx nonce!");
@@ -117,11 +199,6 @@ public class TXValidator {
             return false;
         }
 
-        try {
-            return SignatureFac.verify(hash, sig);
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            return false;
-        }
+        return true;
     }
 }
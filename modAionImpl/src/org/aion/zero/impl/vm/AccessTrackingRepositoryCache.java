@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.vm;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.aion.base.db.IContractDetails;
+import org.aion.base.db.IRepository;
+import org.aion.base.type.Address;
+import org.aion.base.vm.IDataWord;
+import org.aion.mcf.core.AccountState;
+import org.aion.zero.db.AionRepositoryCache;
+
+/**
+ * Repository cache that records every account address read from or written to it, either
+ * directly or through the caches tracking it.
+ *
+ * @implNote The address given as {@code ignored} is never recorded. It is used to exclude the
+ *     block coinbase, whose only access by a value transfer is the fee payment.
+ */
+class AccessTrackingRepositoryCache extends AionRepositoryCache {
+
+    private final Address ignored;
+    private final Set<Address> accessed = new HashSet<>();
+
+    AccessTrackingRepositoryCache(final IRepository trackedRepository, final Address ignored) {
+        super(trackedRepository);
+        this.ignored = ignored;
+    }
+
+    private void record(Address address) {
+        if (address != null && !address.equals(ignored)) {
+            accessed.add(address);
+        }
+    }
+
+    /** @return the addresses of all the accounts accessed through this cache */
+    Set<Address> getAccessedAddresses() {
+        return Collections.unmodifiableSet(accessed);
+    }
+
+    @Override
+    public AccountState getAccountState(Address address) {
+        record(address);
+        return super.getAccountState(address);
+    }
+
+    @Override
+    public boolean hasAccountState(Address address) {
+        record(address);
+        return super.hasAccountState(address);
+    }
+
+    @Override
+    public IContractDetails<IDataWord> getContractDetails(Address address) {
+        record(address);
+        return super.getContractDetails(address);
+    }
+
+    @Override
+    public boolean hasContractDetails(Address address) {
+        record(address);
+        return super.hasContractDetails(address);
+    }
+
+    @Override
+    public void loadAccountState(
+            Address address,
+            Map<Address, AccountState> accounts,
+            Map<Address, IContractDetails<IDataWord>> details) {
+        record(address);
+        super.loadAccountState(address, accounts, details);
+    }
+
+    @Override
+    public void updateBatch(
+            Map<Address, AccountState> accounts,
+            final Map<Address, IContractDetails<IDataWord>> details) {
+        accounts.keySet().forEach(this::record);
+        details.keySet().forEach(this::record);
+        super.updateBatch(accounts, details);
+    }
+}
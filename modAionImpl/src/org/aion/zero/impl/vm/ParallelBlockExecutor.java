@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.vm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import org.aion.base.db.IRepository;
+import org.aion.base.db.IRepositoryCache;
+import org.aion.base.type.Address;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.precompiled.ContractFactory;
+import org.aion.vm.TransactionExecutor;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxExecSummary;
+import org.aion.zero.types.IAionBlock;
+import org.apache.commons.lang3.ArrayUtils;
+import org.slf4j.Logger;
+
+/**
+ * Optimistic parallel execution of the transactions of a block.
+ *
+ * <p>Execution happens in two phases:
+ *
+ * <ol>
+ *   <li>value transfers between regular accounts are executed concurrently, each against its own
+ *       cache on top of the block state, recording the accounts they access;
+ *   <li>in block order, each speculative result is committed if none of the accounts it accessed
+ *       were modified by a preceding transaction; otherwise, and for all other transactions (ex.
+ *       contract calls and deployments), the transaction is executed again against the up to date
+ *       block state.
+ * </ol>
+ *
+ * <p>The only exception to conflict detection is the block coinbase: the fee payment is the only
+ * access of a value transfer to it, so it is applied to the block state as the result is committed
+ * instead of being part of the speculative state. As a result the receipts and state produced are
+ * identical to executing the transactions sequentially.
+ */
+public class ParallelBlockExecutor {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.VM.toString());
+
+    private final ForkJoinPool pool;
+
+    private final AtomicLong speculated = new AtomicLong(0L);
+    private final AtomicLong reExecuted = new AtomicLong(0L);
+
+    public ParallelBlockExecutor(int threads) {
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /** Speculative execution result for a single transaction. */
+    private static class Speculation {
+        private final AccessTrackingRepositoryCache cache;
+        private final AionTxExecSummary summary;
+
+        private Speculation(AccessTrackingRepositoryCache cache, AionTxExecSummary summary) {
+            this.cache = cache;
+            this.summary = summary;
+        }
+    }
+
+    /**
+     * Executes all the transactions of the given block on top of the given block state.
+     *
+     * @param block the block containing the transactions
+     * @param track the block state; it is modified as if the transactions were executed in order
+     * @param onCommit called in block order after the changes of each transaction were applied to
+     *     the block state
+     * @return the execution summaries in block order
+     */
+    public List<AionTxExecSummary> execute(
+            IAionBlock block, IRepositoryCache track, Consumer<AionTxExecSummary> onCommit) {
+        List<AionTransaction> txs = block.getTransactionsList();
+        Address coinbase = block.getCoinbase();
+
+        boolean[] independent = new boolean[txs.size()];
+        for (int i = 0; i < txs.size(); i++) {
+            independent[i] = isValueTransfer(txs.get(i), coinbase, track);
+        }
+
+        Speculation[] speculations = speculate(block, track, independent);
+
+        List<AionTxExecSummary> summaries = new ArrayList<>(txs.size());
+        Set<Address> modified = new HashSet<>();
+        int conflicts = 0;
+
+        for (int i = 0; i < txs.size(); i++) {
+            Speculation speculation = speculations[i];
+            AionTxExecSummary summary;
+
+            if (speculation != null
+                    && Collections.disjoint(speculation.cache.getAccessedAddresses(), modified)) {
+                summary = speculation.summary;
+
+                // the coinbase is updated against the current block state
+                speculation.cache.discard(coinbase);
+                speculation.cache.flush();
+                if (!summary.isRejected()) {
+                    track.addBalance(coinbase, summary.getFee());
+                }
+                modified.addAll(speculation.cache.getAccessedAddresses());
+            } else {
+                if (speculation != null) {
+                    conflicts++;
+                }
+
+                AccessTrackingRepositoryCache cache = new AccessTrackingRepositoryCache(track, null);
+                summary = executeTransaction(txs.get(i), block, cache, false);
+                cache.flush();
+                modified.addAll(cache.getAccessedAddresses());
+            }
+
+            summaries.add(summary);
+            onCommit.accept(summary);
+        }
+
+        reExecuted.addAndGet(conflicts);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                    "Block {}: {} txs executed, {} speculative conflicts.",
+                    block.getNumber(),
+                    txs.size(),
+                    conflicts);
+        }
+
+        return summaries;
+    }
+
+    private Speculation[] speculate(
+            IAionBlock block, IRepositoryCache track, boolean[] independent) {
+        List<AionTransaction> txs = block.getTransactionsList();
+        Speculation[] speculations = new Speculation[txs.size()];
+
+        try {
+            pool.submit(
+                            () ->
+                                    IntStream.range(0, txs.size())
+                                            .parallel()
+                                            .filter(i -> independent[i])
+                                            .forEach(
+                                                    i ->
+                                                            speculations[i] =
+                                                                    speculate(
+                                                                            txs.get(i),
+                                                                            block,
+                                                                            track)))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // fall back to sequential execution
+            return new Speculation[txs.size()];
+        } catch (ExecutionException e) {
+            LOG.error("Speculative execution failed, executing block sequentially.", e);
+            return new Speculation[txs.size()];
+        }
+
+        for (Speculation speculation : speculations) {
+            if (speculation != null) {
+                speculated.incrementAndGet();
+            }
+        }
+        return speculations;
+    }
+
+    private static Speculation speculate(
+            AionTransaction tx, IAionBlock block, IRepositoryCache track) {
+        AccessTrackingRepositoryCache cache =
+                new AccessTrackingRepositoryCache(track, block.getCoinbase());
+        return new Speculation(cache, executeTransaction(tx, block, cache, true));
+    }
+
+    private static AionTxExecSummary executeTransaction(
+            AionTransaction tx, IAionBlock block, IRepositoryCache repo, boolean concurrent) {
+        TransactionExecutor executor = new TransactionExecutor(tx, block, repo, LOG);
+        executor.setExecutorProvider(AionExecutorProvider.getInstance());
+        if (concurrent) {
+            executor.setConcurrent();
+        }
+        return executor.execute();
+    }
+
+    /**
+     * Checks if the transaction is a value transfer between regular accounts, neither of which is
+     * the block coinbase. The state read by such a transaction is restricted to the sender, the
+     * recipient and the fee payment to the coinbase.
+     */
+    private static boolean isValueTransfer(
+            AionTransaction tx, Address coinbase, IRepository repository) {
+        if (tx.isContractCreation()) {
+            return false;
+        }
+
+        Address to = tx.getTo();
+        return !coinbase.equals(tx.getFrom())
+                && !coinbase.equals(to)
+                && !ContractFactory.isPrecompiledContract(to)
+                && !ContractFactory.getTotalCurrencyContractAddress().equals(to)
+                && ArrayUtils.isEmpty(repository.getCode(to));
+    }
+
+    /** @return the number of transactions that were executed speculatively */
+    public long getSpeculatedCount() {
+        return speculated.get();
+    }
+
+    /** @return the number of speculative results discarded due to conflicts */
+    public long getReExecutedCount() {
+        return reExecuted.get();
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -35,7 +35,9 @@
 
 package org.aion.db;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.HashMap;
@@ -47,13 +49,22 @@ import org.aion.base.db.IPruneConfig;
 import org.aion.base.db.IRepositoryConfig;
 import org.aion.base.type.Address;
 import org.aion.base.util.ByteUtil;
+import org.aion.base.vm.IDataWord;
 import org.aion.db.impl.DBVendor;
 import org.aion.db.impl.DatabaseFactory;
+import org.aion.db.impl.WriteBufferedDatabase;
+import org.aion.db.impl.mockdb.MockDB;
 import org.aion.mcf.config.CfgPrune;
+import org.aion.mcf.db.DetailsDataStore;
+import org.aion.mcf.trie.CleanNodeCache;
 import org.aion.mcf.vm.types.DataWord;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPList;
 import org.aion.zero.db.AionContractDetailsImpl;
 import org.aion.zero.impl.db.AionRepositoryImpl;
 import org.aion.zero.impl.db.ContractDetailsAion;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.A0BlockHeader;
 import org.apache.commons.lang3.RandomUtils;
 import org.junit.Test;
 
@@ -318,8 +329,8 @@ public class AionContractDetailsTest {
         AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
         IByteArrayKeyValueDatabase externalStorage = repository.getDetailsDatabase();
 
+        // details without a data source keep the storage in their encoding
         AionContractDetailsImpl original = new AionContractDetailsImpl(0, 1000000);
-        original.setExternalStorageDataSource(externalStorage);
         original.setAddress(address);
         original.setCode(code);
 
@@ -331,12 +342,22 @@ public class AionContractDetailsTest {
             original.put(key, value);
         }
 
-        original.syncStorage();
-        assertTrue(!externalStorage.isEmpty());
+        byte[] inline = original.getEncoded();
+        assertEquals(5, ((RLPList) RLP.decode2(inline).get(0)).size());
 
-        IContractDetails deserialized = deserialize(original.getEncoded(), externalStorage);
+        AionContractDetailsImpl deserialized =
+                (AionContractDetailsImpl) deserialize(inline, externalStorage);
 
-        // adds keys for in-memory storage limit overflow
+        // encoding does not move the storage
+        assertEquals(5, ((RLPList) RLP.decode2(deserialized.getEncoded()).get(0)).size());
+        assertFalse(deserialized.externalStorage);
+        assertTrue(externalStorage.isEmpty());
+
+        deserialized.syncStorage();
+        assertTrue(deserialized.externalStorage);
+        assertTrue(!externalStorage.isEmpty());
+
+        // adds keys after the transition
         for (int i = 0; i < 10; i++) {
             DataWord key = new DataWord(RandomUtils.nextBytes(16));
             DataWord value = new DataWord(RandomUtils.nextBytes(16));
@@ -347,12 +368,155 @@ public class AionContractDetailsTest {
         }
 
         deserialized.syncStorage();
-        assertTrue(!externalStorage.isEmpty());
+        byte[] compact = deserialized.getEncoded();
+        assertEquals(3, ((RLPList) RLP.decode2(compact).get(0)).size());
 
-        deserialized = deserialize(deserialized.getEncoded(), externalStorage);
+        IContractDetails result = deserialize(compact, externalStorage);
 
+        assertTrue(address.equals(result.getAddress()));
+        assertArrayEquals(code, result.getCode());
+        for (DataWord key : elements.keySet()) {
+            assertEquals(elements.get(key), result.get(key));
+        }
+    }
+
+    @Test
+    public void testDecodeExternalStorageLegacyEncoding() {
+        Address address = Address.wrap(RandomUtils.nextBytes(Address.ADDRESS_LEN));
+        byte[] code = RandomUtils.nextBytes(512);
+        Map<DataWord, DataWord> elements = new HashMap<>();
+
+        AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
+        IByteArrayKeyValueDatabase externalStorage = repository.getDetailsDatabase();
+
+        // writes the storage nodes only, the older format keeps the code in the record
+        AionContractDetailsImpl storage = new AionContractDetailsImpl(0, 1000000);
+        storage.setExternalStorageDataSource(externalStorage);
+        storage.setAddress(address);
+
+        for (int i = 0; i < 100; i++) {
+            DataWord key = new DataWord(RandomUtils.nextBytes(16));
+            DataWord value = new DataWord(RandomUtils.nextBytes(16));
+
+            elements.put(key, value);
+            storage.put(key, value);
+        }
+        storage.syncStorage();
+
+        byte[] legacy =
+                RLP.encodeList(
+                        RLP.encodeElement(address.toBytes()),
+                        RLP.encodeByte((byte) 1),
+                        RLP.encodeElement(storage.getStorageHash()),
+                        RLP.encodeElement(ByteUtil.EMPTY_BYTE_ARRAY),
+                        RLP.encodeList(RLP.encodeElement(code)));
+
+        IContractDetails deserialized = deserialize(legacy, externalStorage);
+
+        assertTrue(address.equals(deserialized.getAddress()));
+        assertArrayEquals(code, deserialized.getCode());
         for (DataWord key : elements.keySet()) {
             assertEquals(elements.get(key), deserialized.get(key));
         }
+
+        // the code is restored from the storage once the compact encoding is used
+        deserialized.syncStorage();
+        IContractDetails result = deserialize(deserialized.getEncoded(), externalStorage);
+
+        assertArrayEquals(code, result.getCode());
+        assertArrayEquals(storage.getStorageHash(), result.getStorageHash());
+    }
+
+    @Test
+    public void testMigrate() {
+        Address legacyAddress = Address.wrap(RandomUtils.nextBytes(Address.ADDRESS_LEN));
+        Address compactAddress = Address.wrap(RandomUtils.nextBytes(Address.ADDRESS_LEN));
+        byte[] code = RandomUtils.nextBytes(512);
+        Map<DataWord, DataWord> elements = new HashMap<>();
+
+        // buffered like the repository databases since the store commits its changes
+        IByteArrayKeyValueDatabase detailsDb = new WriteBufferedDatabase(new MockDB("details"));
+        IByteArrayKeyValueDatabase storageDb = new WriteBufferedDatabase(new MockDB("storage"));
+        detailsDb.open();
+        storageDb.open();
+        DetailsDataStore<AionBlock, A0BlockHeader> store =
+                new DetailsDataStore<>(detailsDb, storageDb, repoConfig);
+
+        AionContractDetailsImpl legacy = new AionContractDetailsImpl(0, 1000000);
+        legacy.setAddress(legacyAddress);
+        legacy.setCode(code);
+        for (int i = 0; i < 100; i++) {
+            DataWord key = new DataWord(RandomUtils.nextBytes(16));
+            DataWord value = new DataWord(RandomUtils.nextBytes(16));
+
+            elements.put(key, value);
+            legacy.put(key, value);
+        }
+        detailsDb.put(legacyAddress.toBytes(), legacy.getEncoded());
+
+        AionContractDetailsImpl compact = new AionContractDetailsImpl(0, 1000000);
+        compact.setCode(code);
+        compact.put(new DataWord(1), new DataWord(2));
+        store.update(compactAddress, compact);
+        store.flush();
+        byte[] compactRecord = detailsDb.get(compactAddress.toBytes()).get();
+
+        assertEquals(1, store.migrate());
+
+        assertArrayEquals(compactRecord, detailsDb.get(compactAddress.toBytes()).get());
+        byte[] migrated = detailsDb.get(legacyAddress.toBytes()).get();
+        assertEquals(3, ((RLPList) RLP.decode2(migrated).get(0)).size());
+
+        IContractDetails<IDataWord> result = store.get(legacyAddress.toBytes());
+        assertTrue(legacyAddress.equals(result.getAddress()));
+        assertArrayEquals(code, result.getCode());
+        for (DataWord key : elements.keySet()) {
+            assertEquals(elements.get(key), result.get(key));
+        }
+
+        // nothing left in the older format
+        assertEquals(0, store.migrate());
+    }
+
+    @Test
+    public void testStorageNodeCacheOfStore() {
+        Address address = Address.wrap(RandomUtils.nextBytes(Address.ADDRESS_LEN));
+        Map<DataWord, DataWord> elements = new HashMap<>();
+
+        IByteArrayKeyValueDatabase detailsDb = new WriteBufferedDatabase(new MockDB("details"));
+        IByteArrayKeyValueDatabase storageDb = new WriteBufferedDatabase(new MockDB("storage"));
+        detailsDb.open();
+        storageDb.open();
+
+        // two repositories over the same databases, each with its own cache
+        CleanNodeCache writerCache = new CleanNodeCache();
+        DetailsDataStore<AionBlock, A0BlockHeader> writer =
+                new DetailsDataStore<>(detailsDb, storageDb, repoConfig);
+        writer.setStorageNodeCache(writerCache);
+        CleanNodeCache readerCache = new CleanNodeCache();
+        DetailsDataStore<AionBlock, A0BlockHeader> reader =
+                new DetailsDataStore<>(detailsDb, storageDb, repoConfig);
+        reader.setStorageNodeCache(readerCache);
+
+        AionContractDetailsImpl details = new AionContractDetailsImpl(0, 1000000);
+        for (int i = 0; i < 100; i++) {
+            DataWord key = new DataWord(RandomUtils.nextBytes(16));
+            DataWord value = new DataWord(RandomUtils.nextBytes(16));
+
+            elements.put(key, value);
+            details.put(key, value);
+        }
+        writer.update(address, details);
+        writer.flush();
+
+        long writerRequests = writerCache.getStats().requestCount();
+        IContractDetails<IDataWord> result = reader.get(address.toBytes());
+        for (DataWord key : elements.keySet()) {
+            assertEquals(elements.get(key), result.get(key));
+        }
+
+        assertTrue(readerCache.getStats().requestCount() > 0);
+        assertTrue(readerCache.size() > 0);
+        assertEquals(writerRequests, writerCache.getStats().requestCount());
     }
 }
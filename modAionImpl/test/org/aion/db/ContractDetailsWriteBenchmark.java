@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.db;
+
+import java.util.Map;
+import java.util.Random;
+import org.aion.base.type.Address;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.mcf.vm.types.DataWord;
+import org.aion.zero.db.AionContractDetailsImpl;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the bytes written per block by a contract with 10k and 20k storage slots that changes
+ * one slot each block, when the storage is kept inside the details encoding and when it is kept in
+ * the external storage.
+ */
+@Ignore
+public class ContractDetailsWriteBenchmark {
+
+    private static final int[] SLOT_COUNTS = {10_000, 20_000};
+    private static final int BLOCKS = 100;
+
+    private static final Random RANDOM = new Random(42);
+
+    /** Counts the bytes written to the database. */
+    private static class CountingDB extends MockDB {
+        private long written;
+
+        CountingDB() {
+            super("counting");
+            open();
+        }
+
+        @Override
+        public void put(byte[] k, byte[] v) {
+            written += k.length + (v == null ? 0 : v.length);
+            super.put(k, v);
+        }
+
+        @Override
+        public void putBatch(Map<byte[], byte[]> inputMap) {
+            inputMap.forEach((k, v) -> written += k.length + (v == null ? 0 : v.length));
+            super.putBatch(inputMap);
+        }
+    }
+
+    private static DataWord randomWord() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return new DataWord(bytes);
+    }
+
+    private static AionContractDetailsImpl createDetails(int slots, CountingDB storage) {
+        AionContractDetailsImpl details = new AionContractDetailsImpl(0, 1_000_000);
+        if (storage != null) {
+            details.setDataSource(storage);
+        }
+        details.setAddress(Address.wrap(new byte[Address.ADDRESS_LEN]));
+        details.setCode(new byte[512]);
+        for (int i = 0; i < slots; i++) {
+            details.put(randomWord(), randomWord());
+        }
+        details.syncStorage();
+        details.getEncoded();
+        return details;
+    }
+
+    @Test
+    public void benchmarkSingleStorePerBlock() {
+        for (int slots : SLOT_COUNTS) {
+            AionContractDetailsImpl inline = createDetails(slots, null);
+            long inlineBytes = 0;
+            long start = System.nanoTime();
+            for (int b = 0; b < BLOCKS; b++) {
+                inline.put(randomWord(), randomWord());
+                inlineBytes += inline.getEncoded().length;
+            }
+            long inlineTime = (System.nanoTime() - start) / BLOCKS;
+
+            CountingDB storage = new CountingDB();
+            AionContractDetailsImpl external = createDetails(slots, storage);
+            storage.written = 0;
+            long externalBytes = 0;
+            start = System.nanoTime();
+            for (int b = 0; b < BLOCKS; b++) {
+                external.put(randomWord(), randomWord());
+                external.syncStorage();
+                externalBytes += external.getEncoded().length;
+            }
+            long externalTime = (System.nanoTime() - start) / BLOCKS;
+            externalBytes += storage.written;
+
+            System.out.format(
+                    "%d slots: inline %d bytes %d us, external %d bytes %d us per block%n",
+                    slots,
+                    inlineBytes / BLOCKS,
+                    inlineTime / 1_000,
+                    externalBytes / BLOCKS,
+                    externalTime / 1_000);
+        }
+    }
+}
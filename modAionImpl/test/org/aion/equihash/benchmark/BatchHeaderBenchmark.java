@@ -20,128 +20,105 @@
  * Contributors:
  *     Aion foundation.
  */
-// package org.aion.equihash.benchmark;
-//
-// import org.aion.base.type.Address;
-// import org.aion.base.util.ByteUtil;
-// import org.aion.equihash.EquiUtils;
-// import org.aion.equihash.OptimizedEquiValidator;
-// import org.aion.mcf.valid.BlockHeaderValidator;
-// import org.aion.zero.impl.AionBlockchainImpl;
-// import org.aion.zero.impl.blockchain.ChainConfiguration;
-// import org.aion.zero.impl.types.AionBlock;
-// import org.aion.zero.types.A0BlockHeader;
-// import org.junit.Test;
-//
-// import java.io.BufferedReader;
-// import java.io.File;
-// import java.io.FileReader;
-// import java.io.IOException;
-// import java.util.ArrayList;
-// import java.util.List;
-// import java.util.Scanner;
-//
-// public class BatchHeaderBenchmark {
-//
-//
-//    @Test
-//    public void benchTime() {
-//        try {
-//
-//            List<A0BlockHeader> hdrs = new ArrayList<>();
-//            OptimizedEquiValidator ov = new OptimizedEquiValidator(210,9);
-//            ChainConfiguration chainConfig = new ChainConfiguration();
-//            AionBlockchainImpl chain = AionBlockchainImpl.inst();
-//            BlockHeaderValidator blockHeaderValidator = chainConfig.createBlockHeaderValidator();
-//
-//            long seqExecutionTotal = 0;
-//            long parallelExecutionTotal = 0;
-//            long numIter = 0;
-//            int numInvalid = 0;
-//
-//            boolean isValidSeq = true;
-//            boolean isValidPar = true;
-//
-//            Thread.sleep(1000 * 20L);
-//
-//
-//            for(int k = 0; k < 10; k++) {
-//                File file = new File("aionTestnetChain.csv");
-//                FileReader fileReader = new FileReader(file);
-//                BufferedReader bufferedReader = new BufferedReader(fileReader);
-//                String line;
-//                while ((line = bufferedReader.readLine()) != null) {
-//                    String[] contents = line.split(",");
-//
-//                    byte[] parentHash = ByteUtil.hexStringToBytes(contents[0]);
-//                    Address coinBase = new Address(ByteUtil.hexStringToBytes(contents[1]));
-//                    byte[] stateRoot = ByteUtil.hexStringToBytes(contents[2]);
-//                    byte[] txTrieRoot = ByteUtil.hexStringToBytes(contents[3]);
-//                    byte[] receiptTrieRoot = ByteUtil.hexStringToBytes(contents[4]);
-//                    byte[] logsBloom = ByteUtil.hexStringToBytes(contents[5]);
-//                    byte[] diff = new byte[16];
-//                    System.arraycopy(ByteUtil.hexStringToBytes(contents[6]), 0, diff, 16 -
-// ByteUtil.hexStringToBytes(contents[6]).length, ByteUtil.hexStringToBytes(contents[6]).length);
-//
-//                    long number = Long.decode(contents[7]);
-//                    long timestamp = Long.decode(contents[8]);
-//                    byte[] extraData = ByteUtil.hexStringToBytes(contents[9]);
-//                    byte[] nonce = ByteUtil.hexStringToBytes(contents[10]);
-//                    byte[] solution = ByteUtil.hexStringToBytes(contents[11]);
-//                    long energyConsumed = Long.decode(contents[12]);
-//                    long energyLimit = Long.decode(contents[13]);
-//
-//
-//                    A0BlockHeader newHdr = new A0BlockHeader(parentHash, coinBase, logsBloom,
-//                            diff, number, timestamp, extraData, nonce, solution, energyConsumed,
-//                            energyLimit);
-//
-//                    newHdr.setStateRoot(stateRoot);
-//                    newHdr.setTxTrieRoot(txTrieRoot);
-//                    newHdr.setReceiptsRoot(receiptTrieRoot);
-//
-//                    hdrs.add(newHdr);
-//
-//                    if (hdrs.size() % 192 == 0) {
-//
-//                        long start;
-//                        long stop;
-//
-//                        //Sequential processing
-//                        start = System.nanoTime();
-//                        for (A0BlockHeader hdr : hdrs) {
-//
-//                            isValidSeq &= blockHeaderValidator.validate(hdr);
-//                        }
-//                        stop = System.nanoTime();
-//                        seqExecutionTotal += (stop - start);
-//
-//                        numIter++;
-//
-//                        hdrs.clear();
-//                    }
-//                }
-//                fileReader.close();
-//            }
-//
-//            System.out.println(hdrs.size());
-//            System.out.println("NumInvalid: " + numInvalid++);
-//            System.out.println("Num Iter: " + numIter);
-//            System.out.println("Average sequential: "  + seqExecutionTotal/numIter);
-//            System.out.println("Average parallel:   "  + parallelExecutionTotal/numIter);
-//            System.out.println("isValidSeq: " + isValidSeq);
-//            System.out.println("isValidPara: " + isValidPar);
-//
-//            Scanner input = new Scanner(System.in);
-//            input.nextLine();
-//
-//        } catch (IOException e) {
-//            e.printStackTrace();
-//        } catch (InterruptedException e) {
-//            e.printStackTrace();
-//        }
-//
-//
-//    }
-//
-// }
+
+package org.aion.equihash.benchmark;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.aion.equihash.EquiUtils;
+import org.aion.equihash.Equihash;
+import org.aion.equihash.OptimizedEquiValidator;
+import org.aion.mcf.valid.BatchHeaderValidator;
+import org.aion.mcf.valid.BlockHeaderValidator;
+import org.aion.zero.impl.valid.AionPOWRule;
+import org.aion.zero.impl.valid.EquihashSolutionRule;
+import org.aion.zero.types.A0BlockHeader;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Reports the number of headers per second validated by the {@link BatchHeaderValidator} for
+ * batches of the size requested during sync, at different thread counts.
+ */
+@Ignore
+public class BatchHeaderBenchmark {
+
+    private static final int N = 210;
+    private static final int K = 9;
+
+    private static final int MINED_HEADERS = 8;
+    private static final int BATCH_SIZE = 192;
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 20;
+
+    /** Mines headers with the lowest difficulty, so that their solutions also pass the POW rule. */
+    private static List<A0BlockHeader> mineHeaders() throws Exception {
+        Equihash equihash = new Equihash(N, K);
+        List<A0BlockHeader> headers = new ArrayList<>();
+
+        for (long number = 1; headers.size() < MINED_HEADERS; number++) {
+            A0BlockHeader header =
+                    new A0BlockHeader.Builder()
+                            .withNumber(number)
+                            .withDifficulty(BigInteger.ONE)
+                            .withTimestamp(number)
+                            .build();
+            byte[] nonce = new byte[32];
+            nonce[31] = (byte) number;
+
+            int[][] solutions = equihash.getSolutionsForNonce(header.getMineHash(), nonce);
+            if (solutions.length > 0) {
+                header.setNonce(nonce);
+                header.setSolution(EquiUtils.getMinimalFromIndices(solutions[0], N / (K + 1)));
+                headers.add(header);
+            }
+        }
+        return headers;
+    }
+
+    /** Copies the mined headers into a batch, so that no hash is cached between rounds. */
+    private static List<A0BlockHeader> createBatch(List<A0BlockHeader> mined) {
+        List<A0BlockHeader> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new A0BlockHeader(mined.get(i % mined.size())));
+        }
+        return batch;
+    }
+
+    @Test
+    public void benchmarkThreads() throws Exception {
+        List<A0BlockHeader> mined = mineHeaders();
+        BlockHeaderValidator<A0BlockHeader> rules =
+                new BlockHeaderValidator<>(
+                        Arrays.asList(
+                                new AionPOWRule(),
+                                new EquihashSolutionRule(new OptimizedEquiValidator(N, K))));
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads : new int[] {1, 2, 4, 8, cores}) {
+            BatchHeaderValidator<A0BlockHeader> validator =
+                    new BatchHeaderValidator<>(rules, threads);
+
+            for (int r = 0; r < WARMUP; r++) {
+                assertEquals(-1, validator.validate(createBatch(mined), null));
+            }
+
+            long total = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                List<A0BlockHeader> batch = createBatch(mined);
+                long start = System.nanoTime();
+                validator.validate(batch, null);
+                total += System.nanoTime() - start;
+            }
+            validator.shutdown();
+
+            System.out.format(
+                    "%d threads: %.0f headers/sec%n",
+                    threads, BATCH_SIZE * ROUNDS / (total / 1e9));
+        }
+    }
+}
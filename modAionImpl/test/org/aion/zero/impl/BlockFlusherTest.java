@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/** Tests the background writes of {@link BlockFlusher}. */
+public class BlockFlusherTest {
+
+    @Test
+    public void testWriteCollectedChanges() {
+        AtomicInteger collected = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        BlockFlusher flusher =
+                new BlockFlusher(
+                        () -> {
+                            collected.incrementAndGet();
+                            return written::incrementAndGet;
+                        },
+                        4);
+
+        flusher.blockStored();
+        flusher.awaitFlush();
+        flusher.blockStored();
+        flusher.shutdown();
+
+        assertThat(collected.get()).isEqualTo(2);
+        assertThat(written.get()).isEqualTo(2);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailedWriteIsRethrownWhenAwaited() {
+        BlockFlusher flusher = new BlockFlusher(BlockFlusherTest::failingBatch, 4);
+
+        flusher.blockStored();
+        flusher.awaitFlush();
+    }
+
+    @Test
+    public void testFailedWriteStopsTheImport() {
+        AtomicInteger collected = new AtomicInteger();
+        BlockFlusher flusher =
+                new BlockFlusher(
+                        () -> {
+                            collected.incrementAndGet();
+                            return failingBatch();
+                        },
+                        4);
+
+        flusher.blockStored();
+        try {
+            flusher.awaitFlush();
+        } catch (IllegalStateException e) {
+            // also rethrown by the next block
+        }
+
+        IllegalStateException failure = null;
+        try {
+            flusher.blockStored();
+        } catch (IllegalStateException e) {
+            failure = e;
+        }
+        assertThat(failure).isNotNull();
+        assertThat(failure.getCause().getMessage()).isEqualTo("commit failed");
+
+        // the changes of the following blocks are neither collected nor written
+        flusher.shutdown();
+        assertThat(collected.get()).isEqualTo(1);
+    }
+
+    private static Runnable failingBatch() {
+        return () -> {
+            throw new IllegalStateException("commit failed");
+        };
+    }
+}
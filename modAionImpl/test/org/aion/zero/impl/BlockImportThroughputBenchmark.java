@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.zero.impl.BlockchainTestUtils.createTransfers;
+
+import java.util.List;
+import org.aion.crypto.ECKey;
+import org.aion.mcf.core.ImportResult;
+import org.aion.zero.impl.types.AionBlock;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the block import throughput (in transactions per second) when the world state root is
+ * computed after every transaction against computing it once per block.
+ *
+ * @see org.aion.zero.impl.blockchain.ChainConfiguration#isDeferredStateRoot()
+ */
+public class BlockImportThroughputBenchmark {
+
+    private static final int BLOCKS = 20;
+    private static final int TXS_PER_BLOCK = 400;
+    @Ignore
+    @Test
+    public void testImportThroughput() {
+        double perTxRoot = measureImportThroughput(false);
+        double perBlockRoot = measureImportThroughput(true);
+
+        System.out.println(String.format("per-tx state root:    %10.2f tx/s", perTxRoot));
+        System.out.println(String.format("per-block state root: %10.2f tx/s", perBlockRoot));
+    }
+
+    private static double measureImportThroughput(boolean deferredStateRoot) {
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withDefaultAccounts()
+                        .withValidatorConfiguration("simple")
+                        .withDeferredStateRoot(deferredStateRoot)
+                        .build();
+        StandaloneBlockchain bc = bundle.bc;
+        ECKey senderKey = bundle.privateKeys.get(0);
+
+        long importTime = 0;
+        AionBlock parent = bc.getGenesis();
+        for (int i = 0; i < BLOCKS; i++) {
+            AionBlock block =
+                    bc.createNewBlock(
+                            parent, createTransfers(bc, senderKey, TXS_PER_BLOCK, i), true);
+            assertThat(block.getTransactionsList().size()).isEqualTo(TXS_PER_BLOCK);
+
+            long startTime = System.nanoTime();
+            ImportResult result = bc.tryToConnect(block);
+            importTime += System.nanoTime() - startTime;
+
+            assertThat(result).isEqualTo(ImportResult.IMPORTED_BEST);
+            parent = block;
+        }
+
+        return (BLOCKS * TXS_PER_BLOCK) / (importTime / 1_000_000_000d);
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.aion.base.type.Address;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.HashUtil;
+import org.aion.mcf.core.ImportResult;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.types.AionTxInfo;
+import org.aion.zero.types.AionTransaction;
+import org.junit.Test;
+
+/** Tests that executing the transactions of a block in parallel matches sequential execution. */
+public class BlockchainParallelExecutionTest {
+
+    private static final byte[] ZERO_BYTE = new byte[0];
+
+    private static StandaloneBlockchain.Bundle createBundle(
+            List<ECKey> accounts, boolean parallelExecution) {
+        return new StandaloneBlockchain.Builder()
+                .withDefaultAccounts(accounts)
+                .withValidatorConfiguration("simple")
+                .withParallelExecution(parallelExecution)
+                .build();
+    }
+
+    @Test
+    public void testImportMatchesSequentialImport() {
+        List<ECKey> accounts =
+                BlockchainTestUtils.generateAccounts(StandaloneBlockchain.Builder.INITIAL_ACC_LEN);
+        StandaloneBlockchain source = createBundle(accounts, false).bc;
+
+        List<AionBlock> blocks = new ArrayList<>();
+        AionBlock parent = source.getGenesis();
+        for (int i = 0; i < 5; i++) {
+            AionBlock block =
+                    source.createNewBlock(parent, createTransactions(source, accounts, i), false);
+            assertThat(block.getTransactionsList()).hasSize(11);
+            assertThat(source.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+            blocks.add(block);
+            parent = block;
+        }
+
+        StandaloneBlockchain sequential = createBundle(accounts, false).bc;
+        StandaloneBlockchain parallel = createBundle(accounts, true).bc;
+        for (AionBlock block : blocks) {
+            assertThat(sequential.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+            // the receipt and state roots in the header are checked on import
+            assertThat(parallel.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+
+            assertThat(parallel.getRepository().getRoot())
+                    .isEqualTo(sequential.getRepository().getRoot());
+            assertThat(parallel.getRepository().getRoot()).isEqualTo(block.getStateRoot());
+
+            for (AionTransaction tx : block.getTransactionsList()) {
+                AionTxInfo expected = sequential.getTransactionInfo(tx.getHash());
+                AionTxInfo actual = parallel.getTransactionInfo(tx.getHash());
+                assertThat(actual.getIndex()).isEqualTo(expected.getIndex());
+                assertThat(actual.getReceipt().getEncoded())
+                        .isEqualTo(expected.getReceipt().getEncoded());
+            }
+        }
+
+        // every account ends with the same balance and nonce
+        for (ECKey key : accounts) {
+            Address address = new Address(key.getAddress());
+            assertThat(parallel.getRepository().getBalance(address))
+                    .isEqualTo(sequential.getRepository().getBalance(address));
+            assertThat(parallel.getRepository().getNonce(address))
+                    .isEqualTo(sequential.getRepository().getNonce(address));
+        }
+
+        parallel.close();
+        sequential.close();
+        source.close();
+    }
+
+    @Test
+    public void testCreateBlockMatchesSequentialExecution() {
+        List<ECKey> accounts =
+                BlockchainTestUtils.generateAccounts(StandaloneBlockchain.Builder.INITIAL_ACC_LEN);
+        StandaloneBlockchain sequential = createBundle(accounts, false).bc;
+        StandaloneBlockchain parallel = createBundle(accounts, true).bc;
+
+        AionBlock sequentialParent = sequential.getGenesis();
+        AionBlock parallelParent = parallel.getGenesis();
+        for (int i = 0; i < 5; i++) {
+            List<AionTransaction> txs = createTransactions(sequential, accounts, i);
+            AionBlock expected = sequential.createNewBlock(sequentialParent, txs, false);
+            AionBlock actual = parallel.createNewBlock(parallelParent, txs, false);
+
+            assertThat(actual.getStateRoot()).isEqualTo(expected.getStateRoot());
+            assertThat(actual.getReceiptsRoot()).isEqualTo(expected.getReceiptsRoot());
+            assertThat(actual.getNrgConsumed()).isEqualTo(expected.getNrgConsumed());
+
+            assertThat(sequential.tryToConnect(expected)).isEqualTo(ImportResult.IMPORTED_BEST);
+            assertThat(parallel.tryToConnect(actual)).isEqualTo(ImportResult.IMPORTED_BEST);
+            sequentialParent = expected;
+            parallelParent = actual;
+        }
+
+        parallel.close();
+        sequential.close();
+    }
+
+    /**
+     * Creates transfers that are independent of each other as well as transfers that conflict:
+     * an account spending a value received earlier in the block, two transfers to the same
+     * recipient and a second transfer from the same sender.
+     */
+    private static List<AionTransaction> createTransactions(
+            StandaloneBlockchain bc, List<ECKey> accounts, int round) {
+        Map<ECKey, BigInteger> nonces = new HashMap<>();
+        for (ECKey key : accounts) {
+            nonces.put(key, bc.getRepository().getNonce(new Address(key.getAddress())));
+        }
+
+        List<AionTransaction> transactions = new ArrayList<>();
+
+        // independent transfers to new accounts
+        for (int i = 0; i < 4; i++) {
+            transactions.add(transfer(accounts.get(i), nonces, newAddress(round * 10 + i), 1));
+        }
+
+        // the second account spends the value received from the first
+        Address middle = new Address(accounts.get(5).getAddress());
+        transactions.add(transfer(accounts.get(4), nonces, middle, 1_000));
+        transactions.add(
+                transfer(accounts.get(5), nonces, new Address(accounts.get(6).getAddress()), 500));
+
+        // two transfers to the same recipient
+        Address shared = newAddress(round * 10 + 4);
+        transactions.add(transfer(accounts.get(7), nonces, shared, 2));
+        transactions.add(transfer(accounts.get(8), nonces, shared, 3));
+
+        // a transfer to the sender itself, then a second one from the same sender
+        Address self = new Address(accounts.get(9).getAddress());
+        transactions.add(transfer(accounts.get(9), nonces, self, 4));
+        transactions.add(transfer(accounts.get(9), nonces, newAddress(round * 10 + 5), 5));
+
+        // back to an account that already sent a transfer in this block
+        transactions.add(
+                transfer(accounts.get(6), nonces, new Address(accounts.get(0).getAddress()), 6));
+
+        return transactions;
+    }
+
+    private static Address newAddress(int seed) {
+        return new Address(HashUtil.h256(BigInteger.valueOf(seed).toByteArray()));
+    }
+
+    private static AionTransaction transfer(
+            ECKey key, Map<ECKey, BigInteger> nonces, Address to, long value) {
+        BigInteger nonce = nonces.get(key);
+        AionTransaction tx =
+                new AionTransaction(
+                        nonce.toByteArray(),
+                        to,
+                        BigInteger.valueOf(value).toByteArray(),
+                        ZERO_BYTE,
+                        21000,
+                        1);
+        tx.sign(key);
+        nonces.put(key, nonce.add(BigInteger.ONE));
+        return tx;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.zero.impl.BlockchainTestUtils.createTransfers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.mcf.core.ImportResult;
+import org.aion.zero.impl.types.AionBlock;
+import org.junit.Test;
+
+/** Tests block import with validation ahead of time and background flushing enabled. */
+public class BlockchainPipelinedImportTest {
+
+    private static StandaloneBlockchain.Bundle createBundle(
+            List<ECKey> accounts, boolean pipelinedImport) {
+        return new StandaloneBlockchain.Builder()
+                .withDefaultAccounts(accounts)
+                .withValidatorConfiguration("simple")
+                .withPipelinedImport(pipelinedImport)
+                .build();
+    }
+
+    private static List<ECKey> createAccounts() {
+        List<ECKey> accounts = new ArrayList<>();
+        for (int i = 0; i < StandaloneBlockchain.Builder.INITIAL_ACC_LEN; i++) {
+            accounts.add(ECKeyFac.inst().create());
+        }
+        return accounts;
+    }
+
+    @Test
+    public void testImportMatchesSequentialImport() {
+        List<ECKey> accounts = createAccounts();
+        StandaloneBlockchain.Bundle bundle = createBundle(accounts, false);
+        StandaloneBlockchain source = bundle.bc;
+        ECKey senderKey = bundle.privateKeys.get(0);
+
+        List<AionBlock> blocks = new ArrayList<>();
+        AionBlock parent = source.getGenesis();
+        for (int i = 0; i < 10; i++) {
+            AionBlock block =
+                    source.createNewBlock(parent, createTransfers(source, senderKey, 10, i), false);
+            assertThat(source.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+            blocks.add(block);
+            parent = block;
+        }
+
+        StandaloneBlockchain pipelined = createBundle(accounts, true).bc;
+        pipelined.prevalidate(blocks);
+        for (AionBlock block : blocks) {
+            assertThat(pipelined.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+        }
+
+        assertThat(pipelined.getBestBlock().getHash()).isEqualTo(source.getBestBlock().getHash());
+        assertThat(pipelined.getRepository().getRoot())
+                .isEqualTo(source.getRepository().getRoot());
+
+        pipelined.close();
+        source.close();
+    }
+
+    @Test
+    public void testPrevalidatedBlockWithInvalidBody() {
+        StandaloneBlockchain.Bundle bundle = createBundle(createAccounts(), true);
+        StandaloneBlockchain bc = bundle.bc;
+        ECKey senderKey = bundle.privateKeys.get(0);
+
+        AionBlock block =
+                bc.createNewBlock(bc.getGenesis(), createTransfers(bc, senderKey, 10, 0), false);
+
+        // the body does not match the transaction trie root in the header
+        AionBlock tampered = new AionBlock(block.getHeader(), Collections.emptyList());
+
+        bc.prevalidate(Collections.singletonList(tampered));
+        assertThat(bc.tryToConnect(tampered)).isEqualTo(ImportResult.INVALID_BLOCK);
+
+        // a different instance with the same hash is validated again
+        assertThat(bc.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+
+        bc.close();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.zero.impl.BlockchainTestUtils.createTransfers;
+
+import java.math.BigInteger;
+import java.util.List;
+import org.aion.crypto.ECKey;
+import org.aion.mcf.core.ImportResult;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.AionTransaction;
+import org.junit.Test;
+
+/** Tests the block template that is extended with new pending transactions. */
+public class BlockchainTemplateTest {
+
+    @Test
+    public void testExtendedTemplateMatchesNewBlock() {
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withDefaultAccounts()
+                        .withValidatorConfiguration("simple")
+                        .build();
+        StandaloneBlockchain bc = bundle.bc;
+        List<AionTransaction> txs = createTransfers(bc, bundle.privateKeys.get(0), 10, 0);
+
+        BlockContext template = bc.createBlockTemplate(bc.getBestBlock(), txs.subList(0, 5));
+        assertThat(template.block.getTransactionsList()).hasSize(5);
+
+        BlockContext extended = bc.extendBlockTemplate(txs);
+        assertThat(extended.block.getTransactionsList()).hasSize(10);
+        assertThat(extended.createdAt).isAtLeast(template.createdAt);
+
+        // the earlier version of the template is not modified
+        assertThat(template.block.getTransactionsList()).hasSize(5);
+
+        AionBlock block = bc.createNewBlock(bc.getBestBlock(), txs, false);
+        assertThat(extended.block.getStateRoot()).isEqualTo(block.getStateRoot());
+        assertThat(extended.block.getTxTrieRoot()).isEqualTo(block.getTxTrieRoot());
+        assertThat(extended.block.getReceiptsRoot()).isEqualTo(block.getReceiptsRoot());
+        assertThat(extended.block.getLogBloom()).isEqualTo(block.getLogBloom());
+        assertThat(extended.block.getNrgConsumed()).isEqualTo(block.getNrgConsumed());
+        assertThat(extended.transactionFee)
+                .isEqualTo(template.transactionFee.multiply(BigInteger.TWO));
+
+        assertThat(bc.tryToConnect(extended.block)).isEqualTo(ImportResult.IMPORTED_BEST);
+
+        // the template is not extended after the best block changed
+        assertThat(bc.extendBlockTemplate(txs)).isNull();
+
+        BlockContext rebuilt = bc.createBlockTemplate(bc.getBestBlock(), txs);
+        assertThat(rebuilt.block.getParentHash()).isEqualTo(extended.block.getHash());
+        assertThat(rebuilt.block.getTransactionsList()).isEmpty();
+
+        bc.close();
+    }
+
+    @Test
+    public void testCreateTemplateWithOtherTransactions() {
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withDefaultAccounts()
+                        .withValidatorConfiguration("simple")
+                        .build();
+        StandaloneBlockchain bc = bundle.bc;
+        List<AionTransaction> txs = createTransfers(bc, bundle.privateKeys.get(0), 10, 0);
+        List<AionTransaction> otherTxs = createTransfers(bc, bundle.privateKeys.get(1), 3, 0);
+
+        BlockContext template = bc.createBlockTemplate(bc.getBestBlock(), txs.subList(0, 5));
+        assertThat(template.block.getTransactionsList()).hasSize(5);
+
+        // the template includes the new transactions instead of being returned unchanged
+        BlockContext extended = bc.createBlockTemplate(bc.getBestBlock(), txs);
+        assertThat(extended.block.getTransactionsList()).containsExactlyElementsIn(txs);
+        assertThat(extended.block.getTimestamp()).isAtLeast(template.block.getTimestamp());
+
+        AionBlock block = bc.createNewBlock(bc.getBestBlock(), txs, false);
+        assertThat(extended.block.getStateRoot()).isEqualTo(block.getStateRoot());
+
+        // transactions missing from the pending ones are dropped by rebuilding the template
+        BlockContext rebuilt = bc.createBlockTemplate(bc.getBestBlock(), otherTxs);
+        assertThat(rebuilt.block.getTransactionsList()).containsExactlyElementsIn(otherTxs);
+        assertThat(rebuilt.block.getTimestamp()).isAtLeast(extended.block.getTimestamp());
+
+        block = bc.createNewBlock(bc.getBestBlock(), otherTxs, false);
+        assertThat(rebuilt.block.getStateRoot()).isEqualTo(block.getStateRoot());
+
+        bc.close();
+    }
+}
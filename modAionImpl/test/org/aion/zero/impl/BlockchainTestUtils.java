@@ -98,6 +98,38 @@ public class BlockchainTestUtils {
         }
     }
 
+    /**
+     * Creates value transfers from the given account to new accounts, with consecutive nonces
+     * starting from the current nonce of the account.
+     *
+     * @param bc blockchain providing the current nonce of the account
+     * @param key the sender of the transfers
+     * @param count the number of transfers
+     * @param round distinguishes the recipients of successive calls with the same count
+     */
+    public static List<AionTransaction> createTransfers(
+            StandaloneBlockchain bc, ECKey key, int count, int round) {
+        BigInteger accountNonce = bc.getRepository().getNonce(new Address(key.getAddress()));
+        List<AionTransaction> transactions = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            BigInteger seed = BigInteger.valueOf((long) round * count + i);
+            Address destAddr = new Address(HashUtil.h256(seed.toByteArray()));
+            AionTransaction tx =
+                    new AionTransaction(
+                            accountNonce.toByteArray(),
+                            destAddr,
+                            BigInteger.ONE.toByteArray(),
+                            ZERO_BYTE,
+                            NRG,
+                            NRG_PRICE);
+            tx.sign(key);
+            transactions.add(tx);
+            accountNonce = accountNonce.add(BigInteger.ONE);
+        }
+        return transactions;
+    }
+
     /**
      * @param chain blockchain implementation to be populated
      * @param blocks number of blocks in the chain
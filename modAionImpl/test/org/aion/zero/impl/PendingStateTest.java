@@ -23,14 +23,35 @@
 
 package org.aion.zero.impl;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertEquals;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.aion.base.db.IRepositoryCache;
 import org.aion.base.type.Address;
+import org.aion.base.util.ByteArrayWrapper;
 import org.aion.crypto.ECKey;
+import org.aion.evtmgr.IEvent;
+import org.aion.evtmgr.IEventMgr;
+import org.aion.evtmgr.IHandler;
+import org.aion.evtmgr.impl.evt.EventBlock;
+import org.aion.evtmgr.impl.evt.EventTx;
 import org.aion.mcf.blockchain.TxResponse;
+import org.aion.mcf.core.ImportResult;
+import org.aion.mcf.evt.IListenerBase.PendingTransactionState;
+import org.aion.zero.impl.blockchain.AionPendingStateImpl;
 import org.aion.zero.impl.config.CfgAion;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.AionInternalTx;
 import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxExecSummary;
+import org.aion.zero.types.AionTxReceipt;
 import org.junit.Test;
 
 public class PendingStateTest {
@@ -100,4 +121,275 @@ public class PendingStateTest {
         assertEquals(
                 hub.getPendingState().addPendingTransaction(tx), TxResponse.INVALID_TX_NRG_PRICE);
     }
+
+    private static final long NRG = 21_000L;
+    private static final long NRG_PRICE = 10_000_000_000L;
+    private static final BigInteger FEE = BigInteger.valueOf(NRG * NRG_PRICE);
+
+    private StandaloneBlockchain bc;
+    private EventRecorder events;
+    private AionPendingStateImpl pendingState;
+    private List<ECKey> keys;
+
+    /** Collects the events in place of the event manager. */
+    private static class EventRecorder implements IEventMgr {
+        private final List<IEvent> events = new ArrayList<>();
+
+        @Override
+        public boolean registerEvent(List<IEvent> _evt) {
+            return true;
+        }
+
+        @Override
+        public boolean unregisterEvent(List<IEvent> _evt) {
+            return true;
+        }
+
+        @Override
+        public synchronized boolean newEvents(List<IEvent> _evt) {
+            events.addAll(_evt);
+            return true;
+        }
+
+        @Override
+        public synchronized boolean newEvent(IEvent _evt) {
+            events.add(_evt);
+            return true;
+        }
+
+        @Override
+        public List<IHandler> getHandlerList() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public IHandler getHandler(int _type) {
+            return null;
+        }
+
+        @Override
+        public void shutDown() {}
+
+        @Override
+        public void start() {}
+
+        /** @return the last new best block event */
+        synchronized List<Object> lastBest() {
+            List<Object> args = null;
+            for (IEvent e : events) {
+                if (e.getEventType() == IHandler.TYPE.BLOCK0.getValue()
+                        && e.getCallbackType() == EventBlock.CALLBACK.ONBEST0.getValue()) {
+                    args = e.getFuncArgs();
+                }
+            }
+            return args;
+        }
+
+        /** @return the number of updates to the given state fired for each of the transactions */
+        synchronized Map<ByteArrayWrapper, Integer> updates(PendingTransactionState state) {
+            Map<ByteArrayWrapper, Integer> updates = new HashMap<>();
+            for (IEvent e : events) {
+                if (e.getEventType() == IHandler.TYPE.TX0.getValue()
+                        && e.getCallbackType() == EventTx.CALLBACK.PENDINGTXUPDATE0.getValue()
+                        && (int) e.getFuncArgs().get(1) == state.getValue()) {
+                    AionTxReceipt receipt = (AionTxReceipt) e.getFuncArgs().get(0);
+                    updates.merge(
+                            ByteArrayWrapper.wrap(receipt.getTransaction().getHash()),
+                            1,
+                            Integer::sum);
+                }
+            }
+            return updates;
+        }
+
+        synchronized void clear() {
+            events.clear();
+        }
+    }
+
+    private void setupPendingState(int accounts) {
+        keys = BlockchainTestUtils.generateAccounts(accounts);
+        bc =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts(keys)
+                        .build()
+                        .bc;
+        CfgAion.inst().setGenesis(bc.getGenesis());
+
+        events = new EventRecorder();
+        bc.setEventManager(events);
+        pendingState = AionPendingStateImpl.createForTesting(CfgAion.inst(), bc, bc.getRepository());
+        pendingState.updateBest();
+    }
+
+    private Address address(int account) {
+        return Address.wrap(keys.get(account).getAddress());
+    }
+
+    private AionTransaction tx(int from, long nonce, Address to, BigInteger value) {
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.valueOf(nonce).toByteArray(),
+                        to,
+                        value.toByteArray(),
+                        new byte[0],
+                        NRG,
+                        NRG_PRICE);
+        tx.sign(keys.get(from));
+        return tx;
+    }
+
+    private void addPending(AionTransaction... txs) {
+        for (AionTransaction tx : txs) {
+            assertThat(pendingState.addPendingTransaction(tx)).isEqualTo(TxResponse.SUCCESS);
+        }
+    }
+
+    /** Imports a new best block with the given transactions and returns its event arguments. */
+    private List<Object> importBest(AionTransaction... txs) {
+        AionBlock block = bc.createNewBlock(bc.getBestBlock(), Arrays.asList(txs), false);
+        assertThat(bc.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+
+        List<Object> args = events.lastBest();
+        assertThat(args.get(0)).isEqualTo(block);
+        return args;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void processBest(List<Object> args, List<AionTxExecSummary> summaries) {
+        events.clear();
+        pendingState.processBest((AionBlock) args.get(0), (List) args.get(1), summaries);
+    }
+
+    /** @return the pending nonce and balance of each account */
+    private List<List<BigInteger>> pendingView() {
+        IRepositoryCache<?, ?, ?> repository = pendingState.getRepository();
+        List<List<BigInteger>> view = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            view.add(
+                    Arrays.asList(
+                            pendingState.bestPendingStateNonce(address(i)),
+                            repository.getBalance(address(i))));
+        }
+        return view;
+    }
+
+    /** Rebuilds the pending state from the whole pool and checks it matches the current view. */
+    @SuppressWarnings("unchecked")
+    private void assertRebuildMatches(List<Object> args) {
+        List<List<BigInteger>> view = pendingView();
+        List<AionTransaction> pool = pendingState.getPendingTransactions();
+
+        // without the execution summaries the whole pool is executed again
+        pendingState.processBest((AionBlock) args.get(0), (List) args.get(1));
+
+        assertThat(pendingView()).isEqualTo(view);
+        assertThat(pendingState.getPendingTransactions()).containsExactlyElementsIn(pool);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRebaseWithSealedTransactions() {
+        setupPendingState(5);
+        Address recipient = address(4);
+
+        AionTransaction a0 = tx(0, 0, recipient, BigInteger.ONE);
+        AionTransaction a1 = tx(0, 1, recipient, BigInteger.TWO);
+        AionTransaction b0 = tx(1, 0, recipient, BigInteger.valueOf(3));
+        AionTransaction c0 = tx(2, 0, address(1), BigInteger.valueOf(4));
+        AionTransaction d0 = tx(3, 0, recipient, BigInteger.valueOf(5));
+        addPending(a0, a1, b0, c0, d0);
+
+        // the block seals some of the pool transactions
+        List<Object> args = importBest(a0, b0);
+        processBest(args, (List<AionTxExecSummary>) args.get(2));
+
+        assertThat(pendingState.getPendingTransactions()).containsAllOf(a1, c0, d0);
+        assertThat(pendingState.getPendingTransactions()).containsNoneOf(a0, b0);
+        assertThat(pendingState.bestPendingStateNonce(address(0))).isEqualTo(BigInteger.TWO);
+
+        // the transactions that stay pending do not change status
+        for (AionTransaction tx : Arrays.asList(a1, c0, d0)) {
+            ByteArrayWrapper hash = ByteArrayWrapper.wrap(tx.getHash());
+            assertThat(events.updates(PendingTransactionState.PENDING)).doesNotContainKey(hash);
+            assertThat(events.updates(PendingTransactionState.DROPPED)).doesNotContainKey(hash);
+        }
+
+        assertRebuildMatches(args);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRebaseWithInternalTransfer() {
+        setupPendingState(4);
+        Address contract = address(3);
+
+        // the pending state reads the account receiving the internal transfer
+        AionTransaction c0 = tx(2, 0, address(1), BigInteger.ONE);
+        addPending(c0);
+
+        AionTransaction a0 = tx(0, 0, contract, BigInteger.TEN);
+        List<Object> args = importBest(a0);
+
+        // stands in for the contract forwarding part of the value it received
+        BigInteger forwarded = BigInteger.valueOf(7);
+        IRepositoryCache track = bc.getRepository().startTracking();
+        track.addBalance(contract, forwarded.negate());
+        track.addBalance(address(1), forwarded);
+        track.flush();
+
+        AionTxExecSummary summary = ((List<AionTxExecSummary>) args.get(2)).get(0);
+        AionInternalTx transfer =
+                new AionInternalTx(
+                        a0.getHash(),
+                        1,
+                        0,
+                        new byte[0],
+                        contract,
+                        address(1),
+                        forwarded.toByteArray(),
+                        new byte[0],
+                        "call");
+        List<AionTxExecSummary> summaries =
+                Collections.singletonList(
+                        AionTxExecSummary.builderFor(summary.getReceipt())
+                                .internalTransactions(Collections.singletonList(transfer))
+                                .result(new byte[0])
+                                .build());
+        processBest(args, summaries);
+
+        assertThat(pendingState.getRepository().getBalance(address(1)))
+                .isEqualTo(bc.getRepository().getBalance(address(1)).add(BigInteger.ONE));
+        assertThat(events.updates(PendingTransactionState.PENDING))
+                .doesNotContainKey(ByteArrayWrapper.wrap(c0.getHash()));
+
+        assertRebuildMatches(args);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRebaseDropsInvalidatedTransaction() {
+        setupPendingState(2);
+        Address recipient = address(1);
+        BigInteger balance = bc.getRepository().getBalance(address(0));
+
+        AionTransaction e0 = tx(0, 0, recipient, BigInteger.ONE);
+        // spends everything left after the first transaction
+        AionTransaction e1 =
+                tx(0, 1, recipient, balance.subtract(BigInteger.ONE).subtract(FEE.add(FEE)));
+        addPending(e0, e1);
+
+        // a different transaction with the same nonce leaves too little for the second one
+        List<Object> args = importBest(tx(0, 0, recipient, BigInteger.valueOf(1_000)));
+        processBest(args, (List<AionTxExecSummary>) args.get(2));
+
+        assertThat(pendingState.getPendingTransactions()).containsNoneOf(e0, e1);
+        assertThat(events.updates(PendingTransactionState.DROPPED))
+                .containsEntry(ByteArrayWrapper.wrap(e1.getHash()), 1);
+        assertThat(events.updates(PendingTransactionState.PENDING))
+                .doesNotContainKey(ByteArrayWrapper.wrap(e1.getHash()));
+
+        assertRebuildMatches(args);
+    }
 }
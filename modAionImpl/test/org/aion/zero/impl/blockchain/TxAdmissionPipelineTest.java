@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.blockchain;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.aion.base.type.Address;
+import org.aion.base.type.ITransaction;
+import org.aion.mcf.blockchain.TxResponse;
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+public class TxAdmissionPipelineTest {
+
+    private static final Address SENDER_A = address(1);
+    private static final Address SENDER_B = address(2);
+
+    private final List<ITransaction> committed = Collections.synchronizedList(new ArrayList<>());
+    private TxAdmissionPipeline<ITransaction> pipeline;
+
+    private static Address address(int value) {
+        byte[] bytes = new byte[Address.ADDRESS_LEN];
+        bytes[Address.ADDRESS_LEN - 1] = (byte) value;
+        return Address.wrap(bytes);
+    }
+
+    private static ITransaction tx(Address from, long nonce) {
+        ITransaction tx = mock(ITransaction.class);
+        when(tx.getFrom()).thenReturn(from);
+        when(tx.getNonceBI()).thenReturn(BigInteger.valueOf(nonce));
+        return tx;
+    }
+
+    private TxAdmissionPipeline<ITransaction> create(
+            Function<ITransaction, TxResponse> check,
+            Function<Address, BigInteger> sealedNonce) {
+        pipeline =
+                new TxAdmissionPipeline<>(
+                        1,
+                        check,
+                        sealedNonce,
+                        txs -> {
+                            committed.addAll(txs);
+                            return Collections.nCopies(txs.size(), TxResponse.SUCCESS);
+                        },
+                        LoggerFactory.getLogger(TxAdmissionPipelineTest.class));
+        return pipeline;
+    }
+
+    private static TxResponse get(CompletableFuture<TxResponse> result) throws Exception {
+        return result.get(5, TimeUnit.SECONDS);
+    }
+
+    @After
+    public void tearDown() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    public void testCheckedAndSealedTransactions() throws Exception {
+        ITransaction invalid = tx(SENDER_A, 7);
+        create(tx -> tx == invalid ? TxResponse.INVALID_TX : null, addr -> BigInteger.valueOf(5));
+
+        List<CompletableFuture<TxResponse>> results =
+                pipeline.submit(Arrays.asList(tx(SENDER_A, 3), invalid, tx(SENDER_A, 5)));
+
+        assertThat(get(results.get(0))).isEqualTo(TxResponse.ALREADY_SEALED);
+        assertThat(get(results.get(1))).isEqualTo(TxResponse.INVALID_TX);
+        assertThat(get(results.get(2))).isEqualTo(TxResponse.SUCCESS);
+        assertThat(committed.size()).isEqualTo(1);
+
+        assertThat(pipeline.getTotalLatency().getCount()).isEqualTo(3L);
+        assertThat(pipeline.getCheckLatency().getCount()).isEqualTo(2L);
+        assertThat(pipeline.getCommitLatency().getCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testOrdersSendersByNonce() throws Exception {
+        CountDownLatch laneEntered = new CountDownLatch(1);
+        CountDownLatch laneBusy = new CountDownLatch(1);
+        CountDownLatch checked = new CountDownLatch(3);
+        create(
+                tx -> {
+                    if (tx.getFrom().equals(SENDER_A)) {
+                        checked.countDown();
+                    }
+                    return null;
+                },
+                addr -> {
+                    // hold the lane on the first sender until the others are queued
+                    if (addr.equals(SENDER_B)) {
+                        laneEntered.countDown();
+                        try {
+                            laneBusy.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return BigInteger.ZERO;
+                });
+
+        ITransaction first = tx(SENDER_B, 0);
+        ITransaction tx2 = tx(SENDER_A, 2);
+        ITransaction tx0 = tx(SENDER_A, 0);
+        ITransaction tx1 = tx(SENDER_A, 1);
+        List<CompletableFuture<TxResponse>> results = new ArrayList<>();
+        results.addAll(pipeline.submit(Collections.singletonList(first)));
+        assertThat(laneEntered.await(5, TimeUnit.SECONDS)).isTrue();
+        results.addAll(pipeline.submit(Arrays.asList(tx2, tx0, tx1)));
+
+        assertThat(checked.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        laneBusy.countDown();
+
+        for (CompletableFuture<TxResponse> result : results) {
+            assertThat(get(result)).isEqualTo(TxResponse.SUCCESS);
+        }
+        assertThat(committed).isEqualTo(Arrays.asList(first, tx0, tx1, tx2));
+    }
+
+    @Test
+    public void testCommitFailure() throws Exception {
+        pipeline =
+                new TxAdmissionPipeline<>(
+                        2,
+                        tx -> null,
+                        addr -> BigInteger.ZERO,
+                        txs -> {
+                            throw new IllegalStateException();
+                        },
+                        LoggerFactory.getLogger(TxAdmissionPipelineTest.class));
+
+        CompletableFuture<TxResponse> result =
+                pipeline.submit(Collections.singletonList(tx(SENDER_A, 0))).get(0);
+        assertThat(get(result)).isEqualTo(TxResponse.EXCEPTION);
+    }
+
+    @Test
+    public void testSubmitAfterShutdown() throws Exception {
+        create(tx -> null, addr -> BigInteger.ZERO).shutdown();
+
+        CompletableFuture<TxResponse> result =
+                pipeline.submit(Collections.singletonList(tx(SENDER_A, 0))).get(0);
+        assertThat(get(result)).isEqualTo(TxResponse.EXCEPTION);
+        assertThat(committed.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        assertThat(histogram.getPercentile(0.5)).isEqualTo(0L);
+
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        assertThat(histogram.getCount()).isEqualTo(100L);
+        assertThat(histogram.getPercentile(0.5)).isEqualTo(64L);
+        assertThat(histogram.getPercentile(0.99)).isEqualTo(128L);
+        assertThat(histogram.getMax()).isEqualTo(100L);
+
+        histogram.reset();
+        assertThat(histogram.getCount()).isEqualTo(0L);
+    }
+}
@@ -1255,6 +1255,11 @@ public class CliTest {
         skippedTasks.add("--db-compact");
         parameters.add(new Object[] {input, TaskPriority.DUMP_BLOCKS, skippedTasks});
 
+        input = new String[] {"--db-compact", "--db-migrate-details"};
+        skippedTasks = new HashSet<String>();
+        skippedTasks.add("--db-migrate-details");
+        parameters.add(new Object[] {input, TaskPriority.DB_COMPACT, skippedTasks});
+
         return parameters.toArray();
     }
 
@@ -186,7 +186,9 @@ public class AionRepositoryImplTest {
 
         assertThat(serializedDetails.isPresent()).isEqualTo(true);
 
+        // the storage is kept outside the serialized details
         AionContractDetailsImpl details = new AionContractDetailsImpl(0, 1000000);
+        details.setDataSource(repository.getStorageDatabase());
         details.decode(serializedDetails.get());
         assertThat(details.get(new DataWord(key))).isEqualTo(new DataWord(value));
     }
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.mcf.vm.types.Bloom;
+import org.aion.zero.exceptions.HeaderStructureException;
+import org.aion.zero.impl.core.BloomFilter;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.A0BlockHeader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link LogBloomIndex}. */
+public class LogBloomIndexTest {
+
+    private static final byte[] TOPIC = "topic".getBytes();
+    private static final byte[] OTHER_TOPIC = "other".getBytes();
+    private static final int BLOCKS = 2 * LogBloomIndex.SECTION_SIZE + 10;
+
+    private List<IByteArrayKeyValueDatabase> databases = new ArrayList<>();
+    private AionBlockStore blockStore;
+    private List<Long> matching = new ArrayList<>();
+
+    private IByteArrayKeyValueDatabase open(String name) {
+        IByteArrayKeyValueDatabase db = new MockDB(name);
+        db.open();
+        databases.add(db);
+        return db;
+    }
+
+    @Before
+    public void setup() {
+        blockStore = new AionBlockStore(open("index"), open("block"));
+        for (long number : new long[] {5, 4095, 4096, 8191, 8195}) {
+            matching.add(number);
+        }
+    }
+
+    @After
+    public void teardown() {
+        for (IByteArrayKeyValueDatabase db : databases) {
+            db.close();
+        }
+    }
+
+    /** Stores a chain in which only the matching blocks have the topic in their log bloom. */
+    private void storeChain(LogBloomIndex index) throws HeaderStructureException {
+        byte[] parentHash = null;
+        for (long number = 0; number < BLOCKS; number++) {
+            byte[] bloom =
+                    matching.contains(number)
+                            ? BloomFilter.create(TOPIC).getData()
+                            : BloomFilter.create(OTHER_TOPIC).getData();
+            A0BlockHeader.Builder builder =
+                    new A0BlockHeader.Builder().withNumber(number).withLogsBloom(bloom);
+            if (parentHash != null) {
+                builder.withParentHash(parentHash);
+            }
+            A0BlockHeader header = builder.build();
+            blockStore.saveBlock(
+                    new AionBlock(header, Collections.emptyList()),
+                    BigInteger.valueOf(number),
+                    true);
+            if (index != null) {
+                index.onBestBlock(header);
+            }
+            parentHash = header.getHash();
+        }
+    }
+
+    private static Bloom[][] filter(byte[] topic) {
+        return new Bloom[][] {{BloomFilter.create(topic)}};
+    }
+
+    @Test
+    public void testIncrementalIndex() throws HeaderStructureException {
+        LogBloomIndex index = new LogBloomIndex(open("bloom"), blockStore);
+        storeChain(index);
+
+        assertThat(index.getIndexedBlockCount()).isEqualTo(2L * LogBloomIndex.SECTION_SIZE);
+
+        List<Long> candidates = new ArrayList<>();
+        long unindexed = index.findCandidates(filter(TOPIC), 0, BLOCKS - 1, candidates);
+        assertThat(unindexed).isEqualTo(2L * LogBloomIndex.SECTION_SIZE);
+        assertThat(candidates).containsExactly(5L, 4095L, 4096L, 8191L).inOrder();
+
+        // a range within a section
+        candidates.clear();
+        index.findCandidates(filter(TOPIC), 6, 4095, candidates);
+        assertThat(candidates).containsExactly(4095L);
+
+        // a filter matching any bloom
+        candidates.clear();
+        index.findCandidates(new Bloom[][] {{new Bloom()}}, 100, 199, candidates);
+        assertThat(candidates).hasSize(100);
+    }
+
+    @Test
+    public void testNoMatch() throws HeaderStructureException {
+        LogBloomIndex index = new LogBloomIndex(open("bloom"), blockStore);
+        storeChain(index);
+
+        List<Long> candidates = new ArrayList<>();
+        index.findCandidates(filter("missing".getBytes()), 0, BLOCKS - 1, candidates);
+        assertThat(candidates).isEmpty();
+    }
+
+    @Test
+    public void testBackfill() throws HeaderStructureException {
+        storeChain(null);
+
+        IByteArrayKeyValueDatabase db = open("bloom");
+        LogBloomIndex index = new LogBloomIndex(db, blockStore);
+        assertThat(index.getIndexedBlockCount()).isEqualTo(0L);
+
+        index.backfill();
+        assertThat(index.getIndexedBlockCount()).isEqualTo(2L * LogBloomIndex.SECTION_SIZE);
+
+        // the sections are read back from the database
+        index = new LogBloomIndex(db, blockStore);
+        List<Long> candidates = new ArrayList<>();
+        index.findCandidates(filter(TOPIC), 0, BLOCKS - 1, candidates);
+        assertThat(candidates).containsExactly(5L, 4095L, 4096L, 8191L).inOrder();
+    }
+}
@@ -159,6 +159,81 @@ public class PendingBlockStoreTest {
         assertThat(deleteRecursively(dir)).isTrue();
     }
 
+    @Test
+    public void testConstructor_wSegments() {
+        File dir = new File(System.getProperty("user.dir"), "tmp-" + System.currentTimeMillis());
+
+        Properties props = new Properties();
+        props.setProperty(Props.DB_TYPE, DBVendor.PERSISTENTMOCKDB.toValue());
+        props.setProperty(Props.DB_PATH, dir.getAbsolutePath());
+        props.setProperty(Props.DB_NAME, "pbTest");
+        props.setProperty(Props.ENABLE_PENDING_BLOCK_SEGMENTS, "true");
+
+        PendingBlockStore pb = null;
+        try {
+            pb = new PendingBlockStore(props);
+        } catch (InvalidFilePathException e) {
+            e.printStackTrace();
+        }
+        assertThat(pb.isOpen()).isTrue();
+
+        List<AionBlock> blocks = TestResources.consecutiveBlocks(6);
+        AionBlock first = blocks.get(0);
+
+        // test with valid status block and range extending it
+        assertThat(pb.addStatusBlock(first)).isTrue();
+        assertThat(pb.addBlockRange(blocks.subList(1, 4))).isEqualTo(3);
+        assertThat(pb.addStatusBlock(blocks.get(4))).isTrue();
+        // #index=5 #level=2 #queue=2 #status=2
+        assertThat(pb.getIndexSize()).isEqualTo(5);
+        assertThat(pb.getLevelSize()).isEqualTo(2);
+        assertThat(pb.getQueueSize()).isEqualTo(2);
+        assertThat(pb.getStatusSize()).isEqualTo(2);
+
+        File segments = new File(new File(dir, "pbTest"), "segments");
+        assertThat(segments.list().length).isEqualTo(2);
+
+        // flush and close
+        pb.flush();
+        pb.close();
+        assertThat(pb.isOpen()).isFalse();
+
+        // check persistence of storage
+        try {
+            pb = new PendingBlockStore(props);
+        } catch (InvalidFilePathException e) {
+            e.printStackTrace();
+        }
+        assertThat(pb.isOpen()).isTrue();
+
+        assertThat(pb.getIndexSize()).isEqualTo(5);
+        assertThat(pb.getLevelSize()).isEqualTo(2);
+        assertThat(pb.getQueueSize()).isEqualTo(2);
+
+        Map<ByteArrayWrapper, List<AionBlock>> actual =
+                pb.loadBlockRange(blocks.get(1).getNumber());
+        List<AionBlock> queue = actual.get(ByteArrayWrapper.wrap(blocks.get(1).getHash()));
+        assertThat(queue).isEqualTo(blocks.subList(1, 5));
+
+        // appending after reopening
+        assertThat(pb.addStatusBlock(blocks.get(5))).isTrue();
+        assertThat(pb.getIndexSize()).isEqualTo(6);
+        assertThat(pb.getQueueSize()).isEqualTo(2);
+
+        // dropping the imported blocks keeps the block appended after the import read
+        pb.dropPendingQueues(blocks.get(1).getNumber(), actual.keySet(), actual);
+        assertThat(pb.getIndexSize()).isEqualTo(2);
+        assertThat(pb.getLevelSize()).isEqualTo(2);
+        assertThat(pb.getQueueSize()).isEqualTo(2);
+        assertThat(pb.loadBlockRange(blocks.get(5).getNumber()).values())
+                .containsExactly(blocks.subList(5, 6));
+        assertThat(segments.list().length).isEqualTo(2);
+
+        pb.close();
+
+        assertThat(deleteRecursively(dir)).isTrue();
+    }
+
     @Test
     public void testAddStatusBlock() {
         Properties props = new Properties();
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.sync;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.p2p.P2pConstant.REQUEST_SIZE;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.aion.p2p.INode;
+import org.aion.zero.types.A0BlockHeader;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RequestSchedulerTest {
+
+    private static final int PEER = 1;
+    private static final String DISPLAY_ID = "peer-1";
+
+    private SyncStats stats;
+    private RequestScheduler scheduler;
+
+    @Before
+    public void setup() {
+        stats = new SyncStats(0);
+        scheduler = new RequestScheduler(stats);
+    }
+
+    private static HeadersWrapper headers(int size) {
+        return new HeadersWrapper(
+                PEER, DISPLAY_ID, Collections.nCopies(size, mock(A0BlockHeader.class)));
+    }
+
+    private static INode node(int idHash) {
+        INode node = mock(INode.class);
+        when(node.getIdHash()).thenReturn(idHash);
+        return node;
+    }
+
+    /**
+     * Sends bodies requests one at a time to a peer with the given latency and bandwidth.
+     *
+     * @return the time after the last delivery
+     */
+    private long deliverBodies(int requests, long latency, double bandwidth) {
+        long now = 0;
+        for (int i = 0; i < requests; i++) {
+            HeadersWrapper hw = headers(scheduler.getBodiesRequestSize(PEER));
+            scheduler.bodiesRequested(PEER, DISPLAY_ID, hw, now);
+            now += latency + (long) (hw.getHeaders().size() / bandwidth);
+            scheduler.bodiesReceived(PEER, hw, hw.getHeaders().size(), now);
+        }
+        return now;
+    }
+
+    @Test
+    public void testUnknownPeer() {
+        assertThat(scheduler.getHeadersRequestSize(PEER)).isEqualTo(REQUEST_SIZE);
+        assertThat(scheduler.getBodiesRequestSize(PEER))
+                .isEqualTo(RequestScheduler.MAX_REQUEST_SIZE);
+        assertThat(scheduler.canRequestHeaders(PEER)).isTrue();
+
+        // a single request in flight until measured
+        scheduler.headersRequested(PEER, DISPLAY_ID, 100, REQUEST_SIZE, 0);
+        assertThat(scheduler.canRequestHeaders(PEER)).isFalse();
+
+        scheduler.headersReceived(PEER, 100, REQUEST_SIZE, 200);
+        assertThat(scheduler.canRequestHeaders(PEER)).isTrue();
+        assertThat(stats.getPeerRates()).containsKey(DISPLAY_ID);
+    }
+
+    @Test
+    public void testRequestSizeConvergesToBandwidthDelayProduct() {
+        // 500 ms latency at 100 blocks per second
+        deliverBodies(10, 500, 0.1);
+
+        assertThat(scheduler.getBodiesRequestSize(PEER)).isEqualTo(50);
+
+        PeerRate rate = stats.getPeerRates().get(DISPLAY_ID);
+        assertThat(rate.getLatency()).isWithin(1).of(500);
+        assertThat(rate.getBodiesPerSec()).isWithin(1).of(100);
+        assertThat(rate.getBodiesRequestSize()).isEqualTo(50);
+        // one request transferring while the other travels
+        assertThat(rate.getMaxInFlight()).isEqualTo(2);
+        assertThat(rate.getTimeouts()).isEqualTo(0);
+    }
+
+    @Test
+    public void testFastPeerGetsSeveralRequestsInFlight() {
+        // 500 ms latency at 1000 blocks per second
+        long now = deliverBodies(10, 500, 1);
+        assertThat(scheduler.getBodiesRequestSize(PEER))
+                .isEqualTo(RequestScheduler.MAX_REQUEST_SIZE);
+
+        INode fast = node(PEER);
+        for (int i = 0; i < RequestScheduler.MAX_IN_FLIGHT; i++) {
+            assertThat(scheduler.selectBodiesPeer(Collections.singletonList(fast), PEER, 96))
+                    .isSameAs(fast);
+            scheduler.bodiesRequested(PEER, DISPLAY_ID, headers(96), now);
+        }
+        assertThat(scheduler.getBodiesInFlight(PEER)).hasSize(RequestScheduler.MAX_IN_FLIGHT);
+
+        // the busy peer is skipped
+        assertThat(scheduler.selectBodiesPeer(Collections.singletonList(fast), PEER, 96)).isNull();
+        INode other = node(2);
+        assertThat(scheduler.selectBodiesPeer(Arrays.asList(fast, other), PEER, 96))
+                .isSameAs(other);
+    }
+
+    @Test
+    public void testExpiredBodiesAreReissued() {
+        HeadersWrapper hw = headers(24);
+        scheduler.bodiesRequested(PEER, DISPLAY_ID, hw, 0);
+
+        assertThat(scheduler.expire(RequestScheduler.DEFAULT_TIMEOUT - 1)).isEmpty();
+        assertThat(scheduler.expire(RequestScheduler.DEFAULT_TIMEOUT)).containsExactly(hw);
+        assertThat(scheduler.getBodiesInFlight(PEER)).isEmpty();
+        assertThat(stats.getReissuedRequests(RequestType.BODIES)).isEqualTo(1L);
+        assertThat(stats.getPeerRates().get(DISPLAY_ID).getTimeouts()).isEqualTo(1L);
+
+        // the peer that failed to answer is tried after the others
+        INode slow = node(PEER);
+        INode other = node(2);
+        assertThat(scheduler.selectBodiesPeer(Arrays.asList(slow, other), PEER, 24))
+                .isSameAs(other);
+    }
+
+    @Test
+    public void testExpiredHeadersAreReissuedToOtherPeers() {
+        scheduler.headersRequested(PEER, DISPLAY_ID, 100, REQUEST_SIZE, 0);
+        scheduler.expire(RequestScheduler.DEFAULT_TIMEOUT);
+
+        // not to the same peer or to a peer without the blocks
+        assertThat(scheduler.pollReissuedHeaders(DISPLAY_ID, 90, 1000)).isNull();
+        assertThat(scheduler.pollReissuedHeaders("peer-2", 90, 110)).isNull();
+
+        HeaderQuery query = scheduler.pollReissuedHeaders("peer-2", 90, 1000);
+        assertThat(query.from).isEqualTo(100L);
+        assertThat(query.take).isEqualTo(REQUEST_SIZE);
+        assertThat(stats.getReissuedRequests(RequestType.HEADERS)).isEqualTo(1L);
+
+        // requests behind the local best block are dropped
+        scheduler.headersRequested(PEER, DISPLAY_ID, 100, REQUEST_SIZE, 0);
+        scheduler.expire(2 * RequestScheduler.DEFAULT_TIMEOUT);
+        assertThat(scheduler.pollReissuedHeaders("peer-2", 200, 1000)).isNull();
+        assertThat(scheduler.pollReissuedHeaders("peer-2", 90, 1000)).isNull();
+    }
+
+    @Test
+    public void testHeadersStartAfterRequestedRange() {
+        scheduler.headersRequested(PEER, DISPLAY_ID, 100, REQUEST_SIZE, 0);
+        assertThat(scheduler.getHeadersStart(PEER, 97, 10)).isEqualTo(100L + REQUEST_SIZE);
+
+        // the range stays reserved for a timeout after the delivery
+        scheduler.headersReceived(PEER, 100, REQUEST_SIZE, 200);
+        assertThat(scheduler.getHeadersStart(PEER, 97, 300)).isEqualTo(100L + REQUEST_SIZE);
+        assertThat(scheduler.getHeadersStart(PEER, 97, 200 + RequestScheduler.MAX_TIMEOUT))
+                .isEqualTo(97L);
+
+        // other peers are not affected
+        assertThat(scheduler.getHeadersStart(2, 97, 10)).isEqualTo(97L);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.valid;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aion.mcf.blockchain.valid.BlockHeaderRule;
+import org.aion.mcf.valid.BatchHeaderValidator;
+import org.aion.mcf.valid.BlockHeaderValidator;
+import org.aion.zero.types.A0BlockHeader;
+import org.junit.Test;
+
+public class BatchHeaderValidatorTest {
+
+    /** Rejects the headers with the given numbers and records the validated ones. */
+    private static class NumberRule extends BlockHeaderRule<A0BlockHeader> {
+        private final Set<Long> invalid;
+        private final Set<Long> validated = ConcurrentHashMap.newKeySet();
+
+        NumberRule(Set<Long> invalid) {
+            this.invalid = invalid;
+        }
+
+        @Override
+        public boolean validate(A0BlockHeader header, List<RuleError> errors) {
+            validated.add(header.getNumber());
+            if (header.getNumber() == 13) {
+                throw new NullPointerException();
+            }
+            if (invalid.contains(header.getNumber())) {
+                addError("Invalid number", errors);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private static List<A0BlockHeader> headers(int count) throws Exception {
+        List<A0BlockHeader> headers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            headers.add(new A0BlockHeader.Builder().withNumber(i).build());
+        }
+        return headers;
+    }
+
+    private static BatchHeaderValidator<A0BlockHeader> validator(NumberRule rule, int threads) {
+        return new BatchHeaderValidator<>(
+                new BlockHeaderValidator<>(Collections.singletonList(rule)), threads);
+    }
+
+    @Test
+    public void testAllValid() throws Exception {
+        for (int threads : new int[] {1, 4}) {
+            NumberRule rule = new NumberRule(Collections.emptySet());
+            BatchHeaderValidator<A0BlockHeader> validator = validator(rule, threads);
+
+            assertThat(validator.validate(headers(200), null)).isEqualTo(-1);
+            assertThat(rule.validated.size()).isEqualTo(200);
+            assertThat(validator.validate(new ArrayList<>(), null)).isEqualTo(-1);
+            validator.shutdown();
+        }
+    }
+
+    @Test
+    public void testFirstInvalid() throws Exception {
+        for (int threads : new int[] {1, 4}) {
+            for (int round = 0; round < 20; round++) {
+                NumberRule rule = new NumberRule(Set.of(150L, 40L, 41L, 199L));
+                BatchHeaderValidator<A0BlockHeader> validator = validator(rule, threads);
+
+                assertThat(validator.validate(headers(200), null)).isEqualTo(40);
+                for (long number = 0; number <= 40; number++) {
+                    assertThat(rule.validated.contains(number)).isTrue();
+                }
+                validator.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testExceptionIsInvalid() throws Exception {
+        NumberRule rule = new NumberRule(Collections.emptySet());
+        BatchHeaderValidator<A0BlockHeader> validator = validator(rule, 4);
+
+        assertThat(validator.validate(headers(50), null)).isEqualTo(13);
+        validator.shutdown();
+
+        // validated by the calling thread after shutdown
+        assertThat(validator.validate(headers(10), null)).isEqualTo(-1);
+    }
+}
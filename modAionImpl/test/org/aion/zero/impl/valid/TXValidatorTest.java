@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.zero.impl.valid;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import org.aion.base.type.Address;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.crypto.HashUtil;
+import org.aion.zero.types.AionTransaction;
+import org.junit.Test;
+
+/** Tests for {@link TXValidator} */
+public class TXValidatorTest {
+
+    private static AionTransaction createTransaction(ECKey key, long nonce) {
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.valueOf(nonce).toByteArray(),
+                        new Address(HashUtil.h256(BigInteger.valueOf(nonce).toByteArray())),
+                        BigInteger.ONE.toByteArray(),
+                        new byte[0],
+                        21000,
+                        10_000_000_000L);
+        tx.sign(key);
+        return tx;
+    }
+
+    @Test
+    public void testValidationIsCached() {
+        AionTransaction tx = createTransaction(ECKeyFac.inst().create(), 1);
+        assertThat(TXValidator.isInCache(tx)).isFalse();
+
+        assertThat(TXValidator.isValid(tx)).isTrue();
+        assertThat(TXValidator.isInCache(tx)).isTrue();
+
+        long hits = TXValidator.getCacheStats().hitCount();
+        AionTransaction received = new AionTransaction(tx.getEncoded());
+        assertThat(TXValidator.isValid(received)).isTrue();
+        assertThat(TXValidator.getCacheStats().hitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void testBatchValidationIsCached() {
+        ECKey key = ECKeyFac.inst().create();
+        AionTransaction tx1 = createTransaction(key, 2);
+        AionTransaction tx2 = createTransaction(key, 3);
+
+        boolean[] valid = TXValidator.isValid(Arrays.asList(tx1, tx2));
+        assertThat(valid[0]).isTrue();
+        assertThat(valid[1]).isTrue();
+
+        assertThat(TXValidator.isInCache(tx1)).isTrue();
+        assertThat(TXValidator.isInCache(tx2)).isTrue();
+    }
+}
@@ -34,6 +34,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
@@ -81,6 +83,9 @@ public abstract class ApiAion extends Api {
 
     // delegate concurrency to underlying object
     private static NrgOracle NRG_ORACLE;
+
+    // the time an api worker waits for a submitted transaction to be admitted to the pending state
+    private static final long TX_ADMISSION_TIMEOUT_MS = 10_000;
     protected IAionChain ac; // assumption: blockchainImpl et al. provide concurrency guarantee
 
     // using java.util.concurrent library objects
@@ -114,6 +119,9 @@ public abstract class ApiAion extends Api {
                 Collections.singletonList(new EventTx(EventTx.CALLBACK.PENDINGTXUPDATE0)));
         evtMgr.registerEvent(
                 Collections.singletonList(new EventBlock(EventBlock.CALLBACK.ONBLOCK0)));
+        // read by the energy price oracle
+        evtMgr.registerEvent(
+                Collections.singletonList(new EventBlock(EventBlock.CALLBACK.ONBEST0)));
     }
 
     public final class EpApi implements Runnable {
@@ -137,6 +145,7 @@ public abstract class ApiAion extends Api {
                             for (ITransaction tx : (List<ITransaction>) e.getFuncArgs().get(0)) {
                                 pendingTxReceived(tx);
                             }
+                            updateBlockTemplate((List<AionTransaction>) e.getFuncArgs().get(0));
                         }
                     } else if (e.getEventType() == IHandler.TYPE.POISONPILL.getValue()) {
                         go = false;
@@ -195,7 +204,7 @@ public abstract class ApiAion extends Api {
                 currentTemplate =
                         ac.getAionHub()
                                 .getBlockchain()
-                                .createNewBlockContext(bestBlock, new ArrayList<>(ret), false);
+                                .createBlockTemplate(bestBlock, new ArrayList<>(ret));
             }
         } finally {
             blockTemplateLock.unlock();
@@ -204,6 +213,32 @@ public abstract class ApiAion extends Api {
         return currentTemplate;
     }
 
+    /**
+     * Appends the newly received pending transactions to the current block template, so that the
+     * template does not have to be rebuilt until the best block changes.
+     */
+    protected void updateBlockTemplate(List<AionTransaction> txs) {
+        if (currentTemplate == null) {
+            // no template was requested
+            return;
+        }
+
+        blockTemplateLock.lock();
+        try {
+            BlockContext context = ac.getAionHub().getBlockchain().extendBlockTemplate(txs);
+
+            // the template is rebuilt on the next request if the best block changed
+            if (context != null
+                    && Arrays.equals(
+                            context.block.getParentHash(),
+                            currentTemplate.block.getParentHash())) {
+                currentTemplate = context;
+            }
+        } finally {
+            blockTemplateLock.unlock();
+        }
+    }
+
     public AionBlock getBlockByHash(byte[] hash) {
         return this.ac.getBlockchain().getBlockByHash(hash);
     }
@@ -604,7 +639,14 @@ public abstract class ApiAion extends Api {
 
         AionTransaction tx = new AionTransaction(signedTx);
         try {
-            return (new ApiTxResponse(pendingState.addPendingTransaction(tx), tx.getHash()));
+            return (new ApiTxResponse(
+                    pendingState
+                            .submitPendingTransaction(tx)
+                            .get(TX_ADMISSION_TIMEOUT_MS, TimeUnit.MILLISECONDS),
+                    tx.getHash()));
+        } catch (TimeoutException ex) {
+            LOG.error("<send-transaction timeout: no response from the pending state>");
+            return (new ApiTxResponse(TxResponse.EXCEPTION, ex));
         } catch (Exception ex) {
             LOG.error("<send-transaction exception>", ex);
             return (new ApiTxResponse(TxResponse.EXCEPTION, ex));
@@ -766,6 +808,8 @@ public abstract class ApiAion extends Api {
         }
 
         NRG_ORACLE = new NrgOracle(bc, nrgPriceDefault, nrgPriceMax, oracleStrategy);
+        NRG_ORACLE.start(
+                _ac.getAionHub().getEventMgr().getHandler(IHandler.TYPE.BLOCK0.getValue()));
     }
 
     protected long getRecommendedNrgPrice() {
@@ -806,4 +850,10 @@ public abstract class ApiAion extends Api {
     protected void shutDownES() {
         ees.shutdown();
     }
+
+    protected void shutDownNrgOracle() {
+        if (NRG_ORACLE != null) {
+            NRG_ORACLE.shutDown();
+        }
+    }
 }
@@ -23,18 +23,34 @@
 
 package org.aion.api.server.nrgprice;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
 import org.aion.api.server.nrgprice.strategy.NrgBlockPrice;
+import org.aion.evtmgr.IEvent;
+import org.aion.evtmgr.IHandler;
+import org.aion.evtmgr.impl.callback.EventCallback;
+import org.aion.evtmgr.impl.es.EventExecuteService;
+import org.aion.evtmgr.impl.evt.EventBlock;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.zero.impl.core.IAionBlockchain;
 import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.AionTransaction;
 import org.slf4j.Logger;
 
 /**
  * Serves as the recommendor of nrg prices based on some observation strategy Currently uses the
  * blockPrice strategy
  *
- * <p>This class is thread safe: getNrgPrice() synchronized on object's intrinsic lock.
+ * <p>The advisor is fed on a dedicated thread: first with the most recent blocks of the chain, then
+ * with each block that becomes the best block, as announced by the block events. When the new best
+ * block does not extend the last one fed, e.g. after a reorganization, the advisor is seeded again
+ * from the new best block, so that it only sees the canonical chain. The recommendation is
+ * recomputed after each block and published through a volatile field, so that {@link
+ * #getNrgPrice()} never blocks the api worker threads.
  *
  * @author ali sharif
  */
@@ -50,97 +66,140 @@ public class NrgOracle {
 
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.API.name());
 
-    private long lastBlkProcessed;
-    private long recommendation;
-    private long nrgPriceDefault;
-    private Strategy strategy;
+    // if we don't find any transaction within the last N blocks
+    // (at 10s block time, ~10min), miners should be willing to accept transactions at my
+    // defaultPrice
+    private static final int MAX_BLK_TRAVERSE = 64;
+
+    private volatile long recommendation;
+
+    // accessed only by the oracle thread
+    private byte[] lastBlkHash;
 
-    private INrgPriceAdvisor advisor;
-    private IAionBlockchain blockchain;
+    private final INrgPriceAdvisor<AionBlock, AionTransaction> advisor;
+    private final IAionBlockchain blockchain;
+    private EventExecuteService ees;
 
     public NrgOracle(
             IAionBlockchain blockchain, long nrgPriceDefault, long nrgPriceMax, Strategy strategy) {
+        this(
+                blockchain,
+                nrgPriceDefault,
+                strategy == Strategy.BLK_PRICE
+                        ? new NrgBlockPrice(
+                                nrgPriceDefault, nrgPriceMax, BLKPRICE_WINDOW, BLKPRICE_PERCENTILE)
+                        : null);
+    }
 
-        // get default and max nrg from the config
+    /**
+     * @param advisor the strategy used for the recommendation, or {@code null} to always recommend
+     *     the default price
+     */
+    public NrgOracle(
+            IAionBlockchain blockchain,
+            long nrgPriceDefault,
+            INrgPriceAdvisor<AionBlock, AionTransaction> advisor) {
         this.recommendation = nrgPriceDefault;
-        this.lastBlkProcessed = -1;
-        this.nrgPriceDefault = nrgPriceDefault;
-        this.strategy = strategy;
-
-        switch (strategy) {
-            case BLK_PRICE:
-                this.advisor =
-                        new NrgBlockPrice(
-                                nrgPriceDefault, nrgPriceMax, BLKPRICE_WINDOW, BLKPRICE_PERCENTILE);
-                this.blockchain = blockchain;
-                break;
-            default:
-                this.advisor = null;
-                this.blockchain = null;
-                break;
+        this.lastBlkHash = null;
+        this.advisor = advisor;
+        this.blockchain = advisor == null ? null : blockchain;
+    }
+
+    /**
+     * Starts feeding the advisor on a dedicated thread, unless the default price is always
+     * recommended.
+     *
+     * @param blkHandler the handler of the block events, or {@code null} to only use the blocks on
+     *     the chain at this time
+     */
+    public void start(IHandler blkHandler) {
+        if (advisor == null || ees != null) {
+            return;
+        }
+
+        ees = new EventExecuteService(1_000, "nrg-oracle", Thread.MIN_PRIORITY, LOG);
+        Set<Integer> eventSN = new HashSet<>();
+        int sn = IHandler.TYPE.BLOCK0.getValue() << 8;
+        eventSN.add(sn + EventBlock.CALLBACK.ONBEST0.getValue());
+        ees.setFilter(eventSN);
+        ees.start(new EpOracle());
+
+        // events received while the advisor is seeded wait in the queue
+        if (blkHandler != null) {
+            blkHandler.eventCallback(new EventCallback(ees, LOG));
         }
     }
 
-    // if we don't find any transaction within the last N blocks
-    // (at 10s block time, ~10min), miners should be willing to accept transactions at my
-    // defaultPrice
-    private static final int MAX_BLK_TRAVERSE = 64;
+    public void shutDown() {
+        if (ees != null) {
+            ees.shutdown();
+        }
+    }
 
-    private void buildRecommendation() {
-        long firstBlockNum = blockchain.getBestBlock().getNumber();
-        AionBlock lastBlock = blockchain.getBestBlock();
+    private final class EpOracle implements Runnable {
+        boolean go = true;
 
-        advisor.flush();
+        @Override
+        public void run() {
+            try {
+                seedRecommendation(blockchain.getBestBlock());
+            } catch (Exception e) {
+                LOG.error("<nrg-oracle - unable to read the recent blocks>", e);
+            }
 
-        long blkTraverse = MAX_BLK_TRAVERSE;
+            while (go) {
+                try {
+                    IEvent e = ees.take();
+                    if (e.getEventType() == IHandler.TYPE.BLOCK0.getValue()
+                            && e.getCallbackType() == EventBlock.CALLBACK.ONBEST0.getValue()) {
+                        AionBlock blk = (AionBlock) e.getFuncArgs().get(0);
+                        if (Arrays.equals(blk.getParentHash(), lastBlkHash)) {
+                            processBlock(blk);
+                        } else if (!Arrays.equals(blk.getHash(), lastBlkHash)) {
+                            // a reorganization, or a block older than the ones seeded
+                            seedRecommendation(blk);
+                        }
+                    } else if (e.getEventType() == IHandler.TYPE.POISONPILL.getValue()) {
+                        go = false;
+                    }
+                } catch (Exception e) {
+                    LOG.debug("EpOracle - excepted out", e);
+                }
+            }
+        }
+    }
 
-        while (blkTraverse > 0) {
-            advisor.processBlock(lastBlock);
+    /** Feeds the advisor the blocks of the chain up to the given best block, oldest first. */
+    private void seedRecommendation(AionBlock bestBlock) {
+        AionBlock lastBlock = bestBlock;
+        lastBlkHash = lastBlock.getHash();
 
-            if (!advisor.isHungry()) break;
+        Deque<AionBlock> blocks = new ArrayDeque<>();
+        while (lastBlock != null && blocks.size() < MAX_BLK_TRAVERSE) {
+            blocks.push(lastBlock);
 
             // traverse up the chain to feed the recommendation engine
             long parentBlockNumber = lastBlock.getNumber() - 1;
             if (parentBlockNumber <= 0) break;
 
             lastBlock = blockchain.getBlockByHash(lastBlock.getParentHash());
-            blkTraverse--;
         }
 
+        advisor.flush();
+        while (!blocks.isEmpty()) {
+            advisor.processBlock(blocks.pop());
+        }
         recommendation = advisor.computeRecommendation();
-        lastBlkProcessed = firstBlockNum;
     }
 
-    /**
-     * Lazy nrg price computation strategy: if you need the kernel to recommend nrg price, you
-     * should be prepared to give up some compute-time on the caller thread (most likely api worker
-     * thread).
-     *
-     * <p>Not an important enough computation to be a consumer on the event system.
-     *
-     * <p>If multiple consumers want nrgPrice simultaneously, all will be blocked until the
-     * recommendation is built and cached. Future consumers read the cached value until cache flush.
-     */
-    private static final long CACHE_FLUSH_BLKS = 2;
-
-    public synchronized long getNrgPrice() {
-        switch (strategy) {
-            case BLK_PRICE:
-                try {
-                    long blkNow = blockchain.getBestBlock().getNumber();
-                    if (blkNow - lastBlkProcessed >= CACHE_FLUSH_BLKS) {
-                        buildRecommendation();
-                    }
-                } catch (Exception e) {
-                    LOG.error(
-                            "<nrg-oacle - buildRecommendation() threw. returning default nrg recommendation just-in-case");
-                    return nrgPriceDefault;
-                }
-                break;
-            default:
-                return nrgPriceDefault;
-        }
+    private void processBlock(AionBlock blk) {
+        lastBlkHash = blk.getHash();
+        advisor.processBlock(blk);
+        recommendation = advisor.computeRecommendation();
+    }
 
+    /** Returns the latest recommendation, without blocking. */
+    public long getNrgPrice() {
         return recommendation;
     }
 }
@@ -25,14 +25,10 @@ package org.aion.api.server.nrgprice.strategy;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
 import org.aion.api.server.nrgprice.NrgPriceAdvisor;
 import org.aion.base.type.Address;
-import org.aion.log.AionLoggerFactory;
-import org.aion.log.LogEnum;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.types.AionTransaction;
-import org.slf4j.Logger;
 
 /**
  * Implementation of strategy adopted by Ethereum mainstream clients in early 2018 of using the
@@ -47,6 +43,9 @@ import org.slf4j.Logger;
  * feedback effect where large numbers of people following the recommendation will tend the
  * recommendation upward
  *
+ * <p>The block prices of the window are kept both in arrival order and sorted, so that each block
+ * updates the window in O(windowSize) and the recommendation is read in O(1).
+ *
  * <p>This class is NOT thread-safe Policy: holder class (NrgOracle) should provide any concurrency
  * guarantees it needs to
  *
@@ -54,13 +53,12 @@ import org.slf4j.Logger;
  */
 public class NrgBlockPrice extends NrgPriceAdvisor<AionBlock, AionTransaction> {
 
-    protected static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.API.name());
-    private ArrayBlockingQueue<Long> blkPriceQ;
-
-    // enforce writes through buildRecommendation() to happen serially if multiple objects try to
-    // hold reference
-    // to this object. ie. enforce only one writer to populate the block list at a time
-    // private Object recommendationBuilderLock = new Object();
+    // the block prices in the window, in arrival order (a ring) and in ascending order
+    private final long[] blkPrices;
+    private final long[] sortedBlkPrices;
+    private int size;
+    // the position of the next price in the ring, which holds the oldest price once full
+    private int next;
 
     int percentile;
     int windowSize;
@@ -86,13 +84,14 @@ public class NrgBlockPrice extends NrgPriceAdvisor<AionBlock, AionTransaction> {
                 this.recommendationIndex = windowSize - 1;
         }
 
-        blkPriceQ = new ArrayBlockingQueue<>(windowSize);
+        blkPrices = new long[this.windowSize];
+        sortedBlkPrices = new long[this.windowSize];
     }
 
     @Override
-    // in order to have good recommendations, we try to keep the blkPriceQ full
+    // in order to have good recommendations, we try to keep the window full
     public boolean isHungry() {
-        return (blkPriceQ.remainingCapacity() > 0);
+        return size < windowSize;
     }
 
     // notion of "block price" = lowest gas price for all transactions in a block, exluding miner's
@@ -136,18 +135,35 @@ public class NrgBlockPrice extends NrgPriceAdvisor<AionBlock, AionTransaction> {
         Long blkPrice = getBlkPrice(blk);
 
         if (blkPrice != null) {
-            if (!blkPriceQ.offer(blkPrice)) {
-                blkPriceQ.poll();
-                if (!blkPriceQ.offer(blkPrice))
-                    LOG.error("NrgBlockPrice - problem with backing queue implementation");
-                // alternatively, we could throw here
-            }
+            addBlkPrice(blkPrice);
+        }
+    }
+
+    /** Adds the price to the window, evicting the oldest price when the window is full. */
+    void addBlkPrice(long blkPrice) {
+        if (size == windowSize) {
+            int evicted = Arrays.binarySearch(sortedBlkPrices, 0, size, blkPrices[next]);
+            System.arraycopy(
+                    sortedBlkPrices, evicted + 1, sortedBlkPrices, evicted, size - evicted - 1);
+            size--;
         }
+
+        blkPrices[next] = blkPrice;
+        next = (next + 1) % windowSize;
+
+        int index = Arrays.binarySearch(sortedBlkPrices, 0, size, blkPrice);
+        if (index < 0) {
+            index = -(index + 1);
+        }
+        System.arraycopy(sortedBlkPrices, index, sortedBlkPrices, index + 1, size - index);
+        sortedBlkPrices[index] = blkPrice;
+        size++;
     }
 
     @Override
     public void flush() {
-        blkPriceQ.clear();
+        size = 0;
+        next = 0;
     }
 
     @Override
@@ -158,11 +174,7 @@ public class NrgBlockPrice extends NrgPriceAdvisor<AionBlock, AionTransaction> {
         // transaction with any gasPrice > some minimum threshold they've set internally.
         if (isHungry()) return defaultPrice;
 
-        // let the backing syncronized collection do the locking for us.
-        Long[] blkPrice = blkPriceQ.toArray(new Long[blkPriceQ.size()]);
-        Arrays.sort(blkPrice);
-
-        long recommendation = blkPrice[recommendationIndex];
+        long recommendation = sortedBlkPrices[recommendationIndex];
 
         // clamp the recommendation at the top if necessary
         // no minimum clamp since we can let the price go as low as the network deems profitable
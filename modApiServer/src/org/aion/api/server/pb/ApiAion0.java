@@ -2432,6 +2432,8 @@ public class ApiAion0 extends ApiAion implements IApiAion {
         if (isBlkCacheEnabled) {
             eesBlkCache.shutdown();
         }
+
+        shutDownNrgOracle();
     }
 
     @Override
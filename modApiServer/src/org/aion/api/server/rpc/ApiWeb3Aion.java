@@ -212,7 +212,11 @@ public class ApiWeb3Aion extends ApiAion {
 
         initNrgOracle(_ac);
 
-        if (isFilterEnabled) {
+        // the transaction events are also used to extend the block template served to miners
+        boolean isStratumEnabled =
+                CfgAion.inst().getApi().getRpc().getEnabled().contains("stratum");
+
+        if (isFilterEnabled || isStratumEnabled) {
             evtMgr = this.ac.getAionHub().getEventMgr();
 
             startES("EpWeb3");
@@ -1122,14 +1126,10 @@ public class ApiWeb3Aion extends ApiAion {
             // installation.
 
             toBlock = toBlock == null ? getBestBlock() : toBlock;
-            for (long i = fromBlock.getNumber(); i <= toBlock.getNumber(); i++) {
-                if (filter.isFull()) {
-                    break;
-                }
-                filter.onBlock(
-                        this.ac.getBlockchain().getBlockByNumber(i),
-                        this.ac.getAionHub().getBlockchain());
-            }
+            filter.onBlockRange(
+                    fromBlock.getNumber(),
+                    toBlock.getNumber(),
+                    this.ac.getAionHub().getBlockchain());
         }
 
         return filter;
@@ -2474,6 +2474,8 @@ public class ApiWeb3Aion extends ApiAion {
         obj.put("headerHash", toHexString(bestBlock.block.getHeader().getMineHash()));
         obj.put("blockBaseReward", toHexString(bestBlock.baseBlockReward.toByteArray()));
         obj.put("blockTxFee", toHexString(bestBlock.transactionFee.toByteArray()));
+        // milliseconds since the template was last updated with new transactions
+        obj.put("templateAge", System.currentTimeMillis() - bestBlock.createdAt);
 
         return new RpcMsg(obj);
     }
@@ -2894,5 +2896,6 @@ public class ApiWeb3Aion extends ApiAion {
         if (isFilterEnabled) {
             shutDownES();
         }
+        shutDownNrgOracle();
     }
 }
@@ -132,6 +132,32 @@ public final class FltrLg extends Fltr {
         return true;
     }
 
+    /**
+     * Adds the matching logs of the main chain blocks in the given range, until the filter is full.
+     * Candidate blocks are found through the log bloom index where it covers the range, and the
+     * remaining blocks are checked one by one.
+     */
+    public void onBlockRange(long from, long to, IAionBlockchain chain) {
+        initBlooms();
+        List<Long> candidates = new ArrayList<>();
+        long unindexed =
+                chain.getLogBloomIndex().findCandidates(filterBlooms, from, to, candidates);
+
+        for (long number : candidates) {
+            if (isFull()) {
+                return;
+            }
+            onBlock(chain.getBlockByNumber(number), chain);
+        }
+
+        for (long number = unindexed; number <= to; number++) {
+            if (isFull()) {
+                return;
+            }
+            onBlock(chain.getBlockByNumber(number), chain);
+        }
+    }
+
     // -------------------------------------------------------------------------------
 
     private void initBlooms() {
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.api.server.nrgprice.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+import org.junit.Test;
+
+public class NrgBlockPriceTest {
+
+    private static final long DEFAULT_PRICE = 10_000_000_000L;
+    private static final long MAX_PRICE = 100_000_000_000L;
+
+    @Test
+    public void testHungryUntilWindowFull() {
+        NrgBlockPrice advisor = new NrgBlockPrice(DEFAULT_PRICE, MAX_PRICE, 3, 60);
+
+        advisor.addBlkPrice(5);
+        advisor.addBlkPrice(7);
+        assertTrue(advisor.isHungry());
+        assertEquals(DEFAULT_PRICE, advisor.computeRecommendation());
+
+        advisor.addBlkPrice(6);
+        assertFalse(advisor.isHungry());
+        // index round(3 * 0.6) = 2 of [5, 6, 7]
+        assertEquals(7, advisor.computeRecommendation());
+
+        advisor.flush();
+        assertTrue(advisor.isHungry());
+        assertEquals(DEFAULT_PRICE, advisor.computeRecommendation());
+    }
+
+    @Test
+    public void testRecommendationClampedAtMax() {
+        NrgBlockPrice advisor = new NrgBlockPrice(DEFAULT_PRICE, MAX_PRICE, 1, 60);
+
+        advisor.addBlkPrice(MAX_PRICE + 1);
+        assertEquals(MAX_PRICE, advisor.computeRecommendation());
+    }
+
+    @Test
+    public void testSlidingWindowMatchesSortedWindow() {
+        int windowSize = 20;
+        int percentile = 60;
+        int index = (int) Math.round(windowSize * percentile / 100d);
+
+        NrgBlockPrice advisor = new NrgBlockPrice(DEFAULT_PRICE, MAX_PRICE, windowSize, percentile);
+        Deque<Long> window = new ArrayDeque<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 1_000; i++) {
+            // few distinct values, to have duplicates in the window
+            long price = 1 + random.nextInt(8);
+            advisor.addBlkPrice(price);
+
+            window.addLast(price);
+            if (window.size() > windowSize) {
+                window.removeFirst();
+            }
+
+            if (window.size() == windowSize) {
+                Long[] sorted = window.toArray(new Long[0]);
+                Arrays.sort(sorted);
+                assertEquals((long) sorted[index], advisor.computeRecommendation());
+            } else {
+                assertEquals(DEFAULT_PRICE, advisor.computeRecommendation());
+            }
+        }
+    }
+}
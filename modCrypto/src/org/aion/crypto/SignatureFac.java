@@ -22,6 +22,8 @@
  */
 package org.aion.crypto;
 
+import java.util.List;
+import java.util.stream.IntStream;
 import org.aion.crypto.ecdsa.ECDSASignature;
 import org.aion.crypto.ecdsa.ECKeySecp256k1;
 import org.aion.crypto.ed25519.ECKeyEd25519;
@@ -78,4 +80,32 @@ public class SignatureFac {
                 throw new RuntimeException("ECKey type is not set!");
         }
     }
+
+    /** Batches smaller than this are verified by the calling thread. */
+    private static final int PARALLEL_BATCH_SIZE = 8;
+
+    /**
+     * Verifies a batch of signatures. The result for each signature is the same as calling {@link
+     * #verify(byte[], ISignature)} for it.
+     *
+     * @implNote libsodium does not provide batch verification for Ed25519, so large batches are
+     *     verified concurrently on the common fork-join pool instead.
+     * @param msgs the signed messages
+     * @param sigs the signatures, in the same order as the messages
+     * @return the validity of each signature, in the given order
+     */
+    public static boolean[] verify(List<byte[]> msgs, List<ISignature> sigs) {
+        if (msgs.size() != sigs.size()) {
+            throw new IllegalArgumentException("The number of messages and signatures differ.");
+        }
+
+        boolean[] valid = new boolean[sigs.size()];
+        IntStream indices = IntStream.range(0, sigs.size());
+        if (sigs.size() >= PARALLEL_BATCH_SIZE) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> valid[i] = verify(msgs.get(i), sigs.get(i)));
+
+        return valid;
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.crypto;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.aion.crypto.ed25519.ECKeyEd25519;
+import org.junit.Test;
+
+/** Compares verifying Ed25519 signatures one at a time against verifying them as a batch. */
+public class SignatureBatchBench {
+
+    @Test
+    public void bench() {
+        ECKeyFac.setType(ECKeyFac.ECKeyType.ED25519);
+
+        final ECKey key = new ECKeyEd25519();
+        final int COUNT = 4000;
+
+        List<byte[]> msgs = new ArrayList<>();
+        List<ISignature> sigs = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            byte[] msg = HashUtil.h256(("test" + i).getBytes());
+            msgs.add(msg);
+            sigs.add(key.sign(msg));
+        }
+
+        // warm up
+        for (int i = 0; i < COUNT; i++) {
+            SignatureFac.verify(msgs.get(i), sigs.get(i));
+        }
+        SignatureFac.verify(msgs, sigs);
+
+        long ts = System.nanoTime();
+        for (int i = 0; i < COUNT; i++) {
+            SignatureFac.verify(msgs.get(i), sigs.get(i));
+        }
+        long te = System.nanoTime();
+        System.out.println(" Ed25519 verify: " + COUNT * 1_000_000_000L / (te - ts) + " sigs / s");
+
+        ts = System.nanoTime();
+        SignatureFac.verify(msgs, sigs);
+        te = System.nanoTime();
+        System.out.println(" Ed25519 batch:  " + COUNT * 1_000_000_000L / (te - ts) + " sigs / s");
+    }
+}
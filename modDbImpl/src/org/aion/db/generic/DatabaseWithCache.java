@@ -45,8 +45,10 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.db.IWriteBatch;
 import org.aion.base.util.ByteArrayWrapper;
 import org.aion.db.impl.AbstractDB;
+import org.aion.db.impl.IDatabaseWrapper;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.slf4j.Logger;
@@ -58,7 +60,7 @@ import org.slf4j.Logger;
  * @author Alexandra Roatis
  * @implNote Assumes persistent database. Overwrite method if this is not the case.
  */
-public class DatabaseWithCache implements IByteArrayKeyValueDatabase {
+public class DatabaseWithCache implements IByteArrayKeyValueDatabase, IDatabaseWrapper {
 
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
 
@@ -259,6 +261,17 @@ public class DatabaseWithCache implements IByteArrayKeyValueDatabase {
         return success;
     }
 
+    @Override
+    public void commitTo(IWriteBatch batch) {
+        check();
+
+        if (!enableAutoCommit) {
+            // the cached values are read until the batch is committed
+            batch.putAll(database, dirtyEntries);
+            dirtyEntries.clear();
+        }
+    }
+
     @Override
     public void compact() {
         database.compact();
@@ -304,6 +317,18 @@ public class DatabaseWithCache implements IByteArrayKeyValueDatabase {
         return database.approximateSize();
     }
 
+    @Override
+    public IByteArrayKeyValueDatabase getWrappedDatabase() {
+        return database;
+    }
+
+    @Override
+    public void changesWritten(Map<ByteArrayWrapper, byte[]> changes) {
+        for (Map.Entry<ByteArrayWrapper, byte[]> entry : changes.entrySet()) {
+            this.loadingCache.put(entry.getKey(), Optional.ofNullable(entry.getValue()));
+        }
+    }
+
     @Override
     public String toString() {
         return this.getClass().getSimpleName()
@@ -30,6 +30,8 @@ import java.util.Optional;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.db.IWriteBatch;
+import org.aion.db.impl.IDatabaseWrapper;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.slf4j.Logger;
@@ -42,7 +44,7 @@ import org.slf4j.Logger;
  *
  * @author Alexandra Roatis
  */
-public class LockedDatabase implements IByteArrayKeyValueDatabase {
+public class LockedDatabase implements IByteArrayKeyValueDatabase, IDatabaseWrapper {
 
     /** Unlocked database. */
     protected final IByteArrayKeyValueDatabase database;
@@ -56,6 +58,11 @@ public class LockedDatabase implements IByteArrayKeyValueDatabase {
         this.database = _unlockedDatabase;
     }
 
+    @Override
+    public IByteArrayKeyValueDatabase getWrappedDatabase() {
+        return database;
+    }
+
     @Override
     public String toString() {
         return this.getClass().getSimpleName() + " over " + database.toString();
@@ -105,6 +112,21 @@ public class LockedDatabase implements IByteArrayKeyValueDatabase {
         }
     }
 
+    @Override
+    public void commitTo(IWriteBatch batch) {
+        // acquire write lock
+        lock.writeLock().lock();
+
+        try {
+            database.commitTo(batch);
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            // releasing write lock
+            lock.writeLock().unlock();
+        }
+    }
+
     @Override
     public void compact() {
         // acquire write lock
@@ -28,6 +28,8 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.db.IWriteBatch;
+import org.aion.db.impl.IDatabaseWrapper;
 import org.aion.base.util.Hex;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
@@ -38,7 +40,7 @@ import org.slf4j.Logger;
  *
  * @author Alexandra Roatis
  */
-public class TimedDatabase implements IByteArrayKeyValueDatabase {
+public class TimedDatabase implements IByteArrayKeyValueDatabase, IDatabaseWrapper {
 
     /** Unlocked database. */
     protected final IByteArrayKeyValueDatabase database;
@@ -49,6 +51,11 @@ public class TimedDatabase implements IByteArrayKeyValueDatabase {
         this.database = _database;
     }
 
+    @Override
+    public IByteArrayKeyValueDatabase getWrappedDatabase() {
+        return database;
+    }
+
     @Override
     public String toString() {
         return this.getClass().getSimpleName() + " over " + database.toString();
@@ -86,6 +93,15 @@ public class TimedDatabase implements IByteArrayKeyValueDatabase {
         return cmt;
     }
 
+    @Override
+    public void commitTo(IWriteBatch batch) {
+        long t1 = System.nanoTime();
+        database.commitTo(batch);
+        long t2 = System.nanoTime();
+
+        LOG.debug(database.toString() + " commitTo() in " + (t2 - t1) + " ns.");
+    }
+
     @Override
     public void compact() {
         long t1 = System.nanoTime();
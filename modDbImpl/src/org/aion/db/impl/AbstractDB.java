@@ -188,6 +188,17 @@ public abstract class AbstractDB implements IByteArrayKeyValueDatabase {
     /** Functionality for directly interacting with the heap cache. */
     public abstract boolean commitCache(Map<ByteArrayWrapper, byte[]> cache);
 
+    /**
+     * Returns the storage engine instance this database shares with other databases, which can
+     * commit the changes to all of them in one write.
+     *
+     * @return the shared engine, or {@code null} when the database has its own engine
+     */
+    public ISharedEngine getSharedEngine() {
+        // engines are not shared when not overwritten by the class
+        return null;
+    }
+
     // IKeyValueStore functionality
     // ------------------------------------------------------------------------------------
 
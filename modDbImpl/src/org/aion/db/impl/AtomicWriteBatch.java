@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.db.impl;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.db.IWriteBatch;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.slf4j.Logger;
+
+/**
+ * Collects the changes to several databases and commits them with as few writes as possible.
+ *
+ * <p>The changes to databases stored by the same {@link ISharedEngine} are committed in one
+ * atomic engine write. The changes to each of the other databases are committed in one batch
+ * write per database. The databases are reached through the wrappers implementing {@link
+ * IDatabaseWrapper}.
+ */
+public class AtomicWriteBatch implements IWriteBatch {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    private final Map<IByteArrayKeyValueDatabase, Map<ByteArrayWrapper, byte[]>> changes =
+            new LinkedHashMap<>();
+
+    @Override
+    public void putAll(IByteArrayKeyValueDatabase database, Map<ByteArrayWrapper, byte[]> entries) {
+        if (!entries.isEmpty()) {
+            changes.computeIfAbsent(database, k -> new HashMap<>()).putAll(entries);
+        }
+    }
+
+    /** Adds a change to the given database, where a {@code null} value deletes the key. */
+    public void put(IByteArrayKeyValueDatabase database, byte[] key, byte[] value) {
+        AbstractDB.check(key);
+        changes.computeIfAbsent(database, k -> new HashMap<>())
+                .put(ByteArrayWrapper.wrap(key), value);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /** @return the number of databases changed by the batch */
+    public int size() {
+        return changes.size();
+    }
+
+    @Override
+    public boolean commit() {
+        try {
+            boolean success = true;
+
+            Map<ISharedEngine, Map<AbstractDB, Map<ByteArrayWrapper, byte[]>>> engines =
+                    new LinkedHashMap<>();
+            Map<IByteArrayKeyValueDatabase, Map<ByteArrayWrapper, byte[]>> others =
+                    new LinkedHashMap<>();
+            for (Map.Entry<IByteArrayKeyValueDatabase, Map<ByteArrayWrapper, byte[]>> e :
+                    changes.entrySet()) {
+                AbstractDB store = unwrap(e.getKey());
+                ISharedEngine engine = store != null ? store.getSharedEngine() : null;
+
+                if (engine != null) {
+                    engines.computeIfAbsent(engine, k -> new LinkedHashMap<>())
+                            .computeIfAbsent(store, k -> new HashMap<>())
+                            .putAll(e.getValue());
+                } else {
+                    others.put(e.getKey(), e.getValue());
+                }
+            }
+
+            if (!engines.isEmpty() && !others.isEmpty()) {
+                LOG.warn(
+                        "The changes to {} are not written atomically with the shared engine.",
+                        others.keySet());
+            }
+
+            for (Map.Entry<ISharedEngine, Map<AbstractDB, Map<ByteArrayWrapper, byte[]>>> e :
+                    engines.entrySet()) {
+                success &= commit(e.getKey(), e.getValue());
+            }
+            for (Map.Entry<IByteArrayKeyValueDatabase, Map<ByteArrayWrapper, byte[]>> e :
+                    others.entrySet()) {
+                success &= commit(e.getKey(), e.getValue());
+            }
+            return success;
+        } finally {
+            changes.clear();
+        }
+    }
+
+    /**
+     * Finds the database of the vendor under the locking, caching and timing wrappers, which can
+     * join the write of its shared engine.
+     *
+     * @return the database of the vendor, or {@code null} if it cannot be reached
+     */
+    private static AbstractDB unwrap(IByteArrayKeyValueDatabase database) {
+        while (database instanceof IDatabaseWrapper) {
+            database = ((IDatabaseWrapper) database).getWrappedDatabase();
+        }
+        return database instanceof AbstractDB ? (AbstractDB) database : null;
+    }
+
+    private boolean commit(
+            ISharedEngine engine, Map<AbstractDB, Map<ByteArrayWrapper, byte[]>> stores) {
+        boolean success;
+        try {
+            success = engine.commitCaches(stores);
+        } catch (RuntimeException e) {
+            LOG.error("Unable to commit the changes to " + stores.keySet() + ".", e);
+            return false;
+        }
+
+        if (success) {
+            // the wrappers skipped by the write update their caches
+            for (Map.Entry<IByteArrayKeyValueDatabase, Map<ByteArrayWrapper, byte[]>> e :
+                    changes.entrySet()) {
+                IByteArrayKeyValueDatabase database = e.getKey();
+                if (stores.containsKey(unwrap(database))) {
+                    while (database instanceof IDatabaseWrapper) {
+                        ((IDatabaseWrapper) database).changesWritten(e.getValue());
+                        database = ((IDatabaseWrapper) database).getWrappedDatabase();
+                    }
+                }
+            }
+        }
+        return success;
+    }
+
+    private static boolean commit(
+            IByteArrayKeyValueDatabase database, Map<ByteArrayWrapper, byte[]> entries) {
+        try {
+            if (database instanceof AbstractDB) {
+                return ((AbstractDB) database).commitCache(entries);
+            }
+
+            Map<byte[], byte[]> batch = new HashMap<>();
+            for (Map.Entry<ByteArrayWrapper, byte[]> e : entries.entrySet()) {
+                batch.put(e.getKey().getData(), e.getValue());
+            }
+            database.putBatch(batch);
+            return true;
+        } catch (RuntimeException e) {
+            // the other databases are still written
+            LOG.error("Unable to commit the changes to " + database + ".", e);
+            return false;
+        }
+    }
+}
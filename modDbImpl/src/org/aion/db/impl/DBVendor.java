@@ -37,6 +37,7 @@ package org.aion.db.impl;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import org.aion.db.impl.rocksdb.RocksDBColumnFamily;
 import org.aion.db.impl.rocksdb.RocksDBWrapper;
 
 // @ThreadSafe
@@ -48,6 +49,8 @@ public enum DBVendor {
     LEVELDB("leveldb", true), //
     /** Using an instance of {@link RocksDBWrapper}. */
     ROCKSDB("rocksdb", true),
+    /** Using an instance of {@link RocksDBColumnFamily}. */
+    ROCKSDB_SHARED("rocksdbshared", true),
     /** Using an instance of {@link org.aion.db.impl.h2.H2MVMap}. */
     H2("h2", true), //
     /** Using an instance of {@link org.aion.db.impl.mockdb.MockDB}. */
@@ -65,7 +68,7 @@ public enum DBVendor {
 
     /* map implemented using concurrent hash map */
     private static final List<DBVendor> driverImplementations =
-            List.of(LEVELDB, ROCKSDB, H2, MOCKDB);
+            List.of(LEVELDB, ROCKSDB, ROCKSDB_SHARED, H2, MOCKDB);
 
     private final String value;
     private final boolean persistence;
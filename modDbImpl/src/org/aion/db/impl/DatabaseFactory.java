@@ -34,6 +34,7 @@ import org.aion.db.impl.leveldb.LevelDB;
 import org.aion.db.impl.leveldb.LevelDBConstants;
 import org.aion.db.impl.mockdb.MockDB;
 import org.aion.db.impl.mockdb.PersistentMockDB;
+import org.aion.db.impl.rocksdb.RocksDBColumnFamily;
 import org.aion.db.impl.rocksdb.RocksDBConstants;
 import org.aion.db.impl.rocksdb.RocksDBWrapper;
 import org.aion.log.AionLoggerFactory;
@@ -74,6 +75,8 @@ public abstract class DatabaseFactory {
 
         public static final String WRITE_BUFFER_SIZE = "write_buffer_size";
         public static final String READ_BUFFER_SIZE = "read_buffer_size";
+
+        public static final String ENABLE_PENDING_BLOCK_SEGMENTS = "enable_pending_block_segments";
     }
 
     public static IByteArrayKeyValueDatabase connect(Properties info) {
@@ -124,7 +127,9 @@ public abstract class DatabaseFactory {
             return new LockedDatabase(connectWithCache(info));
         } else {
             DBVendor vendor = DBVendor.fromString(info.getProperty(Props.DB_TYPE));
-            if (vendor == DBVendor.LEVELDB || vendor == DBVendor.ROCKSDB) {
+            if (vendor == DBVendor.LEVELDB
+                    || vendor == DBVendor.ROCKSDB
+                    || vendor == DBVendor.ROCKSDB_SHARED) {
                 return new SpecialLockedDatabase(connectBasic(info));
             } else {
                 return new LockedDatabase(connectBasic(info));
@@ -210,6 +215,21 @@ public abstract class DatabaseFactory {
                             getInt(info, Props.READ_BUFFER_SIZE, RocksDBConstants.READ_BUFFER_SIZE),
                             getInt(info, Props.DB_CACHE_SIZE, RocksDBConstants.CACHE_SIZE));
                 }
+            case ROCKSDB_SHARED:
+                {
+                    return new RocksDBColumnFamily(
+                            dbName,
+                            dbPath,
+                            enableDbCache,
+                            enableDbCompression,
+                            getInt(info, Props.MAX_FD_ALLOC, RocksDBConstants.MAX_OPEN_FILES),
+                            getInt(info, Props.BLOCK_SIZE, RocksDBConstants.BLOCK_SIZE),
+                            getInt(
+                                    info,
+                                    Props.WRITE_BUFFER_SIZE,
+                                    RocksDBConstants.WRITE_BUFFER_SIZE),
+                            getInt(info, Props.DB_CACHE_SIZE, RocksDBConstants.CACHE_SIZE));
+                }
             case H2:
                 {
                     return new H2MVMap(dbName, dbPath, enableDbCache, enableDbCompression);
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.db.impl;
+
+import java.util.Map;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.util.ByteArrayWrapper;
+
+/**
+ * A database adding functionality, such as locking or caching, on top of another database to which
+ * it forwards the changes. Allows {@link AtomicWriteBatch} to reach the database of the vendor and
+ * commit its changes together with other databases of a {@link ISharedEngine}.
+ */
+public interface IDatabaseWrapper {
+
+    /** @return the database the changes are forwarded to */
+    IByteArrayKeyValueDatabase getWrappedDatabase();
+
+    /**
+     * Called after the given changes were written to the wrapped database without going through
+     * this database, so that any state it keeps in memory reflects them.
+     *
+     * @param changes the written key-value pairs, where a {@code null} value is a deletion
+     */
+    default void changesWritten(Map<ByteArrayWrapper, byte[]> changes) {
+        // nothing is kept in memory when not overwritten by the class
+    }
+}
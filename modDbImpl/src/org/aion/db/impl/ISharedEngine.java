@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.db.impl;
+
+import java.util.Map;
+import org.aion.base.util.ByteArrayWrapper;
+
+/** A storage engine instance holding several databases, which can write to all of them at once. */
+public interface ISharedEngine {
+
+    /**
+     * Writes the given changes to databases stored by this engine in one atomic write.
+     *
+     * @param changes the changed key-value pairs of each database, where a {@code null} value
+     *     deletes the key
+     * @return {@code true} if the changes were written, {@code false} if none of them were
+     */
+    boolean commitCaches(Map<AbstractDB, Map<ByteArrayWrapper, byte[]>> changes);
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.db.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.db.IWriteBatch;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.db.generic.CacheIteratorWrapper;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.slf4j.Logger;
+
+/**
+ * Keeps the changes to a database in memory until they are committed, so that the changes made to
+ * several databases can be made permanent together with {@link #commitTo(IWriteBatch)}.
+ *
+ * <p>The buffered changes are visible to reads. The changes moved to a batch remain visible until
+ * the next commit of new changes, because they may be read before the batch writes them to the
+ * database.
+ */
+public class WriteBufferedDatabase implements IByteArrayKeyValueDatabase {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    /** Underlying database, which writes the changes directly. */
+    private final IByteArrayKeyValueDatabase database;
+
+    /** The changes made since the previous commit, where a {@code null} value is a deletion. */
+    private Map<ByteArrayWrapper, byte[]> dirtyEntries = new HashMap<>();
+    /** The changes moved to a batch by the previous commit. */
+    private Map<ByteArrayWrapper, byte[]> committedEntries = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public WriteBufferedDatabase(IByteArrayKeyValueDatabase database) {
+        this.database = database;
+    }
+
+    /** @return the number of changes waiting to be committed */
+    public int getBufferedCount() {
+        lock.readLock().lock();
+        try {
+            return dirtyEntries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + " over " + database.toString();
+    }
+
+    // IDatabase functionality
+    // -----------------------------------------------------------------------------------------
+
+    @Override
+    public boolean open() {
+        return database.open();
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (database.isOpen() && !dirtyEntries.isEmpty()) {
+                // the changes are not dropped on shutdown
+                LOG.debug("Committing {} buffered changes to {}.", dirtyEntries.size(), database);
+                commitInternal();
+            }
+            dirtyEntries.clear();
+            committedEntries.clear();
+            database.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean commit() {
+        lock.writeLock().lock();
+        try {
+            check();
+            return commitInternal();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void commitTo(IWriteBatch batch) {
+        lock.writeLock().lock();
+        try {
+            check();
+            if (dirtyEntries.isEmpty()) {
+                // the previous batch may not have been written yet
+                return;
+            }
+
+            // the entries are read from memory until the batch is committed
+            batch.putAll(database, dirtyEntries);
+            committedEntries = dirtyEntries;
+            dirtyEntries = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean commitInternal() {
+        if (dirtyEntries.isEmpty()) {
+            // the previous batch may not have been written yet
+            return true;
+        }
+
+        AtomicWriteBatch batch = new AtomicWriteBatch();
+        batch.putAll(database, dirtyEntries);
+        boolean success = batch.commit();
+
+        dirtyEntries.clear();
+        committedEntries.clear();
+        return success;
+    }
+
+    @Override
+    public void compact() {
+        database.compact();
+    }
+
+    @Override
+    public void drop() {
+        lock.writeLock().lock();
+        try {
+            dirtyEntries.clear();
+            committedEntries.clear();
+            database.drop();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<String> getName() {
+        return database.getName();
+    }
+
+    @Override
+    public Optional<String> getPath() {
+        return database.getPath();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return database.isOpen();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return database.isClosed();
+    }
+
+    @Override
+    public boolean isLocked() {
+        return database.isLocked();
+    }
+
+    @Override
+    public boolean isAutoCommitEnabled() {
+        // the changes are kept until committed
+        return false;
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return database.isPersistent();
+    }
+
+    @Override
+    public boolean isCreatedOnDisk() {
+        return database.isCreatedOnDisk();
+    }
+
+    @Override
+    public long approximateSize() {
+        return database.approximateSize();
+    }
+
+    // IKeyValueStore functionality
+    // ------------------------------------------------------------------------------------
+
+    @Override
+    public boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            if (dirtyEntries.isEmpty() && committedEntries.isEmpty()) {
+                return database.isEmpty();
+            }
+            return !keys().hasNext();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Iterator<byte[]> keys() {
+        lock.readLock().lock();
+        try {
+            check();
+
+            Map<ByteArrayWrapper, byte[]> changes = new HashMap<>(committedEntries);
+            changes.putAll(dirtyEntries);
+            return new CacheIteratorWrapper(database.keys(), changes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<byte[]> get(byte[] k) {
+        AbstractDB.check(k);
+
+        lock.readLock().lock();
+        try {
+            check();
+
+            ByteArrayWrapper key = ByteArrayWrapper.wrap(k);
+            if (dirtyEntries.containsKey(key)) {
+                return Optional.ofNullable(dirtyEntries.get(key));
+            }
+            if (committedEntries.containsKey(key)) {
+                return Optional.ofNullable(committedEntries.get(key));
+            }
+            return database.get(k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(byte[] k, byte[] v) {
+        AbstractDB.check(k);
+
+        lock.writeLock().lock();
+        try {
+            check();
+            dirtyEntries.put(ByteArrayWrapper.wrap(k), v);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(byte[] k) {
+        put(k, null);
+    }
+
+    @Override
+    public void putBatch(Map<byte[], byte[]> inputMap) {
+        AbstractDB.check(inputMap.keySet());
+
+        lock.writeLock().lock();
+        try {
+            check();
+            for (Map.Entry<byte[], byte[]> entry : inputMap.entrySet()) {
+                dirtyEntries.put(ByteArrayWrapper.wrap(entry.getKey()), entry.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void putToBatch(byte[] k, byte[] v) {
+        put(k, v);
+    }
+
+    @Override
+    public void commitBatch() {
+        // the batch is kept with the other changes until the next commit
+    }
+
+    @Override
+    public void deleteBatch(Collection<byte[]> keys) {
+        AbstractDB.check(keys);
+
+        lock.writeLock().lock();
+        try {
+            check();
+            for (byte[] k : keys) {
+                dirtyEntries.put(ByteArrayWrapper.wrap(k), null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void check() {
+        database.check();
+    }
+}
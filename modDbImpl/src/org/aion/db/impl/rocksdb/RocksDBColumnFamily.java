@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.db.impl.rocksdb;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.db.impl.AbstractDB;
+import org.aion.db.impl.ISharedEngine;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.Options;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+
+/**
+ * A database stored as a column family of a {@link RocksDBSharedInstance}, which is shared by all
+ * the databases opened under the same path.
+ */
+public class RocksDBColumnFamily extends AbstractDB {
+
+    /** the directory of the shared instance, under the database path */
+    public static final String SHARED_DIRECTORY = "rocksdb";
+
+    private final int maxOpenFiles;
+    private final int blockSize;
+    private final int writeBufferSize;
+    private final int cacheSize;
+
+    private RocksDBSharedInstance instance;
+
+    public RocksDBColumnFamily(
+            String name,
+            String path,
+            boolean enableDbCache,
+            boolean enableDbCompression,
+            int maxOpenFiles,
+            int blockSize,
+            int writeBufferSize,
+            int cacheSize) {
+        super(name, path, enableDbCache, enableDbCompression);
+        // the column families share the directory of the instance
+        this.path = new File(path, SHARED_DIRECTORY).getAbsolutePath();
+
+        this.maxOpenFiles = maxOpenFiles;
+        this.blockSize = blockSize;
+        this.writeBufferSize = writeBufferSize;
+        this.cacheSize = cacheSize;
+
+        RocksDB.loadLibrary();
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + ":" + propertiesInfo();
+    }
+
+    private RocksDB db() {
+        return instance.getDatabase();
+    }
+
+    private ColumnFamilyHandle handle() {
+        return instance.getHandle(name);
+    }
+
+    // IDatabase Functionality
+    @Override
+    public boolean open() {
+        if (isOpen()) {
+            return true;
+        }
+
+        LOG.debug("Initialising RockDB column family {}", this.toString());
+
+        try {
+            instance =
+                    RocksDBSharedInstance.acquire(
+                            path,
+                            name,
+                            enableDbCompression,
+                            maxOpenFiles,
+                            blockSize,
+                            writeBufferSize,
+                            cacheSize);
+        } catch (RocksDBException e) {
+            if (e.getMessage() != null && e.getMessage().contains("lock")) {
+                LOG.error(
+                        "Failed to open the database "
+                                + this.toString()
+                                + "\nCheck if you have two instances running on the same database."
+                                + "\nFailure due to: ",
+                        e);
+            } else {
+                LOG.error("Failed to open the database " + this.toString() + " due to: ", e);
+            }
+        }
+
+        return isOpen();
+    }
+
+    @Override
+    public void close() {
+        // do nothing if already closed
+        if (instance == null) {
+            return;
+        }
+
+        LOG.info("Closing database " + this.toString());
+
+        instance.release(name);
+        instance = null;
+    }
+
+    @Override
+    public void drop() {
+        check();
+
+        try {
+            instance.clear(name);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to drop " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    public void compact() {
+        LOG.info("Compacting " + this.toString() + ".");
+        try {
+            db().compactRange(handle());
+        } catch (RocksDBException e) {
+            LOG.error("Cannot compact data.");
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return instance != null;
+    }
+
+    @Override
+    public ISharedEngine getSharedEngine() {
+        return instance;
+    }
+
+    @Override
+    public boolean isCreatedOnDisk() {
+        File dir = new File(path);
+        if (!new File(dir, "CURRENT").exists()) {
+            return false;
+        }
+        try (Options options = new Options()) {
+            byte[] key = name.getBytes();
+            for (byte[] existing : RocksDB.listColumnFamilies(options, path)) {
+                if (Arrays.equals(existing, key)) {
+                    return true;
+                }
+            }
+        } catch (RocksDBException e) {
+            LOG.error("Unable to list the column families of " + this.toString() + ".", e);
+        }
+        return false;
+    }
+
+    @Override
+    public long approximateSize() {
+        check();
+
+        try {
+            return db().getLongProperty(handle(), "rocksdb.total-sst-files-size")
+                    + db().getLongProperty(handle(), "rocksdb.cur-size-all-mem-tables");
+        } catch (RocksDBException e) {
+            LOG.error("Unable to compute the size of " + this.toString() + ".", e);
+            return -1L;
+        }
+    }
+
+    // IKetValueStore functionality
+
+    @Override
+    public boolean isEmpty() {
+        check();
+
+        try (RocksIterator itr = db().newIterator(handle())) {
+            itr.seekToFirst();
+
+            // check if there is at least one valid item
+            return !itr.isValid();
+        } catch (Exception e) {
+            LOG.error("Unable to extract information from database " + this.toString() + ".", e);
+        }
+
+        return true;
+    }
+
+    @Override
+    public Iterator<byte[]> keys() {
+        check();
+
+        try {
+            ReadOptions readOptions = new ReadOptions();
+            readOptions.setSnapshot(db().getSnapshot());
+            return new RocksDBWrapper.RocksDBIteratorWrapper(
+                    readOptions, db().newIterator(handle(), readOptions));
+        } catch (Exception e) {
+            LOG.error("Unable to extract keys from database " + this.toString() + ".", e);
+        }
+
+        // empty when retrieval failed
+        return Collections.emptyIterator();
+    }
+
+    @Override
+    protected byte[] getInternal(byte[] k) {
+        try {
+            return db().get(handle(), k);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to get key " + Arrays.toString(k) + ". " + e);
+        }
+
+        return null;
+    }
+
+    // AbstractDB functionality
+
+    @Override
+    public void put(byte[] k, byte[] v) {
+        check(k);
+
+        check();
+
+        try {
+            if (v == null) {
+                db().delete(handle(), instance.getWriteOptions(), k);
+            } else {
+                db().put(handle(), instance.getWriteOptions(), k, v);
+            }
+        } catch (RocksDBException e) {
+            LOG.error("Unable to put / delete key " + Arrays.toString(k) + ". " + e);
+        }
+    }
+
+    @Override
+    public void delete(byte[] k) {
+        check(k);
+
+        check();
+        try {
+            db().delete(handle(), instance.getWriteOptions(), k);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to delete key " + Arrays.toString(k) + ". " + e);
+        }
+    }
+
+    private WriteBatch batch = null;
+
+    @Override
+    public void putToBatch(byte[] key, byte[] value) {
+        check(key);
+
+        check();
+
+        if (batch == null) {
+            batch = new WriteBatch();
+        }
+
+        try {
+            if (value == null) {
+                batch.delete(handle(), key);
+            } else {
+                batch.put(handle(), key, value);
+            }
+        } catch (RocksDBException e) {
+            LOG.error("Unable to add to batch operation on " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    public void commitBatch() {
+        if (batch != null) {
+            try {
+                db().write(instance.getWriteOptions(), batch);
+            } catch (RocksDBException e) {
+                LOG.error(
+                        "Unable to execute batch put/update operation on " + this.toString() + ".",
+                        e);
+            }
+            batch.close();
+            batch = null;
+        }
+    }
+
+    @Override
+    public void putBatch(Map<byte[], byte[]> inputMap) {
+        check(inputMap.keySet());
+
+        check();
+
+        // try-with-resources will automatically close the batch object
+        try (WriteBatch batch = new WriteBatch()) {
+            // add put and delete operations to batch
+            for (Map.Entry<byte[], byte[]> e : inputMap.entrySet()) {
+                byte[] key = e.getKey();
+                byte[] value = e.getValue();
+
+                if (value == null) {
+                    batch.delete(handle(), key);
+                } else {
+                    batch.put(handle(), key, value);
+                }
+            }
+
+            // bulk atomic update
+            db().write(instance.getWriteOptions(), batch);
+        } catch (RocksDBException e) {
+            LOG.error(
+                    "Unable to execute batch put/update operation on " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    public void deleteBatch(Collection<byte[]> keys) {
+        check(keys);
+
+        check();
+
+        try (WriteBatch batch = new WriteBatch()) {
+            // add delete operations to batch
+            for (byte[] k : keys) {
+                batch.delete(handle(), k);
+            }
+
+            // bulk atomic update
+            db().write(instance.getWriteOptions(), batch);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to execute batch delete operation on " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    public boolean commitCache(Map<ByteArrayWrapper, byte[]> cache) {
+        boolean success = false;
+
+        check();
+
+        // try-with-resources will automatically close to batch object
+        try (WriteBatch batch = new WriteBatch()) {
+            for (Map.Entry<ByteArrayWrapper, byte[]> e : cache.entrySet()) {
+                if (e.getValue() == null) {
+                    batch.delete(handle(), e.getKey().getData());
+                } else {
+                    batch.put(handle(), e.getKey().getData(), e.getValue());
+                }
+            }
+
+            // bulk automatic update
+            db().write(instance.getWriteOptions(), batch);
+
+            success = true;
+        } catch (RocksDBException e) {
+            LOG.error("Unable to commit heap cache to " + this.toString() + ".", e);
+        }
+
+        return success;
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.db.impl.rocksdb;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.db.impl.AbstractDB;
+import org.aion.db.impl.ISharedEngine;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompactionStyle;
+import org.rocksdb.CompressionType;
+import org.rocksdb.DBOptions;
+import org.rocksdb.LRUCache;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+
+/**
+ * A RocksDB instance shared by all the {@link RocksDBColumnFamily} databases opened under the same
+ * path, where each database is stored in its own column family.
+ *
+ * <p>The column families share one LRU block cache, one set of open files and one write-ahead log.
+ * Their options depend on the kind of data they store:
+ *
+ * <ul>
+ *   <li>the stores keyed by hashes use whole-key bloom filters, so that lookups of missing keys
+ *       rarely read from disk;
+ *   <li>the index keyed by block number is read in ranges and does not use a bloom filter;
+ *   <li>the pending stores hold short-lived data and use universal compaction, which rewrites less
+ *       data for write-heavy workloads.
+ * </ul>
+ *
+ * <p>The changes to several column families can be committed in one atomic write with {@link
+ * #commitCaches(Map)}.
+ *
+ * <p>The instance is opened with the first column family and closed with the last one.
+ */
+final class RocksDBSharedInstance implements ISharedEngine {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    /** bits per key of the bloom filters, for a false positive rate of about 1% */
+    private static final int BLOOM_BITS_PER_KEY = 10;
+
+    /** column families keyed by block number or read in ranges */
+    private static final Set<String> RANGE_STORES = Set.of("index", "level");
+    /** column families holding data that is deleted soon after being written */
+    private static final Set<String> SHORT_LIVED_STORES =
+            Set.of("pendingtxPool", "pendingtxCache", "level", "queue");
+
+    // @GuardedBy("RocksDBSharedInstance.class")
+    private static final Map<String, RocksDBSharedInstance> instances = new HashMap<>();
+
+    private final String path;
+    private final int blockSize;
+    private final int writeBufferSize;
+    private final boolean enableDbCompression;
+
+    private final DBOptions dbOptions;
+    private final LRUCache blockCache;
+    private final WriteOptions writeOptions;
+    private final List<ColumnFamilyOptions> columnFamilyOptions = new ArrayList<>();
+    private final Map<String, ColumnFamilyHandle> handles = new ConcurrentHashMap<>();
+    private RocksDB db;
+    private int references = 0;
+
+    private RocksDBSharedInstance(
+            String path,
+            boolean enableDbCompression,
+            int maxOpenFiles,
+            int blockSize,
+            int writeBufferSize,
+            int cacheSize) {
+        this.path = path;
+        this.blockSize = blockSize;
+        this.writeBufferSize = writeBufferSize;
+        this.enableDbCompression = enableDbCompression;
+
+        this.dbOptions = new DBOptions();
+        this.dbOptions.setCreateIfMissing(true);
+        this.dbOptions.setCreateMissingColumnFamilies(true);
+        this.dbOptions.setParanoidChecks(true);
+        this.dbOptions.setMaxOpenFiles(maxOpenFiles);
+
+        this.blockCache = new LRUCache(cacheSize);
+        this.writeOptions = new WriteOptions();
+    }
+
+    /**
+     * Opens the column family with the given name in the instance at the given path, opening the
+     * instance first if needed. The settings apply to the instance only when it is opened, and to
+     * the column families created by this call.
+     *
+     * @return the shared instance, which must be released with {@link #release(String)}
+     * @throws RocksDBException if the instance or the column family cannot be opened
+     */
+    static RocksDBSharedInstance acquire(
+            String path,
+            String name,
+            boolean enableDbCompression,
+            int maxOpenFiles,
+            int blockSize,
+            int writeBufferSize,
+            int cacheSize)
+            throws RocksDBException {
+        synchronized (RocksDBSharedInstance.class) {
+            RocksDBSharedInstance instance = instances.get(path);
+            if (instance == null) {
+                instance =
+                        new RocksDBSharedInstance(
+                                path,
+                                enableDbCompression,
+                                maxOpenFiles,
+                                blockSize,
+                                writeBufferSize,
+                                cacheSize);
+                try {
+                    instance.open();
+                } catch (RocksDBException e) {
+                    instance.closeResources();
+                    throw e;
+                }
+                instances.put(path, instance);
+            }
+
+            try {
+                instance.openColumnFamily(name);
+            } catch (RocksDBException e) {
+                if (instance.references == 0) {
+                    instance.closeResources();
+                    instances.remove(path);
+                }
+                throw e;
+            }
+            instance.references++;
+            return instance;
+        }
+    }
+
+    /** Releases a column family, closing the instance after its last column family. */
+    void release(String name) {
+        synchronized (RocksDBSharedInstance.class) {
+            references--;
+            if (references == 0) {
+                LOG.info("Closing shared RocksDB instance at {}.", path);
+                instances.remove(path);
+                closeResources();
+            }
+        }
+    }
+
+    private void open() throws RocksDBException {
+        File dir = new File(path);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new RocksDBException("Failed to create the directory " + path + ".");
+        }
+
+        // all the existing column families must be opened with the instance
+        List<byte[]> names = new ArrayList<>();
+        names.add(RocksDB.DEFAULT_COLUMN_FAMILY);
+        if (new File(dir, "CURRENT").exists()) {
+            try (Options options = new Options()) {
+                for (byte[] existing : RocksDB.listColumnFamilies(options, path)) {
+                    if (!new String(existing, StandardCharsets.UTF_8).equals("default")) {
+                        names.add(existing);
+                    }
+                }
+            }
+        }
+
+        List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+        for (byte[] name : names) {
+            descriptors.add(
+                    new ColumnFamilyDescriptor(
+                            name, createOptions(new String(name, StandardCharsets.UTF_8))));
+        }
+
+        List<ColumnFamilyHandle> opened = new ArrayList<>();
+        db = RocksDB.open(dbOptions, path, descriptors, opened);
+        for (int i = 0; i < names.size(); i++) {
+            handles.put(new String(names.get(i), StandardCharsets.UTF_8), opened.get(i));
+        }
+    }
+
+    private void openColumnFamily(String name) throws RocksDBException {
+        if (!handles.containsKey(name)) {
+            ColumnFamilyHandle handle =
+                    db.createColumnFamily(
+                            new ColumnFamilyDescriptor(
+                                    name.getBytes(StandardCharsets.UTF_8), createOptions(name)));
+            handles.put(name, handle);
+        }
+    }
+
+    private ColumnFamilyOptions createOptions(String name) {
+        BlockBasedTableConfig table = new BlockBasedTableConfig();
+        table.setBlockSize(blockSize);
+        table.setBlockCache(blockCache);
+        if (!RANGE_STORES.contains(name)) {
+            table.setFilter(new BloomFilter(BLOOM_BITS_PER_KEY, false));
+            table.setWholeKeyFiltering(true);
+        }
+
+        ColumnFamilyOptions options = new ColumnFamilyOptions();
+        options.setWriteBufferSize(writeBufferSize);
+        options.setCompressionType(
+                enableDbCompression
+                        ? CompressionType.SNAPPY_COMPRESSION
+                        : CompressionType.NO_COMPRESSION);
+        options.setCompactionStyle(
+                SHORT_LIVED_STORES.contains(name)
+                        ? CompactionStyle.UNIVERSAL
+                        : CompactionStyle.LEVEL);
+        options.setTableFormatConfig(table);
+
+        columnFamilyOptions.add(options);
+        return options;
+    }
+
+    private void closeResources() {
+        for (ColumnFamilyHandle handle : handles.values()) {
+            handle.close();
+        }
+        handles.clear();
+        if (db != null) {
+            db.close();
+            db = null;
+        }
+        for (ColumnFamilyOptions options : columnFamilyOptions) {
+            options.close();
+        }
+        columnFamilyOptions.clear();
+        writeOptions.close();
+        blockCache.close();
+        dbOptions.close();
+    }
+
+    RocksDB getDatabase() {
+        return db;
+    }
+
+    ColumnFamilyHandle getHandle(String name) {
+        return handles.get(name);
+    }
+
+    /** @return the write options shared by all the writes, instead of allocating new ones */
+    WriteOptions getWriteOptions() {
+        return writeOptions;
+    }
+
+    @Override
+    public boolean commitCaches(Map<AbstractDB, Map<ByteArrayWrapper, byte[]>> changes) {
+        try (WriteBatch batch = new WriteBatch()) {
+            for (Map.Entry<AbstractDB, Map<ByteArrayWrapper, byte[]>> e : changes.entrySet()) {
+                ColumnFamilyHandle handle = handles.get(e.getKey().getName().get());
+                for (Map.Entry<ByteArrayWrapper, byte[]> entry : e.getValue().entrySet()) {
+                    if (entry.getValue() == null) {
+                        batch.delete(handle, entry.getKey().getData());
+                    } else {
+                        batch.put(handle, entry.getKey().getData(), entry.getValue());
+                    }
+                }
+            }
+
+            // one atomic update for all the column families
+            db.write(writeOptions, batch);
+            return true;
+        } catch (RocksDBException e) {
+            LOG.error("Unable to commit the changes to the shared instance at " + path + ".", e);
+            return false;
+        }
+    }
+
+    /** Drops the data of the column family by recreating it. */
+    void clear(String name) throws RocksDBException {
+        synchronized (RocksDBSharedInstance.class) {
+            ColumnFamilyHandle handle = handles.remove(name);
+            if (handle != null) {
+                db.dropColumnFamily(handle);
+                handle.close();
+            }
+            openColumnFamily(name);
+        }
+    }
+}
@@ -43,6 +43,8 @@ import org.rocksdb.WriteOptions;
 public class RocksDBWrapper extends AbstractDB {
 
     private RocksDB db;
+    /** reused by all the batch writes instead of being allocated for each one */
+    private WriteOptions writeOptions;
     private final int maxOpenFiles;
     private final int blockSize;
     private final int writeBufferSize;
@@ -125,6 +127,7 @@ public class RocksDBWrapper extends AbstractDB {
 
         try {
             db = RocksDB.open(options, f.getAbsolutePath());
+            writeOptions = new WriteOptions();
         } catch (RocksDBException e) {
             if (e.getMessage().contains("lock")) {
                 LOG.error(
@@ -156,6 +159,8 @@ public class RocksDBWrapper extends AbstractDB {
         // attempt to close the database
         db.close();
         db = null;
+        writeOptions.close();
+        writeOptions = null;
     }
 
     @Override
@@ -241,7 +246,7 @@ public class RocksDBWrapper extends AbstractDB {
      *
      * @author Alexandra Roatis
      */
-    private static class RocksDBIteratorWrapper implements Iterator<byte[]> {
+    static class RocksDBIteratorWrapper implements Iterator<byte[]> {
         private final RocksIterator iterator;
         private final ReadOptions readOptions;
         private boolean closed;
@@ -357,7 +362,7 @@ public class RocksDBWrapper extends AbstractDB {
     public void commitBatch() {
         if (batch != null) {
             try {
-                db.write(new WriteOptions(), batch);
+                db.write(writeOptions, batch);
             } catch (RocksDBException e) {
                 LOG.error(
                         "Unable to execute batch put/update operation on " + this.toString() + ".",
@@ -389,7 +394,7 @@ public class RocksDBWrapper extends AbstractDB {
             }
 
             // bulk atomic update
-            db.write(new WriteOptions(), batch);
+            db.write(writeOptions, batch);
         } catch (RocksDBException e) {
             LOG.error(
                     "Unable to execute batch put/update operation on " + this.toString() + ".", e);
@@ -409,7 +414,7 @@ public class RocksDBWrapper extends AbstractDB {
             }
 
             // bulk atomic update
-            db.write(new WriteOptions(), batch);
+            db.write(writeOptions, batch);
         } catch (RocksDBException e) {
             LOG.error("Unable to execute batch delete operation on " + this.toString() + ".", e);
         }
@@ -433,7 +438,7 @@ public class RocksDBWrapper extends AbstractDB {
             }
 
             // bulk automatic update
-            db.write(new WriteOptions(), batch);
+            db.write(writeOptions, batch);
 
             success = true;
         } catch (RocksDBException e) {
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.db.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Properties;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.db.generic.DatabaseWithCache;
+import org.aion.db.generic.LockedDatabase;
+import org.aion.db.generic.TimedDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.db.utils.FileUtils;
+import org.junit.Test;
+
+public class AtomicWriteBatchTest {
+
+    private static final byte[] k1 = "key1".getBytes();
+    private static final byte[] k2 = "key2".getBytes();
+    private static final byte[] v1 = "value1".getBytes();
+    private static final byte[] v2 = "value2".getBytes();
+
+    private static IByteArrayKeyValueDatabase writeBack(AbstractDB database) {
+        IByteArrayKeyValueDatabase db =
+                new LockedDatabase(new DatabaseWithCache(database, false, "0", false));
+        assertThat(db.open()).isTrue();
+        return db;
+    }
+
+    @Test
+    public void testCommitWriteBackDatabases() {
+        MockDB first = new MockDB("first");
+        MockDB second = new MockDB("second");
+        IByteArrayKeyValueDatabase db1 = writeBack(first);
+        IByteArrayKeyValueDatabase db2 = writeBack(second);
+
+        db1.put(k1, v1);
+        db2.put(k2, v2);
+        db2.delete(k1);
+
+        AtomicWriteBatch batch = new AtomicWriteBatch();
+        db1.commitTo(batch);
+        db2.commitTo(batch);
+        assertThat(batch.size()).isEqualTo(2);
+
+        // nothing is written before the batch is committed
+        assertThat(first.get(k1).isPresent()).isFalse();
+        assertThat(second.get(k2).isPresent()).isFalse();
+        // the changes are still visible through the caches
+        assertThat(db1.get(k1).get()).isEqualTo(v1);
+
+        assertThat(batch.commit()).isTrue();
+        assertThat(batch.isEmpty()).isTrue();
+        assertThat(first.get(k1).get()).isEqualTo(v1);
+        assertThat(second.get(k2).get()).isEqualTo(v2);
+        assertThat(second.get(k1).isPresent()).isFalse();
+
+        // the committed changes are not added again
+        db1.commitTo(batch);
+        assertThat(batch.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testCommitAutoCommitDatabase() {
+        MockDB database = new MockDB("auto");
+        assertThat(database.open()).isTrue();
+
+        database.put(k1, v1);
+
+        AtomicWriteBatch batch = new AtomicWriteBatch();
+        database.commitTo(batch);
+        assertThat(batch.isEmpty()).isTrue();
+
+        // changes can also be added to the batch directly
+        batch.put(database, k2, v2);
+        batch.put(database, k1, null);
+        assertThat(batch.commit()).isTrue();
+        assertThat(database.get(k1).isPresent()).isFalse();
+        assertThat(database.get(k2).get()).isEqualTo(v2);
+    }
+
+    @Test
+    public void testCommitSharedEngine() {
+        MockDB first = new MockDB("first");
+        MockDB second = new MockDB("second");
+        assertThat(first.open()).isTrue();
+        assertThat(second.open()).isTrue();
+
+        int[] writes = {0};
+        ISharedEngine engine =
+                changes -> {
+                    writes[0]++;
+                    for (Map.Entry<AbstractDB, Map<ByteArrayWrapper, byte[]>> e :
+                            changes.entrySet()) {
+                        e.getKey().commitCache(e.getValue());
+                    }
+                    return true;
+                };
+        AbstractDB shared1 = new SharedMockDB("shared1", engine);
+        AbstractDB shared2 = new SharedMockDB("shared2", engine);
+        assertThat(shared1.open()).isTrue();
+        assertThat(shared2.open()).isTrue();
+
+        AtomicWriteBatch batch = new AtomicWriteBatch();
+        batch.put(shared1, k1, v1);
+        batch.put(shared2, k2, v2);
+        batch.put(first, k1, v1);
+        assertThat(batch.commit()).isTrue();
+
+        // the databases sharing the engine are written at once
+        assertThat(writes[0]).isEqualTo(1);
+        assertThat(shared1.get(k1).get()).isEqualTo(v1);
+        assertThat(shared2.get(k2).get()).isEqualTo(v2);
+        assertThat(first.get(k1).get()).isEqualTo(v1);
+    }
+
+    @Test
+    public void testCommitWriteBufferedDatabases() {
+        int[] writes = {0};
+        ISharedEngine engine =
+                changes -> {
+                    writes[0]++;
+                    for (Map.Entry<AbstractDB, Map<ByteArrayWrapper, byte[]>> e :
+                            changes.entrySet()) {
+                        e.getKey().commitCache(e.getValue());
+                    }
+                    return true;
+                };
+        AbstractDB shared1 = new SharedMockDB("shared1", engine);
+        AbstractDB shared2 = new SharedMockDB("shared2", engine);
+        IByteArrayKeyValueDatabase db1 = new WriteBufferedDatabase(shared1);
+        IByteArrayKeyValueDatabase db2 = new WriteBufferedDatabase(shared2);
+        assertThat(db1.open()).isTrue();
+        assertThat(db2.open()).isTrue();
+        assertThat(db1.isAutoCommitEnabled()).isFalse();
+
+        db1.put(k1, v1);
+        db2.putToBatch(k2, v2);
+        db2.commitBatch();
+
+        // the writes are kept in memory and visible to reads
+        assertThat(shared1.get(k1).isPresent()).isFalse();
+        assertThat(shared2.get(k2).isPresent()).isFalse();
+        assertThat(db1.get(k1).get()).isEqualTo(v1);
+        assertThat(db2.keys().hasNext()).isTrue();
+
+        AtomicWriteBatch batch = new AtomicWriteBatch();
+        db1.commitTo(batch);
+        db2.commitTo(batch);
+        // the entries are still read before the batch is committed
+        assertThat(db2.get(k2).get()).isEqualTo(v2);
+
+        assertThat(batch.commit()).isTrue();
+        assertThat(writes[0]).isEqualTo(1);
+        assertThat(shared1.get(k1).get()).isEqualTo(v1);
+        assertThat(shared2.get(k2).get()).isEqualTo(v2);
+
+        // deletions are buffered as well
+        db1.delete(k1);
+        assertThat(db1.get(k1).isPresent()).isFalse();
+        assertThat(shared1.get(k1).isPresent()).isTrue();
+        assertThat(db1.isEmpty()).isTrue();
+        assertThat(db1.commit()).isTrue();
+        assertThat(shared1.get(k1).isPresent()).isFalse();
+    }
+
+    @Test
+    public void testCommitWrappedSharedEngine() {
+        int[] writes = {0};
+        ISharedEngine engine =
+                changes -> {
+                    writes[0]++;
+                    for (Map.Entry<AbstractDB, Map<ByteArrayWrapper, byte[]>> e :
+                            changes.entrySet()) {
+                        e.getKey().commitCache(e.getValue());
+                    }
+                    return true;
+                };
+        AbstractDB shared1 = new SharedMockDB("shared1", engine);
+        AbstractDB shared2 = new SharedMockDB("shared2", engine);
+        // the wrappers created by the factory with a heap cache and debug timing
+        DatabaseWithCache cached = new DatabaseWithCache(shared1, true, "0", false);
+        IByteArrayKeyValueDatabase db1 =
+                new WriteBufferedDatabase(new TimedDatabase(new LockedDatabase(cached)));
+        IByteArrayKeyValueDatabase db2 = new WriteBufferedDatabase(new TimedDatabase(shared2));
+        assertThat(db1.open()).isTrue();
+        assertThat(db2.open()).isTrue();
+
+        // loads the missing key into the heap cache
+        assertThat(cached.get(k1).isPresent()).isFalse();
+
+        db1.put(k1, v1);
+        db2.put(k2, v2);
+
+        AtomicWriteBatch batch = new AtomicWriteBatch();
+        db1.commitTo(batch);
+        db2.commitTo(batch);
+        assertThat(batch.commit()).isTrue();
+
+        // one engine write for both databases
+        assertThat(writes[0]).isEqualTo(1);
+        assertThat(shared1.get(k1).get()).isEqualTo(v1);
+        assertThat(shared2.get(k2).get()).isEqualTo(v2);
+
+        // the heap cache skipped by the write was updated
+        assertThat(cached.get(k1).get()).isEqualTo(v1);
+    }
+
+    @Test
+    public void testCommitWithFailingDatabase() {
+        MockDB first = new MockDB("first");
+        assertThat(first.open()).isTrue();
+        // writing to a closed database throws an exception
+        IByteArrayKeyValueDatabase closed = new LockedDatabase(new MockDB("closed"));
+
+        AtomicWriteBatch batch = new AtomicWriteBatch();
+        batch.put(closed, k1, v1);
+        batch.put(first, k2, v2);
+
+        assertThat(batch.commit()).isFalse();
+        assertThat(batch.isEmpty()).isTrue();
+        // the other databases are still written
+        assertThat(first.get(k2).get()).isEqualTo(v2);
+    }
+
+    @Test
+    public void testCommitWriteBufferedRocksDBShared() {
+        File dir = new File(DatabaseTestUtils.testDir, "atomic-" + System.nanoTime());
+        Properties props = new Properties();
+        props.setProperty(DatabaseFactory.Props.DB_TYPE, DBVendor.ROCKSDB_SHARED.toValue());
+        props.setProperty(DatabaseFactory.Props.DB_PATH, dir.getAbsolutePath());
+
+        try {
+            props.setProperty(DatabaseFactory.Props.DB_NAME, "blocks");
+            IByteArrayKeyValueDatabase blocks = DatabaseFactory.connect(props);
+            props.setProperty(DatabaseFactory.Props.DB_NAME, "state");
+            IByteArrayKeyValueDatabase state = DatabaseFactory.connect(props);
+            IByteArrayKeyValueDatabase db1 = new WriteBufferedDatabase(blocks);
+            IByteArrayKeyValueDatabase db2 = new WriteBufferedDatabase(state);
+            assertThat(db1.open()).isTrue();
+            assertThat(db2.open()).isTrue();
+
+            db1.put(k1, v1);
+            db2.put(k2, v2);
+
+            AtomicWriteBatch batch = new AtomicWriteBatch();
+            db1.commitTo(batch);
+            db2.commitTo(batch);
+
+            // nothing reaches the engine before the batch is committed
+            assertThat(blocks.get(k1).isPresent()).isFalse();
+            assertThat(state.get(k2).isPresent()).isFalse();
+
+            // one engine write for both column families
+            assertThat(((AbstractDB) blocks).getSharedEngine())
+                    .isSameAs(((AbstractDB) state).getSharedEngine());
+            assertThat(batch.commit()).isTrue();
+            assertThat(blocks.get(k1).get()).isEqualTo(v1);
+            assertThat(state.get(k2).get()).isEqualTo(v2);
+
+            // the changes survive reopening the shared instance
+            db1.close();
+            db2.close();
+            assertThat(blocks.open()).isTrue();
+            assertThat(state.open()).isTrue();
+            assertThat(blocks.get(k1).get()).isEqualTo(v1);
+            assertThat(state.get(k2).get()).isEqualTo(v2);
+            blocks.close();
+            state.close();
+        } finally {
+            FileUtils.deleteRecursively(dir);
+        }
+    }
+
+    private static class SharedMockDB extends MockDB {
+        private final ISharedEngine engine;
+
+        SharedMockDB(String name, ISharedEngine engine) {
+            super(name);
+            this.engine = engine;
+        }
+
+        @Override
+        public ISharedEngine getSharedEngine() {
+            return engine;
+        }
+    }
+}
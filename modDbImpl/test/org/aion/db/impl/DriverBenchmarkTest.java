@@ -57,6 +57,7 @@ import java.util.concurrent.TimeUnit;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
 import org.aion.db.impl.h2.H2MVMap;
 import org.aion.db.impl.leveldb.LevelDB;
+import org.aion.db.impl.rocksdb.RocksDBColumnFamily;
 import org.aion.db.impl.rocksdb.RocksDBConstants;
 import org.aion.db.impl.rocksdb.RocksDBWrapper;
 import org.aion.db.utils.FileUtils;
@@ -111,6 +112,18 @@ public class DriverBenchmarkTest {
                                 RocksDBConstants.WRITE_BUFFER_SIZE,
                                 RocksDBConstants.READ_BUFFER_SIZE,
                                 RocksDBConstants.CACHE_SIZE)
+                    },
+                    {
+                        "RocksDbShared",
+                        new RocksDBColumnFamily(
+                                "state",
+                                testDir.getAbsolutePath(),
+                                false,
+                                false,
+                                RocksDBConstants.MAX_OPEN_FILES,
+                                RocksDBConstants.BLOCK_SIZE,
+                                RocksDBConstants.WRITE_BUFFER_SIZE,
+                                RocksDBConstants.CACHE_SIZE)
                     }
                 });
     }
@@ -333,6 +346,28 @@ public class DriverBenchmarkTest {
         }
         stop(name.getMethodName(), keyCount, valueSizeBytes, batchSizeBytes);
     }
+
+    @Ignore
+    @Repeat(10)
+    @Test
+    public void readMissing() { // fill DB values, unmeasured
+        write(Order.SEQUENTIAL, keyCount, valueSizeBytes, 1);
+        db.compact();
+
+        int keyCount = (int) 1e6;
+        int valueSizeBytes = DriverBenchmarkTest.valueSizeBytes;
+        int batchSizeBytes = 1;
+
+        // lookups of absent keys, as done for new trie nodes and transactions
+        start();
+        for (int i = 0; i < keyCount; i++) {
+            byte[] key = formatNumber(DriverBenchmarkTest.keyCount + random.nextInt(keyCount));
+            assertFalse(db.get(key).isPresent());
+            byteCount += key.length;
+            finishedSingleOp();
+        }
+        stop(name.getMethodName(), keyCount, valueSizeBytes, batchSizeBytes);
+    }
     // ---------------------------------------------------------------
     // ========================= Test Cases ==========================
     // ---------------------------------------------------------------
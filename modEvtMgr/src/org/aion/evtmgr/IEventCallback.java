@@ -22,7 +22,20 @@
  */
 package org.aion.evtmgr;
 
+import java.util.List;
+
 /** @author jay */
 public interface IEventCallback {
     void onEvent(IEvent e);
+
+    /**
+     * Receives several events at once, in the order in which they were published.
+     *
+     * @implNote Calls {@link #onEvent(IEvent)} for each event unless overwritten.
+     */
+    default void onEvents(List<IEvent> events) {
+        for (IEvent e : events) {
+            onEvent(e);
+        }
+    }
 }
@@ -4,6 +4,7 @@ module aion.evtmgr.impl {
     requires slf4j.api;
 
     exports org.aion.evtmgr.impl.abs;
+    exports org.aion.evtmgr.impl.bus;
     exports org.aion.evtmgr.impl.callback;
     exports org.aion.evtmgr.impl.handler;
     exports org.aion.evtmgr.impl.mgr;
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.evtmgr.impl.bus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.aion.evtmgr.IEvent;
+import org.aion.evtmgr.IEventCallback;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.slf4j.Logger;
+
+/**
+ * A bounded ring of events read by several subscribers, each on its own thread and at its own
+ * cursor, so that a slow subscriber does not delay the others.
+ *
+ * <p>Publishers never drop events silently. When a subscriber is a full ring behind, the ring
+ * applies the {@link OverflowPolicy} of the subscriber before overwriting its oldest event.
+ */
+public final class EventRing {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.EVTMGR.toString());
+
+    private static final long BLOCK_PARK_NANOS = 50_000L;
+
+    private final String name;
+    private final IEvent[] events;
+    private final long[] publishTimes;
+    private final int mask;
+    private final long blockTimeoutNanos;
+
+    /** the sequence of the last published event */
+    private final AtomicLong published = new AtomicLong(-1);
+    // @GuardedBy("this")
+    private long next = 0;
+
+    private final List<RingSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Object signal = new Object();
+    private volatile boolean running = false;
+
+    /**
+     * @param name the name of the ring, used for its threads
+     * @param capacity the number of events in the ring, rounded up to a power of two
+     * @param blockTimeoutMillis how long a publisher waits for a subscriber with the {@link
+     *     OverflowPolicy#BLOCK} policy
+     */
+    public EventRing(String name, int capacity, long blockTimeoutMillis) {
+        if (capacity < 1 || capacity > 1 << 30 || blockTimeoutMillis < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+
+        this.name = name;
+        this.events = new IEvent[size];
+        this.publishTimes = new long[size];
+        this.mask = size - 1;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+    }
+
+    /**
+     * Adds a subscriber that receives the events published from now on.
+     *
+     * @param subscriberName the name of the subscriber, used for its thread and metrics
+     * @param callback the callback receiving the events, in batches of up to {@code batchSize}
+     */
+    public synchronized void subscribe(
+            String subscriberName,
+            IEventCallback callback,
+            OverflowPolicy policy,
+            WaitStrategy waitStrategy,
+            int batchSize) {
+        if (callback == null || policy == null || waitStrategy == null) {
+            throw new NullPointerException();
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        RingSubscriber subscriber =
+                new RingSubscriber(
+                        this, subscriberName, callback, policy, waitStrategy, batchSize, next);
+        subscribers.add(subscriber);
+        if (running) {
+            subscriber.start(name);
+        }
+    }
+
+    /** Publishes an event to all the subscribers. */
+    public synchronized void publish(IEvent event) {
+        if (event == null) {
+            throw new NullPointerException();
+        }
+
+        long sequence = next;
+        long wrap = sequence - events.length;
+        if (wrap >= 0) {
+            for (RingSubscriber subscriber : subscribers) {
+                makeRoom(subscriber, wrap);
+            }
+        }
+
+        int index = (int) (sequence & mask);
+        events[index] = event;
+        publishTimes[index] = System.nanoTime();
+        next = sequence + 1;
+        published.set(sequence);
+
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+
+    /** Ensures the event at the given sequence is no longer needed by the subscriber. */
+    private void makeRoom(RingSubscriber subscriber, long wrap) {
+        if (subscriber.getCursor() > wrap) {
+            return;
+        }
+
+        if (subscriber.getPolicy() == OverflowPolicy.BUFFER) {
+            subscriber.buffer(wrap);
+            return;
+        }
+
+        if (subscriber.getPolicy() == OverflowPolicy.BLOCK) {
+            long start = System.nanoTime();
+            long deadline = start + blockTimeoutNanos;
+            while (subscriber.getCursor() <= wrap
+                    && running
+                    && subscriber.isAlive()
+                    && System.nanoTime() < deadline) {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            }
+            subscriber.addBlockedNanos(System.nanoTime() - start);
+
+            if (subscriber.getCursor() > wrap) {
+                return;
+            }
+
+            LOG.warn(
+                    "Subscriber {} of {} is {} events behind, coalescing its oldest events.",
+                    subscriber.getName(),
+                    name,
+                    events.length);
+        }
+
+        subscriber.coalesce(wrap);
+    }
+
+    public synchronized void start() {
+        if (!running) {
+            running = true;
+            for (RingSubscriber subscriber : subscribers) {
+                subscriber.start(name);
+            }
+        }
+    }
+
+    /** Stops the subscribers. The events that were not delivered yet are discarded. */
+    public void stop() throws InterruptedException {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+
+        for (RingSubscriber subscriber : subscribers) {
+            subscriber.stop();
+        }
+    }
+
+    /** @return the delivery metrics of every subscriber */
+    public List<SubscriberStats> getStats() {
+        List<SubscriberStats> stats = new ArrayList<>();
+        for (RingSubscriber subscriber : subscribers) {
+            stats.add(subscriber.getStats());
+        }
+        return stats;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return events.length;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    Object getSignal() {
+        return signal;
+    }
+
+    long getPublished() {
+        return published.get();
+    }
+
+    /** @implNote The caller must ensure the sequence was published and not yet overwritten. */
+    IEvent eventAt(long sequence) {
+        return events[(int) (sequence & mask)];
+    }
+
+    long publishTimeAt(long sequence) {
+        return publishTimes[(int) (sequence & mask)];
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.evtmgr.impl.bus;
+
+/** What a ring does when a subscriber falls a full ring behind the publishers. */
+public enum OverflowPolicy {
+    /**
+     * The publisher waits for the subscriber to consume events, up to the block timeout of the
+     * ring. After the timeout the oldest events of the subscriber are coalesced.
+     */
+    BLOCK,
+    /**
+     * The oldest events of the subscriber are coalesced right away: only the latest event of each
+     * event and callback type is kept for delivery.
+     */
+    COALESCE,
+    /**
+     * The oldest events of the subscriber are moved right away to an unbounded buffer of the
+     * subscriber and delivered in order: no event is lost, at the cost of memory.
+     */
+    BUFFER;
+
+    public static OverflowPolicy fromString(String name, OverflowPolicy defaultValue) {
+        if (name == null) {
+            return defaultValue;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return defaultValue;
+        }
+    }
+}
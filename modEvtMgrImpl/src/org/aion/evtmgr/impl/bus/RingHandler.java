@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.evtmgr.impl.bus;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aion.evtmgr.IEvent;
+import org.aion.evtmgr.IEventCallback;
+import org.aion.evtmgr.IHandler;
+import org.aion.evtmgr.impl.evt.EventDummy;
+
+/**
+ * A handler publishing its events to an {@link EventRing}, where each callback is a subscriber
+ * with its own thread and cursor.
+ */
+public class RingHandler implements IHandler {
+
+    private final int handlerType;
+    private final EventRing ring;
+    private final Set<IEvent> events = ConcurrentHashMap.newKeySet();
+
+    private final OverflowPolicy defaultPolicy;
+    private final WaitStrategy waitStrategy;
+    private final int batchSize;
+
+    public RingHandler(
+            TYPE type,
+            int capacity,
+            long blockTimeoutMillis,
+            OverflowPolicy defaultPolicy,
+            WaitStrategy waitStrategy,
+            int batchSize) {
+        this.handlerType = type.getValue();
+        this.ring = new EventRing("EvtBus-" + type.name(), capacity, blockTimeoutMillis);
+        this.defaultPolicy = defaultPolicy;
+        this.waitStrategy = waitStrategy;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public int getType() {
+        return handlerType;
+    }
+
+    @Override
+    public boolean addEvent(IEvent _evt) {
+        return events.add(_evt);
+    }
+
+    @Override
+    public boolean removeEvent(IEvent _evt) {
+        return events.remove(_evt);
+    }
+
+    @Override
+    public void onEvent(IEvent _evt) {
+        if (_evt.getEventType() == handlerType
+                && _evt.getEventType() != EventDummy.getTypeStatic()
+                && events.contains(_evt)) {
+            ring.publish(_evt);
+        }
+    }
+
+    /** Subscribes the callback with the default overflow policy of the handler. */
+    @Override
+    public void eventCallback(IEventCallback _evtCallback) {
+        subscribe(_evtCallback, defaultPolicy);
+    }
+
+    /** Subscribes the callback with the given overflow policy. */
+    public void subscribe(IEventCallback callback, OverflowPolicy policy) {
+        ring.subscribe(String.valueOf(callback), callback, policy, waitStrategy, batchSize);
+    }
+
+    @Override
+    public void start() {
+        ring.start();
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        ring.stop();
+    }
+
+    /** @return the delivery metrics of the subscribers of the handler */
+    public List<SubscriberStats> getStats() {
+        return ring.getStats();
+    }
+}
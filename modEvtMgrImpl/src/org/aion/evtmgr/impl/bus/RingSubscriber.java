@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.evtmgr.impl.bus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.aion.evtmgr.IEvent;
+import org.aion.evtmgr.IEventCallback;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.slf4j.Logger;
+
+/**
+ * Reads the events of an {@link EventRing} from its own cursor and delivers them in batches to a
+ * callback, on a dedicated thread.
+ *
+ * <p>The cursor is moved by the subscriber thread after reading a batch and, when the subscriber
+ * falls a full ring behind, by the publisher coalescing or buffering its oldest events. Both move
+ * it with a compare-and-set, so that a batch read while being moved is discarded and delivered
+ * from the coalesced or buffered events instead.
+ */
+final class RingSubscriber implements Runnable {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.EVTMGR.toString());
+
+    private static final long JOIN_MILLIS = 1_000L;
+
+    private final EventRing ring;
+    private final String name;
+    private final IEventCallback callback;
+    private final OverflowPolicy policy;
+    private final WaitStrategy waitStrategy;
+    private final int batchSize;
+
+    /** the sequence of the next event to read from the ring */
+    private final AtomicLong cursor;
+
+    /** the latest coalesced event of each type, older than the events at the cursor */
+    // @GuardedBy("this")
+    private final Map<Integer, IEvent> coalesced = new LinkedHashMap<>();
+
+    /** the buffered events, in publishing order and older than the events at the cursor */
+    // @GuardedBy("this")
+    private final Deque<IEvent> buffered = new ArrayDeque<>();
+
+    private final AtomicLong delivered = new AtomicLong(0);
+    private final AtomicLong coalescedCount = new AtomicLong(0);
+    private final AtomicLong blockedNanos = new AtomicLong(0);
+
+    private volatile Thread thread;
+
+    RingSubscriber(
+            EventRing ring,
+            String name,
+            IEventCallback callback,
+            OverflowPolicy policy,
+            WaitStrategy waitStrategy,
+            int batchSize,
+            long cursor) {
+        this.ring = ring;
+        this.name = name;
+        this.callback = callback;
+        this.policy = policy;
+        this.waitStrategy = waitStrategy;
+        this.batchSize = batchSize;
+        this.cursor = new AtomicLong(cursor);
+    }
+
+    void start(String ringName) {
+        if (thread == null) {
+            thread = new Thread(this, ringName + "-" + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    void stop() throws InterruptedException {
+        Thread t = thread;
+        if (t != null) {
+            // also wakes up callbacks waiting for their own queues
+            t.interrupt();
+            t.join(JOIN_MILLIS);
+            thread = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        List<IEvent> batch = new ArrayList<>(batchSize);
+
+        try {
+            while (ring.isRunning() && !Thread.currentThread().isInterrupted()) {
+                // the coalesced and buffered events are older than the ones at the cursor
+                synchronized (this) {
+                    if (!coalesced.isEmpty()) {
+                        batch.addAll(coalesced.values());
+                        coalesced.clear();
+                    }
+                    while (batch.size() < batchSize && !buffered.isEmpty()) {
+                        batch.add(buffered.poll());
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    deliver(batch);
+                    continue;
+                }
+
+                long start = cursor.get();
+                long available = ring.getPublished();
+                if (start > available) {
+                    waitStrategy.await(ring, start);
+                    continue;
+                }
+
+                long end = Math.min(available, start + batchSize - 1);
+                for (long sequence = start; sequence <= end; sequence++) {
+                    batch.add(ring.eventAt(sequence));
+                }
+
+                if (cursor.compareAndSet(start, end + 1)) {
+                    deliver(batch);
+                } else {
+                    // coalesced by the publisher while being read
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Subscriber {} stopped: {}", name, getStats());
+        }
+    }
+
+    private void deliver(List<IEvent> batch) {
+        try {
+            callback.onEvents(batch);
+        } catch (Exception e) {
+            LOG.error("Subscriber " + name + " failed to process events.", e);
+        }
+        delivered.addAndGet(batch.size());
+        batch.clear();
+    }
+
+    /**
+     * Moves the events up to the given sequence from the ring to the coalesced events, keeping only
+     * the latest event of each type.
+     */
+    void coalesce(long wrap) {
+        while (true) {
+            long start = cursor.get();
+            if (start > wrap) {
+                return;
+            }
+
+            Map<Integer, IEvent> latest = new LinkedHashMap<>();
+            for (long sequence = start; sequence <= wrap; sequence++) {
+                IEvent event = ring.eventAt(sequence);
+                Integer key = (event.getEventType() << 8) + event.getCallbackType();
+                // keeps the delivery order of the latest events
+                latest.remove(key);
+                latest.put(key, event);
+            }
+
+            synchronized (this) {
+                if (cursor.compareAndSet(start, wrap + 1)) {
+                    int before = coalesced.size();
+                    for (Map.Entry<Integer, IEvent> e : latest.entrySet()) {
+                        coalesced.remove(e.getKey());
+                        coalesced.put(e.getKey(), e.getValue());
+                    }
+                    coalescedCount.addAndGet(wrap + 1 - start - (coalesced.size() - before));
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Moves the events up to the given sequence from the ring to the buffered events. */
+    void buffer(long wrap) {
+        while (true) {
+            long start = cursor.get();
+            if (start > wrap) {
+                return;
+            }
+
+            List<IEvent> oldest = new ArrayList<>((int) (wrap + 1 - start));
+            for (long sequence = start; sequence <= wrap; sequence++) {
+                oldest.add(ring.eventAt(sequence));
+            }
+
+            synchronized (this) {
+                if (cursor.compareAndSet(start, wrap + 1)) {
+                    buffered.addAll(oldest);
+                    return;
+                }
+            }
+        }
+    }
+
+    SubscriberStats getStats() {
+        long position = cursor.get();
+        long published = ring.getPublished();
+        int pending;
+        synchronized (this) {
+            pending = coalesced.size() + buffered.size();
+        }
+
+        long lagMillis = 0;
+        if (position <= published) {
+            lagMillis =
+                    TimeUnit.NANOSECONDS.toMillis(
+                            System.nanoTime() - ring.publishTimeAt(position));
+        }
+
+        return new SubscriberStats(
+                name,
+                policy,
+                Math.max(0, published - position + 1) + pending,
+                Math.max(0, lagMillis),
+                delivered.get(),
+                coalescedCount.get(),
+                TimeUnit.NANOSECONDS.toMillis(blockedNanos.get()));
+    }
+
+    long getCursor() {
+        return cursor.get();
+    }
+
+    OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    boolean isAlive() {
+        Thread t = thread;
+        return t != null && t.isAlive();
+    }
+
+    void addBlockedNanos(long nanos) {
+        blockedNanos.addAndGet(nanos);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.evtmgr.impl.bus;
+
+/** A snapshot of the delivery metrics of one subscriber of an {@link EventRing}. */
+public final class SubscriberStats {
+
+    private final String name;
+    private final OverflowPolicy policy;
+    private final long depth;
+    private final long lagMillis;
+    private final long delivered;
+    private final long coalesced;
+    private final long blockedMillis;
+
+    SubscriberStats(
+            String name,
+            OverflowPolicy policy,
+            long depth,
+            long lagMillis,
+            long delivered,
+            long coalesced,
+            long blockedMillis) {
+        this.name = name;
+        this.policy = policy;
+        this.depth = depth;
+        this.lagMillis = lagMillis;
+        this.delivered = delivered;
+        this.coalesced = coalesced;
+        this.blockedMillis = blockedMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /** @return the number of published events not yet delivered to the subscriber */
+    public long getDepth() {
+        return depth;
+    }
+
+    /** @return the age of the oldest event not yet delivered to the subscriber */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /** @return the number of events delivered to the subscriber */
+    public long getDelivered() {
+        return delivered;
+    }
+
+    /** @return the number of events replaced by a later event of the same type */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    /** @return the total time publishers waited for the subscriber */
+    public long getBlockedMillis() {
+        return blockedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return name
+                + "[policy="
+                + policy
+                + ", depth="
+                + depth
+                + ", lag="
+                + lagMillis
+                + "ms, delivered="
+                + delivered
+                + ", coalesced="
+                + coalesced
+                + ", blocked="
+                + blockedMillis
+                + "ms]";
+    }
+}
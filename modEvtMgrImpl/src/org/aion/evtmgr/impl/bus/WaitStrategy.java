@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.evtmgr.impl.bus;
+
+import java.util.concurrent.locks.LockSupport;
+
+/** How the thread of a subscriber waits for new events to be published. */
+public enum WaitStrategy {
+    /** Waits on a monitor until an event is published. Uses the least CPU. */
+    BLOCKING,
+    /** Sleeps for a short time between checks. */
+    SLEEPING,
+    /** Yields the CPU between checks. */
+    YIELDING,
+    /** Spins on the CPU between checks. Gives the lowest latency. */
+    BUSY_SPIN;
+
+    private static final long SLEEP_NANOS = 100_000L;
+    private static final long BLOCK_MILLIS = 100L;
+
+    /**
+     * Waits once for an event to be published to the given ring. Returns early when signalled, so
+     * callers must check again for new events.
+     */
+    void await(EventRing ring, long sequence) throws InterruptedException {
+        switch (this) {
+            case BLOCKING:
+                Object signal = ring.getSignal();
+                synchronized (signal) {
+                    if (ring.getPublished() < sequence && ring.isRunning()) {
+                        signal.wait(BLOCK_MILLIS);
+                    }
+                }
+                break;
+            case SLEEPING:
+                LockSupport.parkNanos(SLEEP_NANOS);
+                break;
+            case YIELDING:
+                Thread.yield();
+                break;
+            default:
+                Thread.onSpinWait();
+                break;
+        }
+    }
+
+    public static WaitStrategy fromString(String name, WaitStrategy defaultValue) {
+        if (name == null) {
+            return defaultValue;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return defaultValue;
+        }
+    }
+}
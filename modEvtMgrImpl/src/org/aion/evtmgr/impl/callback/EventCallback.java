@@ -22,6 +22,7 @@
  */
 package org.aion.evtmgr.impl.callback;
 
+import java.util.List;
 import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.IEventCallback;
 import org.aion.evtmgr.impl.es.EventExecuteService;
@@ -53,4 +54,26 @@ public class EventCallback implements IEventCallback {
             LOG.error("{}", e.toString());
         }
     }
+
+    /**
+     * Waits for space in the queue instead of dropping events, so that a slow consumer holds back
+     * the event bus delivering the batches, which then applies its overflow policy.
+     */
+    @Override
+    public void onEvents(List<IEvent> events) {
+        try {
+            for (IEvent evt : events) {
+                ees.put(evt);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOG.error("{}", e.toString());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return ees.getThreadName();
+    }
 }
@@ -116,6 +116,32 @@ public class EventExecuteService {
         }
     }
 
+    /**
+     * Adds an event to the queue, waiting for space to become available instead of dropping the
+     * event when the queue is full.
+     *
+     * @return {@code false} if the event is not accepted by the filter
+     * @throws InterruptedException if interrupted while waiting for space
+     */
+    public boolean put(IEvent event) throws InterruptedException {
+        if (event == null) {
+            throw new NullPointerException();
+        }
+
+        int sn = (event.getEventType() << 8) + event.getCallbackType();
+
+        if (filter.contains(sn)) {
+            callbackEvt.put(event);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    public String getThreadName() {
+        return thName;
+    }
+
     public void shutdown() {
         callbackEvt.clear();
         callbackEvt.add(new EventDummy());
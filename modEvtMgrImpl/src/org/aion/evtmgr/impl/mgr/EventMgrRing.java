@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.evtmgr.impl.mgr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import org.aion.evtmgr.IEventMgr;
+import org.aion.evtmgr.IHandler;
+import org.aion.evtmgr.impl.abs.AbstractEventMgr;
+import org.aion.evtmgr.impl.bus.OverflowPolicy;
+import org.aion.evtmgr.impl.bus.RingHandler;
+import org.aion.evtmgr.impl.bus.SubscriberStats;
+import org.aion.evtmgr.impl.bus.WaitStrategy;
+
+/**
+ * An event manager delivering the events of each handler through a bounded ring, where every
+ * callback reads from its own cursor on its own thread and receives events in batches.
+ *
+ * <p>Supported properties, all optional:
+ *
+ * <ul>
+ *   <li>{@value #RING_SIZE}: the number of events held by the ring of each handler;
+ *   <li>{@value #BATCH_SIZE}: the maximum number of events delivered to a callback at once;
+ *   <li>{@value #WAIT_STRATEGY}: one of {@link WaitStrategy};
+ *   <li>{@value #OVERFLOW_POLICY}: one of {@link OverflowPolicy}, used for the callbacks of all
+ *       the handlers but {@link IHandler.TYPE#BLOCK0}, whose callbacks always use {@link
+ *       OverflowPolicy#BUFFER} since they must see every block;
+ *   <li>{@value #BLOCK_TIMEOUT}: how long a publisher waits for a full subscriber, in
+ *       milliseconds.
+ * </ul>
+ */
+public class EventMgrRing extends AbstractEventMgr implements IEventMgr {
+
+    public static final String RING_SIZE = "ring_size";
+    public static final String BATCH_SIZE = "batch_size";
+    public static final String WAIT_STRATEGY = "wait_strategy";
+    public static final String OVERFLOW_POLICY = "overflow_policy";
+    public static final String BLOCK_TIMEOUT = "block_timeout_ms";
+
+    private static final int DEFAULT_RING_SIZE = 4096;
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    private static final int DEFAULT_BLOCK_TIMEOUT = 500;
+
+    public EventMgrRing(Properties config) {
+        super();
+
+        if (config == null) {
+            throw new NullPointerException();
+        }
+
+        int ringSize = getInt(config, RING_SIZE, DEFAULT_RING_SIZE);
+        int batchSize = getInt(config, BATCH_SIZE, DEFAULT_BATCH_SIZE);
+        int blockTimeout = getInt(config, BLOCK_TIMEOUT, DEFAULT_BLOCK_TIMEOUT);
+        WaitStrategy waitStrategy =
+                WaitStrategy.fromString(
+                        config.getProperty(WAIT_STRATEGY), WaitStrategy.BLOCKING);
+        OverflowPolicy policy =
+                OverflowPolicy.fromString(
+                        config.getProperty(OVERFLOW_POLICY), OverflowPolicy.BLOCK);
+
+        for (IHandler.TYPE type :
+                new IHandler.TYPE[] {
+                    IHandler.TYPE.TX0,
+                    IHandler.TYPE.CONSENSUS,
+                    IHandler.TYPE.BLOCK0,
+                    IHandler.TYPE.MINER0
+                }) {
+            IHandler hdr =
+                    new RingHandler(
+                            type,
+                            ringSize,
+                            blockTimeout,
+                            type == IHandler.TYPE.BLOCK0 ? OverflowPolicy.BUFFER : policy,
+                            waitStrategy,
+                            batchSize);
+            this.handlers.put(hdr, hdr);
+        }
+    }
+
+    private static int getInt(Properties config, String key, int defaultValue) {
+        String value = config.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed < 1 ? defaultValue : parsed;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /** @return the queue depth and lag of every callback of every handler */
+    public List<SubscriberStats> getSubscriberStats() {
+        List<SubscriberStats> stats = new ArrayList<>();
+        for (IHandler hdr : getHandlerList()) {
+            stats.addAll(((RingHandler) hdr).getStats());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.evtmgr.impl.bus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.aion.evtmgr.IEvent;
+import org.aion.evtmgr.IEventCallback;
+import org.aion.evtmgr.impl.evt.EventBlock;
+import org.aion.evtmgr.impl.evt.EventTx;
+import org.junit.After;
+import org.junit.Test;
+
+public class EventRingTest {
+
+    private static final int CAPACITY = 16;
+
+    private final EventRing ring = new EventRing("test", CAPACITY, 5_000);
+
+    @After
+    public void tearDown() throws InterruptedException {
+        ring.stop();
+    }
+
+    private static IEvent block(int number) {
+        IEvent e = new EventBlock(EventBlock.CALLBACK.ONBLOCK0);
+        e.setFuncArgs(Collections.singletonList(number));
+        return e;
+    }
+
+    private static int number(IEvent e) {
+        return (Integer) e.getFuncArgs().get(0);
+    }
+
+    /** Collects the delivered events, optionally waiting for a latch before each batch. */
+    private static class Collector implements IEventCallback {
+        final List<IEvent> received = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch release;
+        final long delayMillis;
+
+        Collector(CountDownLatch release, long delayMillis) {
+            this.release = release;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public void onEvent(IEvent e) {
+            received.add(e);
+        }
+
+        @Override
+        public void onEvents(List<IEvent> events) {
+            try {
+                release.await();
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            batchSizes.add(events.size());
+            received.addAll(events);
+        }
+
+        void awaitReceived(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (received.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Test
+    public void testDeliverInOrderToEachSubscriber() throws InterruptedException {
+        Collector fast = new Collector(new CountDownLatch(0), 0);
+        Collector slow = new Collector(new CountDownLatch(0), 1);
+        ring.subscribe("fast", fast, OverflowPolicy.BLOCK, WaitStrategy.BLOCKING, 8);
+        ring.subscribe("slow", slow, OverflowPolicy.BLOCK, WaitStrategy.SLEEPING, 8);
+        ring.start();
+
+        int count = CAPACITY * 10;
+        for (int i = 0; i < count; i++) {
+            ring.publish(block(i));
+        }
+
+        fast.awaitReceived(count);
+        slow.awaitReceived(count);
+        for (Collector c : new Collector[] {fast, slow}) {
+            assertEquals(count, c.received.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, number(c.received.get(i)));
+            }
+            for (int size : c.batchSizes) {
+                assertTrue(size <= 8);
+            }
+        }
+
+        for (SubscriberStats stats : ring.getStats()) {
+            assertEquals(count, stats.getDelivered());
+            assertEquals(0, stats.getCoalesced());
+            assertEquals(0, stats.getDepth());
+        }
+    }
+
+    @Test
+    public void testCoalesceWhenFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Collector stalled = new Collector(release, 0);
+        ring.subscribe("stalled", stalled, OverflowPolicy.COALESCE, WaitStrategy.BLOCKING, 4);
+        ring.start();
+
+        // the first batch is held by the subscriber, the rest overflows the ring
+        int count = CAPACITY * 4;
+        for (int i = 0; i < count; i++) {
+            ring.publish(block(i));
+        }
+        IEvent tx = new EventTx(EventTx.CALLBACK.PENDINGTXRECEIVED0);
+        ring.publish(tx);
+
+        SubscriberStats stats = ring.getStats().get(0);
+        assertTrue(stats.getCoalesced() > 0);
+        assertTrue(stats.getDepth() <= CAPACITY + 2);
+
+        release.countDown();
+        stalled.awaitReceived(CAPACITY + 2);
+        Thread.sleep(100);
+
+        // the held batch, the latest coalesced block and the events left in the ring
+        List<IEvent> received = new ArrayList<>(stalled.received);
+        assertEquals(tx, received.get(received.size() - 1));
+        assertEquals(count - 1, number(received.get(received.size() - 2)));
+        int previous = -1;
+        for (IEvent e : received.subList(0, received.size() - 1)) {
+            assertTrue(number(e) > previous);
+            previous = number(e);
+        }
+
+        stats = ring.getStats().get(0);
+        assertEquals(count + 1, stats.getDelivered() + stats.getCoalesced());
+    }
+
+    @Test
+    public void testBufferWhenFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Collector stalled = new Collector(release, 0);
+        ring.subscribe("stalled", stalled, OverflowPolicy.BUFFER, WaitStrategy.BLOCKING, 4);
+        ring.start();
+
+        // the publisher neither waits for the stalled subscriber nor drops its events
+        int count = CAPACITY * 4;
+        for (int i = 0; i < count; i++) {
+            ring.publish(block(i));
+        }
+
+        SubscriberStats stats = ring.getStats().get(0);
+        assertEquals(0, stats.getBlockedMillis());
+        assertTrue(stats.getDepth() >= count - 4);
+
+        release.countDown();
+        stalled.awaitReceived(count);
+
+        assertEquals(count, stalled.received.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, number(stalled.received.get(i)));
+        }
+        for (int size : stalled.batchSizes) {
+            assertTrue(size <= 4);
+        }
+
+        stats = ring.getStats().get(0);
+        assertEquals(count, stats.getDelivered());
+        assertEquals(0, stats.getCoalesced());
+        assertEquals(0, stats.getDepth());
+    }
+
+    @Test
+    public void testBlockPublisher() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Collector stalled = new Collector(release, 0);
+        ring.subscribe("stalled", stalled, OverflowPolicy.BLOCK, WaitStrategy.YIELDING, 4);
+        ring.start();
+
+        int count = CAPACITY * 4;
+        Thread publisher =
+                new Thread(
+                        () -> {
+                            for (int i = 0; i < count; i++) {
+                                ring.publish(block(i));
+                            }
+                        });
+        publisher.start();
+
+        // the publisher waits for the stalled subscriber instead of overwriting its events
+        Thread.sleep(200);
+        assertTrue(publisher.isAlive());
+
+        release.countDown();
+        publisher.join(TimeUnit.SECONDS.toMillis(5));
+        stalled.awaitReceived(count);
+
+        assertEquals(count, stalled.received.size());
+        SubscriberStats stats = ring.getStats().get(0);
+        assertEquals(0, stats.getCoalesced());
+        assertTrue(stats.getBlockedMillis() > 0);
+    }
+}
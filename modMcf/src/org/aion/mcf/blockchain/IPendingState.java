@@ -24,6 +24,7 @@ package org.aion.mcf.blockchain;
 
 import java.math.BigInteger;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.aion.base.db.IRepositoryCache;
 import org.aion.base.type.Address;
 import org.aion.base.type.ITransaction;
@@ -34,6 +35,15 @@ public interface IPendingState<TX extends ITransaction> {
 
     TxResponse addPendingTransaction(TX tx);
 
+    /**
+     * Queues the transactions for admission without waiting for them to be added.
+     *
+     * @return the response for each transaction, in the order of the given transactions
+     */
+    List<CompletableFuture<TxResponse>> submitPendingTransactions(List<TX> transactions);
+
+    CompletableFuture<TxResponse> submitPendingTransaction(TX tx);
+
     IRepositoryCache<?, ?, ?> getRepository();
 
     List<TX> getPendingTransactions();
@@ -55,6 +55,8 @@ public abstract class Cfg {
 
     protected CfgTx tx;
 
+    protected CfgEvent event;
+
     protected CfgReports reports;
 
     protected CfgGui gui;
@@ -117,6 +119,10 @@ public abstract class Cfg {
         return this.tx;
     }
 
+    public CfgEvent getEvent() {
+        return this.event;
+    }
+
     public CfgReports getReports() {
         return this.reports;
     }
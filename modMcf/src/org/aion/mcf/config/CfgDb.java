@@ -47,12 +47,14 @@ public class CfgDb {
         public static final String BLOCK = "block";
         public static final String INDEX = "index";
         public static final String PENDING_BLOCK = "pendingBlock";
+        public static final String LOG_BLOOM = "logBloom";
 
         public static final String DETAILS = "details";
         public static final String STORAGE = "storage";
 
         public static final String STATE = "state";
         public static final String STATE_ARCHIVE = "stateArchive";
+        public static final String STATE_JOURNAL = "stateJournal";
         public static final String TRANSACTION = "transaction";
 
         public static final String TX_CACHE = "pendingtxCache";
@@ -65,6 +67,7 @@ public class CfgDb {
     private boolean check_integrity;
     private CfgPrune prune;
     private PruneOption prune_option;
+    private boolean pendingBlockSegments;
 
     /**
      * Enabling expert mode allows more detailed database configurations.
@@ -83,6 +86,7 @@ public class CfgDb {
         this.check_integrity = true;
         this.prune = new CfgPrune(false);
         this.prune_option = PruneOption.FULL;
+        this.pendingBlockSegments = false;
 
         if (expert) {
             this.specificConfig = new HashMap<>();
@@ -107,6 +111,9 @@ public class CfgDb {
                         case "state-storage":
                             setPrune(Cfg.readValue(sr));
                             break;
+                        case Props.ENABLE_PENDING_BLOCK_SEGMENTS:
+                            this.pendingBlockSegments = Boolean.parseBoolean(Cfg.readValue(sr));
+                            break;
                             // parameter considered only when expert==false
                         case "vendor":
                             this.vendor = Cfg.readValue(sr);
@@ -239,10 +246,18 @@ public class CfgDb {
             xmlWriter.writeCharacters(this.prune_option.toString());
             xmlWriter.writeEndElement();
 
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Boolean value. Store the blocks received ahead of import in append-only segment files instead of the database.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement(Props.ENABLE_PENDING_BLOCK_SEGMENTS);
+            xmlWriter.writeCharacters(String.valueOf(this.pendingBlockSegments));
+            xmlWriter.writeEndElement();
+
             if (!expert) {
                 xmlWriter.writeCharacters("\r\n\t\t");
                 xmlWriter.writeComment(
-                        "Database implementation used to store data; supported options: leveldb, h2, rocksdb.");
+                        "Database implementation used to store data; supported options: leveldb, h2, rocksdb, rocksdbshared.");
                 xmlWriter.writeCharacters("\r\n\t\t");
                 xmlWriter.writeComment(
                         "Caution: changing implementation requires re-syncing from genesis!");
@@ -378,6 +393,8 @@ public class CfgDb {
             Properties props = propSet.get(Names.DEFAULT);
             props.setProperty(Props.CHECK_INTEGRITY, String.valueOf(this.check_integrity));
             props.setProperty(Props.PERSISTENT, String.valueOf(isPersistent));
+            props.setProperty(
+                    Props.ENABLE_PENDING_BLOCK_SEGMENTS, String.valueOf(this.pendingBlockSegments));
         } else {
             Properties props = new Properties();
             props.setProperty(Props.DB_TYPE, this.vendor);
@@ -398,6 +415,8 @@ public class CfgDb {
             props.setProperty(Props.BLOCK_SIZE, String.valueOf(16 * (int) Utils.MEGA_BYTE));
             props.setProperty(Props.WRITE_BUFFER_SIZE, String.valueOf(64 * (int) Utils.MEGA_BYTE));
             props.setProperty(Props.READ_BUFFER_SIZE, String.valueOf(64 * (int) Utils.MEGA_BYTE));
+            props.setProperty(
+                    Props.ENABLE_PENDING_BLOCK_SEGMENTS, String.valueOf(this.pendingBlockSegments));
 
             propSet.put(Names.DEFAULT, props);
         }
@@ -430,6 +449,7 @@ public class CfgDb {
                 && Objects.equal(vendor, cfgDb.vendor)
                 && Objects.equal(prune, cfgDb.prune)
                 && prune_option == cfgDb.prune_option
+                && pendingBlockSegments == cfgDb.pendingBlockSegments
                 && Objects.equal(specificConfig, cfgDb.specificConfig);
     }
 
@@ -442,6 +462,7 @@ public class CfgDb {
                 check_integrity,
                 prune,
                 prune_option,
+                pendingBlockSegments,
                 expert,
                 specificConfig);
     }
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.mcf.config;
+
+import com.google.common.base.Objects;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/** Settings of the rings through which the event manager delivers events to its callbacks. */
+public class CfgEvent {
+
+    public CfgEvent() {
+        this.ringSize = 4096;
+        this.batchSize = 64;
+        this.waitStrategy = "blocking";
+        this.overflowPolicy = "block";
+        this.blockTimeout = 500;
+    }
+
+    private int ringSize;
+
+    private int batchSize;
+
+    private String waitStrategy;
+
+    private String overflowPolicy;
+
+    private int blockTimeout;
+
+    public void fromXML(final XMLStreamReader sr) throws XMLStreamException {
+        loop:
+        while (sr.hasNext()) {
+            int eventType = sr.next();
+            switch (eventType) {
+                case XMLStreamReader.START_ELEMENT:
+                    String elementName = sr.getLocalName().toLowerCase();
+                    switch (elementName) {
+                        case "ring_size":
+                            this.ringSize = Math.max(1, Integer.parseInt(Cfg.readValue(sr)));
+                            break;
+                        case "batch_size":
+                            this.batchSize = Math.max(1, Integer.parseInt(Cfg.readValue(sr)));
+                            break;
+                        case "wait_strategy":
+                            this.waitStrategy = Cfg.readValue(sr).trim().toLowerCase();
+                            break;
+                        case "overflow_policy":
+                            this.overflowPolicy = Cfg.readValue(sr).trim().toLowerCase();
+                            break;
+                        case "block_timeout_ms":
+                            this.blockTimeout = Math.max(1, Integer.parseInt(Cfg.readValue(sr)));
+                            break;
+                        default:
+                            Cfg.skipElement(sr);
+                            break;
+                    }
+                    break;
+                case XMLStreamReader.END_ELEMENT:
+                    break loop;
+            }
+        }
+    }
+
+    public String toXML() {
+        final XMLOutputFactory output = XMLOutputFactory.newInstance();
+        XMLStreamWriter xmlWriter;
+        String xml;
+        try {
+            Writer strWriter = new StringWriter();
+            xmlWriter = output.createXMLStreamWriter(strWriter);
+            xmlWriter.writeCharacters("\r\n\t");
+            xmlWriter.writeStartElement("event");
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("ring_size");
+            xmlWriter.writeCharacters(String.valueOf(this.getRingSize()));
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("batch_size");
+            xmlWriter.writeCharacters(String.valueOf(this.getBatchSize()));
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Waiting of idle callbacks; 'blocking', 'sleeping' or 'yielding'");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("wait_strategy");
+            xmlWriter.writeCharacters(this.getWaitStrategy());
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Handling of callbacks a full ring behind; 'block', 'coalesce' or 'buffer'."
+                            + " Block callbacks always buffer");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("overflow_policy");
+            xmlWriter.writeCharacters(this.getOverflowPolicy());
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("block_timeout_ms");
+            xmlWriter.writeCharacters(String.valueOf(this.getBlockTimeout()));
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t");
+            xmlWriter.writeEndElement();
+            xml = strWriter.toString();
+            strWriter.flush();
+            strWriter.close();
+            xmlWriter.flush();
+            xmlWriter.close();
+            return xml;
+        } catch (IOException | XMLStreamException e) {
+            e.printStackTrace();
+            return "";
+        }
+    }
+
+    public int getRingSize() {
+        return this.ringSize;
+    }
+
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    public String getWaitStrategy() {
+        return this.waitStrategy;
+    }
+
+    public String getOverflowPolicy() {
+        return this.overflowPolicy;
+    }
+
+    /** @return how long a publisher waits for a full callback, in milliseconds */
+    public int getBlockTimeout() {
+        return this.blockTimeout;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CfgEvent cfgEvent = (CfgEvent) o;
+        return ringSize == cfgEvent.ringSize
+                && batchSize == cfgEvent.batchSize
+                && blockTimeout == cfgEvent.blockTimeout
+                && Objects.equal(waitStrategy, cfgEvent.waitStrategy)
+                && Objects.equal(overflowPolicy, cfgEvent.overflowPolicy);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(ringSize, batchSize, waitStrategy, overflowPolicy, blockTimeout);
+    }
+}
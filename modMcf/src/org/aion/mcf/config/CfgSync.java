@@ -43,6 +43,12 @@ public final class CfgSync {
     private boolean showStatus;
     private Set<StatsType> showStatistics;
 
+    private boolean parallelExecution;
+
+    private boolean pipelinedImport;
+
+    private int headerValidationThreads;
+
     private static int BLOCKS_QUEUE_MAX = 32;
 
     public CfgSync() {
@@ -50,6 +56,9 @@ public final class CfgSync {
         this.showStatus = false;
         this.showStatistics = new HashSet<>();
         this.showStatistics.add(StatsType.NONE);
+        this.parallelExecution = false;
+        this.pipelinedImport = false;
+        this.headerValidationThreads = 0;
     }
 
     public void fromXML(final XMLStreamReader sr) throws XMLStreamException {
@@ -69,6 +78,15 @@ public final class CfgSync {
                         case "show-statistics":
                             parseSelectedStats(showStatistics, Cfg.readValue(sr));
                             break;
+                        case "parallel-execution":
+                            this.parallelExecution = Boolean.parseBoolean(Cfg.readValue(sr));
+                            break;
+                        case "pipelined-import":
+                            this.pipelinedImport = Boolean.parseBoolean(Cfg.readValue(sr));
+                            break;
+                        case "header-validation-threads":
+                            this.headerValidationThreads = Integer.parseInt(Cfg.readValue(sr));
+                            break;
                         default:
                             Cfg.skipElement(sr);
                             break;
@@ -143,6 +161,33 @@ public final class CfgSync {
             xmlWriter.writeCharacters(printSelectedStats().toLowerCase());
             xmlWriter.writeEndElement();
 
+            // sub-element parallel-execution
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "execute the transactions of imported blocks optimistically in parallel");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("parallel-execution");
+            xmlWriter.writeCharacters(this.parallelExecution + "");
+            xmlWriter.writeEndElement();
+
+            // sub-element pipelined-import
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "validate blocks ahead of import and flush them to disk in the background");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("pipelined-import");
+            xmlWriter.writeCharacters(this.pipelinedImport + "");
+            xmlWriter.writeEndElement();
+
+            // sub-element header-validation-threads
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "threads validating the received block headers; 0 for the number of cores");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("header-validation-threads");
+            xmlWriter.writeCharacters(this.headerValidationThreads + "");
+            xmlWriter.writeEndElement();
+
             // close element sync
             xmlWriter.writeCharacters("\r\n\t");
             xmlWriter.writeEndElement();
@@ -196,6 +241,21 @@ public final class CfgSync {
         return this.showStatus;
     }
 
+    public boolean getParallelExecution() {
+        return this.parallelExecution;
+    }
+
+    public boolean getPipelinedImport() {
+        return this.pipelinedImport;
+    }
+
+    /** @return the number of threads validating block headers, at least one */
+    public int getHeaderValidationThreads() {
+        return this.headerValidationThreads > 0
+                ? this.headerValidationThreads
+                : Runtime.getRuntime().availableProcessors();
+    }
+
     public Set<StatsType> getShowStatistics() {
         return showStatistics;
     }
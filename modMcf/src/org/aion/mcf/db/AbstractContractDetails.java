@@ -31,6 +31,7 @@ import java.util.Map;
 import org.aion.base.db.IContractDetails;
 import org.aion.base.util.ByteArrayWrapper;
 import org.aion.base.util.Hex;
+import org.aion.mcf.trie.CleanNodeCache;
 
 /** Abstract contract details. */
 public abstract class AbstractContractDetails<DW> implements IContractDetails<DW> {
@@ -41,6 +42,9 @@ public abstract class AbstractContractDetails<DW> implements IContractDetails<DW
     protected int prune;
     protected int detailsInMemoryStorageLimit;
 
+    /** storage trie nodes kept in memory across commits, owned by the repository */
+    protected CleanNodeCache storageNodeCache;
+
     private Map<ByteArrayWrapper, byte[]> codes = new HashMap<>();
 
     protected AbstractContractDetails() {
@@ -80,6 +84,14 @@ public abstract class AbstractContractDetails<DW> implements IContractDetails<DW
         setDirty(true);
     }
 
+    /**
+     * Sets the cache of clean storage trie nodes. Nodes are keyed by their hash, which makes it
+     * safe to share the cache between the storage tries of all contracts.
+     */
+    public void setStorageNodeCache(CleanNodeCache storageNodeCache) {
+        this.storageNodeCache = storageNodeCache;
+    }
+
     public Map<ByteArrayWrapper, byte[]> getCodes() {
         return codes;
     }
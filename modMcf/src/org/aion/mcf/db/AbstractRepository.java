@@ -39,6 +39,7 @@ import org.aion.base.db.IRepositoryConfig;
 import org.aion.base.type.IBlockHeader;
 import org.aion.base.type.ITransaction;
 import org.aion.base.vm.IDataWord;
+import org.aion.db.impl.WriteBufferedDatabase;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.mcf.config.CfgDb.Names;
@@ -72,10 +73,12 @@ public abstract class AbstractRepository<
     protected static final String INDEX_DB = Names.INDEX;
     protected static final String BLOCK_DB = Names.BLOCK;
     protected static final String PENDING_BLOCK_DB = Names.PENDING_BLOCK;
+    protected static final String LOG_BLOOM_DB = Names.LOG_BLOOM;
     protected static final String DETAILS_DB = Names.DETAILS;
     protected static final String STORAGE_DB = Names.STORAGE;
     protected static final String STATE_DB = Names.STATE;
     protected static final String STATE_ARCHIVE_DB = Names.STATE_ARCHIVE;
+    protected static final String STATE_JOURNAL_DB = Names.STATE_JOURNAL;
     protected static final String PENDING_TX_POOL_DB = Names.TX_POOL;
     protected static final String PENDING_TX_CACHE_DB = Names.TX_CACHE;
 
@@ -93,8 +96,10 @@ public abstract class AbstractRepository<
     protected IByteArrayKeyValueDatabase storageDatabase;
     protected IByteArrayKeyValueDatabase indexDatabase;
     protected IByteArrayKeyValueDatabase blockDatabase;
+    protected IByteArrayKeyValueDatabase logBloomDatabase;
     protected IByteArrayKeyValueDatabase stateDatabase;
     protected IByteArrayKeyValueDatabase stateArchiveDatabase;
+    protected IByteArrayKeyValueDatabase stateJournalDatabase;
     protected IByteArrayKeyValueDatabase txPoolDatabase;
     protected IByteArrayKeyValueDatabase pendingTxCacheDatabase;
 
@@ -191,7 +196,7 @@ public abstract class AbstractRepository<
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
             sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
             sharedProps.setProperty(Props.DB_NAME, STATE_DB);
-            this.stateDatabase = connectAndOpen(sharedProps, LOG);
+            this.stateDatabase = bufferWrites(connectAndOpen(sharedProps, LOG));
             if (stateDatabase == null || stateDatabase.isClosed()) {
                 throw newException(STATE_DB, sharedProps);
             }
@@ -202,7 +207,7 @@ public abstract class AbstractRepository<
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
             sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
             sharedProps.setProperty(Props.DB_NAME, TRANSACTION_DB);
-            this.transactionDatabase = connectAndOpen(sharedProps, LOG);
+            this.transactionDatabase = bufferWrites(connectAndOpen(sharedProps, LOG));
             if (transactionDatabase == null || transactionDatabase.isClosed()) {
                 throw newException(TRANSACTION_DB, sharedProps);
             }
@@ -213,7 +218,7 @@ public abstract class AbstractRepository<
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
             sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
             sharedProps.setProperty(Props.DB_NAME, DETAILS_DB);
-            this.detailsDatabase = connectAndOpen(sharedProps, LOG);
+            this.detailsDatabase = bufferWrites(connectAndOpen(sharedProps, LOG));
             if (detailsDatabase == null || detailsDatabase.isClosed()) {
                 throw newException(DETAILS_DB, sharedProps);
             }
@@ -224,7 +229,7 @@ public abstract class AbstractRepository<
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
             sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
             sharedProps.setProperty(Props.DB_NAME, STORAGE_DB);
-            this.storageDatabase = connectAndOpen(sharedProps, LOG);
+            this.storageDatabase = bufferWrites(connectAndOpen(sharedProps, LOG));
             if (storageDatabase == null || storageDatabase.isClosed()) {
                 throw newException(STORAGE_DB, sharedProps);
             }
@@ -235,7 +240,7 @@ public abstract class AbstractRepository<
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
             sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
             sharedProps.setProperty(Props.DB_NAME, INDEX_DB);
-            this.indexDatabase = connectAndOpen(sharedProps, LOG);
+            this.indexDatabase = bufferWrites(connectAndOpen(sharedProps, LOG));
             if (indexDatabase == null || indexDatabase.isClosed()) {
                 throw newException(INDEX_DB, sharedProps);
             }
@@ -246,7 +251,7 @@ public abstract class AbstractRepository<
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
             sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
             sharedProps.setProperty(Props.DB_NAME, BLOCK_DB);
-            this.blockDatabase = connectAndOpen(sharedProps, LOG);
+            this.blockDatabase = bufferWrites(connectAndOpen(sharedProps, LOG));
             if (blockDatabase == null || blockDatabase.isClosed()) {
                 throw newException(BLOCK_DB, sharedProps);
             }
@@ -256,6 +261,17 @@ public abstract class AbstractRepository<
             sharedProps.setProperty(Props.DB_NAME, PENDING_BLOCK_DB);
             this.pendingStoreProperties = sharedProps;
 
+            // getting log bloom index specific properties
+            sharedProps = cfg.getDatabaseConfig(LOG_BLOOM_DB);
+            sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
+            sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
+            sharedProps.setProperty(Props.DB_NAME, LOG_BLOOM_DB);
+            this.logBloomDatabase = connectAndOpen(sharedProps, LOG);
+            if (logBloomDatabase == null || logBloomDatabase.isClosed()) {
+                throw newException(LOG_BLOOM_DB, sharedProps);
+            }
+            databaseGroup.add(logBloomDatabase);
+
             // getting pending tx pool specific properties
             sharedProps = cfg.getDatabaseConfig(PENDING_TX_POOL_DB);
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
@@ -286,17 +302,32 @@ public abstract class AbstractRepository<
             pruneBlockCount = this.cfg.getPruneConfig().getCurrentCount();
             archiveRate = this.cfg.getPruneConfig().getArchiveRate();
 
+            if (pruneEnabled) {
+                // the pruning journal is kept across restarts
+                sharedProps = cfg.getDatabaseConfig(STATE_JOURNAL_DB);
+                sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
+                sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
+                sharedProps.setProperty(Props.DB_NAME, STATE_JOURNAL_DB);
+                this.stateJournalDatabase = bufferWrites(connectAndOpen(sharedProps, LOG));
+                if (stateJournalDatabase == null || stateJournalDatabase.isClosed()) {
+                    throw newException(STATE_JOURNAL_DB, sharedProps);
+                }
+                databaseGroup.add(stateJournalDatabase);
+            } else {
+                stateJournalDatabase = null;
+            }
+
             if (pruneEnabled && this.cfg.getPruneConfig().isArchived()) {
                 // using state config for state_archive
                 sharedProps = cfg.getDatabaseConfig(STATE_DB);
                 sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
                 sharedProps.setProperty(Props.DB_PATH, cfg.getDbPath());
                 sharedProps.setProperty(Props.DB_NAME, STATE_ARCHIVE_DB);
-                this.stateArchiveDatabase = connectAndOpen(sharedProps, LOG);
+                this.stateArchiveDatabase = bufferWrites(connectAndOpen(sharedProps, LOG));
                 databaseGroup.add(stateArchiveDatabase);
 
                 stateWithArchive = new ArchivedDataSource(stateDatabase, stateArchiveDatabase);
-                stateDSPrune = new JournalPruneDataSource(stateWithArchive);
+                stateDSPrune = new JournalPruneDataSource(stateWithArchive, stateJournalDatabase);
 
                 LOGGEN.info(
                         "Pruning and archiving ENABLED. Top block count set to {} and archive rate set to {}.",
@@ -305,10 +336,12 @@ public abstract class AbstractRepository<
             } else {
                 stateArchiveDatabase = null;
                 stateWithArchive = null;
-                stateDSPrune = new JournalPruneDataSource(stateDatabase);
 
                 if (pruneEnabled) {
+                    stateDSPrune = new JournalPruneDataSource(stateDatabase, stateJournalDatabase);
                     LOGGEN.info("Pruning ENABLED. Top block count set to {}.", pruneBlockCount);
+                } else {
+                    stateDSPrune = new JournalPruneDataSource(stateDatabase);
                 }
             }
 
@@ -318,6 +351,18 @@ public abstract class AbstractRepository<
         }
     }
 
+    /**
+     * Keeps the writes to a database that would otherwise write through in memory, so that the
+     * changes made by a block are committed to all the stores together on flush.
+     */
+    private static IByteArrayKeyValueDatabase bufferWrites(IByteArrayKeyValueDatabase db) {
+        if (db == null || !db.isAutoCommitEnabled()) {
+            // write-back databases already keep their changes until committed
+            return db;
+        }
+        return new WriteBufferedDatabase(db);
+    }
+
     private InvalidFilePathException newException(String dbName, Properties props) {
         return new InvalidFilePathException(
                 "The «"
@@ -36,8 +36,11 @@ package org.aion.mcf.db;
 
 import static org.aion.base.util.ByteArrayWrapper.wrap;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
@@ -48,6 +51,7 @@ import org.aion.base.type.IBlockHeader;
 import org.aion.base.type.ITransaction;
 import org.aion.base.util.ByteArrayWrapper;
 import org.aion.base.vm.IDataWord;
+import org.aion.mcf.trie.CleanNodeCache;
 import org.aion.mcf.trie.JournalPruneDataSource;
 import org.aion.mcf.types.AbstractBlock;
 
@@ -55,6 +59,9 @@ import org.aion.mcf.types.AbstractBlock;
 public class DetailsDataStore<
         BLK extends AbstractBlock<BH, ? extends ITransaction>, BH extends IBlockHeader> {
 
+    /** The number of details rewritten by {@link #migrate()} between commits. */
+    private static final int MIGRATION_BATCH = 1_000;
+
     private JournalPruneDataSource storageDSPrune;
     private IRepositoryConfig repoConfig;
 
@@ -62,6 +69,9 @@ public class DetailsDataStore<
     private IByteArrayKeyValueDatabase storageSrc;
     private Set<ByteArrayWrapper> removes = new HashSet<>();
 
+    // storage trie nodes kept in memory across flushes, owned by the repository
+    private CleanNodeCache storageNodeCache;
+
     public DetailsDataStore() {}
 
     public DetailsDataStore(
@@ -81,6 +91,19 @@ public class DetailsDataStore<
         return this;
     }
 
+    /** Sets the cache of clean storage trie nodes given to the details read or updated. */
+    public void setStorageNodeCache(CleanNodeCache storageNodeCache) {
+        this.storageNodeCache = storageNodeCache;
+    }
+
+    /** Gives the details access to the storage database and the storage node cache. */
+    private void setStorage(IContractDetails<IDataWord> details) {
+        if (details instanceof AbstractContractDetails) {
+            ((AbstractContractDetails<IDataWord>) details).setStorageNodeCache(storageNodeCache);
+        }
+        details.setDataSource(storageDSPrune);
+    }
+
     /**
      * Fetches the ContractDetails from the cache, and if it doesn't exist, add to the remove set.
      *
@@ -103,7 +126,7 @@ public class DetailsDataStore<
 
         // Found something from cache or database, return it by decoding it.
         IContractDetails<IDataWord> detailsImpl = repoConfig.contractDetailsImpl();
-        detailsImpl.setDataSource(storageDSPrune);
+        setStorage(detailsImpl);
         detailsImpl.decode(rawDetails.get()); // We can safely get as we checked
         // if it is present.
 
@@ -113,14 +136,17 @@ public class DetailsDataStore<
     public synchronized void update(Address key, IContractDetails<IDataWord> contractDetails) {
 
         contractDetails.setAddress(key);
+        // new contracts keep their storage in the external storage as well
+        setStorage(contractDetails);
         ByteArrayWrapper wrappedKey = wrap(key.toBytes());
 
+        // The storage nodes and code must be written before the record referencing them.
+        contractDetails.syncStorage();
+
         // Put into cache.
-        byte[] rawDetails = contractDetails == null ? null : contractDetails.getEncoded();
+        byte[] rawDetails = contractDetails.getEncoded();
         detailsSrc.put(key.toBytes(), rawDetails);
 
-        contractDetails.syncStorage();
-
         // Remove from the remove set.
         removes.remove(wrappedKey);
     }
@@ -139,8 +165,6 @@ public class DetailsDataStore<
     private long flushInternal() {
         long totalSize = 0;
 
-        syncLargeStorage();
-
         // Get everything from the cache and calculate the size.
         Iterator<byte[]> keysFromSource = detailsSrc.keys();
         while (keysFromSource.hasNext()) {
@@ -152,36 +176,51 @@ public class DetailsDataStore<
             totalSize += valFromKey.map(rawDetails -> rawDetails.length).orElse(0);
         }
 
-        // Flushes both details and storage.
-        detailsSrc.commit();
+        // Flushes both storage and details, the storage first since the details refer to it.
         storageSrc.commit();
+        detailsSrc.commit();
 
         return totalSize;
     }
 
-    public void syncLargeStorage() {
-
-        Iterator<byte[]> keysFromSource = detailsSrc.keys();
-        while (keysFromSource.hasNext()) {
-            byte[] keyInSource = keysFromSource.next();
-
-            // Fetch the value given the keys.
-            Optional<byte[]> rawDetails = detailsSrc.get(keyInSource);
+    /**
+     * Rewrites the details stored in an older format, moving their storage and code to the storage
+     * database.
+     *
+     * @return the number of details rewritten
+     */
+    public synchronized long migrate() {
+        List<byte[]> keys = new ArrayList<>();
+        detailsSrc.keys().forEachRemaining(keys::add);
 
-            // If it is null, just continue
+        long migrated = 0;
+        for (byte[] key : keys) {
+            Optional<byte[]> rawDetails = detailsSrc.get(key);
             if (!rawDetails.isPresent()) {
                 continue;
             }
 
-            // Decode the details.
             IContractDetails<IDataWord> detailsImpl = repoConfig.contractDetailsImpl();
-            detailsImpl.setDataSource(storageDSPrune);
-            detailsImpl.decode(rawDetails.get(), true);
-            // We can safely get as we checked if it is present.
-
-            // IContractDetails details = entry.getValue();
+            setStorage(detailsImpl);
+            detailsImpl.decode(rawDetails.get());
+            // moves the storage and code of older records to the storage database
             detailsImpl.syncStorage();
+
+            byte[] encoded = detailsImpl.getEncoded();
+            if (!Arrays.equals(encoded, rawDetails.get())) {
+                detailsSrc.put(key, encoded);
+                migrated++;
+
+                if (migrated % MIGRATION_BATCH == 0) {
+                    storageSrc.commit();
+                    detailsSrc.commit();
+                }
+            }
         }
+
+        storageSrc.commit();
+        detailsSrc.commit();
+        return migrated;
     }
 
     public JournalPruneDataSource getStorageDSPrune() {
@@ -22,14 +22,22 @@
  */
 package org.aion.mcf.ds;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import java.io.Closeable;
 import java.util.Optional;
 import org.aion.base.db.Flushable;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.base.util.ByteArrayWrapper;
 
 /**
  * Object Datasource.
  *
+ * <p>Optionally keeps a bounded cache of deserialized objects, so that objects that are read
+ * repeatedly are not deserialized on every read. Entries are invalidated when the key is written or
+ * deleted through this data source.
+ *
  * @param <V>
  */
 public class ObjectDataSource<V> implements Flushable, Closeable {
@@ -37,9 +45,25 @@ public class ObjectDataSource<V> implements Flushable, Closeable {
     private IByteArrayKeyValueDatabase src;
     Serializer<V, byte[]> serializer;
 
+    /** deserialized objects, {@code null} when caching is disabled */
+    private final Cache<ByteArrayWrapper, V> cache;
+
     public ObjectDataSource(IByteArrayKeyValueDatabase src, Serializer<V, byte[]> serializer) {
+        this(src, serializer, 0);
+    }
+
+    /**
+     * @param cacheSize the maximum number of deserialized objects to keep, where {@code 0} disables
+     *     the cache
+     */
+    public ObjectDataSource(
+            IByteArrayKeyValueDatabase src, Serializer<V, byte[]> serializer, int cacheSize) {
         this.src = src;
         this.serializer = serializer;
+        this.cache =
+                cacheSize > 0
+                        ? CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build()
+                        : null;
     }
 
     public void flush() {
@@ -58,30 +82,69 @@ public class ObjectDataSource<V> implements Flushable, Closeable {
         // TODO @yao - Don't know if just writing to cache is correct logic
         // or what this was intended to be. Why do a flush then?
         src.put(key, bytes);
+        invalidate(key);
     }
 
     /** @apiNote A null value is interpreted as a delete of the key. */
     public void putToBatch(byte[] key, V value) {
         byte[] bytes = value == null ? null : serializer.serialize(value);
         src.putToBatch(key, bytes);
+        invalidate(key);
     }
 
     public void flushBatch() {
         src.commitBatch();
+        // objects read between the batch updates and the commit may be stale
+        if (cache != null) {
+            cache.invalidateAll();
+        }
     }
 
     public void delete(byte[] key) {
         src.delete(key);
+        invalidate(key);
     }
 
     public V get(byte[] key) {
+        if (cache == null) {
+            return read(key);
+        }
 
+        ByteArrayWrapper wrapper = ByteArrayWrapper.wrap(key);
+        V value = cache.getIfPresent(wrapper);
+        if (value == null) {
+            value = read(key);
+            if (value != null) {
+                cache.put(wrapper, value);
+            }
+        }
+        return value;
+    }
+
+    /** @return the deserialized object if it is cached, otherwise {@code null} */
+    public V getIfCached(byte[] key) {
+        return cache == null ? null : cache.getIfPresent(ByteArrayWrapper.wrap(key));
+    }
+
+    private V read(byte[] key) {
         // Fetch the results from cache or database. Return null if doesn't
         // exist.
         Optional<byte[]> val = src.get(key);
         return val.map(serializer::deserialize).orElse(null);
     }
 
+    /** Removes the deserialized object for the given key from the cache. */
+    public void invalidate(byte[] key) {
+        if (cache != null) {
+            cache.invalidate(ByteArrayWrapper.wrap(key));
+        }
+    }
+
+    /** @return the statistics of the cache of deserialized objects, empty if it is disabled */
+    public CacheStats getCacheStats() {
+        return cache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : cache.stats();
+    }
+
     /**
      * Returns the underlying cache source.
      *
@@ -103,5 +166,8 @@ public class ObjectDataSource<V> implements Flushable, Closeable {
     @Override
     public void close() {
         src.close();
+        if (cache != null) {
+            cache.invalidateAll();
+        }
     }
 }
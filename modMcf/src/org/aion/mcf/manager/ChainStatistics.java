@@ -22,8 +22,13 @@
  */
 package org.aion.mcf.manager;
 
+import com.google.common.cache.CacheStats;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /** Chain statistics. */
 public class ChainStatistics {
@@ -33,6 +38,8 @@ public class ChainStatistics {
     private long startupTimeStamp;
     private boolean consensus = true;
     private List<Long> blockExecTime = new LinkedList<>();
+    private Map<String, Supplier<CacheStats>> caches =
+            Collections.synchronizedMap(new LinkedHashMap<>());
 
     public void init() {
         startupTimeStamp = System.currentTimeMillis();
@@ -74,4 +81,29 @@ public class ChainStatistics {
     public List<Long> getBlockExecTime() {
         return blockExecTime;
     }
+
+    /**
+     * Registers a cache whose statistics are reported by {@link #getCacheStats()}.
+     *
+     * @param name the name under which the statistics are reported
+     * @param stats supplies a snapshot of the current statistics of the cache
+     */
+    public void addCache(String name, Supplier<CacheStats> stats) {
+        caches.put(name, stats);
+    }
+
+    /** @return a snapshot of the statistics of each registered cache, by name */
+    public Map<String, CacheStats> getCacheStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        synchronized (caches) {
+            caches.forEach((name, supplier) -> stats.put(name, supplier.get()));
+        }
+        return stats;
+    }
+
+    /** @return the hit rate of the cache registered under the given name, or 1 if it is unknown */
+    public double getCacheHitRate(String name) {
+        Supplier<CacheStats> stats = caches.get(name);
+        return stats == null ? 1.0 : stats.get().hitRate();
+    }
 }
@@ -37,13 +37,18 @@ package org.aion.mcf.trie;
 import static org.aion.base.util.ByteArrayWrapper.wrap;
 import static org.aion.rlp.Value.fromRlpEncoded;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.aion.base.db.IByteArrayKeyValueStore;
 import org.aion.base.util.ByteArrayWrapper;
 import org.aion.crypto.HashUtil;
@@ -52,24 +57,69 @@ import org.aion.log.LogEnum;
 import org.aion.rlp.Value;
 import org.slf4j.Logger;
 
-/** Cache class */
+/**
+ * Cache class
+ *
+ * <p>Nodes are kept in a concurrent map so that reads and insertions from different threads do not
+ * contend on a single monitor. Reads, insertions and removals share the read side of {@link
+ * #commitLock}, while {@link #commit(boolean)}, {@link #undo()} and {@link
+ * #setDB(IByteArrayKeyValueStore)} take the write side, so that the batch written by a commit is a
+ * consistent view of the cache.
+ *
+ * <p>The number of clean nodes, i.e. nodes loaded from the database, is bounded by {@link
+ * #maxCleanNodes}. The least recently read clean nodes are evicted first. Dirty nodes are never
+ * evicted since they are only persisted by a commit. When a {@link CleanNodeCache} is set, clean
+ * nodes are kept there instead and survive commits.
+ */
 public class Cache {
 
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
 
-    private IByteArrayKeyValueStore dataSource;
-    private Map<ByteArrayWrapper, Node> nodes = new LinkedHashMap<>();
-    private Set<ByteArrayWrapper> removedNodes = new HashSet<>();
-    private boolean isDirty;
+    /** Default limit on the number of clean nodes kept in memory. */
+    public static final int DEFAULT_MAX_CLEAN_NODES = 100_000;
+
+    private volatile IByteArrayKeyValueStore dataSource;
+    private final Map<ByteArrayWrapper, Node> nodes = new ConcurrentHashMap<>();
+    private final Set<ByteArrayWrapper> removedNodes = ConcurrentHashMap.newKeySet();
+    private volatile boolean isDirty;
+
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+    private final int maxCleanNodes;
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+    private volatile CleanNodeCache cleanNodes = null;
 
     public Cache(IByteArrayKeyValueStore dataSource) {
+        this(dataSource, DEFAULT_MAX_CLEAN_NODES);
+    }
+
+    public Cache(IByteArrayKeyValueStore dataSource, int maxCleanNodes) {
         this.dataSource = dataSource;
+        this.maxCleanNodes = maxCleanNodes;
+    }
+
+    public void setCleanNodeCache(CleanNodeCache cleanNodes) {
+        this.cleanNodes = cleanNodes;
     }
 
-    public synchronized void markRemoved(byte[] key) {
-        ByteArrayWrapper keyW = new ByteArrayWrapper(key);
-        removedNodes.add(keyW);
-        nodes.remove(keyW);
+    public CleanNodeCache getCleanNodeCache() {
+        return cleanNodes;
+    }
+
+    /**
+     * Marks the node as removed so that it gets deleted from the database on the next commit.
+     *
+     * @implNote The node remains readable until the commit, since concurrent readers may still be
+     *     traversing a previous root that references it. Nodes are keyed by the hash of their
+     *     content, so the cached value can never be stale.
+     */
+    public void markRemoved(byte[] key) {
+        commitLock.readLock().lock();
+        try {
+            removedNodes.add(wrap(key));
+        } finally {
+            commitLock.readLock().unlock();
+        }
     }
 
     /**
@@ -78,36 +128,85 @@ public class Cache {
      * @param o the Node which could be a pair-, multi-item Node or single Value
      * @return keccak hash of RLP encoded node if length &gt; 32 otherwise return node itself
      */
-    public synchronized Object put(Object o) {
+    public Object put(Object o) {
         Value value = new Value(o);
         byte[] enc = value.encode();
         if (enc.length >= 32) {
-            byte[] sha = HashUtil.h256(value.encode());
+            byte[] sha = HashUtil.h256(enc);
             ByteArrayWrapper key = wrap(sha);
-            this.nodes.put(key, new Node(value, true));
-            this.removedNodes.remove(key);
-            this.isDirty = true;
+
+            commitLock.readLock().lock();
+            try {
+                this.nodes.put(key, new Node(value, true));
+                this.removedNodes.remove(key);
+                this.isDirty = true;
+            } finally {
+                commitLock.readLock().unlock();
+            }
 
             return sha;
         }
         return value;
     }
 
-    public synchronized Value get(byte[] key) {
+    public Value get(byte[] key) {
+        return get(key, -1);
+    }
+
+    /**
+     * Retrieves the node with the given hash.
+     *
+     * @param depth the level of the node in the trie, with the root at {@code 0}, or a negative
+     *     value if unknown; used to keep the top levels in the {@link CleanNodeCache}
+     */
+    public Value get(byte[] key, int depth) {
 
         ByteArrayWrapper wrappedKey = wrap(key);
         Node node = nodes.get(wrappedKey);
         if (node != null) {
             // cachehits++;
+            node.setLastRead(System.nanoTime());
             return node.getValue();
         }
-        if (this.dataSource != null) {
-            Optional<byte[]> data =
-                    (this.dataSource == null) ? Optional.empty() : this.dataSource.get(key);
+
+        CleanNodeCache clean = this.cleanNodes;
+        if (clean != null) {
+            Value val = clean.get(wrappedKey, depth);
+            if (val != null) {
+                return val;
+            }
+        }
+
+        IByteArrayKeyValueStore db = this.dataSource;
+        if (db != null) {
+            Optional<byte[]> data = db.get(key);
             if (data.isPresent()) {
                 // dbhits++;
                 Value val = fromRlpEncoded(data.get());
-                nodes.put(wrappedKey, new Node(val, false));
+                // decode before publishing, the lazy decoding of Value is not thread safe
+                if (val != null) {
+                    val.asObj();
+                }
+
+                if (clean != null && val != null) {
+                    clean.put(wrappedKey, val, depth);
+                    return val;
+                }
+
+                Node loaded = new Node(val, false);
+                loaded.setLastRead(System.nanoTime());
+
+                commitLock.readLock().lock();
+                try {
+                    // a dirty node inserted concurrently takes precedence
+                    nodes.putIfAbsent(wrappedKey, loaded);
+                } finally {
+                    commitLock.readLock().unlock();
+                }
+
+                if (nodes.size() > maxCleanNodes) {
+                    evictCleanNodes();
+                }
                 return val;
             }
         }
@@ -115,85 +214,141 @@ public class Cache {
         return null;
     }
 
-    public synchronized void delete(byte[] key) {
-        ByteArrayWrapper wrappedKey = wrap(key);
-        this.nodes.remove(wrappedKey);
+    /**
+     * Removes the least recently read clean nodes until the cache is back to three quarters of its
+     * limit. Only one thread evicts at a time; the others keep going without waiting.
+     */
+    private void evictCleanNodes() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+
+        commitLock.readLock().lock();
+        try {
+            int target = maxCleanNodes - (maxCleanNodes >> 2);
+
+            List<Map.Entry<ByteArrayWrapper, Node>> clean = new ArrayList<>();
+            for (Map.Entry<ByteArrayWrapper, Node> entry : nodes.entrySet()) {
+                if (!entry.getValue().isDirty()) {
+                    clean.add(entry);
+                }
+            }
+            clean.sort(Comparator.comparingLong(entry -> entry.getValue().getLastRead()));
 
-        if (dataSource != null) {
-            this.dataSource.delete(key);
+            Iterator<Map.Entry<ByteArrayWrapper, Node>> iter = clean.iterator();
+            while (iter.hasNext() && nodes.size() > target) {
+                Map.Entry<ByteArrayWrapper, Node> entry = iter.next();
+                // only succeeds if the node was not replaced in the meantime
+                nodes.remove(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            commitLock.readLock().unlock();
+            evicting.set(false);
         }
     }
 
-    public synchronized void commit() {
+    public void delete(byte[] key) {
+        commitLock.readLock().lock();
+        try {
+            ByteArrayWrapper wrappedKey = wrap(key);
+            this.nodes.remove(wrappedKey);
+            if (cleanNodes != null) {
+                cleanNodes.invalidate(wrappedKey);
+            }
+
+            if (dataSource != null) {
+                this.dataSource.delete(key);
+            }
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    public void commit() {
         commit(true);
     }
 
-    public synchronized void commit(boolean flushCache) {
-        // Don't try to commit if it isn't dirty
-        if ((dataSource == null) || !this.isDirty) {
-            // clear cache when flush requested
-            if (flushCache) {
-                this.nodes.clear();
+    public void commit(boolean flushCache) {
+        commitLock.writeLock().lock();
+        try {
+            // Don't try to commit if it isn't dirty
+            if ((dataSource == null) || !this.isDirty) {
+                // clear cache when flush requested
+                if (flushCache) {
+                    this.nodes.clear();
+                }
+                return;
             }
-            return;
-        }
 
-        // long start = System.nanoTime();
-        // int batchMemorySize = 0;
-        Map<byte[], byte[]> batch = new HashMap<>();
-        for (ByteArrayWrapper nodeKey : this.nodes.keySet()) {
-            Node node = this.nodes.get(nodeKey);
+            // long start = System.nanoTime();
+            // int batchMemorySize = 0;
+            Map<byte[], byte[]> batch = new HashMap<>();
+            for (Map.Entry<ByteArrayWrapper, Node> entry : this.nodes.entrySet()) {
+                Node node = entry.getValue();
 
-            if (node == null || node.isDirty()) {
-                byte[] value;
-                if (node != null) {
+                // nodes removed after being updated are only deleted, the batch is keyed by
+                // identity and would otherwise hold both operations in no particular order
+                if (node.isDirty() && !removedNodes.contains(entry.getKey())) {
                     node.setDirty(false);
-                    value = node.getValue().encode();
-                } else {
-                    value = null;
-                }
+                    byte[] key = entry.getKey().getData();
+                    byte[] value = node.getValue().encode();
 
-                byte[] key = nodeKey.getData();
+                    batch.put(key, value);
+                    // batchMemorySize += length(key, value);
 
-                batch.put(key, value);
-                // batchMemorySize += length(key, value);
+                    if (cleanNodes != null) {
+                        cleanNodes.put(entry.getKey(), node.getValue(), -1);
+                    }
+                }
+            }
+            for (ByteArrayWrapper removedNode : removedNodes) {
+                this.nodes.remove(removedNode);
+                batch.put(removedNode.getData(), null);
+
+                if (cleanNodes != null) {
+                    cleanNodes.invalidate(removedNode);
+                }
             }
-        }
-        for (ByteArrayWrapper removedNode : removedNodes) {
-            batch.put(removedNode.getData(), null);
-        }
 
-        this.dataSource.putBatch(batch);
-        this.isDirty = false;
-        if (flushCache) {
-            this.nodes.clear();
+            this.dataSource.putBatch(batch);
+            this.isDirty = false;
+            if (flushCache) {
+                this.nodes.clear();
+            }
+            this.removedNodes.clear();
+        } finally {
+            commitLock.writeLock().unlock();
         }
-        this.removedNodes.clear();
     }
 
-    public synchronized void undo() {
-        Iterator<Map.Entry<ByteArrayWrapper, Node>> iter = this.nodes.entrySet().iterator();
-        while (iter.hasNext()) {
-            if (iter.next().getValue().isDirty()) {
-                iter.remove();
+    public void undo() {
+        commitLock.writeLock().lock();
+        try {
+            Iterator<Map.Entry<ByteArrayWrapper, Node>> iter = this.nodes.entrySet().iterator();
+            while (iter.hasNext()) {
+                if (iter.next().getValue().isDirty()) {
+                    iter.remove();
+                }
             }
+            this.isDirty = false;
+        } finally {
+            commitLock.writeLock().unlock();
         }
-        this.isDirty = false;
     }
 
-    public synchronized boolean isDirty() {
+    public boolean isDirty() {
         return isDirty;
     }
 
-    public synchronized void setDirty(boolean isDirty) {
+    public void setDirty(boolean isDirty) {
         this.isDirty = isDirty;
     }
 
-    public synchronized Map<ByteArrayWrapper, Node> getNodes() {
+    public Map<ByteArrayWrapper, Node> getNodes() {
         return nodes;
     }
 
-    public synchronized IByteArrayKeyValueStore getDb() {
+    public IByteArrayKeyValueStore getDb() {
         return dataSource;
     }
 
@@ -213,7 +368,16 @@ public class Cache {
         return cacheDump.toString();
     }
 
-    public synchronized void setDB(IByteArrayKeyValueStore kvds) {
+    public void setDB(IByteArrayKeyValueStore kvds) {
+        commitLock.writeLock().lock();
+        try {
+            setDBInternal(kvds);
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    private void setDBInternal(IByteArrayKeyValueStore kvds) {
         if (this.dataSource == kvds) {
             return;
         }
@@ -222,9 +386,7 @@ public class Cache {
         if (this.dataSource == null) {
             for (ByteArrayWrapper key : nodes.keySet()) {
                 Node node = nodes.get(key);
-                if (node == null) {
-                    rows.put(key.getData(), null);
-                } else if (!node.isDirty()) {
+                if (node != null && !node.isDirty()) {
                     rows.put(key.getData(), node.getValue().encode());
                 }
             }
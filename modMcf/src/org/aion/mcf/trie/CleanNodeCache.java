@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.mcf.trie;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.rlp.Value;
+
+/**
+ * Cache of decoded trie nodes that were persisted to the database. Unlike the nodes held by {@link
+ * Cache}, the contents of this cache are kept across commits, so that frequently read nodes do not
+ * need to be loaded and decoded again for every block.
+ *
+ * <p>The cache is bounded by the approximate memory used by the encoded nodes. Nodes from the top
+ * levels of a trie are stored in a separate segment receiving a fixed share of the memory, so that
+ * they are not evicted by reads of the much more numerous nodes deeper in the trie.
+ *
+ * <p>Nodes are keyed by the hash of their encoding, which makes it safe to share one instance
+ * between the tries backed by the same database.
+ */
+public class CleanNodeCache {
+
+    /** Approximate per-entry overhead of the key, the map entry and the decoded value. */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    public static final int DEFAULT_PINNED_LEVELS = 3;
+
+    private final com.google.common.cache.Cache<ByteArrayWrapper, Value> pinned;
+    private final com.google.common.cache.Cache<ByteArrayWrapper, Value> nodes;
+    private final int pinnedLevels;
+
+    public CleanNodeCache() {
+        this(DEFAULT_MAX_BYTES, DEFAULT_PINNED_LEVELS);
+    }
+
+    /**
+     * @param maxBytes the approximate maximum memory used by the cached nodes
+     * @param pinnedLevels the number of trie levels, starting from the root, that are stored in the
+     *     protected segment which gets a quarter of the memory
+     */
+    public CleanNodeCache(long maxBytes, int pinnedLevels) {
+        long pinnedBytes = pinnedLevels > 0 ? maxBytes / 4 : 0;
+
+        this.pinnedLevels = pinnedLevels;
+        this.pinned = build(pinnedBytes);
+        this.nodes = build(maxBytes - pinnedBytes);
+    }
+
+    private static com.google.common.cache.Cache<ByteArrayWrapper, Value> build(long maxBytes) {
+        return CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher(
+                        (ByteArrayWrapper key, Value value) ->
+                                key.getData().length + value.encode().length + ENTRY_OVERHEAD)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Retrieves the node with the given hash. Nodes written to the database are cached without
+     * knowing their level, so they are moved to the pinned segment when read from one of the top
+     * levels.
+     *
+     * @param depth the level of the node in its trie, with the root at {@code 0}, or a negative
+     *     value if unknown
+     * @return the decoded node or {@code null} if it is not cached
+     */
+    public Value get(ByteArrayWrapper key, int depth) {
+        Value value = nodes.getIfPresent(key);
+        if (value == null) {
+            return pinned.getIfPresent(key);
+        }
+
+        if (isPinned(depth)) {
+            pinned.put(key, value);
+            nodes.invalidate(key);
+        }
+        return value;
+    }
+
+    private boolean isPinned(int depth) {
+        return depth >= 0 && depth < pinnedLevels;
+    }
+
+    /**
+     * Adds a node that was loaded from or written to the database.
+     *
+     * @param depth the level of the node in its trie, with the root at {@code 0}, or a negative
+     *     value if unknown
+     */
+    public void put(ByteArrayWrapper key, Value value, int depth) {
+        if (isPinned(depth)) {
+            pinned.put(key, value);
+            nodes.invalidate(key);
+        } else if (!pinned.asMap().containsKey(key)) {
+            nodes.put(key, value);
+        }
+    }
+
+    /** Removes a node that was deleted from the database. */
+    public void invalidate(ByteArrayWrapper key) {
+        nodes.invalidate(key);
+        pinned.invalidate(key);
+    }
+
+    public void clear() {
+        nodes.invalidateAll();
+        pinned.invalidateAll();
+    }
+
+    /** @return the number of cached nodes */
+    public long size() {
+        return nodes.size() + pinned.size();
+    }
+
+    /** @return the combined hit and miss counts of the cache */
+    public CacheStats getStats() {
+        CacheStats stats = nodes.stats();
+        CacheStats pinnedStats = pinned.stats();
+
+        // a miss in the main segment that was found in the pinned one counts as a hit
+        return new CacheStats(
+                stats.hitCount() + pinnedStats.hitCount(),
+                pinnedStats.missCount(),
+                0,
+                0,
+                0,
+                stats.evictionCount() + pinnedStats.evictionCount());
+    }
+
+    /** @return the hit rate of the cache */
+    public double getHitRate() {
+        return getStats().hitRate();
+    }
+}
@@ -34,6 +34,7 @@
  */
 package org.aion.mcf.trie;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -50,9 +51,14 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.aion.base.db.IByteArrayKeyValueDatabase;
 import org.aion.base.db.IByteArrayKeyValueStore;
 import org.aion.base.util.ByteArrayWrapper;
+import org.aion.base.util.ByteUtil;
+import org.aion.db.impl.DatabaseFactory;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.mcf.ds.ArchivedDataSource;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPElement;
+import org.aion.rlp.RLPList;
 import org.slf4j.Logger;
 
 /**
@@ -61,21 +67,71 @@ import org.slf4j.Logger;
  * [storeBlockChanges] call). When the [prune] is called for a block the deletes for this block are
  * submitted to the underlying DataSource with respect to following inserts. E.g. if the key was
  * deleted at block N and then inserted at block N + 10 this delete is not passed.
+ *
+ * <p>The reference counts and the changes of each block are kept in a separate journal store, so
+ * that they do not take up heap space and pruning resumes where it stopped after a restart. Only
+ * the changes of the current block and the index of the journaled blocks are kept in memory. The
+ * journal store has the layout:
+ *
+ * <ul>
+ *   <li>{@code REF_PREFIX + key} to the reference count of the key;
+ *   <li>{@code BLOCK_PREFIX + blockHash} to {@code [blockNumber, [insertedKey...],
+ *       [deletedKey...]]};
+ *   <li>{@code INDEX_KEY} to {@code [[blockHash, blockNumber]...]} for the journaled blocks.
+ * </ul>
  */
 public class JournalPruneDataSource implements IByteArrayKeyValueStore {
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
 
-    private class Updates {
+    private static final byte REF_PREFIX = 0;
+    private static final byte BLOCK_PREFIX = 1;
+    private static final byte[] INDEX_KEY = new byte[] {2};
+
+    private static class Updates {
         ByteArrayWrapper blockHeader;
         long blockNumber;
         Set<ByteArrayWrapper> insertedKeys = new HashSet<>();
         Set<ByteArrayWrapper> deletedKeys = new HashSet<>();
+
+        byte[] getEncoded() {
+            return RLP.encodeList(
+                    RLP.encodeLong(blockNumber), encodeKeys(insertedKeys), encodeKeys(deletedKeys));
+        }
+
+        static Updates decode(ByteArrayWrapper blockHash, byte[] encoded) {
+            RLPList list = (RLPList) RLP.decode2(encoded).get(0);
+
+            Updates updates = new Updates();
+            updates.blockHeader = blockHash;
+            updates.blockNumber = ByteUtil.byteArrayToLong(list.get(0).getRLPData());
+            decodeKeys((RLPList) list.get(1), updates.insertedKeys);
+            decodeKeys((RLPList) list.get(2), updates.deletedKeys);
+            return updates;
+        }
+
+        private static byte[] encodeKeys(Set<ByteArrayWrapper> keys) {
+            byte[][] encoded = new byte[keys.size()][];
+            int i = 0;
+            for (ByteArrayWrapper key : keys) {
+                encoded[i++] = RLP.encodeElement(key.getData());
+            }
+            return RLP.encodeList(encoded);
+        }
+
+        private static void decodeKeys(RLPList list, Set<ByteArrayWrapper> keys) {
+            for (RLPElement key : list) {
+                keys.add(ByteArrayWrapper.wrap(key.getRLPData()));
+            }
+        }
     }
 
     private static class Ref {
 
+        /** The length of the encoding: the journal references followed by the db flag. */
+        static final int ENCODED_LENGTH = Integer.BYTES + 1;
+
         boolean dbRef;
         int journalRefs;
 
@@ -83,6 +139,21 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
             this.dbRef = dbRef;
         }
 
+        byte[] getEncoded() {
+            return ByteBuffer.allocate(ENCODED_LENGTH)
+                    .putInt(journalRefs)
+                    .put((byte) (dbRef ? 1 : 0))
+                    .array();
+        }
+
+        static Ref decode(byte[] encoded) {
+            ByteBuffer buffer = ByteBuffer.wrap(encoded);
+            int journalRefs = buffer.getInt();
+            Ref ref = new Ref(buffer.get() != 0);
+            ref.journalRefs = journalRefs;
+            return ref;
+        }
+
         public int getTotRefs() {
             return journalRefs + (dbRef ? 1 : 0);
         }
@@ -93,18 +164,58 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
         }
     }
 
-    Map<ByteArrayWrapper, Ref> refCount = new HashMap<>();
-
     private IByteArrayKeyValueStore src;
-    // block hash => updates
-    private LinkedHashMap<ByteArrayWrapper, Updates> blockUpdates = new LinkedHashMap<>();
+    private final IByteArrayKeyValueStore journal;
+    // reference counts changed since the last write to the journal, null for removed counts
+    private final Map<ByteArrayWrapper, Ref> dirtyRefs = new HashMap<>();
+    // block hash => block number, for the blocks with updates in the journal
+    private final LinkedHashMap<ByteArrayWrapper, Long> blockUpdates = new LinkedHashMap<>();
     private Updates currentUpdates = new Updates();
     private AtomicBoolean enabled = new AtomicBoolean(false);
     private final boolean hasArchive;
+    private volatile CleanNodeCache cleanNodes = null;
 
+    /** Creates a data source whose journal is kept in memory and lost on shutdown. */
     public JournalPruneDataSource(IByteArrayKeyValueStore src) {
+        this(src, openInMemoryJournal());
+    }
+
+    /**
+     * Creates a data source whose journal is kept in the given store. The blocks already journaled
+     * in the store are pruned as if they had been stored by this instance.
+     */
+    public JournalPruneDataSource(IByteArrayKeyValueStore src, IByteArrayKeyValueStore journal) {
         this.src = src;
+        this.journal = journal;
         this.hasArchive = src instanceof ArchivedDataSource;
+        loadIndex();
+    }
+
+    /**
+     * Sets the cache of the nodes read from the source. The keys deleted from the source by {@link
+     * #storeBlockChanges(byte[], long)} and {@link #prune(byte[], long)} are removed from it, since
+     * they may have been read again after the trie removed them.
+     */
+    public void setCleanNodeCache(CleanNodeCache cleanNodes) {
+        this.cleanNodes = cleanNodes;
+    }
+
+    private static IByteArrayKeyValueStore openInMemoryJournal() {
+        IByteArrayKeyValueDatabase journal = DatabaseFactory.connect("journal");
+        journal.open();
+        return journal;
+    }
+
+    private void loadIndex() {
+        Optional<byte[]> index = journal.get(INDEX_KEY);
+        if (index.isPresent()) {
+            for (RLPElement entry : (RLPList) RLP.decode2(index.get()).get(0)) {
+                RLPList block = (RLPList) entry;
+                blockUpdates.put(
+                        ByteArrayWrapper.wrap(block.get(0).getRLPData()),
+                        ByteUtil.byteArrayToLong(block.get(1).getRLPData()));
+            }
+        }
     }
 
     public void setPruneEnabled(boolean _enabled) {
@@ -222,24 +333,68 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
         }
     }
 
+    private static byte[] journalKey(byte prefix, ByteArrayWrapper key) {
+        byte[] data = key.getData();
+        byte[] journalKey = new byte[data.length + 1];
+        journalKey[0] = prefix;
+        System.arraycopy(data, 0, journalKey, 1, data.length);
+        return journalKey;
+    }
+
+    private Ref getRef(ByteArrayWrapper keyW) {
+        if (dirtyRefs.containsKey(keyW)) {
+            return dirtyRefs.get(keyW);
+        }
+        return journal.get(journalKey(REF_PREFIX, keyW)).map(Ref::decode).orElse(null);
+    }
+
     private void incRef(ByteArrayWrapper keyW) {
-        Ref cnt = refCount.get(keyW);
+        Ref cnt = getRef(keyW);
         if (cnt == null) {
             cnt = new Ref(src.get(keyW.getData()).isPresent());
-            refCount.put(keyW, cnt);
         }
         cnt.journalRefs++;
+        dirtyRefs.put(keyW, cnt);
     }
 
     private Ref decRef(ByteArrayWrapper keyW) {
-        Ref cnt = refCount.get(keyW);
+        Ref cnt = getRef(keyW);
         cnt.journalRefs -= 1;
-        if (cnt.journalRefs == 0) {
-            refCount.remove(keyW);
-        }
+        dirtyRefs.put(keyW, cnt.journalRefs == 0 ? null : cnt);
         return cnt;
     }
 
+    /**
+     * Writes the changed reference counts and the block index to the journal together with the
+     * given block changes, in a single batch.
+     */
+    private void writeJournal(Map<byte[], byte[]> batch) {
+        for (Map.Entry<ByteArrayWrapper, Ref> entry : dirtyRefs.entrySet()) {
+            Ref ref = entry.getValue();
+            batch.put(
+                    journalKey(REF_PREFIX, entry.getKey()), ref == null ? null : ref.getEncoded());
+        }
+        dirtyRefs.clear();
+
+        byte[][] index = new byte[blockUpdates.size()][];
+        int i = 0;
+        for (Map.Entry<ByteArrayWrapper, Long> entry : blockUpdates.entrySet()) {
+            index[i++] =
+                    RLP.encodeList(
+                            RLP.encodeElement(entry.getKey().getData()),
+                            RLP.encodeLong(entry.getValue()));
+        }
+        batch.put(INDEX_KEY, RLP.encodeList(index));
+
+        journal.putBatch(batch);
+    }
+
+    private Updates loadUpdates(ByteArrayWrapper blockHash) {
+        return journal.get(journalKey(BLOCK_PREFIX, blockHash))
+                .map(encoded -> Updates.decode(blockHash, encoded))
+                .orElse(null);
+    }
+
     public void storeBlockChanges(byte[] blockHash, long blockNumber) {
         if (!enabled.get()) {
             return;
@@ -251,7 +406,42 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
             ByteArrayWrapper hash = ByteArrayWrapper.wrap(blockHash);
             currentUpdates.blockHeader = hash;
             currentUpdates.blockNumber = blockNumber;
-            blockUpdates.put(hash, currentUpdates);
+
+            Map<byte[], byte[]> batch = new HashMap<>();
+            List<byte[]> batchRemove = new ArrayList<>();
+
+            // a block imported again, e.g. after a crash before the block was stored, replaces the
+            // changes of the previous import, whose references are released first
+            if (blockUpdates.containsKey(hash)) {
+                Updates previous = loadUpdates(hash);
+                if (previous != null) {
+                    releaseInserts(previous, batchRemove);
+                }
+            }
+
+            blockUpdates.put(hash, blockNumber);
+            batch.put(journalKey(BLOCK_PREFIX, hash), currentUpdates.getEncoded());
+
+            deleteFromSource(batchRemove);
+            writeJournal(batch);
+
+            currentUpdates = new Updates();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Discards the journal, for when the source data is rebuilt from scratch. */
+    public void clearJournal() {
+        lock.writeLock().lock();
+
+        try {
+            Map<byte[], byte[]> batch = new HashMap<>();
+            journal.keys().forEachRemaining(key -> batch.put(key, null));
+            journal.putBatch(batch);
+
+            dirtyRefs.clear();
+            blockUpdates.clear();
             currentUpdates = new Updates();
         } finally {
             lock.writeLock().unlock();
@@ -267,55 +457,75 @@ public class JournalPruneDataSource implements IByteArrayKeyValueStore {
 
         try {
             ByteArrayWrapper blockHashW = ByteArrayWrapper.wrap(blockHash);
-            Updates updates = blockUpdates.remove(blockHashW);
-            if (updates != null) {
+            if (blockUpdates.remove(blockHashW) != null) {
+                Updates updates = loadUpdates(blockHashW);
+                Map<byte[], byte[]> batch = new HashMap<>();
+                batch.put(journalKey(BLOCK_PREFIX, blockHashW), null);
+
                 for (ByteArrayWrapper insertedKey : updates.insertedKeys) {
                     decRef(insertedKey).dbRef = true;
                 }
 
                 List<byte[]> batchRemove = new ArrayList<>();
                 for (ByteArrayWrapper key : updates.deletedKeys) {
-                    Ref ref = refCount.get(key);
+                    Ref ref = getRef(key);
                     if (ref == null || ref.journalRefs == 0) {
                         batchRemove.add(key.getData());
-                    } else if (ref != null) {
+                    } else {
                         ref.dbRef = false;
+                        dirtyRefs.put(key, ref);
                     }
                 }
-                src.deleteBatch(batchRemove);
 
-                rollbackForkBlocks(blockNumber);
+                rollbackForkBlocks(blockNumber, batch, batchRemove);
+
+                // the journal is written last, so that an interrupted prune is repeated in full
+                deleteFromSource(batchRemove);
+                writeJournal(batch);
             }
         } finally {
             lock.writeLock().unlock();
         }
     }
 
-    private void rollbackForkBlocks(long blockNum) {
-        for (Updates updates : new ArrayList<>(blockUpdates.values())) {
-            if (updates.blockNumber == blockNum) {
-                rollback(updates.blockHeader);
+    private void deleteFromSource(List<byte[]> keys) {
+        src.deleteBatch(keys);
+
+        CleanNodeCache clean = this.cleanNodes;
+        if (clean != null) {
+            keys.forEach(key -> clean.invalidate(ByteArrayWrapper.wrap(key)));
+        }
+    }
+
+    private void rollbackForkBlocks(
+            long blockNum, Map<byte[], byte[]> batch, List<byte[]> batchRemove) {
+        for (Map.Entry<ByteArrayWrapper, Long> entry : new ArrayList<>(blockUpdates.entrySet())) {
+            if (entry.getValue() == blockNum) {
+                rollback(entry.getKey(), batch, batchRemove);
             }
         }
     }
 
-    private void rollback(ByteArrayWrapper blockHashW) {
-        Updates updates = blockUpdates.remove(blockHashW);
-        List<byte[]> batchRemove = new ArrayList<>();
+    private void rollback(
+            ByteArrayWrapper blockHashW, Map<byte[], byte[]> batch, List<byte[]> batchRemove) {
+        blockUpdates.remove(blockHashW);
+        Updates updates = loadUpdates(blockHashW);
+        batch.put(journalKey(BLOCK_PREFIX, blockHashW), null);
+        releaseInserts(updates, batchRemove);
+    }
+
+    /** Releases the references of the inserts of a block, removing the keys no longer used. */
+    private void releaseInserts(Updates updates, List<byte[]> batchRemove) {
         for (ByteArrayWrapper insertedKey : updates.insertedKeys) {
             Ref ref = decRef(insertedKey);
             if (ref.getTotRefs() == 0) {
                 batchRemove.add(insertedKey.getData());
             }
         }
-        src.deleteBatch(batchRemove);
-    }
-
-    public Map<ByteArrayWrapper, Ref> getRefCount() {
-        return refCount;
     }
 
-    public LinkedHashMap<ByteArrayWrapper, Updates> getBlockUpdates() {
+    /** Returns the hashes and numbers of the blocks with updates in the journal. */
+    public Map<ByteArrayWrapper, Long> getBlockUpdates() {
         return blockUpdates;
     }
 
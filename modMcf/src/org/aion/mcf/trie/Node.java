@@ -72,6 +72,8 @@ public class Node {
     /* RLP encoded value of the Trie-node */
     private final Value value;
     private boolean dirty;
+    /* Time of the last read through the cache, used to evict the least recently read nodes */
+    private volatile long lastRead;
 
     public Node(Value val) {
         this(val, false);
@@ -98,6 +100,14 @@ public class Node {
         return value;
     }
 
+    public long getLastRead() {
+        return lastRead;
+    }
+
+    public void setLastRead(long lastRead) {
+        this.lastRead = lastRead;
+    }
+
     @Override
     public String toString() {
         return "[" + dirty + ", " + value + "]";
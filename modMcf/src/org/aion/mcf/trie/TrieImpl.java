@@ -106,7 +106,7 @@ public class TrieImpl implements Trie {
     private static int MAX_SIZE = 20;
 
     @Deprecated private Object prevRoot;
-    private Object root;
+    private volatile Object root;
     private Cache cache;
 
     private boolean pruningEnabled;
@@ -173,19 +173,33 @@ public class TrieImpl implements Trie {
         return this;
     }
 
+    /**
+     * Keeps the nodes of this trie that are persisted to the database in the given cache across
+     * commits. The cache may be shared with other tries backed by the same database.
+     */
+    public TrieImpl withCleanNodeCache(CleanNodeCache cleanNodes) {
+        this.cache.setCleanNodeCache(cleanNodes);
+        return this;
+    }
+
     /** Retrieve a value from a key as String. */
     public byte[] get(String key) {
         return this.get(key.getBytes());
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @implNote Reads do not synchronize on the cache: the traversal starts from the root at the
+     *     time of the call and the nodes it visits are immutable, so it may run concurrently with
+     *     updates.
+     */
     @Override
     public byte[] get(byte[] key) {
-        synchronized (cache) {
-            byte[] k = binToNibbles(key);
-            Value c = new Value(this.get(this.root, k));
+        byte[] k = binToNibbles(key);
+        Value c = new Value(this.get(this.root, k));
 
-            return c.asBytes();
-        }
+        return c.asBytes();
     }
 
     /** Insert key/value pair into trie. */
@@ -244,33 +258,32 @@ public class TrieImpl implements Trie {
     }
 
     private Object get(Object node, byte[] key) {
-        synchronized (cache) {
-            int keypos = 0;
-            while (key.length - keypos != 0 && !isEmptyNode(node)) {
-                Value currentNode = this.getNode(node);
-                if (currentNode == null) {
-                    return null;
-                }
+        int keypos = 0;
+        int depth = 0;
+        while (key.length - keypos != 0 && !isEmptyNode(node)) {
+            Value currentNode = this.getNode(node, depth++);
+            if (currentNode == null) {
+                return null;
+            }
 
-                if (currentNode.length() == PAIR_SIZE) {
-                    // Decode the key
-                    byte[] k = unpackToNibbles(currentNode.get(0).asBytes());
-                    Object v = currentNode.get(1).asObj();
+            if (currentNode.length() == PAIR_SIZE) {
+                // Decode the key
+                byte[] k = unpackToNibbles(currentNode.get(0).asBytes());
+                Object v = currentNode.get(1).asObj();
 
-                    if (key.length - keypos >= k.length
-                            && Arrays.equals(k, copyOfRange(key, keypos, k.length + keypos))) {
-                        node = v;
-                        keypos += k.length;
-                    } else {
-                        return "";
-                    }
+                if (key.length - keypos >= k.length
+                        && Arrays.equals(k, copyOfRange(key, keypos, k.length + keypos))) {
+                    node = v;
+                    keypos += k.length;
                 } else {
-                    node = currentNode.get(key[keypos]).asObj();
-                    keypos++;
+                    return "";
                 }
+            } else {
+                node = currentNode.get(key[keypos]).asObj();
+                keypos++;
             }
-            return node;
         }
+        return node;
     }
 
     private Object insertOrDelete(Object node, byte[] key, byte[] value) {
@@ -465,6 +478,14 @@ public class TrieImpl implements Trie {
      * get the actual node from the db.
      */
     private Value getNode(Object node) {
+        return getNode(node, -1);
+    }
+
+    /**
+     * @param depth the level of the node in the trie, with the root at {@code 0}, or a negative
+     *     value if unknown
+     */
+    private Value getNode(Object node, int depth) {
 
         Value val = new Value(node);
 
@@ -480,7 +501,7 @@ public class TrieImpl implements Trie {
         } else if (keyBytes.length < 32) {
             return new Value(keyBytes);
         }
-        return this.cache.get(keyBytes);
+        return this.cache.get(keyBytes, depth);
     }
 
     private Object putToCache(Object node) {
@@ -28,7 +28,7 @@ import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import org.aion.base.type.IBlock;
 import org.aion.base.type.IBlockHeader;
-import org.aion.rlp.RLP;
+import org.aion.rlp.RLPEncoder;
 
 /** Abstract Block class. */
 public abstract class AbstractBlock<BH extends IBlockHeader, TX extends AbstractTransaction>
@@ -58,9 +58,12 @@ public abstract class AbstractBlock<BH extends IBlockHeader, TX extends Abstract
     }
 
     public byte[] getEncodedBody() {
-        List<byte[]> body = getBodyElements();
-        byte[][] elements = body.toArray(new byte[body.size()][]);
-        return RLP.encodeList(elements);
+        parseRLP();
+        try (RLPEncoder encoder = RLPEncoder.acquire()) {
+            encoder.startList();
+            encodeTransactions(encoder);
+            return encoder.endList().toByteArray();
+        }
     }
 
     public List<byte[]> getBodyElements() {
@@ -72,13 +75,18 @@ public abstract class AbstractBlock<BH extends IBlockHeader, TX extends Abstract
     }
 
     public byte[] getTransactionsEncoded() {
+        try (RLPEncoder encoder = RLPEncoder.acquire()) {
+            encodeTransactions(encoder);
+            return encoder.toByteArray();
+        }
+    }
 
-        byte[][] transactionsEncoded = new byte[transactionsList.size()][];
-        int i = 0;
+    /** Writes the list of the encoded transactions of the block to the encoder. */
+    protected void encodeTransactions(RLPEncoder encoder) {
+        encoder.startList();
         for (TX tx : transactionsList) {
-            transactionsEncoded[i] = tx.getEncoded();
-            ++i;
+            encoder.writeEncoded(tx.getEncoded());
         }
-        return RLP.encodeList(transactionsEncoded);
+        encoder.endList();
     }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.mcf.valid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.aion.mcf.types.AbstractBlockHeader;
+import org.slf4j.Logger;
+
+/**
+ * Validates batches of block headers with a {@link BlockHeaderValidator}, spreading the headers of
+ * a batch across a pool of worker threads and the calling thread.
+ *
+ * <p>The headers are claimed one at a time by the threads, in order. Once a header fails
+ * validation, the headers after it are no longer validated, while the ones before it still are,
+ * so that the result is always the first invalid header of the batch.
+ */
+public class BatchHeaderValidator<BH extends AbstractBlockHeader> {
+
+    private final BlockHeaderValidator<BH> validator;
+    private final int threads;
+    private final ExecutorService workers;
+
+    /**
+     * @param validator the validator applied to each header
+     * @param threads the number of threads validating a batch, including the calling thread
+     */
+    public BatchHeaderValidator(BlockHeaderValidator<BH> validator, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive.");
+        }
+
+        this.validator = validator;
+        this.threads = threads;
+        this.workers =
+                threads == 1
+                        ? null
+                        : Executors.newFixedThreadPool(
+                                threads - 1,
+                                new ThreadFactory() {
+
+                                    private AtomicInteger cnt = new AtomicInteger(0);
+
+                                    @Override
+                                    public Thread newThread(Runnable r) {
+                                        Thread t =
+                                                new Thread(
+                                                        r, "header-valid-" + cnt.incrementAndGet());
+                                        t.setDaemon(true);
+                                        return t;
+                                    }
+                                });
+    }
+
+    /**
+     * Validates the given headers, returning as soon as the first invalid header is known.
+     *
+     * @param headers the headers to validate
+     * @param logger the logger for the validation errors, or {@code null}
+     * @return the index of the first invalid header, or {@code -1} if all the headers are valid
+     */
+    public int validate(List<BH> headers, Logger logger) {
+        int size = headers.size();
+        AtomicInteger next = new AtomicInteger(0);
+        AtomicInteger firstInvalid = new AtomicInteger(size);
+        Runnable task = () -> validateNext(headers, logger, next, firstInvalid);
+
+        int helpers = workers == null ? 0 : Math.min(threads - 1, size - 1);
+        List<Future<?>> futures = new ArrayList<>(helpers);
+        try {
+            for (int i = 0; i < helpers; i++) {
+                futures.add(workers.submit(task));
+            }
+        } catch (RejectedExecutionException e) {
+            // shut down: the remaining headers are validated by the calling thread
+        }
+
+        task.run();
+
+        // all the headers are claimed, wait for the ones still being validated
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // the batch cannot be trusted without the result of every header
+                return 0;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        int index = firstInvalid.get();
+        return index == size ? -1 : index;
+    }
+
+    private void validateNext(
+            List<BH> headers, Logger logger, AtomicInteger next, AtomicInteger firstInvalid) {
+        int index;
+        while ((index = next.getAndIncrement()) < firstInvalid.get()) {
+            if (!isValid(headers.get(index), logger)) {
+                firstInvalid.accumulateAndGet(index, Math::min);
+            }
+        }
+    }
+
+    private boolean isValid(BH header, Logger logger) {
+        try {
+            return validator.validate(header, logger);
+        } catch (RuntimeException e) {
+            // ex. missing fields in headers received from the network
+            if (logger != null) {
+                logger.error("Header validation failed with an exception.", e);
+            }
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.aion.base.util.Hex;
 import org.aion.crypto.HashUtil;
 import org.aion.rlp.RLP;
 import org.aion.rlp.RLPElement;
+import org.aion.rlp.RLPEncoder;
 import org.aion.rlp.RLPItem;
 import org.aion.rlp.RLPList;
 
@@ -76,26 +77,25 @@ public class Log {
 
     /* [address, [topic, topic ...] data] */
     public byte[] getEncoded() {
-
-        byte[] addressEncoded;
-        if (this.addr == null) {
-            addressEncoded = RLP.encodeElement(null);
-        } else {
-            addressEncoded = RLP.encodeElement(this.addr.toBytes());
+        try (RLPEncoder encoder = RLPEncoder.acquire()) {
+            encode(encoder);
+            return encoder.toByteArray();
         }
+    }
+
+    /** Writes the encoding of the log, as returned by {@link #getEncoded()}, to the encoder. */
+    public void encode(RLPEncoder encoder) {
+        encoder.startList().writeElement(this.addr == null ? null : this.addr.toBytes());
 
-        byte[][] topicsEncoded = null;
+        encoder.startList();
         if (topics != null) {
-            topicsEncoded = new byte[topics.size()][];
-            int i = 0;
             for (byte[] topic : topics) {
-                topicsEncoded[i] = RLP.encodeElement(topic);
-                ++i;
+                encoder.writeElement(topic);
             }
         }
+        encoder.endList();
 
-        byte[] dataEncoded = RLP.encodeElement(data);
-        return RLP.encodeList(addressEncoded, RLP.encodeList(topicsEncoded), dataEncoded);
+        encoder.writeElement(data).endList();
     }
 
     public Bloom getBloom() {
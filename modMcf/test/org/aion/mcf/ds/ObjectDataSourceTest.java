@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+package org.aion.mcf.ds;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.aion.base.db.IByteArrayKeyValueDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for the cache of deserialized objects in {@link ObjectDataSource}. */
+public class ObjectDataSourceTest {
+
+    private static final byte[] KEY = "key".getBytes(StandardCharsets.UTF_8);
+
+    private IByteArrayKeyValueDatabase db;
+    private AtomicInteger deserialized;
+    private ObjectDataSource<String> source;
+
+    @Before
+    public void beforeTest() {
+        db = new MockDB("test_database");
+        db.open();
+        deserialized = new AtomicInteger();
+        source =
+                new ObjectDataSource<>(
+                        db,
+                        new Serializer<String, byte[]>() {
+                            @Override
+                            public byte[] serialize(String value) {
+                                return value.getBytes(StandardCharsets.UTF_8);
+                            }
+
+                            @Override
+                            public String deserialize(byte[] bytes) {
+                                deserialized.incrementAndGet();
+                                return new String(bytes, StandardCharsets.UTF_8);
+                            }
+                        },
+                        2);
+    }
+
+    @After
+    public void afterTest() {
+        db.close();
+    }
+
+    @Test
+    public void testRepeatedGetIsCached() {
+        source.put(KEY, "a");
+
+        assertThat(source.get(KEY)).isEqualTo("a");
+        assertThat(source.get(KEY)).isEqualTo("a");
+        assertThat(deserialized.get()).isEqualTo(1);
+        assertThat(source.getCacheStats().hitCount()).isEqualTo(1);
+        assertThat(source.getCacheStats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testMissingKeyIsNotCached() {
+        assertThat(source.get(KEY)).isNull();
+        assertThat(source.getIfCached(KEY)).isNull();
+
+        source.put(KEY, "a");
+        assertThat(source.get(KEY)).isEqualTo("a");
+    }
+
+    @Test
+    public void testPutInvalidates() {
+        source.put(KEY, "a");
+        assertThat(source.get(KEY)).isEqualTo("a");
+
+        source.put(KEY, "b");
+        assertThat(source.getIfCached(KEY)).isNull();
+        assertThat(source.get(KEY)).isEqualTo("b");
+
+        source.putToBatch(KEY, "c");
+        source.flushBatch();
+        assertThat(source.get(KEY)).isEqualTo("c");
+    }
+
+    @Test
+    public void testDeleteInvalidates() {
+        source.put(KEY, "a");
+        assertThat(source.get(KEY)).isEqualTo("a");
+
+        source.delete(KEY);
+        assertThat(source.get(KEY)).isNull();
+
+        source.put(KEY, "a");
+        assertThat(source.get(KEY)).isEqualTo("a");
+        source.putToBatch(KEY, null);
+        source.flushBatch();
+        assertThat(source.get(KEY)).isNull();
+    }
+
+    @Test
+    public void testCacheDisabled() {
+        ObjectDataSource<String> uncached = new ObjectDataSource<>(db, source.serializer);
+        uncached.put(KEY, "a");
+
+        assertThat(uncached.get(KEY)).isEqualTo("a");
+        assertThat(uncached.get(KEY)).isEqualTo("a");
+        assertThat(deserialized.get()).isEqualTo(2);
+        assertThat(uncached.getIfCached(KEY)).isNull();
+        assertThat(uncached.getCacheStats().requestCount()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.mcf.trie;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.db.impl.mockdb.MockDB;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CacheTest {
+
+    private MockDB db;
+
+    @Before
+    public void open() {
+        db = new MockDB("CacheTest");
+        assertThat(db.open()).isTrue();
+    }
+
+    @After
+    public void close() {
+        db.close();
+    }
+
+    /** @return a value long enough to be stored under its hash */
+    private static byte[] value(int i) {
+        byte[] value = new byte[40];
+        value[0] = (byte) i;
+        return value;
+    }
+
+    @Test
+    public void testCommitNodeRemovedAfterUpdate() {
+        Cache cache = new Cache(db);
+        byte[] kept = (byte[]) cache.put(value(1));
+        byte[] removed = (byte[]) cache.put(value(2));
+        cache.commit();
+        assertThat(db.get(removed).isPresent()).isTrue();
+
+        // updated again and then removed before the next commit
+        assertThat(cache.put(value(2))).isEqualTo(removed);
+        cache.markRemoved(removed);
+        cache.commit();
+
+        assertThat(db.get(kept).isPresent()).isTrue();
+        assertThat(db.get(removed).isPresent()).isFalse();
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyRead() {
+        byte[][] keys = new byte[10][];
+        Cache writer = new Cache(db);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (byte[]) writer.put(value(i));
+        }
+        writer.commit();
+
+        Cache cache = new Cache(db, 8);
+        for (int i = 0; i < 8; i++) {
+            assertThat(cache.get(keys[i])).isNotNull();
+        }
+        // the first nodes are read again, so the next ones are the least recently read
+        cache.get(keys[0]);
+        cache.get(keys[1]);
+
+        // passing the limit evicts down to three quarters of it
+        assertThat(cache.get(keys[8])).isNotNull();
+        assertThat(cache.getSize()).isEqualTo(6);
+
+        assertThat(cache.getNodes()).containsKey(ByteArrayWrapper.wrap(keys[0]));
+        assertThat(cache.getNodes()).containsKey(ByteArrayWrapper.wrap(keys[1]));
+        assertThat(cache.getNodes()).containsKey(ByteArrayWrapper.wrap(keys[8]));
+        for (int i = 2; i < 5; i++) {
+            assertThat(cache.getNodes()).doesNotContainKey(ByteArrayWrapper.wrap(keys[i]));
+        }
+    }
+}
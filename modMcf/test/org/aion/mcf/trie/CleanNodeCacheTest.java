@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.mcf.trie;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.aion.base.util.ByteArrayWrapper;
+import org.aion.crypto.HashUtil;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.rlp.Value;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CleanNodeCacheTest {
+
+    private MockDB db;
+
+    @Before
+    public void open() {
+        db = new MockDB("CleanNodeCacheTest");
+        assertThat(db.open()).isTrue();
+    }
+
+    @After
+    public void close() {
+        db.close();
+    }
+
+    private static byte[] key(int i) {
+        return HashUtil.h256(Integer.toString(i).getBytes());
+    }
+
+    @Test
+    public void testNodesSurviveCommit() {
+        CleanNodeCache cleanNodes = new CleanNodeCache();
+        TrieImpl trie = new SecureTrie(db).withCleanNodeCache(cleanNodes);
+
+        for (int i = 0; i < 100; i++) {
+            trie.update(key(i), key(i));
+        }
+        trie.sync(true);
+
+        assertThat(trie.getCache().getSize()).isEqualTo(0);
+        assertThat(cleanNodes.size()).isGreaterThan(0L);
+
+        long misses = cleanNodes.getStats().missCount();
+        for (int i = 0; i < 100; i++) {
+            assertThat(trie.get(key(i))).isEqualTo(key(i));
+        }
+
+        // all the nodes were written by the commit
+        assertThat(cleanNodes.getStats().missCount()).isEqualTo(misses);
+        assertThat(cleanNodes.getStats().hitCount()).isGreaterThan(0L);
+    }
+
+    @Test
+    public void testNodesSharedBetweenTries() {
+        CleanNodeCache cleanNodes = new CleanNodeCache();
+        TrieImpl trie = new SecureTrie(db).withCleanNodeCache(cleanNodes);
+
+        for (int i = 0; i < 100; i++) {
+            trie.update(key(i), key(i));
+        }
+        trie.sync(true);
+
+        TrieImpl other = new SecureTrie(db, trie.getRootHash()).withCleanNodeCache(cleanNodes);
+        long misses = cleanNodes.getStats().missCount();
+        for (int i = 0; i < 100; i++) {
+            assertThat(other.get(key(i))).isEqualTo(key(i));
+        }
+        assertThat(cleanNodes.getStats().missCount()).isEqualTo(misses);
+    }
+
+    @Test
+    public void testRemovedNodesAreInvalidated() {
+        CleanNodeCache cleanNodes = new CleanNodeCache();
+        TrieImpl trie = new TrieImpl(db).withCleanNodeCache(cleanNodes).withPruningEnabled(true);
+
+        for (int i = 0; i < 10; i++) {
+            trie.update(key(i), key(i));
+        }
+        trie.sync(true);
+        byte[] oldRoot = trie.getRootHash();
+        assertThat(cleanNodes.get(ByteArrayWrapper.wrap(oldRoot), -1)).isNotNull();
+
+        trie.update(key(0), key(1));
+        trie.sync(true);
+
+        assertThat(cleanNodes.get(ByteArrayWrapper.wrap(oldRoot), -1)).isNull();
+        assertThat(db.get(oldRoot).isPresent()).isFalse();
+    }
+
+    @Test
+    public void testPrunedNodesAreInvalidated() {
+        CleanNodeCache cleanNodes = new CleanNodeCache();
+        JournalPruneDataSource pruneDS = new JournalPruneDataSource(db);
+        pruneDS.setPruneEnabled(true);
+        pruneDS.setCleanNodeCache(cleanNodes);
+        TrieImpl trie =
+                new TrieImpl(pruneDS).withCleanNodeCache(cleanNodes).withPruningEnabled(true);
+
+        for (int i = 0; i < 10; i++) {
+            trie.update(key(i), key(i));
+        }
+        trie.sync(true);
+        pruneDS.storeBlockChanges(key(-1), 0);
+        byte[] oldRoot = trie.getRootHash();
+
+        trie.update(key(0), key(1));
+        trie.sync(true);
+        pruneDS.storeBlockChanges(key(-2), 1);
+
+        // read again from the database before it is pruned
+        assertThat(trie.isValidRoot(oldRoot)).isTrue();
+        assertThat(cleanNodes.get(ByteArrayWrapper.wrap(oldRoot), -1)).isNotNull();
+
+        pruneDS.prune(key(-1), 0);
+        pruneDS.prune(key(-2), 1);
+
+        assertThat(db.get(oldRoot).isPresent()).isFalse();
+        assertThat(cleanNodes.get(ByteArrayWrapper.wrap(oldRoot), -1)).isNull();
+        assertThat(trie.isValidRoot(oldRoot)).isFalse();
+    }
+
+    @Test
+    public void testPinnedNodesAreNotEvicted() {
+        // room for very few nodes in the main segment
+        CleanNodeCache cleanNodes = new CleanNodeCache(4096, 1);
+
+        ByteArrayWrapper root = ByteArrayWrapper.wrap(key(-1));
+        Value rootValue = new Value(key(-1));
+        cleanNodes.put(root, rootValue, 0);
+
+        for (int i = 0; i < 1000; i++) {
+            cleanNodes.put(ByteArrayWrapper.wrap(key(i)), new Value(key(i)), 5);
+        }
+
+        assertThat(cleanNodes.get(root, 0)).isEqualTo(rootValue);
+        assertThat(cleanNodes.getStats().evictionCount()).isGreaterThan(0L);
+    }
+
+    @Test
+    public void testPromotionToPinnedSegment() {
+        CleanNodeCache cleanNodes = new CleanNodeCache(4096, 1);
+
+        ByteArrayWrapper root = ByteArrayWrapper.wrap(key(-1));
+        Value rootValue = new Value(key(-1));
+
+        // written by a commit, level unknown
+        cleanNodes.put(root, rootValue, -1);
+        // read as the root of a trie
+        assertThat(cleanNodes.get(root, 0)).isEqualTo(rootValue);
+
+        for (int i = 0; i < 1000; i++) {
+            cleanNodes.put(ByteArrayWrapper.wrap(key(i)), new Value(key(i)), -1);
+        }
+
+        assertThat(cleanNodes.get(root, 0)).isEqualTo(rootValue);
+    }
+}
@@ -1568,4 +1568,110 @@ public class JournalPruneDataSourceTest {
         assertThat(source_db.get(k5).get()).isEqualTo(v5);
         assertThat(source_db.get(k6).get()).isEqualTo(v6);
     }
+
+    @Test
+    public void pruningTest_wRestart() {
+        IByteArrayKeyValueDatabase journal = DatabaseFactory.connect("TestJournal");
+        assertThat(journal.open()).isTrue();
+        db = new JournalPruneDataSource(source_db, journal);
+        db.setPruneEnabled(true);
+
+        // block 0
+        db.put(k1, v1);
+        db.put(k2, v2);
+        db.storeBlockChanges(b0, 0);
+
+        // block 1
+        db.delete(k1);
+        db.put(k3, v3);
+        db.storeBlockChanges(b1, 1);
+
+        // block 2
+        db.put(k1, v1);
+        db.delete(k2);
+        db.storeBlockChanges(b2, 2);
+
+        // restart with the same journal
+        db = new JournalPruneDataSource(source_db, journal);
+        db.setPruneEnabled(true);
+        assertThat(db.getBlockUpdates().size()).isEqualTo(3);
+
+        // prune block 0
+        db.prune(b0, 0);
+        assertThat(db.getBlockUpdates().size()).isEqualTo(2);
+
+        // prune block 1
+        db.prune(b1, 1);
+        assertThat(db.getBlockUpdates().size()).isEqualTo(1);
+
+        // not deleted due to block 2 insert
+        assertThat(source_db.get(k1).get()).isEqualTo(v1);
+        assertThat(source_db.get(k3).get()).isEqualTo(v3);
+
+        // restart again after pruning
+        db = new JournalPruneDataSource(source_db, journal);
+        db.setPruneEnabled(true);
+        assertThat(db.getBlockUpdates().size()).isEqualTo(1);
+
+        // prune block 2
+        db.prune(b2, 2);
+        assertThat(db.getBlockUpdates().size()).isEqualTo(0);
+
+        assertThat(source_db.get(k1).get()).isEqualTo(v1);
+        assertThat(source_db.get(k2).isPresent()).isFalse();
+        assertThat(source_db.get(k3).get()).isEqualTo(v3);
+
+        // only the empty block index is left in the journal
+        Iterator<byte[]> keys = journal.keys();
+        assertThat(keys.next()).isEqualTo(new byte[] {2});
+        assertThat(keys.hasNext()).isFalse();
+        journal.close();
+    }
+
+    @Test
+    public void pruningTest_wReimportAfterCrash() {
+        IByteArrayKeyValueDatabase journal = DatabaseFactory.connect("TestJournal");
+        assertThat(journal.open()).isTrue();
+        db = new JournalPruneDataSource(source_db, journal);
+        db.setPruneEnabled(true);
+
+        // block 0
+        db.put(k1, v1);
+        db.put(k2, v2);
+        db.storeBlockChanges(b0, 0);
+
+        // block 1, journaled before a crash
+        db.put(k3, v3);
+        db.put(k4, v4);
+        db.storeBlockChanges(b1, 1);
+
+        // restart and import block 1 again, this time writing different nodes
+        db = new JournalPruneDataSource(source_db, journal);
+        db.setPruneEnabled(true);
+        db.put(k3, v3);
+        db.put(k5, v5);
+        db.storeBlockChanges(b1, 1);
+        assertThat(db.getBlockUpdates().size()).isEqualTo(2);
+
+        // only written by the previous import
+        assertThat(source_db.get(k4).isPresent()).isFalse();
+        assertThat(source_db.get(k3).get()).isEqualTo(v3);
+        assertThat(source_db.get(k5).get()).isEqualTo(v5);
+
+        db.prune(b0, 0);
+        db.prune(b1, 1);
+        assertThat(db.getBlockUpdates().size()).isEqualTo(0);
+
+        assertThat(count(source_db.keys())).isEqualTo(4);
+        assertThat(source_db.get(k1).get()).isEqualTo(v1);
+        assertThat(source_db.get(k2).get()).isEqualTo(v2);
+        assertThat(source_db.get(k3).get()).isEqualTo(v3);
+        assertThat(source_db.get(k5).get()).isEqualTo(v5);
+
+        // no references are left behind by the previous import
+        Iterator<byte[]> keys = journal.keys();
+        assertThat(keys.next()).isEqualTo(new byte[] {2});
+        assertThat(keys.hasNext()).isFalse();
+        journal.close();
+    }
 }
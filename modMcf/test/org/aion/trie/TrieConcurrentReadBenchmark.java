@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.trie;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.aion.crypto.HashUtil;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.mcf.trie.SecureTrie;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Measures the throughput of {@link SecureTrie#get(byte[])} from multiple threads while another
+ * thread keeps updating and syncing the same trie.
+ */
+public class TrieConcurrentReadBenchmark {
+
+    private static final int KEYS = 50_000;
+    private static final long DURATION_MS = 5_000;
+
+    @Ignore
+    @Test
+    public void testConcurrentReadThroughput() throws InterruptedException {
+        for (int readers : new int[] {1, 2, 4, 8}) {
+            System.out.println(
+                    String.format(
+                            "%d reader(s): %12.2f reads/s", readers, measureReadThroughput(readers)));
+        }
+    }
+
+    private static double measureReadThroughput(int readers) throws InterruptedException {
+        MockDB db = new MockDB("TrieConcurrentReadBenchmark");
+        db.open();
+
+        SecureTrie trie = new SecureTrie(db);
+        byte[][] keys = new byte[KEYS][];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = HashUtil.h256(Integer.toString(i).getBytes());
+            trie.update(keys[i], keys[i]);
+        }
+        trie.sync();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong(0L);
+        CountDownLatch done = new CountDownLatch(readers + 1);
+        List<Thread> threads = new ArrayList<>();
+
+        // a single writer, as in block import
+        threads.add(
+                new Thread(
+                        () -> {
+                            Random random = new Random(0);
+                            int count = 0;
+                            while (running.get()) {
+                                byte[] key = keys[random.nextInt(KEYS)];
+                                trie.update(key, HashUtil.h256(key));
+                                if (++count % 100 == 0) {
+                                    trie.sync();
+                                }
+                            }
+                            done.countDown();
+                        }));
+
+        for (int r = 0; r < readers; r++) {
+            final int seed = r + 1;
+            threads.add(
+                    new Thread(
+                            () -> {
+                                Random random = new Random(seed);
+                                long count = 0;
+                                while (running.get()) {
+                                    assertThat(trie.get(keys[random.nextInt(KEYS)])).isNotEmpty();
+                                    count++;
+                                }
+                                reads.addAndGet(count);
+                                done.countDown();
+                            }));
+        }
+
+        threads.forEach(Thread::start);
+        Thread.sleep(DURATION_MS);
+        running.set(false);
+        assertThat(done.await(1, TimeUnit.MINUTES)).isTrue();
+
+        db.close();
+        return reads.get() * 1000d / DURATION_MS;
+    }
+}
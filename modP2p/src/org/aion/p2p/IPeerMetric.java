@@ -43,4 +43,15 @@ public interface IPeerMetric {
      * connection retry interval.
      */
     boolean notBan();
+
+    /** Records the bytes read from the peer and the bytes allocated for its incoming messages. */
+    void addInboundTraffic(long readBytes, long allocatedBytes);
+
+    /**
+     * Returns the bytes read from the peer and allocated for its incoming messages, per second,
+     * since the previous call.
+     *
+     * @return an array with the read rate at index 0 and the allocation rate at index 1
+     */
+    long[] pollInboundRates();
 }
@@ -132,13 +132,16 @@ public class NodeMgr implements INodeMgr {
                 + "  port"
                 + "     conn"
                 + "              bv"
-                + "           ci\n"
-                + "--------------------------------------------------------------------------------------------------------------------------------------------------------------------\n";
+                + "           ci"
+                + "  in(kB/s)"
+                + " alloc(kB/s)\n"
+                + "------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------\n";
     }
 
     private String appendNodeInfo(INode n) {
+        long[] inboundRates = n.getPeerMetric().pollInboundRates();
         return String.format(
-                "id:%6s %c %16s %10d %64s %15s %5d %8s %15s %12s\n",
+                "id:%6s %c %16s %10d %64s %15s %5d %8s %15s %12s %9d %11d\n",
                 n.getIdShort(),
                 n.getIfFromBootList() ? 'y' : ' ',
                 n.getTotalDifficulty().toString(10),
@@ -148,7 +151,9 @@ public class NodeMgr implements INodeMgr {
                 n.getPort(),
                 n.getConnection(),
                 n.getBinaryVersion(),
-                n.getChannel().hashCode());
+                n.getChannel().hashCode(),
+                inboundRates[0] / 1024,
+                inboundRates[1] / 1024);
     }
 
     /** @param _ip String */
@@ -23,6 +23,7 @@
 
 package org.aion.p2p.impl.comm;
 
+import java.util.concurrent.atomic.AtomicLong;
 import org.aion.p2p.IPeerMetric;
 import org.aion.p2p.P2pConstant;
 
@@ -33,6 +34,10 @@ public final class PeerMetric implements IPeerMetric {
     private long metricBanConnTs;
     private final int banInterval;
 
+    private final AtomicLong inboundReadBytes = new AtomicLong(0);
+    private final AtomicLong inboundAllocatedBytes = new AtomicLong(0);
+    private long inboundRatesTs = System.currentTimeMillis();
+
     PeerMetric() {
         banInterval = P2pConstant.BAN_CONN_RETRY_INTERVAL;
     }
@@ -93,6 +98,24 @@ public final class PeerMetric implements IPeerMetric {
         return ((System.currentTimeMillis() - metricBanConnTs) > getBanInterval());
     }
 
+    @Override
+    public void addInboundTraffic(long readBytes, long allocatedBytes) {
+        inboundReadBytes.addAndGet(readBytes);
+        inboundAllocatedBytes.addAndGet(allocatedBytes);
+    }
+
+    @Override
+    public synchronized long[] pollInboundRates() {
+        long now = System.currentTimeMillis();
+        long elapsed = Math.max(now - inboundRatesTs, 1);
+        inboundRatesTs = now;
+
+        return new long[] {
+            inboundReadBytes.getAndSet(0) * 1000 / elapsed,
+            inboundAllocatedBytes.getAndSet(0) * 1000 / elapsed
+        };
+    }
+
     int getBanInterval() {
         return banInterval;
     }
@@ -32,21 +32,30 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import org.aion.p2p.Header;
+import org.aion.p2p.impl1.P2pException;
 
 /** @author chris */
 class ChannelBuffer {
 
+    private static final byte[] EMPTY_BODY = new byte[0];
+
     byte[] body = null;
     Lock lock = new ReentrantLock();
     private Header header = null;
-    // buffer for buffer remaining after NIO select read.
-    private byte[] remainBuffer;
-    private int buffRemain = 0;
     private int nodeIdHash;
     private String displayId;
-    private byte[] bsHead = new byte[Header.LEN];
     private AtomicBoolean closed = new AtomicBoolean(false);
 
+    // the header and body of the message being received, filled across reads
+    private byte[] bsHead = new byte[Header.LEN];
+    private int headPos = 0;
+    private byte[] bodyBuf = null;
+    private int bodyPos = 0;
+
+    // inbound traffic not yet reported to the peer metric
+    private long readBytes = 0;
+    private long allocatedBytes = 0;
+
     private Map<Integer, RouteStatus> routes = new HashMap<>();
 
     ChannelBuffer() {}
@@ -76,12 +85,22 @@ class ChannelBuffer {
         this.closed.set(true);
     }
 
-    int getBuffRemain() {
-        return buffRemain;
+    void addReadBytes(int bytes) {
+        readBytes += bytes;
+    }
+
+    /** @return the number of bytes read since the last call */
+    long drainReadBytes() {
+        long bytes = readBytes;
+        readBytes = 0;
+        return bytes;
     }
 
-    void setBuffRemain(int buffRemain) {
-        this.buffRemain = buffRemain;
+    /** @return the number of bytes allocated for message bodies since the last call */
+    long drainAllocatedBytes() {
+        long bytes = allocatedBytes;
+        allocatedBytes = 0;
+        return bytes;
     }
 
     /**
@@ -121,49 +140,70 @@ class ChannelBuffer {
         return routes.get(_route);
     }
 
-    void readHead(ByteBuffer buf) {
-        if (buf.array().length < bsHead.length) {
-            if (p2pLOG.isDebugEnabled()) {
-                p2pLOG.debug("ChannelBuffer readHead short buffer size");
-            }
-            return;
+    /**
+     * Copies the available bytes of the message header from the buffer, decoding the header once
+     * all its bytes were received.
+     *
+     * @return {@code true} if the header is complete
+     * @throws P2pException if the header is invalid
+     */
+    boolean fillHead(ByteBuffer buf) throws P2pException {
+        int n = Math.min(buf.remaining(), bsHead.length - headPos);
+        buf.get(bsHead, headPos, n);
+        headPos += n;
+
+        if (headPos < bsHead.length) {
+            return false;
         }
 
-        buf.get(bsHead);
         try {
             header = Header.decode(bsHead);
         } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
-            if (p2pLOG.isDebugEnabled()) {
-                p2pLOG.debug("ChannelBuffer readHead exception.", e);
-            }
+            throw new P2pException("invalid header: " + e.getMessage());
         }
+        return true;
     }
 
-    void readBody(ByteBuffer buf) {
-        if (isHeaderNotCompleted()) {
-            if (p2pLOG.isDebugEnabled()) {
-                p2pLOG.debug("ChannelBuffer readBody no header.");
-            }
-            return;
+    /**
+     * Copies the available bytes of the message body from the buffer directly into the array that
+     * is handed over with the message, so that the body is copied only once.
+     *
+     * @return {@code true} if the body is complete
+     */
+    boolean fillBody(ByteBuffer buf) {
+        int len = header.getLen();
+        if (len == 0) {
+            // some msg have nobody.
+            body = EMPTY_BODY;
+            return true;
         }
 
-        if (buf.array().length < header.getLen()) {
-            if (p2pLOG.isDebugEnabled()) {
-                p2pLOG.debug("ChannelBuffer readBody short buffer size.");
-            }
-            return;
+        if (bodyBuf == null) {
+            bodyBuf = new byte[len];
+            allocatedBytes += len;
+        }
+
+        int n = Math.min(buf.remaining(), len - bodyPos);
+        buf.get(bodyBuf, bodyPos, n);
+        bodyPos += n;
+
+        if (bodyPos < len) {
+            return false;
         }
 
-        body = new byte[header.getLen()];
-        buf.get(body);
+        body = bodyBuf;
+        return true;
     }
 
     void refreshHeader() {
         header = null;
+        headPos = 0;
     }
 
     void refreshBody() {
         body = null;
+        bodyBuf = null;
+        bodyPos = 0;
     }
 
     /** @return boolean */
@@ -176,14 +216,6 @@ class ChannelBuffer {
         return header == null || body == null || body.length != header.getLen();
     }
 
-    byte[] getRemainBuffer() {
-        return remainBuffer;
-    }
-
-    void setRemainBuffer(byte[] remainBuffer) {
-        this.remainBuffer = remainBuffer;
-    }
-
     public Header getHeader() {
         return header;
     }
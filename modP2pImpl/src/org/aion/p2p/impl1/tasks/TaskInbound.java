@@ -55,11 +55,19 @@ import org.aion.p2p.impl.zero.msg.ReqHandshake1;
 import org.aion.p2p.impl.zero.msg.ResActiveNodes;
 import org.aion.p2p.impl.zero.msg.ResHandshake;
 import org.aion.p2p.impl.zero.msg.ResHandshake1;
-import org.aion.p2p.impl1.P2pException;
 import org.aion.p2p.impl1.P2pMgr.Dest;
 
 public class TaskInbound implements Runnable {
 
+    /**
+     * The size of the buffer the channels are read into. Messages larger than the buffer are
+     * assembled across reads in their channel buffer.
+     */
+    static final int READ_BUFFER_SIZE = 256 * 1024;
+
+    /** Limits the reads of a channel per select, so that one peer cannot starve the others. */
+    private static final int MAX_READS_PER_SELECT = 16;
+
     private final IP2pMgr mgr;
     private final Selector selector;
     private final INodeMgr nodeMgr;
@@ -92,8 +100,8 @@ public class TaskInbound implements Runnable {
     @Override
     public void run() {
 
-        // readBuffer buffer pre-alloc. @ max_body_size
-        ByteBuffer readBuf = ByteBuffer.allocate(P2pConstant.MAX_BODY_SIZE);
+        // direct buffer, since reading into a heap buffer copies through a temporary direct buffer
+        ByteBuffer readBuf = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
 
         while (start.get()) {
             try {
@@ -199,119 +207,59 @@ public class TaskInbound implements Runnable {
         }
     }
 
-    private int readHeader(final ChannelBuffer _cb, final ByteBuffer _readBuf, int cnt) {
-
-        if (cnt < Header.LEN) {
-            return cnt;
-        }
-
-        int origPos = _readBuf.position();
-
-        int startP = origPos - cnt;
-
-        _readBuf.position(startP);
-
-        _cb.readHead(_readBuf);
-
-        _readBuf.position(origPos);
-
-        return cnt - Header.LEN;
-    }
-
-    private int readBody(final ChannelBuffer _cb, ByteBuffer _readBuf, int _cnt) {
-
-        int bodyLen = _cb.getHeader().getLen();
-
-        // some msg have nobody.
-        if (bodyLen == 0) {
-            _cb.body = new byte[0];
-            return _cnt;
-        }
-
-        if (_cnt < bodyLen) {
-            return _cnt;
-        }
-
-        int origPos = _readBuf.position();
-        int startP = origPos - _cnt;
-        _readBuf.position(startP);
-        _cb.readBody(_readBuf);
-        _readBuf.position(origPos);
-        return _cnt - bodyLen;
-    }
-
     private void readBuffer(
             final SelectionKey _sk, final ChannelBuffer _cb, final ByteBuffer _readBuf)
             throws Exception {
 
-        _readBuf.rewind();
-
         SocketChannel sc = (SocketChannel) _sk.channel();
 
         int r;
-        int cnt = 0;
+        int reads = 0;
         do {
+            _readBuf.clear();
             r = sc.read(_readBuf);
-            cnt += r;
-        } while (r > 0);
-
-        if (cnt < 1) {
-            return;
-        }
-
-        int remainBufAll = _cb.getBuffRemain() + cnt;
-        ByteBuffer bufferAll = calBuffer(_cb, _readBuf, cnt);
-
-        do {
-            r = readMsg(_sk, bufferAll, remainBufAll);
-            if (remainBufAll == r) {
+            if (r <= 0) {
                 break;
-            } else {
-                remainBufAll = r;
             }
-        } while (r > 0);
+            _cb.addReadBytes(r);
 
-        _cb.setBuffRemain(r);
-
-        if (r != 0) {
-            // there are no perfect cycling buffer in jdk
-            // yet.
-            // simply just buff move for now.
-            // @TODO: looking for more efficient way.
-
-            int currPos = bufferAll.position();
-            _cb.setRemainBuffer(new byte[r]);
-            bufferAll.position(currPos - r);
-            bufferAll.get(_cb.getRemainBuffer());
-        }
+            _readBuf.flip();
+            readMsgs(_sk, _cb, _readBuf);
+        } while (r == _readBuf.capacity() && ++reads < MAX_READS_PER_SELECT);
 
-        _readBuf.rewind();
+        reportTraffic(_cb);
     }
 
-    private int readMsg(SelectionKey _sk, ByteBuffer _readBuf, int _cnt) throws IOException {
-        ChannelBuffer cb = (ChannelBuffer) _sk.attachment();
-        if (cb == null) {
-            throw new P2pException("attachment is null");
-        }
+    /**
+     * Consumes all the bytes in the buffer, handling every message that is completed. The bytes of
+     * an incomplete message are kept in the channel buffer until the next read.
+     */
+    private void readMsgs(SelectionKey _sk, ChannelBuffer _cb, ByteBuffer _readBuf)
+            throws IOException {
+        while (_readBuf.hasRemaining()) {
+            if (_cb.isHeaderNotCompleted() && !_cb.fillHead(_readBuf)) {
+                return;
+            }
 
-        int readCnt;
-        if (cb.isHeaderNotCompleted()) {
-            readCnt = readHeader(cb, _readBuf, _cnt);
-        } else {
-            readCnt = _cnt;
-        }
+            if (!_cb.fillBody(_readBuf)) {
+                return;
+            }
 
-        if (cb.isBodyNotCompleted()) {
-            readCnt = readBody(cb, _readBuf, readCnt);
+            handleMsg(_sk, _cb);
         }
+    }
 
-        if (cb.isBodyNotCompleted()) {
-            return readCnt;
+    private void reportTraffic(ChannelBuffer _cb) {
+        if (_cb.getNodeIdHash() == 0) {
+            // kept until the handshake identifies the peer
+            return;
         }
 
-        handleMsg(_sk, cb);
-
-        return readCnt;
+        INode node = nodeMgr.getActiveNode(_cb.getNodeIdHash());
+        if (node != null) {
+            node.getPeerMetric()
+                    .addInboundTraffic(_cb.drainReadBytes(), _cb.drainAllocatedBytes());
+        }
     }
 
     private void handleMsg(SelectionKey _sk, ChannelBuffer _cb) {
@@ -390,22 +338,6 @@ public class TaskInbound implements Runnable {
         }
     }
 
-    private ByteBuffer calBuffer(ChannelBuffer _cb, ByteBuffer _readBuf, int _cnt) {
-        ByteBuffer r;
-        if (_cb.getBuffRemain() != 0) {
-            byte[] alreadyRead = new byte[_cnt];
-            _readBuf.position(0);
-            _readBuf.get(alreadyRead);
-            r = ByteBuffer.allocate(_cb.getBuffRemain() + _cnt);
-            r.put(_cb.getRemainBuffer());
-            r.put(alreadyRead);
-        } else {
-            r = _readBuf;
-        }
-
-        return r;
-    }
-
     /**
      * @param _sk SelectionKey
      * @param _act ACT
@@ -41,6 +41,7 @@ import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.log.LogLevel;
 import org.aion.p2p.Header;
+import org.aion.p2p.impl1.P2pException;
 import org.aion.p2p.impl1.tasks.ChannelBuffer.RouteStatus;
 import org.junit.Before;
 import org.junit.Test;
@@ -117,14 +118,16 @@ public class ChannelBufferTest {
     }
 
     @Test
-    public void testReadHead() {
+    public void testFillHead() throws P2pException {
         for (int i = 0; i < 100; i++) {
             cb.refreshHeader();
             ByteBuffer bb = genBuffer();
-            cb.readHead(bb);
+            boolean completed = cb.fillHead(bb);
             if (bb.array().length >= LEN) {
+                assertTrue(completed);
                 assertArrayEquals(expectHeader.encode(), cb.getHeader().encode());
             } else {
+                assertFalse(completed);
                 assertNull(cb.getHeader());
             }
         }
@@ -148,15 +151,14 @@ public class ChannelBufferTest {
     }
 
     @Test
-    public void testReadBody() {
+    public void testFillBody() throws P2pException {
         for (int i = 0; i < 100; i++) {
             cb.refreshHeader();
             cb.refreshBody();
             ByteBuffer bb = genBuffer();
-            cb.readHead(bb);
-            if (bb.array().length >= LEN) {
+            if (cb.fillHead(bb)) {
                 assertArrayEquals(expectHeader.encode(), cb.getHeader().encode());
-                cb.readBody(bb);
+                assertTrue(cb.fillBody(bb));
                 assertNotNull(cb.body);
                 assertEquals(cb.getHeader().getLen(), cb.body.length);
             } else {
@@ -166,10 +168,66 @@ public class ChannelBufferTest {
     }
 
     @Test
-    public void testReadBodyNotCompleted() {
-        ByteBuffer bb = genBuffer();
-        cb.readBody(bb);
+    public void testFillBodyNotCompleted() throws P2pException {
+        ByteBuffer read = ByteBuffer.allocate(LEN + 1);
+        read.put(Header.decode(genHeader(2)).encode()).put((byte) 1).flip();
+
+        assertTrue(cb.fillHead(read));
+        assertFalse(cb.fillBody(read));
+        assertNull(cb.body);
+        assertTrue(cb.isBodyNotCompleted());
+    }
+
+    @Test
+    public void testFillAcrossReads() throws P2pException {
+        byte[] body = new byte[1000];
+        r.nextBytes(body);
+        ByteBuffer msg = ByteBuffer.allocate(LEN + body.length);
+        msg.put(Header.decode(genHeader(body.length)).encode()).put(body).flip();
+
+        // the message is received in chunks that split both the header and the body
+        int[] chunks = {3, LEN, 500, body.length};
+        boolean completed = false;
+        for (int chunk : chunks) {
+            ByteBuffer read = ByteBuffer.allocateDirect(chunk);
+            while (read.hasRemaining() && msg.hasRemaining()) {
+                read.put(msg.get());
+            }
+            read.flip();
+
+            assertFalse(completed);
+            if (cb.isHeaderNotCompleted() && !cb.fillHead(read)) {
+                continue;
+            }
+            completed = cb.fillBody(read);
+        }
+
+        assertTrue(completed);
+        assertArrayEquals(body, cb.body);
+
+        cb.refreshHeader();
+        cb.refreshBody();
+        assertTrue(cb.isHeaderNotCompleted());
         assertNull(cb.body);
+        assertEquals(body.length, cb.drainAllocatedBytes());
+        assertEquals(0, cb.drainAllocatedBytes());
+    }
+
+    @Test
+    public void testFillEmptyBody() throws P2pException {
+        ByteBuffer read = ByteBuffer.allocateDirect(LEN);
+        read.put(Header.decode(genHeader(0)).encode()).flip();
+
+        assertTrue(cb.fillHead(read));
+        assertTrue(cb.fillBody(read));
+        assertEquals(0, cb.body.length);
+    }
+
+    @Test(expected = P2pException.class)
+    public void testFillInvalidHead() throws P2pException {
+        ByteBuffer read = ByteBuffer.allocate(LEN);
+        read.putInt(0).putInt(Integer.MAX_VALUE).flip();
+        cb.fillHead(read);
     }
 
     @Test
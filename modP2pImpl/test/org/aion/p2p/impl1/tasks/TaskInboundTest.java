@@ -414,9 +414,6 @@ public class TaskInboundTest {
         when(sk.channel()).thenReturn(sc);
         when(sc.read(any(ByteBuffer.class))).thenReturn(1).thenReturn(0);
 
-        // settings for calBuffer
-        // when(cb.buffRemain).thenReturn(1);
-
         // settings for run
         when(sk.isValid()).thenReturn(true);
         when(sk.isReadable()).thenReturn(true);
@@ -450,13 +447,8 @@ public class TaskInboundTest {
         // settings for readBuffer
         when(sk.channel()).thenReturn(sc);
         int read = r.nextInt(10000);
-        int remain = r.nextInt(10000);
         when(sc.read(any(ByteBuffer.class))).thenReturn(read).thenReturn(0);
 
-        // settings for calBuffer
-        when(cb.getBuffRemain()).thenReturn(remain);
-        when(cb.getRemainBuffer()).thenReturn(new byte[remain]);
-
         // settings for readMsg
         when(cb.isHeaderNotCompleted()).thenReturn(true);
         when(cb.isBodyNotCompleted()).thenReturn(true);
@@ -415,41 +415,8 @@ public class RLP {
      * @return byte[] RLP encoded
      */
     public static byte[] encode(Object input) {
-        Value val = new Value(input);
-        if (val.isList()) {
-            List<Object> inputArray = val.asList();
-            if (inputArray.isEmpty()) {
-                return encodeLength(inputArray.size(), OFFSET_SHORT_LIST);
-            }
-
-            List<byte[]> obj = new ArrayList<>();
-            int length = 0;
-
-            for (Object object : inputArray) {
-                byte[] temp = encode(object);
-                obj.add(temp);
-                length += temp.length;
-            }
-
-            byte[] prefix = encodeLength(length, OFFSET_SHORT_LIST);
-            byte[] output = new byte[prefix.length + length];
-
-            System.arraycopy(prefix, 0, output, 0, prefix.length);
-            int pos = prefix.length;
-            for (byte[] anObj : obj) {
-                System.arraycopy(anObj, 0, output, pos, anObj.length);
-                pos += anObj.length;
-            }
-
-            return output;
-        } else {
-            byte[] inputAsBytes = toBytes(input);
-            if (inputAsBytes.length == 1 && (inputAsBytes[0] & 0xff) < 0x80) {
-                return inputAsBytes;
-            } else {
-                byte[] firstByte = encodeLength(inputAsBytes.length, OFFSET_SHORT_ITEM);
-                return concatenate(firstByte, inputAsBytes);
-            }
+        try (RLPEncoder encoder = RLPEncoder.acquire()) {
+            return encoder.writeObject(input).toByteArray();
         }
     }
 
@@ -727,7 +694,7 @@ public class RLP {
     }
 
     /** Utility function to convert Objects into byte arrays */
-    private static byte[] toBytes(Object input) {
+    static byte[] toBytes(Object input) {
         if (input instanceof byte[]) {
             return (byte[]) input;
         } else if (input instanceof String) {
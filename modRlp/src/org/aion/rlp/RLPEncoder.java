@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.rlp;
+
+import static org.aion.rlp.Utils.asUnsignedByteArray;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Encodes RLP elements into a single buffer without building the encoding of each element and list
+ * in a separate array, as {@link RLP#encodeElement(byte[])} and {@link RLP#encodeList(byte[]...)}
+ * do.
+ *
+ * <p>Elements are written to the buffer as they are added. The length of a list is only known once
+ * the list is ended, so the position and payload length of each list are recorded and the list
+ * prefixes are inserted when the encoding is copied out with {@link #toByteArray()}, {@link
+ * #writeTo(ByteBuffer)} or {@link #writeTo(OutputStream)}, which know the total length of the
+ * encoding up front from {@link #getEncodedLength()}.
+ *
+ * <p>The produced encoding is identical to the one of the corresponding {@link RLP} methods, for
+ * example:
+ *
+ * <pre>{@code
+ * try (RLPEncoder encoder = RLPEncoder.acquire()) {
+ *     return encoder.startList().writeElement(a).writeLong(b).endList().toByteArray();
+ * }
+ * }</pre>
+ *
+ * @implNote Each thread keeps one encoder for reuse, which is returned by {@link #acquire()} unless
+ *     it is already in use by an encoding further up the stack. An encoder is not thread safe.
+ */
+public final class RLPEncoder implements AutoCloseable {
+
+    private static final int OFFSET_SHORT_ITEM = 0x80;
+    private static final int OFFSET_LONG_ITEM = 0xb7;
+    private static final int OFFSET_SHORT_LIST = 0xc0;
+    private static final int OFFSET_LONG_LIST = 0xf7;
+    private static final int SIZE_THRESHOLD = 56;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_LISTS = 16;
+    /** larger buffers are not kept for reuse after an encoding */
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private static final ThreadLocal<RLPEncoder> POOL = ThreadLocal.withInitial(RLPEncoder::new);
+
+    private byte[] buffer;
+    private int position = 0;
+
+    /** buffer position of the payload of each list, in the order the lists were started */
+    private int[] listPositions = new int[INITIAL_LISTS];
+    /** length of the payload of each list, including the prefixes of nested lists */
+    private int[] listLengths = new int[INITIAL_LISTS];
+    private int listCount = 0;
+
+    /** the lists that are not ended yet, and the prefix length of the lists nested in each */
+    private int[] openLists = new int[INITIAL_LISTS];
+    private int[] nestedPrefixes = new int[INITIAL_LISTS];
+    private int depth = 0;
+
+    /** total length of the list prefixes */
+    private int prefixLength = 0;
+
+    /** scratch space for the prefix of a list */
+    private final byte[] prefix = new byte[1 + Integer.BYTES];
+
+    private boolean inUse = false;
+
+    public RLPEncoder() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public RLPEncoder(int capacity) {
+        this.buffer = new byte[Math.max(capacity, 16)];
+    }
+
+    /**
+     * Returns the encoder of the current thread if it is not in use, otherwise a new encoder. The
+     * encoder must be closed after use.
+     */
+    public static RLPEncoder acquire() {
+        RLPEncoder encoder = POOL.get();
+        if (encoder.inUse) {
+            return new RLPEncoder();
+        }
+        encoder.inUse = true;
+        return encoder;
+    }
+
+    /** Clears the encoder so that it can be used for a new encoding. */
+    public RLPEncoder reset() {
+        position = 0;
+        listCount = 0;
+        depth = 0;
+        prefixLength = 0;
+        return this;
+    }
+
+    /** Resets the encoder and returns it to the pool of the thread if it was acquired from it. */
+    @Override
+    public void close() {
+        reset();
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+        if (listPositions.length > MAX_RETAINED_CAPACITY / Integer.BYTES) {
+            listPositions = new int[INITIAL_LISTS];
+            listLengths = new int[INITIAL_LISTS];
+        }
+        inUse = false;
+    }
+
+    // LISTS
+
+    /** Starts a list, whose elements are all the elements written until it is ended. */
+    public RLPEncoder startList() {
+        if (listCount == listPositions.length) {
+            listPositions = Arrays.copyOf(listPositions, listCount * 2);
+            listLengths = Arrays.copyOf(listLengths, listCount * 2);
+        }
+        if (depth == openLists.length) {
+            openLists = Arrays.copyOf(openLists, depth * 2);
+            nestedPrefixes = Arrays.copyOf(nestedPrefixes, depth * 2);
+        }
+        listPositions[listCount] = position;
+        openLists[depth] = listCount;
+        nestedPrefixes[depth] = 0;
+        listCount++;
+        depth++;
+        return this;
+    }
+
+    /** Ends the most recently started list that is not ended yet. */
+    public RLPEncoder endList() {
+        if (depth == 0) {
+            throw new IllegalStateException("There is no list to end.");
+        }
+        depth--;
+        int list = openLists[depth];
+        int length = position - listPositions[list] + nestedPrefixes[depth];
+        int size = prefixSize(length);
+
+        listLengths[list] = length;
+        prefixLength += size;
+        if (depth > 0) {
+            nestedPrefixes[depth - 1] += nestedPrefixes[depth] + size;
+        }
+        return this;
+    }
+
+    // ELEMENTS
+
+    /** Writes an item as {@link RLP#encodeElement(byte[])}. */
+    public RLPEncoder writeElement(byte[] data) {
+        if (data == null || data.length == 0) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) OFFSET_SHORT_ITEM;
+        } else if (data.length == 1 && (data[0] & 0xFF) < OFFSET_SHORT_ITEM) {
+            ensureCapacity(1);
+            buffer[position++] = data[0];
+        } else {
+            ensureCapacity(prefixSize(data.length) + data.length);
+            writePrefix(data.length, OFFSET_SHORT_ITEM, OFFSET_LONG_ITEM);
+            System.arraycopy(data, 0, buffer, position, data.length);
+            position += data.length;
+        }
+        return this;
+    }
+
+    /** Writes an item as {@link RLP#encodeByte(byte)}. */
+    public RLPEncoder writeByte(byte value) {
+        ensureCapacity(2);
+        if (value == 0) {
+            buffer[position++] = (byte) OFFSET_SHORT_ITEM;
+        } else if ((value & 0xFF) < OFFSET_SHORT_ITEM) {
+            buffer[position++] = value;
+        } else {
+            buffer[position++] = (byte) (OFFSET_SHORT_ITEM + 1);
+            buffer[position++] = value;
+        }
+        return this;
+    }
+
+    /** Writes an item as {@link RLP#encodeInt(int)}. */
+    public RLPEncoder writeInt(int value) {
+        if ((value & 0xFF) == value) {
+            return writeByte((byte) value);
+        }
+        int length = (value & 0xFFFF) == value ? 2 : (value & 0xFFFFFF) == value ? 3 : 4;
+        return writeNumber(value, length);
+    }
+
+    /**
+     * Writes an item as {@link RLP#encodeLong(long)}, which uses all 8 bytes for values that do not
+     * fit in 4 bytes.
+     */
+    public RLPEncoder writeLong(long value) {
+        if ((value & 0xFFFFFFFFL) == value) {
+            return writeInt((int) value);
+        }
+        return writeNumber(value, Long.BYTES);
+    }
+
+    /** Writes an item as {@link RLP#encodeBigInteger(BigInteger)}. */
+    public RLPEncoder writeBigInteger(BigInteger value) {
+        if (value.signum() == 0) {
+            return writeByte((byte) 0);
+        }
+        return writeElement(asUnsignedByteArray(value));
+    }
+
+    /** Writes an element that is already RLP encoded, such as a nested list. */
+    public RLPEncoder writeEncoded(byte[] encoded) {
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, buffer, position, encoded.length);
+        position += encoded.length;
+        return this;
+    }
+
+    /**
+     * Writes an object as {@link RLP#encode(Object)}, i.e. arrays of objects and {@link Value}s
+     * holding them as lists and other supported types as items.
+     */
+    public RLPEncoder writeObject(Object input) {
+        Object value = input instanceof Value ? ((Value) input).asObj() : input;
+        if (value instanceof Object[]) {
+            startList();
+            for (Object element : (Object[]) value) {
+                writeObject(element);
+            }
+            return endList();
+        }
+        return writeElement(RLP.toBytes(input));
+    }
+
+    private RLPEncoder writeNumber(long value, int length) {
+        ensureCapacity(1 + length);
+        buffer[position++] = (byte) (OFFSET_SHORT_ITEM + length);
+        for (int i = length - 1; i >= 0; i--) {
+            buffer[position++] = (byte) (value >>> (8 * i));
+        }
+        return this;
+    }
+
+    // OUTPUT
+
+    /** @return the length of the encoding written so far */
+    public int getEncodedLength() {
+        checkComplete();
+        return position + prefixLength;
+    }
+
+    /** @return a new array holding the encoding */
+    public byte[] toByteArray() {
+        byte[] encoded = new byte[getEncodedLength()];
+        writeTo(ByteBuffer.wrap(encoded));
+        return encoded;
+    }
+
+    /**
+     * Writes the encoding to the given buffer.
+     *
+     * @throws java.nio.BufferOverflowException if there are fewer than {@link #getEncodedLength()}
+     *     bytes remaining in the buffer
+     */
+    public void writeTo(ByteBuffer target) {
+        checkComplete();
+        int from = 0;
+        for (int i = 0; i < listCount; i++) {
+            target.put(buffer, from, listPositions[i] - from);
+            target.put(prefix, 0, listPrefix(listLengths[i]));
+            from = listPositions[i];
+        }
+        target.put(buffer, from, position - from);
+    }
+
+    /** Writes the encoding to the given stream. */
+    public void writeTo(OutputStream target) throws IOException {
+        checkComplete();
+        int from = 0;
+        for (int i = 0; i < listCount; i++) {
+            target.write(buffer, from, listPositions[i] - from);
+            target.write(prefix, 0, listPrefix(listLengths[i]));
+            from = listPositions[i];
+        }
+        target.write(buffer, from, position - from);
+    }
+
+    // UTILITIES
+
+    private void checkComplete() {
+        if (depth != 0) {
+            throw new IllegalStateException("The encoding has " + depth + " lists not ended.");
+        }
+    }
+
+    private void ensureCapacity(int length) {
+        if (position + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+        }
+    }
+
+    /** @return the number of bytes of the prefix of an element with a payload of given length */
+    private static int prefixSize(int length) {
+        return length < SIZE_THRESHOLD ? 1 : 1 + lengthOfLength(length);
+    }
+
+    private static int lengthOfLength(int length) {
+        return Integer.BYTES - Integer.numberOfLeadingZeros(length) / Byte.SIZE;
+    }
+
+    private void writePrefix(int length, int shortOffset, int longOffset) {
+        if (length < SIZE_THRESHOLD) {
+            buffer[position++] = (byte) (shortOffset + length);
+        } else {
+            int lengthOfLength = lengthOfLength(length);
+            buffer[position++] = (byte) (longOffset + lengthOfLength);
+            for (int i = lengthOfLength - 1; i >= 0; i--) {
+                buffer[position++] = (byte) (length >>> (8 * i));
+            }
+        }
+    }
+
+    /** Writes the prefix of a list to the scratch space and returns its length. */
+    private int listPrefix(int length) {
+        if (length < SIZE_THRESHOLD) {
+            prefix[0] = (byte) (OFFSET_SHORT_LIST + length);
+            return 1;
+        }
+        int lengthOfLength = lengthOfLength(length);
+        prefix[0] = (byte) (OFFSET_LONG_LIST + lengthOfLength);
+        for (int i = 0; i < lengthOfLength; i++) {
+            prefix[lengthOfLength - i] = (byte) (length >>> (8 * i));
+        }
+        return 1 + lengthOfLength;
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.rlp;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.aion.base.util.ByteUtil;
+import org.aion.base.util.Hex;
+
+/**
+ * A view of one RLP encoded element within a byte array.
+ *
+ * <p>Unlike {@link RLP#decode2(byte[])}, which builds the whole tree of {@link RLPElement}s and
+ * copies the encoding of every nested list, a view only records the bounds of the element in the
+ * original array. The elements of a list are located on demand and bytes are copied only when an
+ * item is read with {@link #getBytes()} or an encoding is requested with {@link #getEncoded()}.
+ *
+ * <p>The bounds of an element are checked against the bounds of its enclosing element when the
+ * element is located, so that malformed input fails with a {@link RuntimeException} in the same way
+ * as {@link RLP#decode2(byte[])}.
+ *
+ * @implNote The view does not copy the array it is created from, which must not be modified while
+ *     the view is in use.
+ */
+public final class RLPView implements Iterable<RLPView> {
+
+    private static final int OFFSET_SHORT_ITEM = 0x80;
+    private static final int OFFSET_LONG_ITEM = 0xb7;
+    private static final int OFFSET_SHORT_LIST = 0xc0;
+    private static final int OFFSET_LONG_LIST = 0xf7;
+
+    private final byte[] data;
+    /** start of the encoding, including the prefix */
+    private final int offset;
+    /** start of the payload */
+    private final int payloadOffset;
+    /** end of the encoding, exclusive */
+    private final int end;
+
+    private final boolean list;
+
+    private RLPView(byte[] data, int offset, int payloadOffset, int end, boolean list) {
+        this.data = data;
+        this.offset = offset;
+        this.payloadOffset = payloadOffset;
+        this.end = end;
+        this.list = list;
+    }
+
+    /**
+     * Creates a view of the first element encoded in the given array, which corresponds to {@code
+     * RLP.decode2(encoded).get(0)}.
+     *
+     * @throws RuntimeException if the array is empty or the element is not correctly encoded
+     */
+    public static RLPView wrap(byte[] encoded) {
+        if (encoded == null || encoded.length == 0) {
+            throw new RuntimeException("RLP wrong encoding (empty data)");
+        }
+        return locate(encoded, 0, encoded.length);
+    }
+
+    /** Locates the element that starts at the given position and must end before the limit. */
+    private static RLPView locate(byte[] data, int pos, int limit) {
+        int prefix = data[pos] & 0xFF;
+
+        int payloadOffset;
+        int length;
+        boolean list;
+
+        if (prefix < OFFSET_SHORT_ITEM) {
+            // single byte item, the prefix is the payload
+            return new RLPView(data, pos, pos, pos + 1, false);
+        } else if (prefix <= OFFSET_LONG_ITEM) {
+            payloadOffset = pos + 1;
+            length = prefix - OFFSET_SHORT_ITEM;
+            list = false;
+        } else if (prefix < OFFSET_SHORT_LIST) {
+            int lengthOfLength = prefix - OFFSET_LONG_ITEM;
+            payloadOffset = pos + 1 + lengthOfLength;
+            length = readLength(data, pos, lengthOfLength, limit);
+            list = false;
+        } else if (prefix <= OFFSET_LONG_LIST) {
+            payloadOffset = pos + 1;
+            length = prefix - OFFSET_SHORT_LIST;
+            list = true;
+        } else {
+            int lengthOfLength = prefix - OFFSET_LONG_LIST;
+            payloadOffset = pos + 1 + lengthOfLength;
+            length = readLength(data, pos, lengthOfLength, limit);
+            list = true;
+        }
+
+        if (length < 0 || payloadOffset > limit || length > limit - payloadOffset) {
+            throw wrongEncoding(data, pos, limit);
+        }
+        return new RLPView(data, pos, payloadOffset, payloadOffset + length, list);
+    }
+
+    private static int readLength(byte[] data, int pos, int lengthOfLength, int limit) {
+        if (lengthOfLength > Integer.BYTES || pos + lengthOfLength >= limit) {
+            throw wrongEncoding(data, pos, limit);
+        }
+        int length = 0;
+        for (int i = 1; i <= lengthOfLength; i++) {
+            length = (length << 8) | (data[pos + i] & 0xFF);
+        }
+        return length;
+    }
+
+    private static RuntimeException wrongEncoding(byte[] data, int pos, int limit) {
+        // Only shown first 4K data
+        int length = Math.min(limit - pos, 4096);
+        return new RuntimeException(
+                "RLP wrong encoding (" + Hex.toHexString(data, pos, length) + ")");
+    }
+
+    /** @return {@code true} if the element is a list, {@code false} if it is an item */
+    public boolean isList() {
+        return list;
+    }
+
+    /** @return the length of the payload, i.e. of the item bytes or of the encoded list elements */
+    public int getLength() {
+        return end - payloadOffset;
+    }
+
+    /** @return the number of elements of the list */
+    public int size() {
+        checkList();
+        int size = 0;
+        for (int pos = payloadOffset; pos < end; pos = locate(data, pos, end).end) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Locates the element of the list at the given index.
+     *
+     * @implNote The elements before the index are skipped over each time, so lists should be
+     *     traversed with {@link #iterator()} when most of the elements are read.
+     * @throws IndexOutOfBoundsException if the list has fewer elements
+     */
+    public RLPView get(int index) {
+        checkList();
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        int pos = payloadOffset;
+        for (int i = 0; pos < end; i++) {
+            RLPView element = locate(data, pos, end);
+            if (i == index) {
+                return element;
+            }
+            pos = element.end;
+        }
+        throw new IndexOutOfBoundsException("Index: " + index);
+    }
+
+    /**
+     * Locates all the elements of the list at once, for lists whose elements are accessed by
+     * index, such as the fields of a block header.
+     *
+     * @return the elements of the list, in order
+     */
+    public RLPView[] getElements() {
+        RLPView[] elements = new RLPView[size()];
+        int i = 0;
+        for (RLPView element : this) {
+            elements[i++] = element;
+        }
+        return elements;
+    }
+
+    /** @return an iterator over the elements of the list, in order */
+    @Override
+    public Iterator<RLPView> iterator() {
+        checkList();
+        return new Iterator<>() {
+            private int pos = payloadOffset;
+
+            @Override
+            public boolean hasNext() {
+                return pos < end;
+            }
+
+            @Override
+            public RLPView next() {
+                if (pos >= end) {
+                    throw new NoSuchElementException();
+                }
+                RLPView element = locate(data, pos, end);
+                pos = element.end;
+                return element;
+            }
+        };
+    }
+
+    /**
+     * @return a copy of the bytes of the item, which is empty for the empty item, as returned by
+     *     {@link RLPItem#getRLPData()}
+     */
+    public byte[] getBytes() {
+        checkItem();
+        return payloadOffset == end
+                ? ByteUtil.EMPTY_BYTE_ARRAY
+                : Arrays.copyOfRange(data, payloadOffset, end);
+    }
+
+    /**
+     * @return the item interpreted as an unsigned big-endian number, truncated to the lowest 64
+     *     bits as with {@code new BigInteger(1, getBytes()).longValue()}
+     */
+    public long getLong() {
+        checkItem();
+        long value = 0;
+        for (int i = payloadOffset; i < end; i++) {
+            value = (value << 8) | (data[i] & 0xFF);
+        }
+        return value;
+    }
+
+    /** @return the item interpreted as an unsigned big-endian number */
+    public BigInteger getBigInteger() {
+        checkItem();
+        return payloadOffset == end ? BigInteger.ZERO : new BigInteger(1, getBytes());
+    }
+
+    /**
+     * @return a copy of the full encoding of the element, including its prefix, as returned by
+     *     {@link RLPList#getRLPData()} for lists
+     */
+    public byte[] getEncoded() {
+        return Arrays.copyOfRange(data, offset, end);
+    }
+
+    private void checkList() {
+        if (!list) {
+            throw new IllegalStateException("The RLP element is not a list.");
+        }
+    }
+
+    private void checkItem() {
+        if (list) {
+            throw new IllegalStateException("The RLP element is not an item.");
+        }
+    }
+}
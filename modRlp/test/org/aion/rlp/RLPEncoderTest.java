@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.rlp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.Test;
+
+public class RLPEncoderTest {
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testMatchesEncodeList() {
+        byte[] expected =
+                RLP.encodeList(
+                        RLP.encodeElement(null),
+                        RLP.encodeElement(new byte[] {0}),
+                        RLP.encodeElement(bytes(55, 1)),
+                        RLP.encodeElement(bytes(70_000, 2)),
+                        RLP.encodeByte((byte) 0x80),
+                        RLP.encodeInt(0x10000),
+                        RLP.encodeLong(0x100000000L),
+                        RLP.encodeLong(-1L),
+                        RLP.encodeBigInteger(BigInteger.ZERO),
+                        RLP.encodeBigInteger(BigInteger.TWO.pow(70)),
+                        RLP.encodeList(),
+                        RLP.encodeList(
+                                RLP.encodeList(RLP.encodeElement(bytes(60, 3))),
+                                RLP.encodeElement(bytes(10, 4))));
+
+        try (RLPEncoder encoder = RLPEncoder.acquire()) {
+            encoder.startList()
+                    .writeElement(null)
+                    .writeElement(new byte[] {0})
+                    .writeElement(bytes(55, 1))
+                    .writeElement(bytes(70_000, 2))
+                    .writeByte((byte) 0x80)
+                    .writeInt(0x10000)
+                    .writeLong(0x100000000L)
+                    .writeLong(-1L)
+                    .writeBigInteger(BigInteger.ZERO)
+                    .writeBigInteger(BigInteger.TWO.pow(70))
+                    .startList()
+                    .endList()
+                    .startList()
+                    .startList()
+                    .writeElement(bytes(60, 3))
+                    .endList()
+                    .writeEncoded(RLP.encodeElement(bytes(10, 4)))
+                    .endList()
+                    .endList();
+
+            assertThat(encoder.getEncodedLength()).isEqualTo(expected.length);
+            assertThat(encoder.toByteArray()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testMatchesEncode() {
+        Object[] node = {bytes(32, 5), new byte[0], new Object[] {"a", 1, 300L}, new Value(7)};
+        byte[] expected =
+                RLP.encodeList(
+                        RLP.encodeElement(bytes(32, 5)),
+                        RLP.encodeElement(null),
+                        RLP.encodeList(RLP.encodeString("a"), RLP.encodeInt(1), RLP.encodeInt(300)),
+                        RLP.encodeInt(7));
+
+        assertThat(RLP.encode(node)).isEqualTo(expected);
+        assertThat(new RLPEncoder().writeObject(node).toByteArray()).isEqualTo(expected);
+    }
+
+    @Test
+    public void testWriteTo() throws IOException {
+        RLPEncoder encoder = new RLPEncoder(16);
+        encoder.startList()
+                .writeElement(bytes(100, 6))
+                .startList()
+                .writeLong(5)
+                .endList()
+                .endList();
+        byte[] expected = encoder.toByteArray();
+
+        ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+        encoder.writeTo(buffer);
+        assertThat(buffer.array()).isEqualTo(expected);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        encoder.writeTo(stream);
+        assertThat(stream.toByteArray()).isEqualTo(expected);
+
+        // the encoder is reused after a reset
+        assertThat(encoder.reset().writeLong(5).toByteArray()).isEqualTo(RLP.encodeLong(5));
+    }
+
+    @Test
+    public void testAcquireWhileInUse() {
+        try (RLPEncoder outer = RLPEncoder.acquire()) {
+            try (RLPEncoder inner = RLPEncoder.acquire()) {
+                assertThat(inner).isNotSameAs(outer);
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testListNotEnded() {
+        new RLPEncoder().startList().toByteArray();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEndWithoutList() {
+        new RLPEncoder().endList();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.rlp;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares reading every field of a block encoding with {@link RLP#decode2(byte[])} and with {@link
+ * RLPView}, for blocks of 0, 100 and 1000 transactions.
+ */
+@Ignore
+public class RLPViewBenchmark {
+
+    private static final int[] TX_COUNTS = {0, 100, 1_000};
+    private static final int WARMUP = 200;
+    private static final int ROUNDS = 1_000;
+
+    private static final Random RANDOM = new Random(42);
+
+    private static byte[] element(int length) {
+        byte[] bytes = new byte[length];
+        RANDOM.nextBytes(bytes);
+        return RLP.encodeElement(bytes);
+    }
+
+    /** Builds an encoding with the structure of a block: a header and a list of transactions. */
+    private static byte[] createBlock(int txCount) {
+        byte[][] header = new byte[15][];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = element(i == 8 ? 256 : 32);
+        }
+        header[14] = element(1408);
+
+        byte[][] txs = new byte[txCount][];
+        for (int i = 0; i < txCount; i++) {
+            txs[i] =
+                    RLP.encodeList(
+                            element(2),
+                            element(32),
+                            element(8),
+                            element(64),
+                            element(8),
+                            element(3),
+                            element(8),
+                            element(1),
+                            element(96));
+        }
+        return RLP.encodeList(RLP.encodeList(header), RLP.encodeList(txs));
+    }
+
+    private static long readWithDecode2(byte[] encoded) {
+        RLPList block = (RLPList) RLP.decode2(encoded).get(0);
+        long sum = 0;
+        for (RLPElement field : (RLPList) block.get(0)) {
+            sum += field.getRLPData().length;
+        }
+        for (RLPElement tx : (RLPList) block.get(1)) {
+            RLPList fields = (RLPList) RLP.decode2(tx.getRLPData()).get(0);
+            for (RLPElement field : fields) {
+                sum += field.getRLPData().length;
+            }
+        }
+        return sum;
+    }
+
+    private static long readWithView(byte[] encoded) {
+        RLPView block = RLPView.wrap(encoded);
+        long sum = 0;
+        for (RLPView field : block.get(0)) {
+            sum += field.getBytes().length;
+        }
+        for (RLPView tx : block.get(1)) {
+            RLPView fields = RLPView.wrap(tx.getEncoded());
+            for (RLPView field : fields) {
+                sum += field.getBytes().length;
+            }
+        }
+        return sum;
+    }
+
+    @Test
+    public void benchmarkDecodeBlock() {
+        for (int txCount : TX_COUNTS) {
+            byte[] encoded = createBlock(txCount);
+            assertEquals(readWithDecode2(encoded), readWithView(encoded));
+
+            for (int r = 0; r < WARMUP; r++) {
+                readWithDecode2(encoded);
+                readWithView(encoded);
+            }
+
+            long start = System.nanoTime();
+            for (int r = 0; r < ROUNDS; r++) {
+                readWithDecode2(encoded);
+            }
+            long decode2 = (System.nanoTime() - start) / ROUNDS;
+
+            start = System.nanoTime();
+            for (int r = 0; r < ROUNDS; r++) {
+                readWithView(encoded);
+            }
+            long view = (System.nanoTime() - start) / ROUNDS;
+
+            System.out.format(
+                    "block with %d txs (%d bytes): decode2 %d us, view %d us%n",
+                    txCount, encoded.length, decode2 / 1_000, view / 1_000);
+        }
+    }
+}
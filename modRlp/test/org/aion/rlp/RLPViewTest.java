@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.rlp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class RLPViewTest {
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    /** Checks that the view matches the element decoded by {@link RLP#decode2(byte[])}. */
+    private static void assertSameAs(RLPElement expected, RLPView actual) {
+        if (expected instanceof RLPList) {
+            RLPList list = (RLPList) expected;
+            assertThat(actual.isList()).isTrue();
+            assertThat(actual.getEncoded()).isEqualTo(list.getRLPData());
+            assertThat(actual.size()).isEqualTo(list.size());
+
+            RLPView[] elements = actual.getElements();
+            int i = 0;
+            for (RLPView element : actual) {
+                assertSameAs(list.get(i), element);
+                assertSameAs(list.get(i), actual.get(i));
+                assertSameAs(list.get(i), elements[i]);
+                i++;
+            }
+        } else {
+            assertThat(actual.isList()).isFalse();
+            assertThat(actual.getBytes()).isEqualTo(expected.getRLPData());
+            assertThat(actual.getLength()).isEqualTo(expected.getRLPData().length);
+        }
+    }
+
+    @Test
+    public void testMatchesDecode2() {
+        byte[] nested =
+                RLP.encodeList(
+                        RLP.encodeElement(bytes(32, 1)),
+                        RLP.encodeList(),
+                        RLP.encodeList(RLP.encodeElement(bytes(100, 2)), RLP.encodeByte((byte) 1)));
+        byte[] encoded =
+                RLP.encodeList(
+                        RLP.encodeElement(new byte[0]),
+                        RLP.encodeByte((byte) 0x7f),
+                        RLP.encodeElement(new byte[] {(byte) 0x80}),
+                        RLP.encodeElement(bytes(55, 3)),
+                        RLP.encodeElement(bytes(56, 4)),
+                        RLP.encodeElement(bytes(1024, 5)),
+                        RLP.encodeLong(Long.MAX_VALUE),
+                        nested);
+
+        assertSameAs(RLP.decode2(encoded).get(0), RLPView.wrap(encoded));
+    }
+
+    @Test
+    public void testNumbers() {
+        RLPView list =
+                RLPView.wrap(
+                        RLP.encodeList(
+                                RLP.encodeElement(new byte[0]),
+                                RLP.encodeByte((byte) 5),
+                                RLP.encodeLong(Long.MAX_VALUE),
+                                RLP.encodeBigInteger(BigInteger.TWO.pow(80))));
+
+        assertThat(list.get(0).getLong()).isEqualTo(0L);
+        assertThat(list.get(0).getBigInteger()).isEqualTo(BigInteger.ZERO);
+        assertThat(list.get(1).getLong()).isEqualTo(5L);
+        assertThat(list.get(2).getLong()).isEqualTo(Long.MAX_VALUE);
+        assertThat(list.get(3).getBigInteger()).isEqualTo(BigInteger.TWO.pow(80));
+        // truncated as with BigInteger#longValue()
+        assertThat(list.get(3).getLong()).isEqualTo(BigInteger.TWO.pow(80).longValue());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        RLPView.wrap(RLP.encodeList(RLP.encodeByte((byte) 1))).get(1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testItemAsList() {
+        RLPView.wrap(RLP.encodeElement(bytes(10, 6))).get(0);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testTruncatedList() {
+        byte[] encoded = RLP.encodeList(RLP.encodeElement(bytes(100, 7)));
+        RLPView.wrap(Arrays.copyOf(encoded, encoded.length - 1));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testElementExceedsList() {
+        // a list of 2 bytes containing an item of 3 bytes
+        RLPView.wrap(new byte[] {(byte) 0xc2, (byte) 0x83, 1, 2, 3}).get(0);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testEmptyData() {
+        RLPView.wrap(new byte[0]);
+    }
+}
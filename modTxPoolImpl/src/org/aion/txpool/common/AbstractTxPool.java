@@ -26,16 +26,23 @@ import java.math.BigInteger;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.SortedMap;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -75,18 +82,31 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
     // TODO : should limit size
     private final Map<ByteArrayWrapper, TXState> mainMap = new ConcurrentHashMap<>();
     /**
-     * timeView : SortedMap<Long, LinkedHashSet<ByteArrayWrapper>> @Long transaction
-     * timestamp @LinkedHashSet<ByteArrayWrapper> the hashSet of the transaction hash*
+     * unsortedTxs : Queue<ByteArrayWrapper> the hashes of the transactions added to the mainMap
+     * since the last sort, so that sorting does not need to scan the whole pool
      */
-    private final SortedMap<Long, LinkedHashSet<ByteArrayWrapper>> timeView =
-            Collections.synchronizedSortedMap(new TreeMap<>());
+    private final Queue<ByteArrayWrapper> unsortedTxs = new ConcurrentLinkedQueue<>();
     /**
-     * feeView : SortedMap<BigInteger, LinkedHashSet<TxPoolList<ByteArrayWrapper>>> @BigInteger
-     * energy cost = energy consumption * energy price @LinkedHashSet<TxPoolList<ByteArrayWrapper>>
-     * the TxPoolList of the first transaction hash
+     * timeView : NavigableMap<Long, Set<ByteArrayWrapper>> @Long transaction timestamp
+     * in seconds @Set<ByteArrayWrapper> the set of the transaction hashes
      */
-    private final SortedMap<BigInteger, Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>>
-            feeView = Collections.synchronizedSortedMap(new TreeMap<>(Collections.reverseOrder()));
+    private final NavigableMap<Long, Set<ByteArrayWrapper>> timeView =
+            new ConcurrentSkipListMap<>();
+    /**
+     * feeView : NavigableMap<Long, NavigableSet<TxDependList<ByteArrayWrapper>>> @Long energy
+     * cost = energy consumption * energy price, highest first @NavigableSet<TxDependList> the
+     * TxDependList ordered by the timestamp of the first transaction
+     *
+     * <p>The fee levels are concurrent sets, iterated by snapshots without the pool lock; they are
+     * only changed while holding the write lock, so that a level is not dropped as empty while a
+     * list is added to it.
+     */
+    private final NavigableMap<Long, NavigableSet<TxDependList<ByteArrayWrapper>>> feeView =
+            new ConcurrentSkipListMap<>(Collections.reverseOrder());
+
+    private static final Comparator<TxDependList<ByteArrayWrapper>> TIME_ORDER =
+            Comparator.comparing(TxDependList<ByteArrayWrapper>::getTimeStamp)
+                    .thenComparing(l -> l.getTxList().get(0));
     /**
      * accountView : Map<ByteArrayWrapper, AccountState> @ByteArrayWrapper account
      * address @AccountState
@@ -97,10 +117,14 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
      * address @PoolState continuous transaction state including starting nonce
      */
     private final Map<Address, List<PoolState>> poolStateView = new ConcurrentHashMap<>();
+    /** dirtyAccounts : the accounts with transactions added or removed since the last sort */
+    private final Set<Address> dirtyAccounts = ConcurrentHashMap.newKeySet();
+    /** feeDirtyAccounts : the accounts with pool states that are not in the feeView */
+    private final Set<Address> feeDirtyAccounts = ConcurrentHashMap.newKeySet();
 
     private final List<TX> outDated = new ArrayList<>();
 
-    private final Map<Address, BigInteger> bestNonce = new ConcurrentHashMap<>();
+    private final Map<Address, Long> bestNonce = new ConcurrentHashMap<>();
 
     protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
@@ -118,15 +142,18 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
         return this.mainMap;
     }
 
-    protected SortedMap<BigInteger, Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>>
-            getFeeView() {
+    /** Adds new transactions to the mainMap, to be indexed by the next {@link #sortTxn()}. */
+    protected void addToMainMap(Map<ByteArrayWrapper, TXState> txs) {
+        this.mainMap.putAll(txs);
+        this.unsortedTxs.addAll(txs.keySet());
+    }
+
+    protected NavigableMap<Long, NavigableSet<TxDependList<ByteArrayWrapper>>> getFeeView() {
         return this.feeView;
     }
 
     protected AccountState getAccView(Address acc) {
-
-        this.accountView.computeIfAbsent(acc, k -> new AccountState());
-        return this.accountView.get(acc);
+        return this.accountView.computeIfAbsent(acc, k -> new AccountState());
     }
 
     protected Map<Address, AccountState> getFullAcc() {
@@ -141,6 +168,12 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
         return this.poolStateView.get(acc);
     }
 
+    /** Marks the transactions of the given account to be sorted again. */
+    protected void setDirty(Address acc) {
+        this.getAccView(acc).setDirty();
+        this.dirtyAccounts.add(acc);
+    }
+
     protected List<TX> getOutdatedListImpl() {
         List<TX> rtn = new ArrayList<>(this.outDated);
         this.outDated.clear();
@@ -154,347 +187,319 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
 
     public void clear() {
         this.mainMap.clear();
+        this.unsortedTxs.clear();
         this.timeView.clear();
         this.feeView.clear();
         this.accountView.clear();
         this.poolStateView.clear();
+        this.dirtyAccounts.clear();
+        this.feeDirtyAccounts.clear();
         this.outDated.clear();
     }
 
+    /**
+     * Converts a transaction nonce to a {@code long}, saturating at {@link Long#MAX_VALUE}.
+     * Transactions with larger nonces are not accepted in the pool.
+     */
+    protected static long toLongNonce(BigInteger nonce) {
+        return nonce.bitLength() < Long.SIZE ? nonce.longValue() : Long.MAX_VALUE;
+    }
+
+    /** @return the energy charge of the transaction, saturating at {@link Long#MAX_VALUE} */
+    protected static long energyCharge(ITransaction tx) {
+        try {
+            return Math.multiplyExact(tx.getNrgPrice(), tx.getNrgConsume());
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
     protected void sortTxn() {
 
-        Map<Address, Map<BigInteger, SimpleEntry<ByteArrayWrapper, BigInteger>>> accMap =
-                new ConcurrentHashMap<>();
-        SortedMap<Long, LinkedHashSet<ByteArrayWrapper>> timeMap =
-                Collections.synchronizedSortedMap(new TreeMap<>());
-
-        Map<ITransaction, Long> updatedTx = new HashMap<>();
-        this.mainMap
-                .entrySet()
-                .parallelStream()
-                .forEach(
-                        e -> {
-                            TXState ts = e.getValue();
-                            if (ts.sorted()) {
-                                return;
-                            }
+        Map<Address, Map<Long, SimpleEntry<ByteArrayWrapper, Long>>> accMap = new HashMap<>();
+        Map<Long, Set<ByteArrayWrapper>> timeMap = new HashMap<>();
+        List<ByteArrayWrapper> replacedTx = new ArrayList<>();
 
-                            ITransaction tx = ts.getTx();
-
-                            // Gen temp timeMap
-                            long timestamp = tx.getTimeStampBI().longValue() / multiplyM;
-
-                            Map<BigInteger, SimpleEntry<ByteArrayWrapper, BigInteger>> nonceMap;
-                            ITransaction replacedTx = null;
-                            synchronized (accMap) {
-                                if (accMap.get(tx.getFrom()) != null) {
-                                    nonceMap = accMap.get(tx.getFrom());
-                                } else {
-                                    nonceMap = Collections.synchronizedSortedMap(new TreeMap<>());
-                                }
-
-                                // considering refactor later
-                                BigInteger nonce = tx.getNonceBI();
-
-                                BigInteger nrgCharge =
-                                        BigInteger.valueOf(tx.getNrgPrice())
-                                                .multiply(BigInteger.valueOf(tx.getNrgConsume()));
-
-                                if (LOG.isTraceEnabled()) {
-                                    LOG.trace(
-                                            "AbstractTxPool.sortTxn Put tx into nonceMap: nonce:[{}] ts:[{}] nrgCharge:[{}]",
-                                            nonce,
-                                            ByteUtils.toHexString(e.getKey().getData()),
-                                            nrgCharge.toString());
-                                }
-
-                                // considering same nonce tx, only put the latest tx.
-                                if (nonceMap.get(nonce) != null) {
-                                    try {
-                                        if (this.mainMap
-                                                        .get(nonceMap.get(nonce).getKey())
-                                                        .getTx()
-                                                        .getTimeStampBI()
-                                                        .compareTo(tx.getTimeStampBI())
-                                                < 1) {
-                                            replacedTx =
-                                                    this.mainMap
-                                                            .get(nonceMap.get(nonce).getKey())
-                                                            .getTx();
-                                            updatedTx.put(replacedTx, timestamp);
-                                            nonceMap.put(
-                                                    nonce,
-                                                    new SimpleEntry<>(e.getKey(), nrgCharge));
-                                        }
-                                    } catch (Exception ex) {
-                                        LOG.error(
-                                                "AbsTxPool.sortTxn {} [{}]",
-                                                ex.toString(),
-                                                tx.toString());
-                                    }
-                                } else {
-                                    nonceMap.put(nonce, new SimpleEntry<>(e.getKey(), nrgCharge));
-                                }
-
-                                if (LOG.isTraceEnabled()) {
-                                    LOG.trace(
-                                            "AbstractTxPool.sortTxn Put tx into accMap: acc:[{}] mapSize[{}] ",
-                                            tx.getFrom().toString(),
-                                            nonceMap.size());
-                                }
-
-                                accMap.put(tx.getFrom(), nonceMap);
-                            }
+        ByteArrayWrapper bw;
+        while ((bw = this.unsortedTxs.poll()) != null) {
+            TXState ts = this.mainMap.get(bw);
+            if (ts == null || ts.sorted()) {
+                continue;
+            }
 
-                            LinkedHashSet<ByteArrayWrapper> lhs;
-                            synchronized (timeMap) {
-                                if (timeMap.get(timestamp) != null) {
-                                    lhs = timeMap.get(timestamp);
-                                } else {
-                                    lhs = new LinkedHashSet<>();
-                                }
-
-                                lhs.add(e.getKey());
-
-                                if (LOG.isTraceEnabled()) {
-                                    LOG.trace(
-                                            "AbstractTxPool.sortTxn Put txHash into timeMap: ts:[{}] size:[{}]",
-                                            timestamp,
-                                            lhs.size());
-                                }
-
-                                timeMap.put(timestamp, lhs);
-
-                                if (replacedTx != null) {
-                                    long t = replacedTx.getTimeStampBI().longValue() / multiplyM;
-                                    if (timeMap.get(t) != null) {
-                                        timeMap.get(t)
-                                                .remove(
-                                                        ByteArrayWrapper.wrap(
-                                                                replacedTx.getHash()));
-                                    }
-                                }
-                            }
+            ITransaction tx = ts.getTx();
+            long timestamp = tx.getTimeStampBI().longValue() / multiplyM;
+            long nonce = toLongNonce(tx.getNonceBI());
+            long nrgCharge = energyCharge(tx);
+
+            if (LOG.isTraceEnabled()) {
+                LOG.trace(
+                        "AbstractTxPool.sortTxn Put tx into nonceMap: nonce:[{}] ts:[{}] nrgCharge:[{}]",
+                        nonce,
+                        ByteUtils.toHexString(bw.getData()),
+                        nrgCharge);
+            }
+
+            Map<Long, SimpleEntry<ByteArrayWrapper, Long>> nonceMap =
+                    accMap.computeIfAbsent(tx.getFrom(), k -> new TreeMap<>());
 
-                            ts.setSorted();
-                        });
+            // considering same nonce tx, only put the latest tx.
+            SimpleEntry<ByteArrayWrapper, Long> previous = nonceMap.get(nonce);
+            if (previous != null) {
+                ITransaction previousTx = this.mainMap.get(previous.getKey()).getTx();
+                if (previousTx.getTimeStampBI().compareTo(tx.getTimeStampBI()) < 1) {
+                    replacedTx.add(previous.getKey());
 
-        if (!updatedTx.isEmpty()) {
-            for (Map.Entry<ITransaction, Long> en : updatedTx.entrySet()) {
-                ByteArrayWrapper bw = ByteArrayWrapper.wrap(en.getKey().getHash());
-                if (this.timeView.get(en.getValue()) != null) {
-                    this.timeView.get(en.getValue()).remove(bw);
+                    long t = previousTx.getTimeStampBI().longValue() / multiplyM;
+                    if (timeMap.get(t) != null) {
+                        timeMap.get(t).remove(previous.getKey());
+                    }
+                } else {
+                    replacedTx.add(bw);
+                    ts.setSorted();
+                    continue;
                 }
+            }
+            nonceMap.put(nonce, new SimpleEntry<>(bw, nrgCharge));
 
-                lock.writeLock().lock();
-                this.mainMap.remove(bw);
+            if (LOG.isTraceEnabled()) {
+                LOG.trace(
+                        "AbstractTxPool.sortTxn Put tx into accMap: acc:[{}] mapSize[{}] ",
+                        tx.getFrom().toString(),
+                        nonceMap.size());
+            }
+
+            timeMap.computeIfAbsent(timestamp, k -> new LinkedHashSet<>()).add(bw);
+            ts.setSorted();
+        }
+
+        if (!replacedTx.isEmpty()) {
+            lock.writeLock().lock();
+            try {
+                replacedTx.forEach(this.mainMap::remove);
+            } finally {
                 lock.writeLock().unlock();
             }
         }
 
         if (!accMap.isEmpty()) {
 
-            timeMap.entrySet()
-                    .parallelStream()
-                    .forEach(
-                            e -> {
-                                if (this.timeView.get(e.getKey()) == null) {
-                                    this.timeView.put(e.getKey(), e.getValue());
-                                } else {
-                                    this.timeView.get(e.getKey()).addAll(e.getValue());
-                                }
-                            });
-
-            accMap.entrySet()
-                    .parallelStream()
-                    .forEach(
-                            e -> {
-                                lock.writeLock().lock();
-                                this.accountView.computeIfAbsent(
-                                        e.getKey(), k -> new AccountState());
-                                this.accountView.get(e.getKey()).updateMap(e.getValue());
-                                lock.writeLock().unlock();
-                            });
+            for (Entry<Long, Set<ByteArrayWrapper>> e : timeMap.entrySet()) {
+                if (!e.getValue().isEmpty()) {
+                    this.timeView
+                            .computeIfAbsent(e.getKey(), k -> ConcurrentHashMap.newKeySet())
+                            .addAll(e.getValue());
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (Entry<Address, Map<Long, SimpleEntry<ByteArrayWrapper, Long>>> e :
+                        accMap.entrySet()) {
+                    this.getAccView(e.getKey()).updateMap(e.getValue());
+                    this.dirtyAccounts.add(e.getKey());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
 
             updateAccPoolState();
             updateFeeMap();
         }
     }
 
-    protected SortedMap<Long, LinkedHashSet<ByteArrayWrapper>> getTimeView() {
+    protected NavigableMap<Long, Set<ByteArrayWrapper>> getTimeView() {
         return this.timeView;
     }
 
+    /** Removes the transaction hash from the timeView, dropping the timestamp once empty. */
+    protected void removeFromTimeView(long timestamp, ByteArrayWrapper bw) {
+        this.timeView.computeIfPresent(
+                timestamp,
+                (k, set) -> {
+                    set.remove(bw);
+                    return set.isEmpty() ? null : set;
+                });
+    }
+
+    /** Removes all the transactions of the given account from the feeView. */
+    protected void removeFromFeeView(Address acc) {
+        List<PoolState> psl = this.poolStateView.get(acc);
+        if (psl == null) {
+            return;
+        }
+
+        for (PoolState ps : psl) {
+            if (ps.isInFeePool()) {
+                removeFromFeeView(ps);
+                ps.resetInFeePool();
+            }
+        }
+    }
+
+    private void removeFromFeeView(PoolState ps) {
+        lock.writeLock().lock();
+        try {
+            this.feeView.computeIfPresent(
+                    ps.getFee(),
+                    (fee, level) -> {
+                        level.remove(ps.getFeeEntry());
+                        return level.isEmpty() ? null : level;
+                    });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
     protected void updateAccPoolState() {
 
-        // iterate tx by account
+        // iterate the updated accounts
         List<Address> clearAddr = new ArrayList<>();
-        for (Entry<Address, AccountState> e : this.accountView.entrySet()) {
-            AccountState as = e.getValue();
-            if (as.isDirty()) {
+        Iterator<Address> it = this.dirtyAccounts.iterator();
+        while (it.hasNext()) {
+            Address addr = it.next();
+            it.remove();
+
+            AccountState as = this.accountView.get(addr);
+            if (as == null || !as.isDirty()) {
+                continue;
+            }
 
-                if (as.getMap().isEmpty()) {
-                    this.poolStateView.remove(e.getKey());
-                    clearAddr.add(e.getKey());
-                } else {
-                    // checking AccountState given by account
-                    List<PoolState> psl = this.poolStateView.get(e.getKey());
-                    if (psl == null) {
-                        psl = new LinkedList<>();
-                    }
+            Long firstNonce = as.getFirstNonce();
+            if (firstNonce == null) {
+                removeFromFeeView(addr);
+                this.poolStateView.remove(addr);
+                clearAddr.add(addr);
+                continue;
+            }
 
-                    List<PoolState> newPoolState = new LinkedList<>();
-                    // Checking new tx has been include into old pools.
-                    BigInteger txNonceStart = as.getFirstNonce();
+            // checking AccountState given by account
+            List<PoolState> psl = this.poolStateView.get(addr);
+            if (psl == null) {
+                psl = new LinkedList<>();
+            }
 
-                    if (txNonceStart != null) {
-                        if (LOG.isTraceEnabled()) {
-                            LOG.trace(
-                                    "AbstractTxPool.updateAccPoolState fn [{}]",
-                                    txNonceStart.toString());
-                        }
-                        for (PoolState ps : psl) {
-                            // check the previous txn status in the old
-                            // PoolState
-                            if (isClean(ps, as)
-                                    && ps.firstNonce.equals(txNonceStart)
-                                    && ps.combo == seqTxCountMax) {
-                                ps.resetInFeePool();
-                                newPoolState.add(ps);
-
-                                if (LOG.isTraceEnabled()) {
-                                    LOG.trace(
-                                            "AbstractTxPool.updateAccPoolState add fn [{}]",
-                                            ps.firstNonce.toString());
-                                }
-
-                                txNonceStart = txNonceStart.add(BigInteger.valueOf(seqTxCountMax));
-                            } else {
-                                // remove old poolState in the feeMap
-                                if (this.feeView.get(ps.getFee()) != null) {
-
-                                    if (e.getValue().getMap().get(ps.firstNonce) != null) {
-                                        this.feeView
-                                                .get(ps.getFee())
-                                                .remove(
-                                                        e.getValue()
-                                                                .getMap()
-                                                                .get(ps.firstNonce)
-                                                                .getKey());
-                                    }
-
-                                    if (LOG.isTraceEnabled()) {
-                                        LOG.trace(
-                                                "AbstractTxPool.updateAccPoolState remove fn [{}]",
-                                                ps.firstNonce.toString());
-                                    }
-
-                                    if (this.feeView.get(ps.getFee()).isEmpty()) {
-                                        this.feeView.remove(ps.getFee());
-                                    }
-                                }
-                            }
-                        }
+            List<PoolState> newPoolState = new LinkedList<>();
+            // Checking new tx has been include into old pools.
+            long txNonceStart = firstNonce;
+
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("AbstractTxPool.updateAccPoolState fn [{}]", txNonceStart);
+            }
+            for (PoolState ps : psl) {
+                // check the previous txn status in the old PoolState
+                if (isClean(ps, as)
+                        && ps.firstNonce == txNonceStart
+                        && ps.combo == seqTxCountMax) {
+                    if (ps.isInFeePool()) {
+                        // the first transaction may have been replaced
+                        removeFromFeeView(ps);
+                        ps.resetInFeePool();
                     }
+                    newPoolState.add(ps);
 
-                    int cnt = 0;
-                    BigInteger fee = BigInteger.ZERO;
-                    BigInteger totalFee = BigInteger.ZERO;
+                    if (LOG.isTraceEnabled()) {
+                        LOG.trace("AbstractTxPool.updateAccPoolState add fn [{}]", ps.firstNonce);
+                    }
 
-                    for (Entry<BigInteger, SimpleEntry<ByteArrayWrapper, BigInteger>> en :
-                            as.getMap().entrySet()) {
-                        if (LOG.isTraceEnabled()) {
-                            LOG.trace(
-                                    "AbstractTxPool.updateAccPoolState mapsize[{}] nonce:[{}] cnt[{}] txNonceStart[{}]",
-                                    as.getMap().size(),
-                                    en.getKey().toString(),
-                                    cnt,
-                                    txNonceStart != null ? txNonceStart.toString() : null);
-                        }
-                        if (en.getKey()
-                                .equals(
-                                        txNonceStart != null
-                                                ? txNonceStart.add(BigInteger.valueOf(cnt))
-                                                : null)) {
-                            if (en.getValue().getValue().compareTo(fee) > -1) {
-                                fee = en.getValue().getValue();
-                                totalFee = totalFee.add(fee);
-
-                                if (++cnt == seqTxCountMax) {
-                                    if (LOG.isTraceEnabled()) {
-                                        LOG.trace(
-                                                "AbstractTxPool.updateAccPoolState case1 - nonce:[{}] totalFee:[{}] cnt:[{}]",
-                                                txNonceStart,
-                                                totalFee.toString(),
-                                                cnt);
-                                    }
-                                    newPoolState.add(
-                                            new PoolState(
-                                                    txNonceStart,
-                                                    totalFee.divide(BigInteger.valueOf(cnt)),
-                                                    cnt));
-
-                                    txNonceStart = en.getKey().add(BigInteger.ONE);
-                                    totalFee = BigInteger.ZERO;
-                                    fee = BigInteger.ZERO;
-                                    cnt = 0;
-                                }
-                            } else {
-                                if (LOG.isTraceEnabled()) {
-                                    LOG.trace(
-                                            "AbstractTxPool.updateAccPoolState case2 - nonce:[{}] totalFee:[{}] cnt:[{}]",
-                                            txNonceStart,
-                                            totalFee.toString(),
-                                            cnt);
-                                }
-                                newPoolState.add(
-                                        new PoolState(
-                                                txNonceStart,
-                                                totalFee.divide(BigInteger.valueOf(cnt)),
-                                                cnt));
-
-                                // next PoolState
-                                txNonceStart = en.getKey();
-                                fee = en.getValue().getValue();
-                                totalFee = fee;
-                                cnt = 1;
-                            }
-                        }
+                    txNonceStart += seqTxCountMax;
+                } else if (ps.isInFeePool()) {
+                    // remove old poolState in the feeMap
+                    removeFromFeeView(ps);
+
+                    if (LOG.isTraceEnabled()) {
+                        LOG.trace(
+                                "AbstractTxPool.updateAccPoolState remove fn [{}]",
+                                ps.firstNonce);
                     }
+                }
+            }
 
-                    if (totalFee.signum() == 1) {
+            int cnt = 0;
+            long fee = 0;
+            long totalFee = 0;
 
+            for (Entry<Long, SimpleEntry<ByteArrayWrapper, Long>> en : as.getMap().entrySet()) {
+                if (LOG.isTraceEnabled()) {
+                    LOG.trace(
+                            "AbstractTxPool.updateAccPoolState mapsize[{}] nonce:[{}] cnt[{}] txNonceStart[{}]",
+                            as.getMap().size(),
+                            en.getKey(),
+                            cnt,
+                            txNonceStart);
+                }
+                if (en.getKey() == txNonceStart + cnt) {
+                    if (en.getValue().getValue() >= fee) {
+                        fee = en.getValue().getValue();
+                        totalFee = saturatedAdd(totalFee, fee);
+
+                        if (++cnt == seqTxCountMax) {
+                            if (LOG.isTraceEnabled()) {
+                                LOG.trace(
+                                        "AbstractTxPool.updateAccPoolState case1 - nonce:[{}] totalFee:[{}] cnt:[{}]",
+                                        txNonceStart,
+                                        totalFee,
+                                        cnt);
+                            }
+                            newPoolState.add(new PoolState(txNonceStart, totalFee / cnt, cnt));
+
+                            txNonceStart = en.getKey() + 1;
+                            totalFee = 0;
+                            fee = 0;
+                            cnt = 0;
+                        }
+                    } else {
                         if (LOG.isTraceEnabled()) {
                             LOG.trace(
-                                    "AbstractTxPool.updateAccPoolState case3 - nonce:[{}] totalFee:[{}] cnt:[{}] bw:[{}]",
+                                    "AbstractTxPool.updateAccPoolState case2 - nonce:[{}] totalFee:[{}] cnt:[{}]",
                                     txNonceStart,
-                                    totalFee.toString(),
-                                    cnt,
-                                    e.getKey().toString());
+                                    totalFee,
+                                    cnt);
                         }
+                        newPoolState.add(new PoolState(txNonceStart, totalFee / cnt, cnt));
 
-                        newPoolState.add(
-                                new PoolState(
-                                        txNonceStart,
-                                        totalFee.divide(BigInteger.valueOf(cnt)),
-                                        cnt));
+                        // next PoolState
+                        txNonceStart = en.getKey();
+                        fee = en.getValue().getValue();
+                        totalFee = fee;
+                        cnt = 1;
                     }
+                }
+            }
 
-                    this.poolStateView.put(e.getKey(), newPoolState);
+            if (totalFee > 0) {
 
-                    if (LOG.isTraceEnabled()) {
-                        this.poolStateView.forEach(
-                                (k, v) ->
-                                        v.forEach(
-                                                l -> {
-                                                    LOG.trace(
-                                                            "AbstractTxPool.updateAccPoolState - the first nonce of the poolState list:[{}]",
-                                                            l.firstNonce);
-                                                }));
-                    }
-                    as.sorted();
+                if (LOG.isTraceEnabled()) {
+                    LOG.trace(
+                            "AbstractTxPool.updateAccPoolState case3 - nonce:[{}] totalFee:[{}] cnt:[{}] bw:[{}]",
+                            txNonceStart,
+                            totalFee,
+                            cnt,
+                            addr.toString());
                 }
+
+                newPoolState.add(new PoolState(txNonceStart, totalFee / cnt, cnt));
             }
+
+            this.poolStateView.put(addr, newPoolState);
+            this.feeDirtyAccounts.add(addr);
+
+            if (LOG.isTraceEnabled()) {
+                newPoolState.forEach(
+                        l ->
+                                LOG.trace(
+                                        "AbstractTxPool.updateAccPoolState - the first nonce of the poolState list:[{}]",
+                                        l.firstNonce));
+            }
+            as.sorted();
         }
 
         if (!clearAddr.isEmpty()) {
@@ -513,10 +518,8 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
             throw new NullPointerException();
         }
 
-        for (BigInteger bi = ps.getFirstNonce();
-                bi.compareTo(ps.firstNonce.add(BigInteger.valueOf(ps.getCombo()))) < 0;
-                bi = bi.add(BigInteger.ONE)) {
-            if (!as.getMap().containsKey(bi)) {
+        for (long n = ps.getFirstNonce(); n < ps.getFirstNonce() + ps.getCombo(); n++) {
+            if (!as.getMap().containsKey(n)) {
                 return false;
             }
         }
@@ -525,27 +528,32 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
     }
 
     protected void updateFeeMap() {
-        for (Entry<Address, List<PoolState>> e : this.poolStateView.entrySet()) {
+        Iterator<Address> it = this.feeDirtyAccounts.iterator();
+        while (it.hasNext()) {
+            Address addr = it.next();
+            it.remove();
+
+            AccountState as = this.accountView.get(addr);
+            List<PoolState> psl = this.poolStateView.get(addr);
+            if (as == null || psl == null) {
+                continue;
+            }
+
             ByteArrayWrapper dependTx = null;
-            for (PoolState ps : e.getValue()) {
+            for (PoolState ps : psl) {
 
                 if (LOG.isTraceEnabled()) {
                     LOG.trace(
                             "updateFeeMap addr[{}] inFp[{}] fn[{}] cb[{}] fee[{}]",
-                            e.getKey().toString(),
+                            addr.toString(),
                             ps.isInFeePool(),
-                            ps.getFirstNonce().toString(),
+                            ps.getFirstNonce(),
                             ps.getCombo(),
-                            ps.getFee().toString());
+                            ps.getFee());
                 }
 
                 if (ps.isInFeePool()) {
-                    dependTx =
-                            this.accountView
-                                    .get(e.getKey())
-                                    .getMap()
-                                    .get(ps.getFirstNonce())
-                                    .getKey();
+                    dependTx = ps.getFeeEntry().getTxList().get(0);
                     if (LOG.isTraceEnabled()) {
                         LOG.trace("updateFeeMap isInFeePool [{}]", dependTx.toString());
                     }
@@ -553,13 +561,10 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
 
                     TxDependList<ByteArrayWrapper> txl = new TxDependList<>();
                     BigInteger timestamp = BigInteger.ZERO;
-                    for (BigInteger i = ps.firstNonce;
-                            i.compareTo(ps.firstNonce.add(BigInteger.valueOf(ps.combo))) < 0;
-                            i = i.add(BigInteger.ONE)) {
+                    for (long i = ps.firstNonce; i < ps.firstNonce + ps.combo; i++) {
 
-                        ByteArrayWrapper bw =
-                                this.accountView.get(e.getKey()).getMap().get(i).getKey();
-                        if (i.equals(ps.firstNonce)) {
+                        ByteArrayWrapper bw = as.getMap().get(i).getKey();
+                        if (i == ps.firstNonce) {
                             timestamp = this.mainMap.get(bw).getTx().getTimeStampBI();
                         }
 
@@ -569,37 +574,32 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
                     if (!txl.isEmpty()) {
                         txl.setDependTx(dependTx);
                         dependTx = txl.getTxList().get(0);
-                        txl.setAddress(e.getKey());
+                        txl.setAddress(addr);
                         txl.setTimeStamp(timestamp);
                     }
 
-                    if (this.feeView.get(ps.fee) == null) {
-                        Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> set =
-                                new LinkedHashMap<>();
-                        set.put(txl.getTxList().get(0), txl);
-
-                        if (LOG.isTraceEnabled()) {
-                            LOG.trace("updateFeeMap new feeView put fee[{}]", ps.fee);
-                        }
-
-                        this.feeView.put(ps.fee, set);
-                    } else {
-
-                        if (LOG.isTraceEnabled()) {
-                            LOG.trace("updateFeeMap update feeView put fee[{}]", ps.fee);
-                        }
+                    if (LOG.isTraceEnabled()) {
+                        LOG.trace("updateFeeMap feeView put fee[{}]", ps.fee);
+                    }
 
-                        this.feeView.get(ps.fee).put(txl.getTxList().get(0), txl);
+                    lock.writeLock().lock();
+                    try {
+                        this.feeView
+                                .computeIfAbsent(
+                                        ps.fee, k -> new ConcurrentSkipListSet<>(TIME_ORDER))
+                                .add(txl);
+                    } finally {
+                        lock.writeLock().unlock();
                     }
 
-                    ps.setInFeePool();
+                    ps.setInFeePool(txl);
                 }
             }
         }
     }
 
-    protected void setBestNonce(Address addr, BigInteger bn) {
-        if (addr == null || bn == null) {
+    protected void setBestNonce(Address addr, long bn) {
+        if (addr == null) {
             throw new NullPointerException();
         }
 
@@ -607,18 +607,16 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
             LOG.trace(
                     "addr[{}] bn[{}] txnonce[{}]",
                     addr.toString(),
-                    bestNonce.get(addr) == null ? "-1" : bestNonce.get(addr).toString(),
-                    bn.toString());
+                    getBestNonce(addr),
+                    bn);
         }
 
-        if (bestNonce.get(addr) == null || bestNonce.get(addr).compareTo(bn) < 0) {
-            bestNonce.put(addr, bn);
-        }
+        bestNonce.merge(addr, bn, Math::max);
     }
 
-    protected BigInteger getBestNonce(Address addr) {
+    protected long getBestNonce(Address addr) {
         if (addr == null || bestNonce.get(addr) == null) {
-            return BigInteger.ONE.negate();
+            return -1;
         }
 
         return bestNonce.get(addr);
@@ -647,26 +645,27 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
 
     protected class PoolState {
         private final AtomicBoolean inFeePool = new AtomicBoolean(false);
-        private BigInteger fee;
-        private BigInteger firstNonce;
+        private long fee;
+        private long firstNonce;
         private int combo;
+        // the entry of the feeView for this pool state
+        private volatile TxDependList<ByteArrayWrapper> feeEntry;
 
-        PoolState(BigInteger nonce, BigInteger fee, int combo) {
+        PoolState(long nonce, long fee, int combo) {
             this.firstNonce = nonce;
             this.combo = combo;
             this.fee = fee;
         }
 
-        public boolean contains(BigInteger bi) {
-            return (bi.compareTo(firstNonce) > -1)
-                    && (bi.compareTo(firstNonce.add(BigInteger.valueOf(combo))) < 0);
+        public boolean contains(long nonce) {
+            return nonce >= firstNonce && nonce < firstNonce + combo;
         }
 
-        public BigInteger getFee() {
+        public long getFee() {
             return fee;
         }
 
-        BigInteger getFirstNonce() {
+        long getFirstNonce() {
             return firstNonce;
         }
 
@@ -674,11 +673,16 @@ public abstract class AbstractTxPool<TX extends ITransaction> {
             return combo;
         }
 
+        TxDependList<ByteArrayWrapper> getFeeEntry() {
+            return feeEntry;
+        }
+
         boolean isInFeePool() {
             return inFeePool.get();
         }
 
-        void setInFeePool() {
+        void setInFeePool(TxDependList<ByteArrayWrapper> feeEntry) {
+            this.feeEntry = feeEntry;
             inFeePool.set(true);
         }
 
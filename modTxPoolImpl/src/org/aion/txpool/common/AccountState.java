@@ -22,22 +22,23 @@
  */
 package org.aion.txpool.common;
 
-import java.math.BigInteger;
 import java.util.AbstractMap;
-import java.util.Collections;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.base.util.ByteArrayWrapper;
 
+/**
+ * The sorted transactions of one account, mapping the transaction nonce to the transaction hash
+ * and the energy charge of the transaction.
+ */
 public class AccountState {
-    private final SortedMap<BigInteger, AbstractMap.SimpleEntry<ByteArrayWrapper, BigInteger>>
-            txMap = Collections.synchronizedSortedMap(new TreeMap<>());
+    private final NavigableMap<Long, AbstractMap.SimpleEntry<ByteArrayWrapper, Long>> txMap =
+            new ConcurrentSkipListMap<>();
     private final AtomicBoolean dirty = new AtomicBoolean(false);
 
-    public void updateMap(
-            Map<BigInteger, AbstractMap.SimpleEntry<ByteArrayWrapper, BigInteger>> map) {
+    public void updateMap(Map<Long, AbstractMap.SimpleEntry<ByteArrayWrapper, Long>> map) {
         if (map != null && !map.isEmpty()) {
             txMap.putAll(map);
             setDirty();
@@ -48,7 +49,7 @@ public class AccountState {
         dirty.set(true);
     }
 
-    public SortedMap<BigInteger, AbstractMap.SimpleEntry<ByteArrayWrapper, BigInteger>> getMap() {
+    public NavigableMap<Long, AbstractMap.SimpleEntry<ByteArrayWrapper, Long>> getMap() {
         return txMap;
     }
 
@@ -56,8 +57,9 @@ public class AccountState {
         dirty.set(false);
     }
 
-    public BigInteger getFirstNonce() {
-        return txMap.isEmpty() ? null : txMap.firstKey();
+    public Long getFirstNonce() {
+        Map.Entry<Long, ?> first = txMap.firstEntry();
+        return first == null ? null : first.getKey();
     }
 
     public boolean isDirty() {
@@ -28,15 +28,13 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableSet;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.stream.Collectors;
 import org.aion.base.type.Address;
 import org.aion.base.type.ITransaction;
@@ -103,12 +101,17 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
      */
     public List<BigInteger> getNonceList(Address acc) {
 
-        List<BigInteger> nl = Collections.synchronizedList(new ArrayList<>());
         lock.readLock().lock();
-        this.getAccView(acc).getMap().entrySet().parallelStream().forEach(e -> nl.add(e.getKey()));
-        lock.readLock().unlock();
-
-        return nl.parallelStream().sorted().collect(Collectors.toList());
+        try {
+            return this.getAccView(acc)
+                    .getMap()
+                    .keySet()
+                    .stream()
+                    .map(BigInteger::valueOf)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     @Override
@@ -123,11 +126,11 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
      * @return
      */
     public List<BigInteger> getFeeList() {
-        List<BigInteger> nl = Collections.synchronizedList(new ArrayList<>());
-
-        this.getFeeView().entrySet().parallelStream().forEach(e -> nl.add(e.getKey()));
-
-        return nl.parallelStream().sorted(Collections.reverseOrder()).collect(Collectors.toList());
+        return this.getFeeView()
+                .keySet()
+                .stream()
+                .map(BigInteger::valueOf)
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -154,20 +157,30 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
                         tx.toString());
             }
 
+            if (tx.getNonceBI().bitLength() >= Long.SIZE) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                            "The tx nonce is out of range! [{}]",
+                            ByteUtils.toHexString(bw.getData()));
+                }
+                continue;
+            }
+
             mainMap.put(bw, new TXState(tx));
 
-            BigInteger txNonce = tx.getNonceBI();
-            BigInteger bn = getBestNonce(tx.getFrom());
+            long txNonce = tx.getNonceBI().longValue();
+            long bn = getBestNonce(tx.getFrom());
 
-            if (bn != null && txNonce.compareTo(bn) < 1) {
+            if (txNonce <= bn) {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("repay tx, do snapshot!");
                 }
                 snapshot();
             }
 
-            AbstractMap.SimpleEntry<ByteArrayWrapper, BigInteger> entry =
-                    this.getAccView(tx.getFrom()).getMap().get(txNonce);
+            AccountState as = this.getFullAcc().get(tx.getFrom());
+            AbstractMap.SimpleEntry<ByteArrayWrapper, Long> entry =
+                    as == null ? null : as.getMap().get(txNonce);
             if (entry != null) {
                 if (LOG.isTraceEnabled()) {
                     LOG.trace("repay tx, remove previous tx!");
@@ -190,13 +203,14 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
             setBestNonce(tx.getFrom(), txNonce);
         }
 
-        this.getMainMap().putAll(mainMap);
+        this.addToMainMap(mainMap);
 
         if (LOG.isTraceEnabled()) {
             LOG.trace("new add tx! np[{}] tx[{}]", newPendingTx.size(), txl.size());
         }
 
-        if (newPendingTx.size() != txl.size()) {
+        // the transactions skipped above are not expected in the result
+        if (newPendingTx.size() != mainMap.size()) {
             LOG.error("error");
         }
 
@@ -214,79 +228,38 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
         for (Map.Entry<Address, BigInteger> en1 : accNonce.entrySet()) {
             AccountState as = this.getAccView(en1.getKey());
             lock.writeLock().lock();
-            Iterator<Map.Entry<BigInteger, AbstractMap.SimpleEntry<ByteArrayWrapper, BigInteger>>>
-                    it = as.getMap().entrySet().iterator();
-
-            while (it.hasNext()) {
-                Map.Entry<BigInteger, AbstractMap.SimpleEntry<ByteArrayWrapper, BigInteger>> en =
-                        it.next();
-                if (en1.getValue().compareTo(en.getKey()) > 0) {
-                    bwList.add(en.getValue().getKey());
-                    it.remove();
-                } else {
-                    break;
+            try {
+                // the transactions with a nonce lower than the account nonce
+                Map<Long, AbstractMap.SimpleEntry<ByteArrayWrapper, Long>> included =
+                        as.getMap().headMap(toLongNonce(en1.getValue()));
+                for (AbstractMap.SimpleEntry<ByteArrayWrapper, Long> en : included.values()) {
+                    bwList.add(en.getKey());
                 }
+                included.clear();
+            } finally {
+                lock.writeLock().unlock();
             }
-            lock.writeLock().unlock();
-
-            Set<BigInteger> fee = Collections.synchronizedSet(new HashSet<>());
-            if (this.getPoolStateView(en1.getKey()) != null) {
-                this.getPoolStateView(en1.getKey())
-                        .parallelStream()
-                        .forEach(ps -> fee.add(ps.getFee()));
-            }
-
-            fee.parallelStream()
-                    .forEach(
-                            bi -> {
-                                if (this.getFeeView().get(bi) != null) {
-                                    this.getFeeView()
-                                            .get(bi)
-                                            .entrySet()
-                                            .removeIf(
-                                                    byteArrayWrapperTxDependListEntry ->
-                                                            byteArrayWrapperTxDependListEntry
-                                                                    .getValue()
-                                                                    .getAddress()
-                                                                    .equals(en1.getKey()));
-
-                                    if (this.getFeeView().get(bi).isEmpty()) {
-                                        this.getFeeView().remove(bi);
-                                    }
-                                }
-                            });
 
-            as.setDirty();
+            this.removeFromFeeView(en1.getKey());
+            this.setDirty(en1.getKey());
         }
 
-        List<TX> removedTxl = Collections.synchronizedList(new ArrayList<>());
-        bwList.parallelStream()
-                .forEach(
-                        bw -> {
-                            if (this.getMainMap().get(bw) != null) {
-                                ITransaction tx = this.getMainMap().get(bw).getTx().clone();
-                                removedTxl.add((TX) tx);
-
-                                long timestamp = tx.getTimeStampBI().longValue() / multiplyM;
-                                synchronized (this.getTimeView().get(timestamp)) {
-                                    if (this.getTimeView().get(timestamp) == null) {
-                                        LOG.error(
-                                                "Txpool.remove can't find the timestamp in the map [{}]",
-                                                tx.toString());
-                                        return;
-                                    }
+        List<TX> removedTxl = new ArrayList<>();
+        for (ByteArrayWrapper bw : bwList) {
+            TXState ts = this.getMainMap().get(bw);
+            if (ts == null) {
+                continue;
+            }
 
-                                    this.getTimeView().get(timestamp).remove(bw);
-                                    if (this.getTimeView().get(timestamp).isEmpty()) {
-                                        this.getTimeView().remove(timestamp);
-                                    }
-                                }
+            TX tx = (TX) ts.getTx().clone();
+            removedTxl.add(tx);
 
-                                lock.writeLock().lock();
-                                this.getMainMap().remove(bw);
-                                lock.writeLock().unlock();
-                            }
-                        });
+            this.removeFromTimeView(tx.getTimeStampBI().longValue() / multiplyM, bw);
+
+            lock.writeLock().lock();
+            this.getMainMap().remove(bw);
+            lock.writeLock().unlock();
+        }
 
         this.updateAccPoolState();
         this.updateFeeMap();
@@ -302,8 +275,8 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
     @Deprecated
     public List<TX> remove(List<TX> txs) {
 
-        List<TX> removedTxl = Collections.synchronizedList(new ArrayList<>());
-        Set<Address> checkedAddress = Collections.synchronizedSet(new HashSet<>());
+        List<TX> removedTxl = new ArrayList<>();
+        Set<Address> checkedAddress = new HashSet<>();
 
         for (TX tx : txs) {
             ByteArrayWrapper bw = ByteArrayWrapper.wrap(tx.getHash());
@@ -326,56 +299,21 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
                         tx.getNonceBI().toString());
             }
 
-            long timestamp = tx.getTimeStampBI().longValue() / multiplyM;
-            if (this.getTimeView().get(timestamp) != null) {
-                if (this.getTimeView().get(timestamp).remove(bw)) {
-                    if (this.getTimeView().get(timestamp).isEmpty()) {
-                        this.getTimeView().remove(timestamp);
-                    }
-                }
-            }
+            this.removeFromTimeView(tx.getTimeStampBI().longValue() / multiplyM, bw);
 
             // remove the all transactions belong to the given address in the feeView
             Address address = tx.getFrom();
-            Set<BigInteger> fee = Collections.synchronizedSet(new HashSet<>());
-            if (!checkedAddress.contains(address)) {
-
-                if (this.getPoolStateView(tx.getFrom()) != null) {
-                    this.getPoolStateView(tx.getFrom())
-                            .parallelStream()
-                            .forEach(ps -> fee.add(ps.getFee()));
-                }
-
-                fee.parallelStream()
-                        .forEach(
-                                bi -> {
-                                    if (this.getFeeView().get(bi) != null) {
-                                        this.getFeeView()
-                                                .get(bi)
-                                                .entrySet()
-                                                .removeIf(
-                                                        byteArrayWrapperTxDependListEntry ->
-                                                                byteArrayWrapperTxDependListEntry
-                                                                        .getValue()
-                                                                        .getAddress()
-                                                                        .equals(address));
-
-                                        if (this.getFeeView().get(bi).isEmpty()) {
-                                            this.getFeeView().remove(bi);
-                                        }
-                                    }
-                                });
-
-                checkedAddress.add(address);
+            if (checkedAddress.add(address)) {
+                this.removeFromFeeView(address);
             }
 
-            AccountState as = this.getAccView(tx.getFrom());
+            AccountState as = this.getAccView(address);
 
             lock.writeLock().lock();
-            as.getMap().remove(tx.getNonceBI());
+            as.getMap().remove(toLongNonce(tx.getNonceBI()));
             lock.writeLock().unlock();
 
-            as.setDirty();
+            this.setDirty(address);
         }
 
         this.updateAccPoolState();
@@ -423,9 +361,11 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
 
         lock.readLock().lock();
         try {
-            AbstractMap.SimpleEntry<ByteArrayWrapper, BigInteger> entry =
-                    this.getAccView(from).getMap().get(txNonce);
-            return (entry == null ? null : this.getMainMap().get(entry.getKey()).getTx());
+            AccountState as = this.getFullAcc().get(from);
+            AbstractMap.SimpleEntry<ByteArrayWrapper, Long> entry =
+                    as == null ? null : as.getMap().get(toLongNonce(txNonce));
+            TXState ts = entry == null ? null : this.getMainMap().get(entry.getKey());
+            return (ts == null ? null : ts.getTx());
         } finally {
             lock.readLock().unlock();
         }
@@ -439,7 +379,7 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
 
         List<TX> rtn = new ArrayList<>();
         for (Map.Entry<Address, AccountState> as : this.getFullAcc().entrySet()) {
-            for (Map.Entry<ByteArrayWrapper, BigInteger> txMap : as.getValue().getMap().values()) {
+            for (Map.Entry<ByteArrayWrapper, Long> txMap : as.getValue().getMap().values()) {
                 if (this.getMainMap().get(txMap.getKey()) == null) {
                     LOG.error("can't find the tx in the mainMap");
                     continue;
@@ -472,33 +412,21 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
         long cnt_nrg = 0;
         List<TX> rtn = new ArrayList<>();
         Set<ByteArrayWrapper> snapshotSet = new HashSet<>();
-        Map<ByteArrayWrapper, Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>> nonPickedTx =
-                new HashMap<>();
-        for (Entry<BigInteger, Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>> e :
+        Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> nonPickedTx = new HashMap<>();
+        for (Entry<Long, NavigableSet<TxDependList<ByteArrayWrapper>>> e :
                 this.getFeeView().entrySet()) {
 
             if (LOG.isTraceEnabled()) {
-                LOG.trace("snapshot  fee[{}]", e.getKey().toString());
-            }
-
-            SortedMap<BigInteger, Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>>
-                    timeTxDep = Collections.synchronizedSortedMap(new TreeMap<>());
-            for (Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> pair :
-                    e.getValue().entrySet()) {
-                BigInteger ts = pair.getValue().getTimeStamp();
-                while (timeTxDep.get(ts.add(BigInteger.ONE)) != null) {
-                    ts = ts.add(BigInteger.ONE);
-                }
-                timeTxDep.put(ts, pair);
+                LOG.trace("snapshot  fee[{}]", e.getKey());
             }
 
-            for (Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> pair :
-                    timeTxDep.values()) {
+            // the transaction lists of the same fee are kept ordered by timestamp
+            for (TxDependList<ByteArrayWrapper> txl : e.getValue()) {
                 // Check the small nonce tx must been picked before put the high nonce tx
-                ByteArrayWrapper dependTx = pair.getValue().getDependTx();
+                ByteArrayWrapper dependTx = txl.getDependTx();
                 if (dependTx == null || snapshotSet.contains(dependTx)) {
                     boolean firstTx = true;
-                    for (ByteArrayWrapper bw : pair.getValue().getTxList()) {
+                    for (ByteArrayWrapper bw : txl.getTxList()) {
                         ITransaction itx = this.getMainMap().get(bw).getTx();
 
                         cnt_txSz += itx.getEncoded().length;
@@ -541,11 +469,10 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
                         }
                     }
 
-                    ByteArrayWrapper ancestor = pair.getKey();
+                    ByteArrayWrapper ancestor = txl.getTxList().get(0);
                     while (nonPickedTx.get(ancestor) != null) {
                         firstTx = true;
-                        for (ByteArrayWrapper bw :
-                                nonPickedTx.get(ancestor).getValue().getTxList()) {
+                        for (ByteArrayWrapper bw : nonPickedTx.get(ancestor).getTxList()) {
                             ITransaction itx = this.getMainMap().get(bw).getTx();
 
                             cnt_txSz += itx.getEncoded().length;
@@ -589,11 +516,11 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
                             }
                         }
 
-                        ancestor = nonPickedTx.get(ancestor).getKey();
+                        ancestor = nonPickedTx.get(ancestor).getTxList().get(0);
                     }
                 } else {
                     // one low fee small nonce tx has been picked,and then search from this map.
-                    nonPickedTx.put(pair.getValue().getDependTx(), pair);
+                    nonPickedTx.put(dependTx, txl);
                 }
             }
         }
@@ -614,25 +541,23 @@ public class TxPoolA0<TX extends ITransaction> extends AbstractTxPool<TX> implem
     }
 
     public BigInteger bestPoolNonce(Address addr) {
-        return getBestNonce(addr);
+        return BigInteger.valueOf(getBestNonce(addr));
     }
 
     private void removeTimeoutTxn() {
 
         long ts = TimeInstant.now().toEpochSec() - txn_timeout;
-        List<TX> txl = Collections.synchronizedList(new ArrayList<>());
-
-        this.getTimeView()
-                .entrySet()
-                .parallelStream()
-                .forEach(
-                        e -> {
-                            if (e.getKey() < ts) {
-                                for (ByteArrayWrapper bw : e.getValue()) {
-                                    txl.add(this.getMainMap().get(bw).getTx());
-                                }
-                            }
-                        });
+        List<TX> txl = new ArrayList<>();
+
+        // only the expired part of the timeView is visited
+        for (Set<ByteArrayWrapper> bws : this.getTimeView().headMap(ts).values()) {
+            for (ByteArrayWrapper bw : bws) {
+                TXState state = this.getMainMap().get(bw);
+                if (state != null) {
+                    txl.add(state.getTx());
+                }
+            }
+        }
 
         if (txl.isEmpty()) {
             return;
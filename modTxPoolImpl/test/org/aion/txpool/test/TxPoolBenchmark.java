@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2017-2018 Aion foundation.
+ *
+ *     This file is part of the aion network project.
+ *
+ *     The aion network project is free software: you can redistribute it
+ *     and/or modify it under the terms of the GNU General Public License
+ *     as published by the Free Software Foundation, either version 3 of
+ *     the License, or any later version.
+ *
+ *     The aion network project is distributed in the hope that it will
+ *     be useful, but WITHOUT ANY WARRANTY; without even the implied
+ *     warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *     See the GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with the aion network project source files.
+ *     If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Aion foundation.
+ */
+
+package org.aion.txpool.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.aion.base.type.Address;
+import org.aion.base.type.ITransaction;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.txpool.zero.TxPoolA0;
+import org.aion.zero.types.AionTransaction;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Measures adding transactions to the pool, taking a block snapshot and removing the transactions
+ * included in a block, for pools of 10K, 50K and 100K transactions.
+ */
+@Ignore
+public class TxPoolBenchmark {
+
+    private static final int[] POOL_SIZES = {10_000, 50_000, 100_000};
+    private static final int ACCOUNTS = 1_000;
+    private static final int ROUNDS = 5;
+
+    private static final Address TO =
+            Address.wrap("0000000000000000000000000000000000000000000000000000000000000001");
+
+    private static List<ITransaction> createTransactions(int poolSize) {
+        ECKeyFac.setType(ECKeyFac.ECKeyType.ED25519);
+        ECKey key = ECKeyFac.inst().create();
+
+        List<ITransaction> txs = new ArrayList<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            byte[] sender = new byte[Address.ADDRESS_LEN];
+            sender[0] = (byte) 0xa0;
+            sender[1] = (byte) ((i % ACCOUNTS) >> 8);
+            sender[2] = (byte) (i % ACCOUNTS);
+
+            AionTransaction tx =
+                    new AionTransaction(
+                            BigInteger.valueOf(i / ACCOUNTS).toByteArray(),
+                            Address.wrap(sender),
+                            TO,
+                            BigInteger.ONE.toByteArray(),
+                            new byte[0],
+                            21_000L,
+                            10_000_000_000L + (i % 7));
+            tx.sign(key);
+            tx.setNrgConsume(21_000L);
+            txs.add(tx);
+        }
+        return txs;
+    }
+
+    private static TxPoolA0<ITransaction> createPool() {
+        Properties config = new Properties();
+        config.put("tx-timeout", "100");
+        return new TxPoolA0<>(config);
+    }
+
+    @Test
+    public void benchmarkAdd() {
+        for (int poolSize : POOL_SIZES) {
+            List<ITransaction> txs = createTransactions(poolSize);
+
+            long total = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                TxPoolA0<ITransaction> tp = createPool();
+
+                long start = System.nanoTime();
+                tp.add(txs);
+                // the transactions are indexed on the next snapshot
+                tp.snapshot();
+                total += System.nanoTime() - start;
+
+                assertEquals(poolSize, tp.size());
+            }
+
+            System.out.format("add %d txs: %d ms%n", poolSize, total / ROUNDS / 1_000_000);
+        }
+    }
+
+    @Test
+    public void benchmarkSnapshot() {
+        for (int poolSize : POOL_SIZES) {
+            TxPoolA0<ITransaction> tp = createPool();
+            tp.add(createTransactions(poolSize));
+            tp.snapshot();
+
+            long total = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                long start = System.nanoTime();
+                tp.snapshot();
+                total += System.nanoTime() - start;
+            }
+
+            System.out.format("snapshot of %d txs: %d ms%n", poolSize, total / ROUNDS / 1_000_000);
+        }
+    }
+
+    @Test
+    public void benchmarkRemove() {
+        for (int poolSize : POOL_SIZES) {
+            List<ITransaction> txs = createTransactions(poolSize);
+
+            long total = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                TxPoolA0<ITransaction> tp = createPool();
+                tp.add(txs);
+                tp.snapshot();
+
+                // the account nonces after a block including one tx per account
+                Map<Address, BigInteger> accountNonces = new HashMap<>();
+                for (ITransaction tx : txs.subList(0, ACCOUNTS)) {
+                    accountNonces.put(tx.getFrom(), BigInteger.ONE);
+                }
+
+                long start = System.nanoTime();
+                tp.remove(accountNonces);
+                total += System.nanoTime() - start;
+
+                assertEquals(poolSize - ACCOUNTS, tp.size());
+            }
+
+            System.out.format(
+                    "remove %d txs from %d txs: %d ms%n",
+                    ACCOUNTS, poolSize, total / ROUNDS / 1_000_000);
+        }
+    }
+}
@@ -40,13 +40,19 @@ import org.slf4j.Logger;
 
 public abstract class AbstractExecutor {
     protected static Logger LOGGER;
-    protected static Object lock = new Object();
+
+    /**
+     * Serializes transaction execution. Executors marked as {@link #setConcurrent() concurrent}
+     * only hold it while running the virtual machine or a pre-compiled contract.
+     */
+    protected static final Object lock = new Object();
     protected IRepository repo;
     protected IRepositoryCache repoTrack;
     private boolean isLocalCall;
     protected IExecutionResult exeResult;
     private long blockRemainingNrg;
     private boolean askNonce = true;
+    private boolean concurrent = false;
 
     public AbstractExecutor(
             IRepository _repo, boolean _localCall, long _blkRemainingNrg, Logger _logger) {
@@ -58,39 +64,47 @@ public abstract class AbstractExecutor {
     }
 
     protected ITxExecSummary execute(ITransaction tx, long contextNrgLmit) {
+        if (concurrent) {
+            return executeInternal(tx, contextNrgLmit);
+        }
+
         synchronized (lock) {
-            // prepare, preliminary check
-            if (prepare(tx, contextNrgLmit)) {
-
-                if (!isLocalCall) {
-                    IRepositoryCache track = repo.startTracking();
-                    // increase nonce
-                    if (askNonce) {
-                        track.incrementNonce(tx.getFrom());
-                    }
-
-                    // charge nrg cost
-                    // Note: if the tx is a inpool tx, it will temp charge more balance for the
-                    // account
-                    // once the block info been updated. the balance in pendingPool will correct.
-                    BigInteger nrgLimit = BigInteger.valueOf(tx.getNrg());
-                    BigInteger nrgPrice = BigInteger.valueOf(tx.getNrgPrice());
-                    BigInteger txNrgCost = nrgLimit.multiply(nrgPrice);
-                    track.addBalance(tx.getFrom(), txNrgCost.negate());
-                    track.flush();
-                }
+            return executeInternal(tx, contextNrgLmit);
+        }
+    }
 
-                // run the logic
-                if (tx.isContractCreation()) {
-                    create();
-                } else {
-                    call();
+    private ITxExecSummary executeInternal(ITransaction tx, long contextNrgLmit) {
+        // prepare, preliminary check
+        if (prepare(tx, contextNrgLmit)) {
+
+            if (!isLocalCall) {
+                IRepositoryCache track = repo.startTracking();
+                // increase nonce
+                if (askNonce) {
+                    track.incrementNonce(tx.getFrom());
                 }
+
+                // charge nrg cost
+                // Note: if the tx is a inpool tx, it will temp charge more balance for the
+                // account
+                // once the block info been updated. the balance in pendingPool will correct.
+                BigInteger nrgLimit = BigInteger.valueOf(tx.getNrg());
+                BigInteger nrgPrice = BigInteger.valueOf(tx.getNrgPrice());
+                BigInteger txNrgCost = nrgLimit.multiply(nrgPrice);
+                track.addBalance(tx.getFrom(), txNrgCost.negate());
+                track.flush();
             }
 
-            // finalize
-            return finish();
+            // run the logic
+            if (tx.isContractCreation()) {
+                create();
+            } else {
+                call();
+            }
         }
+
+        // finalize
+        return finish();
     }
 
     /**
@@ -171,6 +185,14 @@ public abstract class AbstractExecutor {
         this.askNonce = false;
     }
 
+    /**
+     * Tells the executor that its repository is not shared with any other executor, allowing it
+     * to run concurrently with other executors outside of virtual machine calls.
+     */
+    public void setConcurrent() {
+        this.concurrent = true;
+    }
+
     /**
      * Returns the energy remaining after the transaction was executed. Prior to execution this
      * method simply returns the energy limit for the transaction.
@@ -179,13 +179,17 @@ public class TransactionExecutor extends AbstractExecutor {
     protected void call() {
         IPrecompiledContract pc = this.provider.getPrecompiledContract(this.ctx, this.repoTrack);
         if (pc != null) {
-            exeResult = pc.execute(tx.getData(), ctx.nrgLimit());
+            synchronized (lock) {
+                exeResult = pc.execute(tx.getData(), ctx.nrgLimit());
+            }
         } else {
             // execute code
             byte[] code = repoTrack.getCode(tx.getTo());
             if (!ArrayUtils.isEmpty(code)) {
                 VirtualMachine fvm = this.provider.getVM();
-                exeResult = fvm.run(code, ctx, repoTrack);
+                synchronized (lock) {
+                    exeResult = fvm.run(code, ctx, repoTrack);
+                }
             }
         }
 
@@ -210,7 +214,9 @@ public class TransactionExecutor extends AbstractExecutor {
         // execute contract deployer
         if (!ArrayUtils.isEmpty(tx.getData())) {
             VirtualMachine fvm = this.provider.getVM();
-            exeResult = fvm.run(tx.getData(), ctx, repoTrack);
+            synchronized (lock) {
+                exeResult = fvm.run(tx.getData(), ctx, repoTrack);
+            }
 
             if (exeResult.getCode() == ResultCode.SUCCESS.toInt()) {
                 repoTrack.saveCode(contractAddress, exeResult.getOutput());